@@ -0,0 +1,67 @@
+package com.libreria.benchmarks;
+
+import com.libreria.core.models.Producto;
+import com.libreria.core.services.IndiceBusquedaProductos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro del buscador de productos (el predicado del BuscadorProductosController,
+ * extraído en {@link IndiceBusquedaProductos}). Solo memoria: no usa SQLite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusquedaProductosBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int productos;
+
+    private List<Producto> catalogo;
+    private IndiceBusquedaProductos indice;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        catalogo = CatalogoSintetico.enMemoria(productos);
+        indice = new IndiceBusquedaProductos(catalogo);
+    }
+
+    /** Consulta selectiva con acento: la escribe el cajero sin tilde. */
+    @Benchmark
+    public List<Producto> buscarNombre() {
+        return indice.buscar("lapiz faber");
+    }
+
+    /** Prefijo de SKU que coincide con todo el catálogo (peor caso de resultados). */
+    @Benchmark
+    public List<Producto> buscarPrefijoAmplio() {
+        return indice.buscar("ben-");
+    }
+
+    /** Consulta de dos caracteres: no hay trigramas, recorre todas las claves. */
+    @Benchmark
+    public List<Producto> buscarCorta() {
+        return indice.buscar("ca");
+    }
+
+    @Benchmark
+    public IndiceBusquedaProductos construirIndice() {
+        return new IndiceBusquedaProductos(catalogo);
+    }
+}
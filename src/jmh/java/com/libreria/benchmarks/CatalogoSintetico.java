@@ -0,0 +1,104 @@
+package com.libreria.benchmarks;
+
+import com.libreria.core.models.Producto;
+import com.libreria.data.config.ConfiguracionConexion;
+import com.libreria.data.config.DatabaseManager;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de prueba para los benchmarks: un catálogo de librería determinista
+ * (mismos nombres, SKU y códigos en cada corrida) y bases SQLite temporales.
+ */
+final class CatalogoSintetico {
+
+    private static final String[] ARTICULOS = {
+            "Cuaderno", "Lápiz", "Birome", "Resaltador", "Carpeta", "Repuesto", "Goma", "Regla",
+            "Tijera", "Plasticola", "Cartulina", "Sacapuntas", "Compás", "Marcador", "Corrector", "Block" };
+    private static final String[] MARCAS = {
+            "Rivadavia", "Faber", "Bic", "Stabilo", "Éxito", "Gloria", "Maped", "Pizzini",
+            "Filgo", "Staedtler", "Laprida", "Ledesma" };
+    private static final String[] DETALLES = {
+            "48 hojas", "HB", "azul", "amarillo", "A4", "N°3", "rayado", "30 cm",
+            "escolar", "negro", "cuadriculado", "x12" };
+
+    private static final int PRIMER_ID = 1000;
+
+    private CatalogoSintetico() {
+    }
+
+    static String sku(int i) {
+        return "BEN-" + String.format("%06d", i);
+    }
+
+    static String codigoBarras(int i) {
+        return String.valueOf(7790000000000L + i);
+    }
+
+    static Producto producto(int i) {
+        String nombre = ARTICULOS[i % ARTICULOS.length] + " " + MARCAS[(i / 7) % MARCAS.length] + " "
+                + DETALLES[(i / 3) % DETALLES.length] + " " + i;
+        int costo = 500 + (i * 37) % 50_000;
+        return new Producto(PRIMER_ID + i, 1, codigoBarras(i), sku(i), nombre, "FISICO", costo, 1_000_000);
+    }
+
+    static List<Producto> enMemoria(int cantidad) {
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            productos.add(producto(i));
+        }
+        return productos;
+    }
+
+    /**
+     * Crea una base temporal con el esquema completo y la inicializa en {@link DatabaseManager}.
+     */
+    static Path crearBaseTemporal() {
+        try {
+            Path ruta = Files.createTempFile("pos-bench-", ".sqlite");
+            DatabaseManager.initDb(ConfiguracionConexion.porDefecto(ruta.toString()));
+            return ruta;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inserta {@code cantidad} productos físicos en una sola transacción.
+     */
+    static void cargar(Jdbi jdbi, int cantidad) {
+        jdbi.useTransaction(handle -> {
+            PreparedBatch batch = handle.prepareBatch("""
+                    INSERT INTO productos (id, categoria_id, codigo_barras, sku_interno, nombre, tipo,
+                                           precio_base_centavos, stock_actual)
+                    VALUES (:id, :categoriaId, :codigoBarras, :skuInterno, :nombre, :tipo,
+                            :precioBaseCentavos, :stockActual)
+                    """);
+            for (int i = 0; i < cantidad; i++) {
+                batch.bindMethods(producto(i)).add();
+            }
+            batch.execute();
+        });
+    }
+
+    /**
+     * Cierra los pools y borra el archivo junto con sus -wal/-shm.
+     */
+    static void borrar(Path ruta) {
+        DatabaseManager.cerrar();
+        try {
+            Files.deleteIfExists(ruta);
+            Files.deleteIfExists(Path.of(ruta + "-wal"));
+            Files.deleteIfExists(Path.of(ruta + "-shm"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.libreria.benchmarks;
+
+import com.libreria.core.models.dto.PrecioRequest;
+import com.libreria.core.models.dto.PrecioResult;
+import com.libreria.core.models.enums.Color;
+import com.libreria.core.models.enums.Faz;
+import com.libreria.core.models.enums.Tamano;
+import com.libreria.core.models.enums.TipoPapel;
+import com.libreria.core.services.PrecioCalculatorService;
+import com.libreria.data.config.DatabaseManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cotización de una fotocopia contra la matriz precargada (semilla de la migración V001).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrecioCalculatorBenchmark {
+
+    private Path base;
+    private PrecioCalculatorService servicio;
+    private int servicioId;
+
+    private final PrecioRequest a4BnSimple = new PrecioRequest(Tamano.A4, TipoPapel.OBRA_80G, Color.BN, Faz.SIMPLE);
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        base = CatalogoSintetico.crearBaseTemporal();
+        servicio = new PrecioCalculatorService(DatabaseManager.getLectura());
+        servicioId = servicio.calcularPrecioBase(a4BnSimple).servicioId();
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() {
+        CatalogoSintetico.borrar(base);
+    }
+
+    @Benchmark
+    public PrecioResult calcularPrecioBase() {
+        return servicio.calcularPrecioBase(a4BnSimple);
+    }
+
+    @Benchmark
+    public int precioCentavos() {
+        return servicio.precioCentavos(servicioId, Tamano.A4, TipoPapel.OBRA_80G, Color.BN, Faz.SIMPLE);
+    }
+}
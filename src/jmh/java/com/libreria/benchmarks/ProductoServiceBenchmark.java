@@ -0,0 +1,92 @@
+package com.libreria.benchmarks;
+
+import com.libreria.core.models.Producto;
+import com.libreria.core.services.ProductoService;
+import com.libreria.data.config.DatabaseManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda exacta (lector de códigos) y carga del catálogo completo sobre una base temporal.
+ * listarProductosActivos incluye la consulta SQLite, el mapeo y la reconstrucción de índices.
+ * buscarEnCatalogo* miden la búsqueda FTS5 (camino de los catálogos que no se cargan en memoria).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductoServiceBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int productos;
+
+    private Path base;
+    private ProductoService servicio;
+    private String[] codigos;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        base = CatalogoSintetico.crearBaseTemporal();
+        CatalogoSintetico.cargar(DatabaseManager.get(), productos);
+        servicio = new ProductoService(DatabaseManager.getLectura());
+        servicio.listarProductosActivos();
+
+        // Mezcla de códigos de barras y SKU (la búsqueda es exacta: tal como están cargados)
+        codigos = new String[1024];
+        for (int i = 0; i < codigos.length; i++) {
+            int n = (int) ((i * 2654435761L) % productos);
+            codigos[i] = (i % 2 == 0) ? CatalogoSintetico.codigoBarras(n) : CatalogoSintetico.sku(n);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() {
+        CatalogoSintetico.borrar(base);
+    }
+
+    @Benchmark
+    public Optional<Producto> buscarPorSku() {
+        String codigo = codigos[siguiente++ & (codigos.length - 1)];
+        return servicio.buscarPorSku(codigo);
+    }
+
+    @Benchmark
+    public Optional<Producto> buscarPorSkuInexistente() {
+        return servicio.buscarPorSku("NO-EXISTE-0001");
+    }
+
+    @Benchmark
+    public List<Producto> listarProductosActivos() {
+        return servicio.listarProductosActivos();
+    }
+
+    @Benchmark
+    public List<Producto> buscarEnCatalogoAmplio() {
+        // Una de cada 16 filas coincide: domina el ranking y el tope de resultados
+        return servicio.buscarEnCatalogo("cuad", 500);
+    }
+
+    @Benchmark
+    public List<Producto> buscarEnCatalogoPreciso() {
+        return servicio.buscarEnCatalogo("lapiz faber hb", 500);
+    }
+}
@@ -0,0 +1,78 @@
+package com.libreria.benchmarks;
+
+import com.libreria.core.models.Producto;
+import com.libreria.core.models.Venta;
+import com.libreria.core.models.dto.ItemCarrito;
+import com.libreria.core.models.enums.MetodoPago;
+import com.libreria.core.services.ConfiguracionService.Margenes;
+import com.libreria.core.services.VentaService;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.config.DatabaseManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cobro completo de un carrito sobre una base temporal en disco, por el mismo camino
+ * que usa la aplicación: carril de escritura, transacción con cabecera, detalles y stock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VentaServiceBenchmark {
+
+    private static final int PRODUCTOS = 1000;
+
+    @Param({ "1", "10", "100" })
+    public int lineas;
+
+    private Path base;
+    private CarrilEscritura carril;
+    private VentaService servicio;
+    private List<ItemCarrito> carrito;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        base = CatalogoSintetico.crearBaseTemporal();
+        CatalogoSintetico.cargar(DatabaseManager.get(), PRODUCTOS);
+        carril = new CarrilEscritura(DatabaseManager.get());
+        servicio = new VentaService(carril, null);
+
+        Margenes margenes = new Margenes(15_000, 15_200, 0);
+        carrito = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            Producto p = CatalogoSintetico.producto(i * 7 % PRODUCTOS);
+            carrito.add(new ItemCarrito(p.id(), p.nombre(), 1 + i % 3,
+                    margenes.precioTransferencia(p.getCosto()), margenes.precioEfectivo(p.getCosto()), true));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws InterruptedException {
+        carril.close();
+        CatalogoSintetico.borrar(base);
+    }
+
+    @Benchmark
+    public Venta realizarVenta() {
+        return servicio.realizarVenta(carrito, MetodoPago.EFECTIVO, null, false);
+    }
+}
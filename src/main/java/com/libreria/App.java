@@ -1,6 +1,7 @@
 package com.libreria;
 
 import atlantafx.base.theme.PrimerLight;
+import com.libreria.data.config.AppContainer;
 import com.libreria.data.config.DatabaseManager;
 import com.libreria.ui.utils.DialogUtils;
 import javafx.application.Application;
@@ -36,6 +37,12 @@ public class App extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Vaciar escrituras pendientes y cerrar conexiones antes de salir
+        AppContainer.cerrarSiExiste();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,80 @@
+package com.libreria.core.fiscal;
+
+/**
+ * Circuit breaker del servicio fiscal.
+ * CERRADO: las llamadas pasan. Tras {@code umbral} fallas transitorias seguidas pasa a
+ * ABIERTO: no se llama durante {@code aperturaMs}. Después queda SEMI_ABIERTO y deja
+ * pasar una sola llamada de prueba: si funciona se cierra, si falla se vuelve a abrir.
+ * Las respuestas definitivas (aprobada o rechazada) cuentan como éxito.
+ */
+public class CircuitoFiscal {
+
+    public enum Estado {
+        CERRADO, ABIERTO, SEMI_ABIERTO
+    }
+
+    private final int umbral;
+    private final long aperturaNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallasSeguidas;
+    private long abiertoHastaNanos;
+    private boolean pruebaEnCurso;
+
+    public CircuitoFiscal(int umbral, long aperturaMs) {
+        this.umbral = umbral;
+        this.aperturaNanos = aperturaMs * 1_000_000L;
+    }
+
+    /**
+     * @return true si se puede hacer una llamada ahora (en SEMI_ABIERTO, solo la de prueba).
+     */
+    public synchronized boolean permitir() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (System.nanoTime() - abiertoHastaNanos < 0) {
+                    return false;
+                }
+                estado = Estado.SEMI_ABIERTO;
+                pruebaEnCurso = true;
+                return true;
+            default:
+                if (pruebaEnCurso) {
+                    return false;
+                }
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    public synchronized void registrarExito() {
+        estado = Estado.CERRADO;
+        fallasSeguidas = 0;
+        pruebaEnCurso = false;
+    }
+
+    public synchronized void registrarFalla() {
+        fallasSeguidas++;
+        pruebaEnCurso = false;
+        if (estado == Estado.SEMI_ABIERTO || fallasSeguidas >= umbral) {
+            estado = Estado.ABIERTO;
+            abiertoHastaNanos = System.nanoTime() + aperturaNanos;
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * Milisegundos que faltan para poder probar de nuevo (0 si no está abierto).
+     */
+    public synchronized long msHastaReintento() {
+        if (estado != Estado.ABIERTO) {
+            return 0;
+        }
+        return Math.max(0, (abiertoHastaNanos - System.nanoTime()) / 1_000_000L);
+    }
+}
@@ -0,0 +1,17 @@
+package com.libreria.core.fiscal;
+
+/**
+ * Cliente del servicio de facturación electrónica (AFIP WSFE u otro).
+ * Se llama desde varios hilos del {@link TrabajadorFiscal} a la vez: debe ser thread-safe.
+ * Una venta puede llegar dos veces si la aplicación se cerró con la llamada en curso: una
+ * implementación real debe consultar el último comprobante autorizado antes de reenviar.
+ */
+public interface ClienteFacturacion {
+
+    /**
+     * Pide el CAE de una venta.
+     * @return el resultado definitivo (aprobada o rechazada).
+     * @throws FacturacionNoDisponibleException ante fallas transitorias (se reintenta).
+     */
+    ResultadoFacturacion autorizar(SolicitudFactura solicitud);
+}
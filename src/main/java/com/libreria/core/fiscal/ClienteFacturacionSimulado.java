@@ -0,0 +1,57 @@
+package com.libreria.core.fiscal;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cliente local que imita al servicio fiscal, para pruebas y demostraciones.
+ * Numera los comprobantes por punto de venta, inventa un CAE de 14 dígitos con
+ * vencimiento a 10 días y rechaza CUITs mal formados. La latencia y la tasa de fallas
+ * transitorias son configurables para ejercitar reintentos y el circuito.
+ * NO usar en producción: los CAE no son válidos.
+ */
+public class ClienteFacturacionSimulado implements ClienteFacturacion {
+
+    private final Duration latencia;
+    private final double probabilidadFalla;
+    private final Map<Integer, AtomicInteger> ultimoNumero = new ConcurrentHashMap<>();
+
+    public ClienteFacturacionSimulado() {
+        this(Duration.ofMillis(150), 0.0);
+    }
+
+    /**
+     * @param probabilidadFalla Fracción de llamadas (0 a 1) que fallan como si el servicio no respondiera.
+     */
+    public ClienteFacturacionSimulado(Duration latencia, double probabilidadFalla) {
+        this.latencia = latencia;
+        this.probabilidadFalla = probabilidadFalla;
+    }
+
+    @Override
+    public ResultadoFacturacion autorizar(SolicitudFactura solicitud) {
+        try {
+            Thread.sleep(latencia);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FacturacionNoDisponibleException("Llamada interrumpida", e);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < probabilidadFalla) {
+            throw new FacturacionNoDisponibleException("Servicio fiscal simulado no disponible");
+        }
+
+        String cuit = solicitud.cuitCliente();
+        if (cuit != null && !cuit.matches("\\d{11}")) {
+            return ResultadoFacturacion.rechazada(solicitud.ventaId(), "CUIT inválido: " + cuit);
+        }
+
+        int numero = ultimoNumero.computeIfAbsent(solicitud.puntoVenta(), k -> new AtomicInteger()).incrementAndGet();
+        String cae = String.valueOf(70_000_000_000_000L + random.nextLong(10_000_000_000_000L));
+        return ResultadoFacturacion.aprobada(solicitud.ventaId(), cae, LocalDate.now().plusDays(10), numero);
+    }
+}
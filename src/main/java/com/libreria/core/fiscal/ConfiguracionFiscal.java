@@ -0,0 +1,62 @@
+package com.libreria.core.fiscal;
+
+import java.time.Duration;
+
+/**
+ * Parámetros del {@link TrabajadorFiscal}.
+ * Se pueden ajustar con propiedades de sistema "pos.fiscal.*" (ver {@link #desdePropiedadesSistema()}).
+ *
+ * @param tamanoLote        Ventas tomadas de la cola por vuelta.
+ * @param concurrencia      Llamadas simultáneas al servicio fiscal.
+ * @param timeoutLlamada    Tiempo máximo de una llamada; al vencer cuenta como falla transitoria.
+ * @param intervaloSondeo   Espera cuando la cola está vacía (una venta nueva despierta antes al trabajador).
+ * @param pausaEntreLotes   Respiro entre lotes seguidos: limita el ritmo de envío.
+ * @param maxIntentos       Fallas transitorias antes de pasar la venta a ERROR.
+ * @param esperaBase        Espera tras la primera falla; se duplica en cada intento.
+ * @param esperaMaxima      Tope de la espera entre intentos.
+ * @param umbralCircuito    Fallas seguidas que abren el circuito.
+ * @param aperturaCircuito  Tiempo con el circuito abierto antes de probar de nuevo.
+ */
+public record ConfiguracionFiscal(
+        int tamanoLote,
+        int concurrencia,
+        Duration timeoutLlamada,
+        Duration intervaloSondeo,
+        Duration pausaEntreLotes,
+        int maxIntentos,
+        Duration esperaBase,
+        Duration esperaMaxima,
+        int umbralCircuito,
+        Duration aperturaCircuito) {
+
+    public static ConfiguracionFiscal porDefecto() {
+        return new ConfiguracionFiscal(20, 4, Duration.ofSeconds(15), Duration.ofSeconds(10),
+                Duration.ofMillis(200), 8, Duration.ofSeconds(5), Duration.ofMinutes(10), 5, Duration.ofSeconds(30));
+    }
+
+    public static ConfiguracionFiscal desdePropiedadesSistema() {
+        ConfiguracionFiscal d = porDefecto();
+        return new ConfiguracionFiscal(
+                Integer.getInteger("pos.fiscal.lote", d.tamanoLote()),
+                Integer.getInteger("pos.fiscal.concurrencia", d.concurrencia()),
+                Duration.ofMillis(Long.getLong("pos.fiscal.timeoutMs", d.timeoutLlamada().toMillis())),
+                Duration.ofMillis(Long.getLong("pos.fiscal.intervaloMs", d.intervaloSondeo().toMillis())),
+                Duration.ofMillis(Long.getLong("pos.fiscal.pausaMs", d.pausaEntreLotes().toMillis())),
+                Integer.getInteger("pos.fiscal.maxIntentos", d.maxIntentos()),
+                Duration.ofMillis(Long.getLong("pos.fiscal.esperaBaseMs", d.esperaBase().toMillis())),
+                Duration.ofMillis(Long.getLong("pos.fiscal.esperaMaximaMs", d.esperaMaxima().toMillis())),
+                Integer.getInteger("pos.fiscal.umbralCircuito", d.umbralCircuito()),
+                Duration.ofMillis(Long.getLong("pos.fiscal.aperturaMs", d.aperturaCircuito().toMillis())));
+    }
+
+    /**
+     * Espera antes del intento siguiente a {@code intentos} fallas: base * 2^(intentos-1),
+     * con tope y ±20% de variación para que las ventas no se reintenten todas juntas.
+     */
+    public Duration esperaReintento(int intentos, double azar) {
+        long base = esperaBase.toMillis();
+        int exponente = Math.min(Math.max(intentos - 1, 0), 20);
+        long espera = Math.min(base << exponente, esperaMaxima.toMillis());
+        return Duration.ofMillis((long) (espera * (0.8 + 0.4 * azar)));
+    }
+}
@@ -0,0 +1,15 @@
+package com.libreria.core.fiscal;
+
+/**
+ * Falla transitoria (sin conexión, timeout, servicio caído): la venta se reintenta más tarde.
+ */
+public class FacturacionNoDisponibleException extends RuntimeException {
+
+    public FacturacionNoDisponibleException(String mensaje) {
+        super(mensaje);
+    }
+
+    public FacturacionNoDisponibleException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
@@ -0,0 +1,25 @@
+package com.libreria.core.fiscal;
+
+import java.time.LocalDate;
+
+/**
+ * Respuesta definitiva de la autoridad fiscal: aprobada (con CAE) o rechazada (con motivo).
+ * Los errores transitorios no son un resultado: el cliente lanza
+ * {@link FacturacionNoDisponibleException}.
+ */
+public record ResultadoFacturacion(
+        int ventaId,
+        boolean aprobada,
+        String cae,
+        LocalDate vtoCae,
+        Integer numeroFactura,
+        String motivoRechazo) {
+
+    public static ResultadoFacturacion aprobada(int ventaId, String cae, LocalDate vtoCae, int numeroFactura) {
+        return new ResultadoFacturacion(ventaId, true, cae, vtoCae, numeroFactura, null);
+    }
+
+    public static ResultadoFacturacion rechazada(int ventaId, String motivo) {
+        return new ResultadoFacturacion(ventaId, false, null, null, null, motivo);
+    }
+}
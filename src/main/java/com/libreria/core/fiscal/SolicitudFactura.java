@@ -0,0 +1,15 @@
+package com.libreria.core.fiscal;
+
+import org.jdbi.v3.core.mapper.reflect.ColumnName;
+
+/**
+ * Datos de una venta que se envían a autorizar.
+ * @param intentos Intentos ya fallidos antes de este.
+ */
+public record SolicitudFactura(
+        @ColumnName("id") int ventaId,
+        @ColumnName("total_centavos") int totalCentavos,
+        @ColumnName("cuit_cliente") String cuitCliente,
+        @ColumnName("punto_venta") int puntoVenta,
+        @ColumnName("intentos_fiscal") int intentos) {
+}
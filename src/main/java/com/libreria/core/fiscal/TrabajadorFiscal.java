@@ -0,0 +1,236 @@
+package com.libreria.core.fiscal;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.dao.FiscalDao;
+import com.libreria.data.replicacion.Terminal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * TRABAJADOR FISCAL
+ * --------------------------------------------------
+ * Responsabilidad: Autorizar en segundo plano las ventas con factura (estado PENDIENTE).
+ * El cobro nunca espera al servicio fiscal: la venta se guarda PENDIENTE y este hilo
+ * la toma de la cola, la envía y guarda el CAE (o el motivo de rechazo).
+ * <p>
+ * Por vuelta toma un lote (marcado ENVIADO en una sola sentencia), lo envía con hasta
+ * {@code concurrencia} llamadas simultáneas en hilos virtuales y escribe todos los
+ * resultados en una transacción del carril. Las fallas transitorias se reintentan con
+ * espera exponencial; tras {@code maxIntentos} la venta queda en ERROR. Si el servicio
+ * falla seguido, el {@link CircuitoFiscal} corta los envíos por un tiempo.
+ */
+public class TrabajadorFiscal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrabajadorFiscal.class);
+
+    private static final MetricaOperacion METRICA_AUTORIZAR = Metricas.operacion("Fiscal.autorizar");
+
+    private final CarrilEscritura carril;
+    private final ClienteFacturacion cliente;
+    private final ConfiguracionFiscal config;
+    private final CircuitoFiscal circuito;
+    // Rango de IDs de las ventas propias (con varias cajas, las demás las factura cada una)
+    private final long idDesde;
+    private final long idHasta;
+    private final ExecutorService llamadas;
+    private final Thread hilo;
+    // Un permiso = "hay ventas nuevas"; corta la espera del sondeo
+    private final Semaphore despertador = new Semaphore(0);
+    private volatile boolean activo = true;
+
+    public TrabajadorFiscal(CarrilEscritura carril, ClienteFacturacion cliente, ConfiguracionFiscal config) {
+        this(carril, cliente, config, null);
+    }
+
+    /**
+     * @param terminal Caja de un local con varias (null = caja única, factura todas las ventas).
+     */
+    public TrabajadorFiscal(CarrilEscritura carril, ClienteFacturacion cliente, ConfiguracionFiscal config,
+            Terminal terminal) {
+        this.carril = carril;
+        this.cliente = cliente;
+        this.config = config;
+        this.idDesde = terminal != null ? terminal.primerId() : 0;
+        this.idHasta = terminal != null ? terminal.ultimoId() : Long.MAX_VALUE;
+        this.circuito = new CircuitoFiscal(config.umbralCircuito(), config.aperturaCircuito().toMillis());
+        this.llamadas = Executors.newFixedThreadPool(config.concurrencia(),
+                Thread.ofVirtual().name("fiscal-llamada-", 0).factory());
+        this.hilo = Thread.ofPlatform().name("trabajador-fiscal").daemon(true).unstarted(this::ejecutar);
+    }
+
+    /**
+     * Devuelve a la cola lo que quedó ENVIADO en la sesión anterior y arranca el hilo.
+     */
+    public void iniciar() {
+        int reencoladas = carril.ejecutar(
+                handle -> handle.attach(FiscalDao.class).reencolarEnviadas(idDesde, idHasta));
+        if (reencoladas > 0) {
+            logger.info("[Fiscal] {} ventas enviadas sin respuesta vuelven a la cola.", reencoladas);
+        }
+        hilo.start();
+    }
+
+    /**
+     * Avisa que hay ventas nuevas para no esperar al próximo sondeo. No bloquea.
+     */
+    public void despertar() {
+        despertador.release();
+    }
+
+    public CircuitoFiscal.Estado getEstadoCircuito() {
+        return circuito.getEstado();
+    }
+
+    /**
+     * Termina el lote en curso (las llamadas sin respuesta vuelven a la cola sin contar
+     * como intento) y detiene el hilo. Llamar antes de cerrar el carril.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        activo = false;
+        despertar();
+        llamadas.shutdownNow();
+        hilo.join(5000);
+    }
+
+    private void ejecutar() {
+        while (activo) {
+            try {
+                long esperaCircuito = circuito.msHastaReintento();
+                if (esperaCircuito > 0) {
+                    dormir(esperaCircuito);
+                    continue;
+                }
+                int procesadas = procesarLote();
+                dormir(procesadas == 0 ? config.intervaloSondeo().toMillis() : config.pausaEntreLotes().toMillis());
+            } catch (InterruptedException e) {
+                if (!activo) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Error de base: las ventas tomadas quedan ENVIADO y vuelven a la cola al reiniciar
+                logger.error("[Fiscal] Error procesando la cola", e);
+                try {
+                    dormir(config.intervaloSondeo().toMillis());
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera el tiempo indicado o hasta que llegue una venta nueva.
+     */
+    private void dormir(long ms) throws InterruptedException {
+        if (despertador.tryAcquire(ms, TimeUnit.MILLISECONDS)) {
+            despertador.drainPermits();
+        }
+    }
+
+    /**
+     * @return cantidad de ventas tomadas de la cola.
+     */
+    int procesarLote() throws InterruptedException {
+        List<SolicitudFactura> lote = carril.ejecutar(
+                handle -> handle.attach(FiscalDao.class).tomarPendientes(config.tamanoLote(), idDesde, idHasta));
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<ResultadoFacturacion>> futuros = new ArrayList<>(lote.size());
+        for (SolicitudFactura solicitud : lote) {
+            futuros.add(llamadas.submit(() -> autorizar(solicitud)));
+        }
+
+        // Las llamadas de un lote se encolan en el pool: el plazo total cubre todas las tandas
+        int tandas = (lote.size() + config.concurrencia() - 1) / config.concurrencia();
+        long limiteNanos = System.nanoTime() + config.timeoutLlamada().toNanos() * tandas;
+
+        List<ResultadoFacturacion> resueltas = new ArrayList<>();
+        List<FiscalDao.Reintento> reintentos = new ArrayList<>();
+        List<Integer> noEnviadas = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            SolicitudFactura solicitud = lote.get(i);
+            Future<ResultadoFacturacion> futuro = futuros.get(i);
+            try {
+                ResultadoFacturacion resultado = futuro.get(Math.max(0, limiteNanos - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+                if (resultado != null) {
+                    resueltas.add(resultado);
+                } else {
+                    noEnviadas.add(solicitud.ventaId());
+                }
+            } catch (TimeoutException e) {
+                futuro.cancel(true);
+                circuito.registrarFalla();
+                reintentos.add(reintento(solicitud, "Sin respuesta en " + config.timeoutLlamada().toSeconds() + " s"));
+            } catch (ExecutionException | CancellationException e) {
+                if (!activo) {
+                    // Cierre de la aplicación: la llamada se cortó, no es culpa del servicio
+                    noEnviadas.add(solicitud.ventaId());
+                } else {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    reintentos.add(reintento(solicitud, causa.getMessage()));
+                }
+            }
+        }
+
+        carril.ejecutar(handle -> {
+            FiscalDao dao = handle.attach(FiscalDao.class);
+            dao.registrarResultados(resueltas);
+            dao.reprogramar(reintentos);
+            dao.devolver(noEnviadas);
+            return null;
+        });
+
+        if (!reintentos.isEmpty() || !noEnviadas.isEmpty()) {
+            logger.warn("[Fiscal] Lote de {}: {} resueltas, {} a reintentar, {} sin enviar (circuito {}).",
+                    lote.size(), resueltas.size(), reintentos.size(), noEnviadas.size(), circuito.getEstado());
+        }
+        return lote.size();
+    }
+
+    /**
+     * Llamada al servicio fiscal. Devuelve null si el circuito no la dejó pasar.
+     */
+    private ResultadoFacturacion autorizar(SolicitudFactura solicitud) {
+        if (!activo || !circuito.permitir()) {
+            return null;
+        }
+        long inicio = System.nanoTime();
+        try {
+            ResultadoFacturacion resultado = cliente.autorizar(solicitud);
+            METRICA_AUTORIZAR.registrar(inicio, true);
+            circuito.registrarExito();
+            return resultado;
+        } catch (RuntimeException e) {
+            // Cualquier falla que no sea una respuesta del servicio se trata como transitoria
+            METRICA_AUTORIZAR.registrar(inicio, false);
+            circuito.registrarFalla();
+            throw e;
+        }
+    }
+
+    private FiscalDao.Reintento reintento(SolicitudFactura solicitud, String error) {
+        int intentos = solicitud.intentos() + 1;
+        boolean agotado = intentos >= config.maxIntentos();
+        long espera = agotado ? 0
+                : config.esperaReintento(intentos, ThreadLocalRandom.current().nextDouble()).toSeconds();
+        return new FiscalDao.Reintento(solicitud.ventaId(), intentos, espera, error, agotado);
+    }
+}
@@ -0,0 +1,109 @@
+package com.libreria.core.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin locks, de tamaño fijo.
+ * Los buckets son log-lineales: cada potencia de 2 se divide en 8 partes, así que
+ * un percentil se reporta con un error menor al 12,5% sin importar la escala
+ * (de nanosegundos a minutos). Registrar un valor es un par de operaciones atómicas
+ * y no asigna memoria.
+ */
+public final class HistogramaLatencia {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Valores menores a 16 ns tienen bucket propio (exacto)
+    private static final int LINEALES = 16;
+    private static final int BUCKETS = LINEALES + (63 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumaNanos = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrar(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        cuentas.incrementAndGet(indice(nanos));
+        total.increment();
+        sumaNanos.add(nanos);
+
+        long actual = maximo.get();
+        while (nanos > actual && !maximo.compareAndSet(actual, nanos)) {
+            actual = maximo.get();
+        }
+    }
+
+    public long cantidad() {
+        return total.sum();
+    }
+
+    public long maximoNanos() {
+        return maximo.get();
+    }
+
+    public long mediaNanos() {
+        long n = total.sum();
+        return n == 0 ? 0 : sumaNanos.sum() / n;
+    }
+
+    /**
+     * Cota superior del percentil pedido (p entre 0 y 1), acotada por el máximo observado.
+     */
+    public long percentilNanos(double p) {
+        long[] copia = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copia[i] = cuentas.get(i);
+            n += copia[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        long objetivo = Math.max(1, (long) Math.ceil(p * n));
+        long acumulado = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Vuelve a cero. Los registros concurrentes con el reinicio pueden perderse.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < BUCKETS; i++) {
+            cuentas.set(i, 0);
+        }
+        total.reset();
+        sumaNanos.reset();
+        maximo.set(0);
+    }
+
+    private static int indice(long nanos) {
+        if (nanos < LINEALES) {
+            return (int) nanos;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) ((nanos >>> (exponente - SUB_BITS)) & (SUB_BUCKETS - 1));
+        return LINEALES + (exponente - 4) * SUB_BUCKETS + sub;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < LINEALES) {
+            return indice;
+        }
+        int exponente = (indice - LINEALES) / SUB_BUCKETS + 4;
+        int sub = (indice - LINEALES) % SUB_BUCKETS;
+        long ancho = 1L << (exponente - SUB_BITS);
+        return (1L << exponente) + sub * ancho + ancho - 1;
+    }
+}
@@ -0,0 +1,80 @@
+package com.libreria.core.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latencias, llamadas y errores de una operación (método de servicio o sentencia SQL).
+ * Se obtiene una sola vez con {@link Metricas#operacion(String)} y se guarda en un campo
+ * estático: registrar no busca en ningún mapa ni asigna memoria.
+ */
+public final class MetricaOperacion {
+
+    private final String nombre;
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+    private final LongAdder errores = new LongAdder();
+
+    MetricaOperacion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Registra una llamada que empezó en {@code inicioNanos} (System.nanoTime()).
+     */
+    public void registrar(long inicioNanos, boolean exito) {
+        registrarDuracion(System.nanoTime() - inicioNanos, exito);
+    }
+
+    public void registrarDuracion(long nanos, boolean exito) {
+        latencias.registrar(nanos);
+        if (!exito) {
+            errores.increment();
+        }
+    }
+
+    /**
+     * Ejecuta y mide la operación; una excepción cuenta como error y se propaga.
+     */
+    public <T> T medir(Supplier<T> operacion) {
+        long inicio = System.nanoTime();
+        boolean exito = false;
+        try {
+            T resultado = operacion.get();
+            exito = true;
+            return resultado;
+        } finally {
+            registrar(inicio, exito);
+        }
+    }
+
+    public void medir(Runnable operacion) {
+        long inicio = System.nanoTime();
+        boolean exito = false;
+        try {
+            operacion.run();
+            exito = true;
+        } finally {
+            registrar(inicio, exito);
+        }
+    }
+
+    public ResumenOperacion resumen() {
+        return new ResumenOperacion(
+                nombre,
+                latencias.cantidad(),
+                errores.sum(),
+                latencias.percentilNanos(0.50),
+                latencias.percentilNanos(0.99),
+                latencias.maximoNanos(),
+                latencias.mediaNanos());
+    }
+
+    void reiniciar() {
+        latencias.reiniciar();
+        errores.reset();
+    }
+}
@@ -0,0 +1,86 @@
+package com.libreria.core.metricas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * REGISTRO DE MÉTRICAS
+ * --------------------------------------------------
+ * Punto único donde servicios y DAOs registran sus latencias.
+ * Los nombres siguen la convención "Clase.metodo" para servicios y "sql.Dao.metodo"
+ * para sentencias. La cantidad de operaciones está acotada: pasado el tope todo lo
+ * nuevo se acumula en "otros", así una clave mal armada no hace crecer la memoria.
+ */
+public final class Metricas {
+
+    private static final int MAX_OPERACIONES = 512;
+    private static final String OTROS = "otros";
+
+    private static final Map<String, MetricaOperacion> operaciones = new ConcurrentHashMap<>();
+    private static volatile long inicioMillis = System.currentTimeMillis();
+
+    private Metricas() {
+    }
+
+    /**
+     * Devuelve (o crea) la métrica con ese nombre.
+     */
+    public static MetricaOperacion operacion(String nombre) {
+        MetricaOperacion existente = operaciones.get(nombre);
+        if (existente != null) {
+            return existente;
+        }
+        if (operaciones.size() >= MAX_OPERACIONES) {
+            return operaciones.computeIfAbsent(OTROS, MetricaOperacion::new);
+        }
+        return operaciones.computeIfAbsent(nombre, MetricaOperacion::new);
+    }
+
+    /**
+     * Resumen de todas las operaciones con al menos una llamada, ordenado por nombre.
+     */
+    public static List<ResumenOperacion> resumen() {
+        List<ResumenOperacion> lista = new ArrayList<>(operaciones.size());
+        for (MetricaOperacion m : operaciones.values()) {
+            ResumenOperacion r = m.resumen();
+            if (r.llamadas() > 0) {
+                lista.add(r);
+            }
+        }
+        lista.sort(Comparator.comparing(ResumenOperacion::nombre));
+        return lista;
+    }
+
+    /**
+     * Momento desde el que se acumulan los datos (inicio de la app o último reinicio).
+     */
+    public static long getInicioMillis() {
+        return inicioMillis;
+    }
+
+    /**
+     * Pone todos los contadores en cero (las referencias guardadas siguen siendo válidas).
+     */
+    public static void reiniciar() {
+        operaciones.values().forEach(MetricaOperacion::reiniciar);
+        inicioMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Tabla de texto alineada, para logs y archivos de volcado.
+     */
+    public static String comoTexto() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-52s %10s %8s %10s %10s %10s%n", "operacion", "llamadas", "errores",
+                "p50 ms", "p99 ms", "max ms"));
+        for (ResumenOperacion r : resumen()) {
+            sb.append(String.format("%-52s %10d %8d %10s %10s %10s%n", r.nombre(), r.llamadas(), r.errores(),
+                    ResumenOperacion.ms(r.p50Nanos()), ResumenOperacion.ms(r.p99Nanos()),
+                    ResumenOperacion.ms(r.maximoNanos())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.libreria.core.metricas;
+
+import java.util.Locale;
+
+/**
+ * Foto inmutable de una {@link MetricaOperacion} (para la vista de diagnóstico y el volcado).
+ */
+public record ResumenOperacion(
+        String nombre,
+        long llamadas,
+        long errores,
+        long p50Nanos,
+        long p99Nanos,
+        long maximoNanos,
+        long mediaNanos) {
+
+    /**
+     * Nanosegundos expresados en milisegundos con 3 decimales.
+     */
+    public static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
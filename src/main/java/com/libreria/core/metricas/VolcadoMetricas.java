@@ -0,0 +1,77 @@
+package com.libreria.core.metricas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vuelca periódicamente las métricas al log y, opcionalmente, a un archivo de texto.
+ * Propiedades de sistema:
+ * <ul>
+ *   <li>pos.metricas.intervaloSeg: segundos entre volcados (por defecto 300, 0 = desactivado)</li>
+ *   <li>pos.metricas.archivo: archivo donde se agregan los volcados (opcional)</li>
+ * </ul>
+ */
+public class VolcadoMetricas implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(VolcadoMetricas.class);
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ScheduledExecutorService planificador;
+    private final Path archivo;
+
+    private VolcadoMetricas(long intervaloSeg, Path archivo) {
+        this.archivo = archivo;
+        this.planificador = Executors.newSingleThreadScheduledExecutor(
+                r -> Thread.ofPlatform().name("volcado-metricas").daemon(true).unstarted(r));
+        planificador.scheduleAtFixedRate(this::volcar, intervaloSeg, intervaloSeg, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Inicia el volcado según las propiedades de sistema; null si está desactivado.
+     */
+    public static VolcadoMetricas desdePropiedadesSistema() {
+        long intervalo = Long.getLong("pos.metricas.intervaloSeg", 300);
+        if (intervalo <= 0) {
+            return null;
+        }
+        String ruta = System.getProperty("pos.metricas.archivo");
+        return new VolcadoMetricas(intervalo, (ruta == null || ruta.isBlank()) ? null : Path.of(ruta));
+    }
+
+    /**
+     * Escribe el estado actual (también se llama al cerrar).
+     */
+    public void volcar() {
+        try {
+            String tabla = Metricas.comoTexto();
+            logger.info("Métricas de rendimiento:\n{}", tabla);
+            if (archivo != null) {
+                String bloque = "# " + LocalDateTime.now().format(FORMATO_FECHA) + "\n" + tabla + "\n";
+                Files.writeString(archivo, bloque, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo escribir el volcado de métricas en {}", archivo, e);
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las ejecuciones siguientes del planificador
+            logger.warn("Error volcando métricas", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        planificador.shutdownNow();
+        volcar();
+    }
+}
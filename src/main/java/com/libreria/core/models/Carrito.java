@@ -0,0 +1,146 @@
+package com.libreria.core.models;
+
+import com.libreria.core.models.dto.ItemCarrito;
+import com.libreria.core.models.enums.MetodoPago;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CARRITO DE LA VENTA EN CURSO
+ * --------------------------------------------------
+ * Renglones indexados por {@link Clave} (agregar un producto repetido suma cantidad sin
+ * recorrer la lista) y totales acumulados para ambos medios de pago, que se ajustan con
+ * cada alta, baja o cambio de cantidad. Cambiar el medio de pago no recalcula nada.
+ * No es thread-safe: lo usa el hilo de la UI.
+ */
+public class Carrito {
+
+    private final Map<Clave, ItemCarrito> lineas = new LinkedHashMap<>();
+    private long totalEfectivoCentavos;
+    private long totalListaCentavos;
+    private MetodoPago metodoPago = MetodoPago.TRANSFERENCIA;
+
+    /**
+     * Identidad de un renglón. Un producto físico es un solo renglón; un servicio se
+     * distingue además por su descripción (A4 B/N y A4 Color son renglones distintos
+     * aunque los cotice el mismo servicio).
+     */
+    public record Clave(int productoId, boolean esProductoFisico, String descripcion) {
+        public static Clave de(ItemCarrito item) {
+            return new Clave(item.productoId(), item.esProductoFisico(),
+                    item.esProductoFisico() ? null : item.nombreProducto());
+        }
+    }
+
+    /**
+     * Agrega el ítem o, si ya hay un renglón con la misma clave, le suma la cantidad.
+     * @return el renglón resultante.
+     */
+    public ItemCarrito agregar(ItemCarrito item) {
+        Clave clave = Clave.de(item);
+        ItemCarrito existente = lineas.get(clave);
+        ItemCarrito resultado = (existente == null) ? item : conCantidad(existente, existente.cantidad() + item.cantidad());
+        reemplazar(clave, existente, resultado);
+        return resultado;
+    }
+
+    /**
+     * Fija la cantidad de un renglón; con 0 o menos lo quita.
+     * @return el renglón actualizado, o null si se quitó o no existía.
+     */
+    public ItemCarrito cambiarCantidad(Clave clave, int cantidad) {
+        ItemCarrito existente = lineas.get(clave);
+        if (existente == null) {
+            return null;
+        }
+        if (cantidad <= 0) {
+            quitar(clave);
+            return null;
+        }
+        ItemCarrito resultado = conCantidad(existente, cantidad);
+        reemplazar(clave, existente, resultado);
+        return resultado;
+    }
+
+    /**
+     * @return el renglón quitado, o null si no existía.
+     */
+    public ItemCarrito quitar(Clave clave) {
+        ItemCarrito existente = lineas.remove(clave);
+        if (existente != null) {
+            restar(existente);
+        }
+        return existente;
+    }
+
+    public void vaciar() {
+        lineas.clear();
+        totalEfectivoCentavos = 0;
+        totalListaCentavos = 0;
+    }
+
+    public ItemCarrito get(Clave clave) {
+        return lineas.get(clave);
+    }
+
+    public void setMetodoPago(MetodoPago metodoPago) {
+        this.metodoPago = metodoPago;
+    }
+
+    public MetodoPago getMetodoPago() {
+        return metodoPago;
+    }
+
+    /**
+     * Total a cobrar con el medio de pago actual.
+     */
+    public int getTotalCentavos() {
+        return getTotalCentavos(metodoPago);
+    }
+
+    public int getTotalCentavos(MetodoPago pago) {
+        return Math.toIntExact(pago == MetodoPago.EFECTIVO ? totalEfectivoCentavos : totalListaCentavos);
+    }
+
+    /**
+     * Copia de los renglones en orden de alta.
+     */
+    public List<ItemCarrito> getItems() {
+        return new ArrayList<>(lineas.values());
+    }
+
+    public int cantidadLineas() {
+        return lineas.size();
+    }
+
+    public boolean isEmpty() {
+        return lineas.isEmpty();
+    }
+
+    private void reemplazar(Clave clave, ItemCarrito anterior, ItemCarrito nuevo) {
+        if (anterior != null) {
+            restar(anterior);
+        }
+        lineas.put(clave, nuevo);
+        totalEfectivoCentavos += nuevo.calcularSubtotal(true);
+        totalListaCentavos += nuevo.calcularSubtotal(false);
+    }
+
+    private void restar(ItemCarrito item) {
+        totalEfectivoCentavos -= item.calcularSubtotal(true);
+        totalListaCentavos -= item.calcularSubtotal(false);
+    }
+
+    private static ItemCarrito conCantidad(ItemCarrito item, int cantidad) {
+        return new ItemCarrito(
+                item.productoId(),
+                item.nombreProducto(),
+                cantidad,
+                item.precioListaCentavos(),
+                item.precioEfectivoCentavos(),
+                item.esProductoFisico());
+    }
+}
@@ -0,0 +1,17 @@
+package com.libreria.core.models;
+
+import org.jdbi.v3.core.mapper.reflect.ColumnName;
+
+/**
+ * Fila de la tabla matriz_precios.
+ * Las dimensiones se leen como texto: la tabla admite valores (ej: 'CARTA')
+ * que todavía no tienen Enum en el código.
+ */
+public record MatrizPrecio(
+        @ColumnName("servicio_id") Integer servicioId,
+        String tamano,
+        @ColumnName("tipo_papel") String tipoPapel,
+        String color,
+        String faz,
+        @ColumnName("precio_centavos") Integer precioCentavos) {
+}
@@ -22,16 +22,4 @@ public record Producto(
     public Integer getCosto() {
         return precioBaseCentavos;
     }
-
-    public Integer getPrecioEfectivo(double margen) {
-        if (precioBaseCentavos == null)
-            return 0;
-        return (int) Math.round(precioBaseCentavos * margen);
-    }
-
-    public Integer getPrecioTransferencia(double margen) {
-        if (precioBaseCentavos == null)
-            return 0;
-        return (int) Math.round(precioBaseCentavos * margen);
-    }
 }
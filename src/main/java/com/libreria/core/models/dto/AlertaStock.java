@@ -0,0 +1,7 @@
+package com.libreria.core.models.dto;
+
+/**
+ * Un producto quedó en su stock mínimo o por debajo después de una venta.
+ */
+public record AlertaStock(int productoId, String nombreProducto, int stockActual, int stockMinimo) {
+}
@@ -0,0 +1,8 @@
+package com.libreria.core.models.dto;
+
+/**
+ * Posición en el catálogo ordenado por (nombre, id): primera fila de una página.
+ * Permite saltar a cualquier página con una consulta keyset, sin OFFSET.
+ */
+public record AnclaCatalogo(String nombre, int id) {
+}
@@ -0,0 +1,19 @@
+package com.libreria.core.models.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cierre de caja de un día: totales, apertura por medio de pago y ventas por hora.
+ *
+ * @param terminal Caja cerrada (número de {@code Terminal}, 0 = base de una sola caja);
+ *                 null = todo el local.
+ */
+public record CierreCaja(
+        LocalDate fecha,
+        Integer terminal,
+        long ventas,
+        long totalCentavos,
+        List<TotalAgrupado> porMetodoPago,
+        List<TotalAgrupado> porHora) {
+}
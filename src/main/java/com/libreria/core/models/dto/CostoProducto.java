@@ -0,0 +1,11 @@
+package com.libreria.core.models.dto;
+
+import org.jdbi.v3.core.mapper.reflect.ColumnName;
+
+/**
+ * Costo de un producto activo, para armar la lista de precios.
+ */
+public record CostoProducto(
+        int id,
+        @ColumnName("precio_base_centavos") Integer costoCentavos) {
+}
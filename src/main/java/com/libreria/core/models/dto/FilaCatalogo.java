@@ -0,0 +1,22 @@
+package com.libreria.core.models.dto;
+
+/**
+ * Renglón validado de una lista de precios a importar.
+ * Los campos opcionales que no vinieron en el archivo son null (no se modifican).
+ *
+ * @param linea         Número de línea en el archivo (para informar rechazos).
+ * @param original      Texto de la línea tal como vino.
+ * @param costoCentavos Costo del proveedor: es el precio base del que salen los precios de venta.
+ */
+public record FilaCatalogo(
+        long linea,
+        String original,
+        String sku,
+        String codigoBarras,
+        String nombre,
+        String descripcion,
+        String categoria,
+        int costoCentavos,
+        Integer stock,
+        Integer stockMinimo) {
+}
@@ -0,0 +1,12 @@
+package com.libreria.core.models.dto;
+
+import org.jdbi.v3.core.mapper.reflect.ColumnName;
+
+/**
+ * Stock de un producto físico tal como está en SQLite.
+ */
+public record NivelStock(
+        @ColumnName("id") int productoId,
+        @ColumnName("stock_actual") int stockActual,
+        @ColumnName("stock_minimo") int stockMinimo) {
+}
@@ -2,9 +2,10 @@ package com.libreria.core.models.dto;
 
 /**
  * Response Inmutable.
- * Devuelve centavos para manejo monetario seguro.
+ * Devuelve centavos para manejo monetario seguro y el servicio (productos.id)
+ * al que pertenece la fila de la matriz.
  */
-public record PrecioResult(Integer precioCentavos) {
+public record PrecioResult(Integer precioCentavos, Integer servicioId) {
     public double getPrecioFormatoDecimal() {
         return precioCentavos / 100.0;
     }
@@ -0,0 +1,18 @@
+package com.libreria.core.models.dto;
+
+/**
+ * Avance de una importación, informado después de cada lote escrito.
+ */
+public record ProgresoImportacion(
+        long lineas,
+        long insertadas,
+        long actualizadas,
+        long sinCambios,
+        long rechazadas,
+        long bytesLeidos,
+        long bytesTotales) {
+
+    public int porcentaje() {
+        return bytesTotales > 0 ? (int) Math.min(100, bytesLeidos * 100 / bytesTotales) : 0;
+    }
+}
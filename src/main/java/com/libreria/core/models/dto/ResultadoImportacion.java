@@ -0,0 +1,20 @@
+package com.libreria.core.models.dto;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación terminada.
+ * @param primerosRechazos Algunos rechazos de muestra; el detalle completo va al archivo de rechazos.
+ */
+public record ResultadoImportacion(
+        long lineas,
+        long insertadas,
+        long actualizadas,
+        long sinCambios,
+        long rechazadas,
+        long duracionMs,
+        List<Rechazo> primerosRechazos) {
+
+    public record Rechazo(long linea, String motivo, String original) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.libreria.core.models.dto;
+
+import org.jdbi.v3.core.mapper.reflect.ColumnName;
+
+/**
+ * Una fila de reporte: grupo (día, hora, medio de pago, producto o categoría),
+ * cantidad (ventas o unidades, según el reporte) e importe.
+ */
+public record TotalAgrupado(
+        String grupo,
+        long cantidad,
+        @ColumnName("total_centavos") long totalCentavos) {
+}
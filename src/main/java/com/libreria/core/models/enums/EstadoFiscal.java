@@ -1,9 +1,14 @@
 package com.libreria.core.models.enums;
 
+/**
+ * Los nombres coinciden con el CHECK de ventas.estado_fiscal. El diario de ventas guarda
+ * el ordinal: no reordenar, solo agregar al final.
+ */
 public enum EstadoFiscal {
     NO_REQUIERE,    // Ticket X o venta interna
     PENDIENTE,      // Lista para ser enviada al worker de AFIP
-    ENVIADA_AFIP,   // En proceso
-    FACTURADA_OK,   // CAE obtenido
-    ERROR           // Rechazada
+    ENVIADO,        // Tomada por el worker, esperando respuesta
+    APROBADO,       // CAE obtenido
+    ERROR,          // Se agotaron los reintentos (requiere revisión)
+    RECHAZADO       // AFIP rechazó el comprobante
 }
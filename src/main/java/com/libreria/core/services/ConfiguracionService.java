@@ -1,40 +1,187 @@
 package com.libreria.core.services;
 
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.data.config.CarrilEscritura;
 import com.libreria.data.dao.ConfiguracionDao;
 import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+/**
+ * CONFIGURACIÓN
+ * --------------------------------------------------
+ * La tabla configuracion se lee entera y se publica como una {@link Instantanea} inmutable:
+ * los lectores (UI, hilos de búsqueda) toman la referencia vigente sin bloquear y nunca ven
+ * una recarga a medias. Los márgenes ya vienen convertidos a punto fijo; calcular un precio
+ * no parsea texto ni usa double.
+ * <p>
+ * Cada recarga aumenta la versión y avisa a los oyentes (cachés de precios armados).
+ */
 public class ConfiguracionService {
+    private static final Logger logger = LoggerFactory.getLogger(ConfiguracionService.class);
+    private static final MetricaOperacion METRICA_ACTUALIZAR = Metricas.operacion("ConfiguracionService.actualizarConfiguracion");
+
+    public static final String MARGEN_EFECTIVO = "MARGEN_EFECTIVO";
+    public static final String MARGEN_TRANSFERENCIA = "MARGEN_TRANSFERENCIA";
+    // Los márgenes se guardan en diezmilésimos: 1.52 -> 15200
+    public static final int ESCALA_MARGEN = 10_000;
+
     private final ConfiguracionDao dao;
-    private final Map<String, String> cache = new HashMap<>();
+    private final CarrilEscritura carril;
+    private final AtomicReference<Instantanea> actual = new AtomicReference<>(
+            new Instantanea(Map.of(), new Margenes(15_000, 15_200, 0)));
+    private final List<Consumer<Instantanea>> oyentes = new CopyOnWriteArrayList<>();
 
     public ConfiguracionService(Jdbi jdbi) {
+        this(jdbi, null);
+    }
+
+    /**
+     * @param carril Carril de escritura para las actualizaciones (null = directo por el DAO).
+     */
+    public ConfiguracionService(Jdbi jdbi, CarrilEscritura carril) {
         this.dao = jdbi.onDemand(ConfiguracionDao.class);
+        this.carril = carril;
         // Cargar inicialmente
         try {
             recargarCache();
         } catch (Exception e) {
             // Si falla al inicio (ej: tabla no existe aun en tests), usar defaults
-            System.err.println("Advertencia: No se pudo cargar la configuración inicial: " + e.getMessage());
+            logger.warn("No se pudo cargar la configuración inicial: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lee la tabla y publica una instantánea nueva. Las recargas se serializan para que
+     * la versión publicada nunca retroceda; las lecturas no esperan.
+     */
+    public synchronized void recargarCache() {
+        Map<String, String> valores = new HashMap<>();
+        dao.listarTodas().forEach(c -> valores.put(c.clave(), c.valor()));
+
+        Margenes anteriores = actual.get().margenes();
+        Margenes margenes = new Margenes(
+                margen(valores, MARGEN_EFECTIVO, anteriores.efectivo()),
+                margen(valores, MARGEN_TRANSFERENCIA, anteriores.transferencia()),
+                anteriores.version() + 1);
+        Instantanea nueva = new Instantanea(Map.copyOf(valores), margenes);
+        actual.set(nueva);
+
+        for (Consumer<Instantanea> oyente : oyentes) {
+            try {
+                oyente.accept(nueva);
+            } catch (RuntimeException e) {
+                logger.error("Error en oyente de configuración", e);
+            }
         }
     }
 
-    public void recargarCache() {
-        cache.clear();
-        dao.listarTodas().forEach(c -> cache.put(c.clave(), c.valor()));
+    /**
+     * Configuración vigente completa. No bloquea.
+     */
+    public Instantanea getConfiguracion() {
+        return actual.get();
+    }
+
+    /**
+     * Ambos márgenes y su versión, leídos juntos (nunca mezcla valores de dos recargas).
+     */
+    public Margenes getMargenes() {
+        return actual.get().margenes();
+    }
+
+    /**
+     * El oyente recibe cada instantánea nueva, en el hilo que hizo la recarga
+     * (normalmente el de la UI que guardó el cambio): no debe bloquear.
+     */
+    public void agregarOyente(Consumer<Instantanea> oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void quitarOyente(Consumer<Instantanea> oyente) {
+        oyentes.remove(oyente);
     }
 
-    public double getMargenEfectivo() {
-        return Double.parseDouble(cache.getOrDefault("MARGEN_EFECTIVO", "1.50"));
+    /**
+     * Configuración leída en una recarga. Inmutable.
+     */
+    public record Instantanea(Map<String, String> valores, Margenes margenes) {
+
+        public long version() {
+            return margenes.version();
+        }
+
+        /**
+         * Valor crudo de una clave sin campo tipado, o null si no existe.
+         */
+        public String valor(String clave) {
+            return valores.get(clave);
+        }
+    }
+
+    /**
+     * Multiplicadores sobre el costo, en diezmilésimos ({@link #ESCALA_MARGEN}).
+     * @param version Cambia en cada recarga de la configuración.
+     */
+    public record Margenes(int efectivo, int transferencia, long version) {
+
+        public int precioEfectivo(Integer costoCentavos) {
+            return aplicar(costoCentavos, efectivo);
+        }
+
+        public int precioTransferencia(Integer costoCentavos) {
+            return aplicar(costoCentavos, transferencia);
+        }
+
+        /**
+         * costo * margen redondeado al centavo (mitad hacia arriba), en enteros.
+         */
+        public static int aplicar(Integer costoCentavos, int margen) {
+            if (costoCentavos == null) {
+                return 0;
+            }
+            return (int) Math.floorDiv((long) costoCentavos * margen + ESCALA_MARGEN / 2, ESCALA_MARGEN);
+        }
     }
 
-    public double getMargenTransferencia() {
-        return Double.parseDouble(cache.getOrDefault("MARGEN_TRANSFERENCIA", "1.52"));
+    /**
+     * "1.52" -> 15200. Un valor ilegible conserva el margen anterior.
+     */
+    private static int margen(Map<String, String> valores, String clave, int anterior) {
+        String texto = valores.get(clave);
+        if (texto == null) {
+            return anterior;
+        }
+        try {
+            return new BigDecimal(texto.strip().replace(',', '.')).movePointRight(4)
+                    .setScale(0, RoundingMode.HALF_UP).intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            logger.warn("{} inválido ({}), se mantiene el anterior.", clave, texto);
+            return anterior;
+        }
     }
 
     public void actualizarConfiguracion(String clave, String valor) {
-        dao.actualizar(valor, clave);
-        recargarCache();
+        METRICA_ACTUALIZAR.medir(() -> {
+            if (carril != null) {
+                carril.ejecutar(handle -> {
+                    handle.attach(ConfiguracionDao.class).actualizar(valor, clave);
+                    return null;
+                });
+            } else {
+                dao.actualizar(valor, clave);
+            }
+            recargarCache();
+        });
     }
 }
@@ -0,0 +1,157 @@
+package com.libreria.core.services;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.models.Venta;
+import com.libreria.data.dao.HistorialDao;
+import com.libreria.data.historico.ArchivosMensuales;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * HISTORIAL DE VENTAS
+ * --------------------------------------------------
+ * Responsabilidad: Consultar ventas de cualquier fecha, estén en la base o ya archivadas
+ * (ver {@link com.libreria.data.historico.ArchivadorVentas}).
+ * La consulta se reparte entre la base principal y los archivos de los meses que toca el
+ * período, cada uno en su propio hilo virtual, y los resultados se unen ordenados. Los
+ * archivos se abren solo de lectura y recién cuando una consulta los necesita.
+ * Una venta que por un archivo cortado a mitad quedó en ambos lados se cuenta una vez.
+ */
+public class HistorialVentasService {
+
+    private static final MetricaOperacion METRICA_CONSULTA = Metricas.operacion("Historial.ventasEntre");
+    private static final Comparator<Venta> MAS_NUEVA_PRIMERO = Comparator
+            .comparing(Venta::fechaCreacion, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Venta::id, Comparator.reverseOrder());
+
+    private final Jdbi jdbiLectura;
+    private final Path carpeta;
+    private final ExecutorService executor;
+    private final Map<Path, Jdbi> archivos = new ConcurrentHashMap<>();
+
+    /**
+     * @param carpeta Carpeta de los archivos mensuales (null = solo la base principal).
+     */
+    public HistorialVentasService(Jdbi jdbiLectura, Path carpeta, ExecutorService executor) {
+        this.jdbiLectura = jdbiLectura;
+        this.carpeta = carpeta;
+        this.executor = executor;
+    }
+
+    /**
+     * Ventas entre dos días (ambos inclusive, hora local), de la más nueva a la más vieja.
+     *
+     * @param cuit Solo las de este cliente (null = todas).
+     */
+    public List<Venta> ventasEntre(LocalDate desde, LocalDate hasta, String cuit, int limite) {
+        return METRICA_CONSULTA.medir(() -> {
+            String desdeUtc = ArchivosMensuales.inicioUtc(desde);
+            String hastaUtc = ArchivosMensuales.inicioUtc(hasta.plusDays(1));
+            List<List<Venta>> parciales = enParalelo(fuentes(YearMonth.from(desde), YearMonth.from(hasta)),
+                    dao -> dao.ventasEntre(desdeUtc, hastaUtc, cuit, limite));
+
+            Map<Integer, Venta> unidas = new LinkedHashMap<>();
+            parciales.forEach(lista -> lista.forEach(v -> unidas.putIfAbsent(v.id(), v)));
+            List<Venta> ventas = new ArrayList<>(unidas.values());
+            ventas.sort(MAS_NUEVA_PRIMERO);
+            return ventas.size() > limite ? List.copyOf(ventas.subList(0, limite)) : ventas;
+        });
+    }
+
+    /**
+     * Busca la venta en la base y, si no está, en todos los archivos a la vez.
+     */
+    public Optional<Venta> buscarVenta(long id) {
+        Optional<Venta> reciente = jdbiLectura.withExtension(HistorialDao.class, dao -> dao.buscar(id));
+        if (reciente.isPresent() || carpeta == null) {
+            return reciente;
+        }
+        List<Jdbi> todos = new ArrayList<>();
+        listarArchivos().values().forEach(ruta -> todos.add(archivo(ruta)));
+        return enParalelo(todos, dao -> dao.buscar(id)).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    /**
+     * La base principal primero (gana ante duplicados) y los archivos del período.
+     */
+    private List<Jdbi> fuentes(YearMonth desde, YearMonth hasta) {
+        List<Jdbi> fuentes = new ArrayList<>();
+        fuentes.add(jdbiLectura);
+        if (carpeta != null) {
+            listarArchivos().subMap(desde, true, hasta, true).values().forEach(ruta -> fuentes.add(archivo(ruta)));
+        }
+        return fuentes;
+    }
+
+    private <T> List<T> enParalelo(List<Jdbi> fuentes, Function<HistorialDao, T> consulta) {
+        if (fuentes.size() == 1) {
+            return List.of(fuentes.get(0).withExtension(HistorialDao.class, consulta::apply));
+        }
+        List<Future<T>> futuros = new ArrayList<>(fuentes.size());
+        for (Jdbi fuente : fuentes) {
+            futuros.add(executor.submit(() -> fuente.withExtension(HistorialDao.class, consulta::apply)));
+        }
+        List<T> resultados = new ArrayList<>(fuentes.size());
+        try {
+            for (Future<T> futuro : futuros) {
+                resultados.add(futuro.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuros.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Consulta del historial interrumpida", e);
+        } catch (ExecutionException e) {
+            futuros.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Error consultando el historial: " + e.getCause().getMessage(), e);
+        }
+        return resultados;
+    }
+
+    private NavigableMap<YearMonth, Path> listarArchivos() {
+        try {
+            return ArchivosMensuales.listar(carpeta);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la carpeta del historial " + carpeta, e);
+        }
+    }
+
+    /**
+     * Acceso de solo lectura a un archivo mensual: cada consulta abre y cierra su conexión.
+     */
+    private Jdbi archivo(Path ruta) {
+        return archivos.computeIfAbsent(ruta, r -> {
+            SQLiteConfig sqlite = new SQLiteConfig();
+            sqlite.setReadOnly(true);
+            // El archivador puede estar agregando ventas al mismo mes
+            sqlite.setBusyTimeout(5000);
+            Jdbi jdbi = Jdbi.create("jdbc:sqlite:" + r, sqlite.toProperties());
+            jdbi.installPlugin(new SqlObjectPlugin());
+            return jdbi;
+        });
+    }
+}
@@ -0,0 +1,519 @@
+package com.libreria.core.services;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.models.dto.FilaCatalogo;
+import com.libreria.core.models.dto.ProgresoImportacion;
+import com.libreria.core.models.dto.ResultadoImportacion;
+import com.libreria.core.models.dto.ResultadoImportacion.Rechazo;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.dao.ImportacionDao;
+import com.libreria.data.dao.ImportacionDao.Actualizacion;
+import com.libreria.data.dao.ImportacionDao.ProductoExistente;
+import com.libreria.hardware.scanner.CodigoBarras;
+import org.jdbi.v3.core.Handle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * IMPORTACIÓN DE LISTAS DE PRECIOS (CSV)
+ * --------------------------------------------------
+ * Responsabilidad: Dar de alta o actualizar productos físicos desde la lista de un proveedor.
+ * <p>
+ * El archivo se lee en lotes de {@code filasPorLote} líneas (memoria constante): cada lote
+ * se valida en paralelo y se escribe en una transacción del carril de escritura, con
+ * PreparedBatch. Mientras el carril escribe un lote se lee y valida el siguiente; entre
+ * lote y lote entran las ventas de la caja, así que la base nunca queda tomada por toda
+ * la importación.
+ * <p>
+ * Un renglón coincide con un producto por sku_interno o, si no, por codigo_barras.
+ * Los productos existentes actualizan costo, nombre, descripción, categoría y stock
+ * mínimo (el stock solo se toma en las altas). Las actualizaciones que solo cambian el
+ * costo no tocan el índice de texto completo. Las categorías desconocidas se crean.
+ * <p>
+ * Encabezado obligatorio (separador ';' o ','): sku, nombre, costo; opcionales:
+ * codigo_barras, descripcion, categoria, stock, stock_minimo. Los campos pueden ir entre
+ * comillas dobles, pero no ocupar más de una línea.
+ */
+public class ImportadorCatalogo {
+
+    public static final int FILAS_POR_LOTE = 5000;
+    private static final int MAX_RECHAZOS_EN_RESULTADO = 20;
+    private static final MetricaOperacion METRICA_LOTE = Metricas.operacion("ImportadorCatalogo.lote");
+
+    private final CarrilEscritura carril;
+    private final int filasPorLote;
+
+    public ImportadorCatalogo(CarrilEscritura carril) {
+        this(carril, FILAS_POR_LOTE);
+    }
+
+    public ImportadorCatalogo(CarrilEscritura carril, int filasPorLote) {
+        this.carril = carril;
+        this.filasPorLote = filasPorLote;
+    }
+
+    /**
+     * Importa el archivo. Los lotes ya escritos quedan aunque uno posterior falle;
+     * volver a importar el mismo archivo es seguro (actualiza en lugar de duplicar).
+     *
+     * @param rechazos Archivo donde se copian las líneas rechazadas con el motivo (puede ser null).
+     * @param progreso Se llama después de cada lote, desde el hilo que importa (puede ser null).
+     * @throws IllegalArgumentException si falta el encabezado o una columna obligatoria.
+     */
+    public ResultadoImportacion importar(Path csv, Charset charset, Path rechazos,
+            Consumer<ProgresoImportacion> progreso) throws IOException {
+        long inicio = System.currentTimeMillis();
+        long bytesTotales = Files.size(csv);
+        Totales totales = new Totales();
+
+        try (ContadorBytes entrada = new ContadorBytes(Files.newInputStream(csv));
+                BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, charset), 1 << 16);
+                BufferedWriter salidaRechazos = rechazos != null
+                        ? Files.newBufferedWriter(rechazos, StandardCharsets.UTF_8)
+                        : null) {
+
+            String encabezado = reader.readLine();
+            if (encabezado == null) {
+                throw new IllegalArgumentException("El archivo está vacío");
+            }
+            if (encabezado.startsWith("\uFEFF")) {
+                encabezado = encabezado.substring(1);
+            }
+            char separador = encabezado.indexOf(';') >= 0 ? ';' : ',';
+            Columnas columnas = Columnas.de(separarCampos(encabezado, separador));
+            if (salidaRechazos != null) {
+                salidaRechazos.write("linea;motivo;contenido");
+                salidaRechazos.newLine();
+            }
+
+            long numeroLinea = 1;
+            CompletableFuture<ResultadoLote> enCurso = null;
+            List<Linea> lote = new ArrayList<>(filasPorLote);
+            while (true) {
+                lote.clear();
+                String texto;
+                while (lote.size() < filasPorLote && (texto = reader.readLine()) != null) {
+                    numeroLinea++;
+                    if (!texto.isBlank()) {
+                        lote.add(new Linea(numeroLinea, texto));
+                    }
+                }
+                if (lote.isEmpty()) {
+                    break;
+                }
+
+                // Validación en paralelo; el orden del lote se conserva
+                List<Validacion> validadas = lote.parallelStream()
+                        .map(linea -> validar(linea, columnas, separador))
+                        .toList();
+                List<FilaCatalogo> filas = new ArrayList<>(validadas.size());
+                List<Rechazo> rechazados = new ArrayList<>();
+                for (Validacion v : validadas) {
+                    if (v.fila() != null) {
+                        filas.add(v.fila());
+                    } else {
+                        rechazados.add(v.rechazo());
+                    }
+                }
+                quitarRepetidos(filas, rechazados);
+                totales.lineas += lote.size();
+                totales.rechazar(rechazados, salidaRechazos);
+
+                // Un lote en escritura a la vez: memoria acotada y lugar para las ventas entre lotes
+                if (enCurso != null) {
+                    totales.sumar(esperar(enCurso), salidaRechazos);
+                    informar(progreso, totales, entrada.leidos(), bytesTotales);
+                }
+                enCurso = carril.enviar(handle -> METRICA_LOTE.medir(() -> escribirLote(handle, filas)));
+            }
+            if (enCurso != null) {
+                totales.sumar(esperar(enCurso), salidaRechazos);
+            }
+            informar(progreso, totales, bytesTotales, bytesTotales);
+        }
+
+        return new ResultadoImportacion(totales.lineas, totales.insertadas, totales.actualizadas,
+                totales.sinCambios, totales.rechazadas, System.currentTimeMillis() - inicio,
+                List.copyOf(totales.muestra));
+    }
+
+    /**
+     * Escribe un lote dentro de la transacción del carril.
+     */
+    private static ResultadoLote escribirLote(Handle handle, List<FilaCatalogo> filas) {
+        ResultadoLote resultado = new ResultadoLote();
+        if (filas.isEmpty()) {
+            return resultado;
+        }
+        ImportacionDao dao = handle.attach(ImportacionDao.class);
+
+        Set<String> skus = new HashSet<>();
+        Set<String> barras = new HashSet<>();
+        Set<String> nombresCategorias = new LinkedHashSet<>();
+        for (FilaCatalogo f : filas) {
+            skus.add(f.sku());
+            if (f.codigoBarras() != null) {
+                barras.add(f.codigoBarras());
+            }
+            if (f.categoria() != null) {
+                nombresCategorias.add(f.categoria());
+            }
+        }
+        Map<String, Integer> categorias = dao.idsCategorias(nombresCategorias);
+
+        Map<String, ProductoExistente> porSku = new HashMap<>();
+        Map<String, ProductoExistente> porBarras = new HashMap<>();
+        for (ProductoExistente p : dao.buscarExistentes(skus, barras)) {
+            porSku.put(p.sku(), p);
+            if (p.codigoBarras() != null) {
+                porBarras.put(p.codigoBarras(), p);
+            }
+        }
+
+        List<FilaCatalogo> altas = new ArrayList<>();
+        List<Actualizacion> soloPrecio = new ArrayList<>();
+        List<Actualizacion> completas = new ArrayList<>();
+        for (FilaCatalogo f : filas) {
+            ProductoExistente segunSku = porSku.get(f.sku());
+            ProductoExistente segunBarras = f.codigoBarras() != null ? porBarras.get(f.codigoBarras()) : null;
+            if (segunSku != null && segunBarras != null && segunSku.id() != segunBarras.id()) {
+                resultado.rechazos.add(new Rechazo(f.linea(), "El código de barras " + f.codigoBarras()
+                        + " pertenece a otro producto (SKU " + segunBarras.sku() + ")", f.original()));
+                continue;
+            }
+            ProductoExistente existente = segunSku != null ? segunSku : segunBarras;
+            if (existente == null) {
+                altas.add(f);
+                continue;
+            }
+            if ("SERVICIO".equals(existente.tipo())) {
+                resultado.rechazos.add(new Rechazo(f.linea(), "El SKU corresponde a un servicio", f.original()));
+                continue;
+            }
+
+            Integer categoriaId = f.categoria() != null ? categorias.get(f.categoria()) : null;
+            Actualizacion cambio = new Actualizacion(existente.id(), f, categoriaId);
+            if (cambiaTexto(existente, f)) {
+                completas.add(cambio);
+            } else if (existente.costoCentavos() != f.costoCentavos()
+                    || (categoriaId != null && !categoriaId.equals(existente.categoriaId()))
+                    || (f.stockMinimo() != null && !f.stockMinimo().equals(existente.stockMinimo()))) {
+                soloPrecio.add(cambio);
+            } else {
+                resultado.sinCambios++;
+            }
+        }
+
+        dao.insertar(altas, categorias);
+        dao.actualizarPrecios(soloPrecio);
+        dao.actualizarCompleto(completas);
+        resultado.insertadas = altas.size();
+        resultado.actualizadas = soloPrecio.size() + completas.size();
+        return resultado;
+    }
+
+    private static boolean cambiaTexto(ProductoExistente existente, FilaCatalogo f) {
+        return !existente.sku().equals(f.sku())
+                || !existente.nombre().equals(f.nombre())
+                || (f.codigoBarras() != null && !f.codigoBarras().equals(existente.codigoBarras()))
+                || (f.descripcion() != null && !f.descripcion().equals(existente.descripcion()));
+    }
+
+    /**
+     * Dentro de un lote, un SKU o código de barras repetido se rechaza (queda el primero).
+     * Entre lotes distintos el último renglón actualiza al anterior.
+     */
+    private static void quitarRepetidos(List<FilaCatalogo> filas, List<Rechazo> rechazados) {
+        Map<String, Long> skus = new HashMap<>();
+        Map<String, Long> barras = new HashMap<>();
+        filas.removeIf(f -> {
+            Long anterior = skus.putIfAbsent(f.sku(), f.linea());
+            if (anterior == null && f.codigoBarras() != null) {
+                anterior = barras.putIfAbsent(f.codigoBarras(), f.linea());
+            }
+            if (anterior != null) {
+                rechazados.add(new Rechazo(f.linea(), "Repetido en el archivo (línea " + anterior + ")", f.original()));
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static Validacion validar(Linea linea, Columnas columnas, char separador) {
+        List<String> campos;
+        try {
+            campos = separarCampos(linea.texto(), separador);
+        } catch (IllegalArgumentException e) {
+            return Validacion.rechazo(linea, e.getMessage());
+        }
+
+        String sku = columnas.texto(campos, columnas.sku);
+        if (sku == null) {
+            return Validacion.rechazo(linea, "Falta el SKU");
+        }
+        String nombre = columnas.texto(campos, columnas.nombre);
+        if (nombre == null) {
+            return Validacion.rechazo(linea, "Falta el nombre");
+        }
+
+        String barras = columnas.texto(campos, columnas.codigoBarras);
+        if (barras != null && CodigoBarras.normalizar(barras) == null) {
+            return Validacion.rechazo(linea, "Código de barras con dígito verificador inválido: " + barras);
+        }
+
+        String costoTexto = columnas.texto(campos, columnas.costo);
+        Integer costo = costoTexto != null ? centavos(costoTexto) : null;
+        if (costo == null || costo < 0) {
+            return Validacion.rechazo(linea, "Costo inválido: " + Objects.toString(costoTexto, "(vacío)"));
+        }
+
+        Integer stock = null;
+        Integer stockMinimo = null;
+        try {
+            stock = entero(columnas.texto(campos, columnas.stock));
+            stockMinimo = entero(columnas.texto(campos, columnas.stockMinimo));
+        } catch (NumberFormatException e) {
+            return Validacion.rechazo(linea, "Stock inválido");
+        }
+
+        return new Validacion(new FilaCatalogo(linea.numero(), linea.texto(), sku, barras, nombre,
+                columnas.texto(campos, columnas.descripcion), columnas.texto(campos, columnas.categoria),
+                costo, stock, stockMinimo), null);
+    }
+
+    /**
+     * "1234.5", "1234,50", "$ 1.234,56": el último separador es el decimal.
+     * @return el importe en centavos, o null si no es un número.
+     */
+    static Integer centavos(String texto) {
+        String limpio = texto.replace("$", "").replace(" ", "");
+        int coma = limpio.lastIndexOf(',');
+        int punto = limpio.lastIndexOf('.');
+        if (coma >= 0 && punto >= 0) {
+            char decimal = coma > punto ? ',' : '.';
+            char miles = decimal == ',' ? '.' : ',';
+            limpio = limpio.replace(String.valueOf(miles), "").replace(decimal, '.');
+        } else {
+            limpio = limpio.replace(',', '.');
+        }
+        try {
+            return new BigDecimal(limpio).movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Integer entero(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        int valor = Integer.parseInt(texto);
+        if (valor < 0) {
+            throw new NumberFormatException("negativo");
+        }
+        return valor;
+    }
+
+    /**
+     * Separa una línea CSV. Admite campos entre comillas dobles con "" como comilla literal.
+     */
+    private static List<String> separarCampos(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private static ResultadoLote esperar(CompletableFuture<ResultadoLote> lote) {
+        try {
+            return lote.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Error escribiendo un lote de la importación: "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static void informar(Consumer<ProgresoImportacion> progreso, Totales t, long leidos, long total) {
+        if (progreso != null) {
+            progreso.accept(new ProgresoImportacion(t.lineas, t.insertadas, t.actualizadas, t.sinCambios,
+                    t.rechazadas, leidos, total));
+        }
+    }
+
+    private record Linea(long numero, String texto) {
+    }
+
+    private record Validacion(FilaCatalogo fila, Rechazo rechazo) {
+        static Validacion rechazo(Linea linea, String motivo) {
+            return new Validacion(null, new Rechazo(linea.numero(), motivo, linea.texto()));
+        }
+    }
+
+    private static final class ResultadoLote {
+        long insertadas;
+        long actualizadas;
+        long sinCambios;
+        final List<Rechazo> rechazos = new ArrayList<>();
+    }
+
+    private static final class Totales {
+        long lineas;
+        long insertadas;
+        long actualizadas;
+        long sinCambios;
+        long rechazadas;
+        final List<Rechazo> muestra = new ArrayList<>();
+
+        void sumar(ResultadoLote lote, BufferedWriter salida) throws IOException {
+            insertadas += lote.insertadas;
+            actualizadas += lote.actualizadas;
+            sinCambios += lote.sinCambios;
+            rechazar(lote.rechazos, salida);
+        }
+
+        void rechazar(List<Rechazo> rechazos, BufferedWriter salida) throws IOException {
+            rechazadas += rechazos.size();
+            for (Rechazo r : rechazos) {
+                if (muestra.size() < MAX_RECHAZOS_EN_RESULTADO) {
+                    muestra.add(r);
+                }
+                if (salida != null) {
+                    salida.write(r.linea() + ";\"" + r.motivo().replace("\"", "\"\"") + "\";" + r.original());
+                    salida.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Posición de cada columna según el encabezado (-1 si no vino).
+     */
+    private static final class Columnas {
+        int sku = -1;
+        int codigoBarras = -1;
+        int nombre = -1;
+        int descripcion = -1;
+        int categoria = -1;
+        int costo = -1;
+        int stock = -1;
+        int stockMinimo = -1;
+
+        static Columnas de(List<String> encabezado) {
+            Columnas c = new Columnas();
+            for (int i = 0; i < encabezado.size(); i++) {
+                switch (encabezado.get(i).strip().toLowerCase(Locale.ROOT)) {
+                    case "sku", "sku_interno" -> c.sku = i;
+                    case "codigo_barras", "ean", "barras" -> c.codigoBarras = i;
+                    case "nombre" -> c.nombre = i;
+                    case "descripcion" -> c.descripcion = i;
+                    case "categoria" -> c.categoria = i;
+                    case "costo", "precio", "precio_costo" -> c.costo = i;
+                    case "stock", "stock_actual" -> c.stock = i;
+                    case "stock_minimo" -> c.stockMinimo = i;
+                    default -> {
+                        // Columnas extra del proveedor: se ignoran
+                    }
+                }
+            }
+            if (c.sku < 0 || c.nombre < 0 || c.costo < 0) {
+                throw new IllegalArgumentException(
+                        "El encabezado debe tener las columnas sku, nombre y costo: " + encabezado);
+            }
+            return c;
+        }
+
+        /**
+         * Campo sin espacios alrededor, o null si está vacío o la línea es más corta.
+         */
+        String texto(List<String> campos, int indice) {
+            if (indice < 0 || indice >= campos.size()) {
+                return null;
+            }
+            String valor = campos.get(indice).strip();
+            return valor.isEmpty() ? null : valor;
+        }
+    }
+
+    /**
+     * Cuenta los bytes leídos del archivo para informar el avance.
+     */
+    private static final class ContadorBytes extends FilterInputStream {
+        private long leidos;
+
+        ContadorBytes(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                leidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int largo) throws IOException {
+            int n = super.read(destino, desde, largo);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+
+        long leidos() {
+            return leidos;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.libreria.core.services;
+
+import com.libreria.core.models.Producto;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * ÍNDICE DE BÚSQUEDA DEL CATÁLOGO (Inmutable)
+ * --------------------------------------------------
+ * Responsabilidad: Resolver búsquedas por subcadena sobre nombre, SKU y código de barras
+ * sin normalizar el catálogo en cada tecla.
+ * Al construirse guarda una clave por producto (minúsculas y sin acentos) y un índice
+ * invertido de trigramas -> posiciones. Una consulta de 3+ caracteres solo revisa los
+ * candidatos que contienen todos sus trigramas.
+ * Los servicios quedan fuera del índice (no se venden desde el buscador).
+ */
+public final class IndiceBusquedaProductos {
+
+    public static final IndiceBusquedaProductos VACIO = new IndiceBusquedaProductos(List.of());
+
+    // Separa los campos dentro de la clave: ningún trigrama puede cruzar de un campo a otro
+    private static final char SEPARADOR = '\u0001';
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    private final Producto[] productos;
+    private final String[] claves;
+    private final Map<Long, int[]> posiciones;
+
+    public IndiceBusquedaProductos(List<Producto> catalogo) {
+        List<Producto> fisicos = catalogo.stream().filter(p -> !p.esServicio()).toList();
+        this.productos = fisicos.toArray(new Producto[0]);
+        this.claves = new String[productos.length];
+
+        Map<Long, ListaPosiciones> construccion = new HashMap<>();
+        for (int i = 0; i < productos.length; i++) {
+            Producto p = productos[i];
+            String clave = normalizar(p.nombre()) + SEPARADOR + normalizar(p.skuInterno()) + SEPARADOR
+                    + normalizar(p.codigoBarras());
+            claves[i] = clave;
+
+            for (int j = 0; j + 3 <= clave.length(); j++) {
+                long trigrama = trigrama(clave, j);
+                if (trigrama < 0) {
+                    continue;
+                }
+                // Las posiciones llegan en orden creciente: basta comparar con la última
+                construccion.computeIfAbsent(trigrama, k -> new ListaPosiciones()).agregar(i);
+            }
+        }
+
+        this.posiciones = new HashMap<>(construccion.size() * 4 / 3 + 1);
+        construccion.forEach((k, v) -> posiciones.put(k, v.aArray()));
+    }
+
+    /**
+     * Devuelve, en orden de catálogo, los productos cuyo nombre, SKU o código contienen el texto.
+     * Un texto vacío devuelve el catálogo completo.
+     */
+    public List<Producto> buscar(String texto) {
+        String consulta = normalizar(texto);
+        if (consulta.isEmpty()) {
+            return Collections.unmodifiableList(Arrays.asList(productos));
+        }
+
+        List<Producto> resultado = new ArrayList<>();
+        if (consulta.length() < 3) {
+            // Consultas cortas: recorrido sobre las claves ya normalizadas
+            for (int i = 0; i < claves.length; i++) {
+                if (claves[i].contains(consulta)) {
+                    resultado.add(productos[i]);
+                }
+            }
+            return resultado;
+        }
+
+        int[] candidatos = candidatos(consulta);
+        for (int i : candidatos) {
+            // Los trigramas no garantizan contigüidad: se verifica la subcadena
+            if (claves[i].contains(consulta)) {
+                resultado.add(productos[i]);
+            }
+        }
+        return resultado;
+    }
+
+    public int size() {
+        return productos.length;
+    }
+
+    /**
+     * Minúsculas y sin marcas diacríticas ("Lápiz" -> "lapiz").
+     * El caso ASCII (SKUs, códigos, la mayoría de las consultas) evita el Normalizer.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 0x7F) {
+                String descompuesto = Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD);
+                return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("");
+            }
+        }
+        return texto.toLowerCase();
+    }
+
+    private int[] candidatos(String consulta) {
+        List<int[]> listas = new ArrayList<>(consulta.length());
+        for (int j = 0; j + 3 <= consulta.length(); j++) {
+            int[] lista = posiciones.get(trigrama(consulta, j));
+            if (lista == null) {
+                return new int[0];
+            }
+            listas.add(lista);
+        }
+
+        // Intersección empezando por la lista más corta
+        listas.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] actual = listas.get(0);
+        for (int k = 1; k < listas.size() && actual.length > 0; k++) {
+            actual = intersectar(actual, listas.get(k));
+        }
+        return actual;
+    }
+
+    private static int[] intersectar(int[] a, int[] b) {
+        int[] salida = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                salida[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(salida, n);
+    }
+
+    // Empaqueta tres chars en un long; -1 si el trigrama cruza un separador
+    private static long trigrama(String s, int desde) {
+        char a = s.charAt(desde), b = s.charAt(desde + 1), c = s.charAt(desde + 2);
+        if (a == SEPARADOR || b == SEPARADOR || c == SEPARADOR) {
+            return -1;
+        }
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static final class ListaPosiciones {
+        private int[] datos = new int[4];
+        private int tamano;
+
+        void agregar(int posicion) {
+            if (tamano > 0 && datos[tamano - 1] == posicion) {
+                return; // Trigrama repetido dentro del mismo producto
+            }
+            if (tamano == datos.length) {
+                datos = Arrays.copyOf(datos, tamano * 2);
+            }
+            datos[tamano++] = posicion;
+        }
+
+        int[] aArray() {
+            return Arrays.copyOf(datos, tamano);
+        }
+    }
+}
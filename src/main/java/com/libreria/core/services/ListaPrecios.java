@@ -0,0 +1,182 @@
+package com.libreria.core.services;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.models.Producto;
+import com.libreria.core.models.dto.CostoProducto;
+import com.libreria.data.dao.ProductoDao;
+import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LISTA DE PRECIOS
+ * --------------------------------------------------
+ * Responsabilidad: Tener calculados los precios de efectivo y transferencia (centavos)
+ * de todo el catálogo activo, para que mostrar un precio o agregarlo al carrito sea una
+ * búsqueda en arreglos.
+ * <p>
+ * La lista es un {@link Libro} inmutable armado con una sola versión de márgenes. Cuando
+ * cambia un margen se arma un libro nuevo en segundo plano y se reemplaza de una vez:
+ * mientras tanto se sigue usando el anterior completo, nunca una mezcla de márgenes.
+ * Un producto que no está en el libro o cuyo costo cambió desde que se armó se calcula
+ * en el momento con los márgenes del mismo libro.
+ */
+public class ListaPrecios {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListaPrecios.class);
+
+    private static final MetricaOperacion METRICA_RECONSTRUIR = Metricas.operacion("ListaPrecios.reconstruir");
+
+    private final ProductoDao productoDao;
+    private final ConfiguracionService configService;
+    private final ExecutorService executor;
+    private final AtomicReference<Libro> actual;
+    private final AtomicLong versiones = new AtomicLong();
+    // Hay una reconstrucción pedida que todavía no empezó: las siguientes se suman a esa
+    private final AtomicBoolean pedida = new AtomicBoolean();
+
+    public ListaPrecios(Jdbi jdbi, ConfiguracionService configService, ExecutorService executor) {
+        this.productoDao = jdbi.onDemand(ProductoDao.class);
+        this.configService = configService;
+        this.executor = executor;
+        this.actual = new AtomicReference<>(new Libro(configService.getMargenes(), new int[0], new int[0],
+                new int[0], new int[0], 0));
+        configService.agregarOyente(config -> {
+            ConfiguracionService.Margenes vigentes = actual.get().margenes();
+            ConfiguracionService.Margenes nuevos = config.margenes();
+            if (vigentes.efectivo() != nuevos.efectivo() || vigentes.transferencia() != nuevos.transferencia()) {
+                reconstruirEnSegundoPlano();
+            }
+        });
+    }
+
+    /**
+     * Libro vigente. No bloquea; usar el mismo libro para todos los precios de una operación.
+     */
+    public Libro getLibro() {
+        return actual.get();
+    }
+
+    /**
+     * Pide un libro nuevo (cambio de márgenes, importación de costos). No bloquea;
+     * varios pedidos seguidos se resuelven con una sola reconstrucción.
+     */
+    public void reconstruirEnSegundoPlano() {
+        if (!pedida.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                pedida.set(false);
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    logger.error("No se pudo reconstruir la lista de precios", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // La aplicación se está cerrando
+            pedida.set(false);
+        }
+    }
+
+    /**
+     * Arma y publica un libro con los márgenes y costos actuales. Hace I/O.
+     * Las reconstrucciones se serializan: el último libro publicado es el más nuevo.
+     */
+    public synchronized Libro reconstruir() {
+        return METRICA_RECONSTRUIR.medir(() -> {
+            ConfiguracionService.Margenes margenes = configService.getMargenes();
+            List<CostoProducto> costos = productoDao.listarCostos();
+            int n = costos.size();
+            int[] ids = new int[n];
+            int[] costosCentavos = new int[n];
+            int[] efectivo = new int[n];
+            int[] transferencia = new int[n];
+            for (int i = 0; i < n; i++) {
+                CostoProducto c = costos.get(i);
+                int costo = c.costoCentavos() != null ? c.costoCentavos() : 0;
+                ids[i] = c.id();
+                costosCentavos[i] = costo;
+                efectivo[i] = margenes.precioEfectivo(costo);
+                transferencia[i] = margenes.precioTransferencia(costo);
+            }
+            Libro libro = new Libro(margenes, ids, costosCentavos, efectivo, transferencia,
+                    versiones.incrementAndGet());
+            actual.set(libro);
+            return libro;
+        });
+    }
+
+    /**
+     * Precios de todo el catálogo para una versión de márgenes. Inmutable.
+     * Arreglos paralelos ordenados por ID de producto.
+     */
+    public static final class Libro {
+        private final ConfiguracionService.Margenes margenes;
+        private final int[] ids;
+        private final int[] costos;
+        private final int[] efectivo;
+        private final int[] transferencia;
+        private final long version;
+
+        private Libro(ConfiguracionService.Margenes margenes, int[] ids, int[] costos, int[] efectivo,
+                int[] transferencia, long version) {
+            this.margenes = margenes;
+            this.ids = ids;
+            this.costos = costos;
+            this.efectivo = efectivo;
+            this.transferencia = transferencia;
+            this.version = version;
+        }
+
+        public int precioEfectivo(Producto producto) {
+            int i = posicion(producto);
+            return i >= 0 ? efectivo[i] : margenes.precioEfectivo(producto.getCosto());
+        }
+
+        public int precioTransferencia(Producto producto) {
+            int i = posicion(producto);
+            return i >= 0 ? transferencia[i] : margenes.precioTransferencia(producto.getCosto());
+        }
+
+        public ConfiguracionService.Margenes margenes() {
+            return margenes;
+        }
+
+        /**
+         * Cambia con cada libro publicado.
+         */
+        public long version() {
+            return version;
+        }
+
+        public int productos() {
+            return ids.length;
+        }
+
+        /**
+         * Posición del producto en los arreglos, o -1 si no está o su costo ya no coincide.
+         */
+        private int posicion(Producto producto) {
+            if (producto.id() == null) {
+                return -1;
+            }
+            int i = Arrays.binarySearch(ids, producto.id());
+            if (i < 0) {
+                return -1;
+            }
+            int costo = producto.getCosto() != null ? producto.getCosto() : 0;
+            return costos[i] == costo ? i : -1;
+        }
+    }
+}
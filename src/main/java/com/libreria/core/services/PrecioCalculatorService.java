@@ -1,24 +1,69 @@
 package com.libreria.core.services;
 
 import com.libreria.core.exceptions.PrecioNoConfiguradoException;
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
 import com.libreria.core.models.dto.PrecioRequest;
 import com.libreria.core.models.dto.PrecioResult;
+import com.libreria.core.models.enums.Color;
+import com.libreria.core.models.enums.Faz;
+import com.libreria.core.models.enums.Tamano;
+import com.libreria.core.models.enums.TipoPapel;
+import com.libreria.data.config.CarrilEscritura;
 import com.libreria.data.dao.PreciosDao;
 import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * SERVICIO DE CÁLCULO DE PRECIOS - CENTRO DE COPIADO
  * --------------------------------------------------
  * Responsabilidad: Determinar el costo unitario base de una impresión/fotocopia
  * consultando la matriz de precios configurada en SQLite.
+ * La matriz se precarga en una {@link TablaPrecios} inmutable y se reemplaza
+ * de forma atómica cuando cambian los precios, así cada cotización es un acceso
+ * a memoria y no una consulta JDBC.
  * * Stack: Java 21, JDBI 3, Records.
  */
 public class PrecioCalculatorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PrecioCalculatorService.class);
+
+    private static final MetricaOperacion METRICA_CALCULAR = Metricas.operacion("PrecioCalculatorService.calcularPrecioBase");
+    private static final MetricaOperacion METRICA_RECARGAR = Metricas.operacion("PrecioCalculatorService.recargarMatriz");
+    private static final MetricaOperacion METRICA_ACTUALIZAR = Metricas.operacion("PrecioCalculatorService.actualizarPrecio");
+
     private final PreciosDao preciosDao;
+    private final CarrilEscritura carril;
+    private volatile TablaPrecios tabla = TablaPrecios.VACIA;
 
     public PrecioCalculatorService(Jdbi jdbi) {
+        this(jdbi, null);
+    }
+
+    /**
+     * @param jdbi   Instancia para leer la matriz (puede ser el pool de solo lectura).
+     * @param carril Carril de escritura para modificar precios (null = directo por el DAO).
+     */
+    public PrecioCalculatorService(Jdbi jdbi, CarrilEscritura carril) {
         this.preciosDao = jdbi.onDemand(PreciosDao.class);
+        this.carril = carril;
+        // Cargar inicialmente
+        try {
+            recargarMatriz();
+        } catch (Exception e) {
+            logger.warn("No se pudo cargar la matriz de precios", e);
+        }
+    }
+
+    /**
+     * Relee matriz_precios y publica la nueva tabla.
+     * Los lectores concurrentes ven la tabla anterior completa o la nueva completa.
+     */
+    public void recargarMatriz() {
+        METRICA_RECARGAR.medir(() -> {
+            tabla = TablaPrecios.desde(preciosDao.listarMatriz());
+        });
     }
 
     /**
@@ -33,14 +78,76 @@ public class PrecioCalculatorService {
             throw new IllegalArgumentException("El request de precio no puede ser nulo");
         }
 
-        // Ejecución de consulta
-        return preciosDao.buscarPrecio(
-                        request.tamano().name(),
-                        request.tipoPapel().name(),
-                        request.color().name(),
-                        request.faz().name()
-                )
-                .map(PrecioResult::new) // Transformamos el Integer a nuestro DTO de respuesta
-                .orElseThrow(() -> new PrecioNoConfiguradoException(request));
+        // Medición en línea (sin lambda): es el camino más caliente de la caja
+        long inicio = System.nanoTime();
+        TablaPrecios actual = tabla;
+        int precio = actual.precio(request.tamano(), request.tipoPapel(), request.color(), request.faz());
+        if (precio == TablaPrecios.SIN_PRECIO) {
+            METRICA_CALCULAR.registrar(inicio, false);
+            throw new PrecioNoConfiguradoException(request);
+        }
+        int servicioId = actual.servicio(request.tamano(), request.tipoPapel(), request.color(), request.faz());
+        METRICA_CALCULAR.registrar(inicio, true);
+        return new PrecioResult(precio, servicioId);
+    }
+
+    /**
+     * Igual que {@link #calcularPrecioBase(PrecioRequest)} pero limitado a un servicio concreto.
+     * @throws PrecioNoConfiguradoException Si el servicio no tiene la combinación.
+     */
+    public PrecioResult calcularPrecioBase(int servicioId, PrecioRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("El request de precio no puede ser nulo");
+        }
+
+        long inicio = System.nanoTime();
+        int precio = precioCentavos(servicioId, request.tamano(), request.tipoPapel(), request.color(), request.faz());
+        if (precio == TablaPrecios.SIN_PRECIO) {
+            METRICA_CALCULAR.registrar(inicio, false);
+            throw new PrecioNoConfiguradoException(request);
+        }
+        METRICA_CALCULAR.registrar(inicio, true);
+        return new PrecioResult(precio, servicioId);
+    }
+
+    /**
+     * Variante sin asignaciones para cotizaciones masivas.
+     * @return el precio en centavos o {@link TablaPrecios#SIN_PRECIO}.
+     */
+    public int precioCentavos(int servicioId, Tamano tamano, TipoPapel tipoPapel, Color color, Faz faz) {
+        return tabla.precio(servicioId, tamano, tipoPapel, color, faz);
+    }
+
+    /**
+     * Guarda (alta o modificación) un precio de la matriz y publica la tabla actualizada.
+     */
+    public void actualizarPrecio(int servicioId, PrecioRequest request, int precioCentavos) {
+        if (request == null) {
+            throw new IllegalArgumentException("El request de precio no puede ser nulo");
+        }
+        if (precioCentavos < 0) {
+            throw new IllegalArgumentException("El precio no puede ser negativo");
+        }
+        METRICA_ACTUALIZAR.medir(() -> {
+            if (carril != null) {
+                carril.ejecutar(handle -> {
+                    guardar(handle.attach(PreciosDao.class), servicioId, request, precioCentavos);
+                    return null;
+                });
+            } else {
+                guardar(preciosDao, servicioId, request, precioCentavos);
+            }
+        });
+        recargarMatriz();
+    }
+
+    private static void guardar(PreciosDao dao, int servicioId, PrecioRequest request, int precioCentavos) {
+        dao.guardarPrecio(
+                servicioId,
+                request.tamano().name(),
+                request.tipoPapel().name(),
+                request.color().name(),
+                request.faz().name(),
+                precioCentavos);
     }
 }
@@ -2,14 +2,50 @@ package com.libreria.core.services;
 
 import com.libreria.data.dao.ProductoDao;
 import com.libreria.core.models.Producto;
+import com.libreria.core.models.dto.AnclaCatalogo;
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
 import org.jdbi.v3.core.Jdbi;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ProductoService {
 
+    // Tope de códigos inexistentes recordados (LRU)
+    private static final int MAX_INEXISTENTES = 1024;
+
+    private static final MetricaOperacion METRICA_BUSCAR = Metricas.operacion("ProductoService.buscarPorSku");
+    private static final MetricaOperacion METRICA_BUSCAR_CACHE = Metricas.operacion("ProductoService.buscarEnCache");
+    private static final MetricaOperacion METRICA_LISTAR = Metricas.operacion("ProductoService.listarProductosActivos");
+    private static final MetricaOperacion METRICA_POR_ID = Metricas.operacion("ProductoService.buscarPorId");
+    private static final MetricaOperacion METRICA_PAGINA = Metricas.operacion("ProductoService.listarPagina");
+    private static final MetricaOperacion METRICA_ANCLAS = Metricas.operacion("ProductoService.anclasCatalogo");
+    private static final MetricaOperacion METRICA_BUSCAR_TEXTO = Metricas.operacion("ProductoService.buscarEnCatalogo");
+
     private final ProductoDao productoDao;
 
+    // Índices exactos por código de barras y SKU. Se reemplazan completos al recargar el catálogo.
+    // Todas las claves son el código sin espacios alrededor respetando mayúsculas, igual que
+    // la consulta a SQLite y las columnas UNIQUE: "lap-hb" y "LAP-HB" son códigos distintos.
+    private volatile IndiceExacto indice = new IndiceExacto();
+
+    // Caché negativa: códigos que ya se consultaron y no existen (misma clave que los índices).
+    private final Map<String, Boolean> inexistentes = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_INEXISTENTES;
+                }
+            });
+
+    // Cambia con cada invalidación: una consulta a la DB que empezó antes no escribe en la caché
+    private final AtomicLong versionCatalogo = new AtomicLong();
+
     public ProductoService(Jdbi jdbi) {
         // Inyección del DAO dentro del Servicio
         this.productoDao = jdbi.onDemand(ProductoDao.class);
@@ -18,19 +54,185 @@ public class ProductoService {
     /**
      * Busca un producto por SKU o Código de Barras.
      * Centraliza el acceso a datos de productos.
+     * Resuelve primero contra los índices en memoria y la caché negativa;
+     * solo los códigos nunca vistos llegan a SQLite.
      */
     public Optional<Producto> buscarPorSku(String sku) {
         if (sku == null || sku.isBlank()) {
             return Optional.empty();
         }
-        return productoDao.buscarPorCodigoOSku(sku.trim());
+        long inicio = System.nanoTime();
+        boolean exito = false;
+        try {
+            Optional<Producto> resultado = resolver(sku);
+            exito = true;
+            return resultado;
+        } finally {
+            METRICA_BUSCAR.registrar(inicio, exito);
+        }
+    }
+
+    private Optional<Producto> resolver(String sku) {
+        String consulta = clave(sku);
+
+        Producto cacheado = indice.buscar(consulta);
+        if (cacheado != null) {
+            return Optional.of(cacheado);
+        }
+        if (inexistentes.containsKey(consulta)) {
+            return Optional.empty();
+        }
+
+        long version = versionCatalogo.get();
+        IndiceExacto indiceConsultado = indice;
+        Optional<Producto> resultado = productoDao.buscarPorCodigoOSku(consulta);
+
+        if (versionCatalogo.get() == version) {
+            if (resultado.isPresent()) {
+                indiceConsultado.agregar(resultado.get());
+            } else {
+                inexistentes.put(consulta, Boolean.TRUE);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Búsqueda exacta solo en memoria (sin tocar la DB).
+     * Segura para llamar desde el hilo de JavaFX.
+     */
+    public Optional<Producto> buscarEnCache(String codigo) {
+        if (codigo == null || codigo.isBlank()) {
+            return Optional.empty();
+        }
+        long inicio = System.nanoTime();
+        Producto producto = indice.buscar(clave(codigo));
+        METRICA_BUSCAR_CACHE.registrar(inicio, true);
+        return Optional.ofNullable(producto);
     }
 
+    /**
+     * Lista el catálogo activo y reconstruye los índices exactos con el resultado.
+     */
     public List<Producto> listarProductosActivos() {
-        return productoDao.listarActivos();
+        return METRICA_LISTAR.medir(this::cargarCatalogo);
+    }
+
+    private List<Producto> cargarCatalogo() {
+        long version = versionCatalogo.incrementAndGet();
+        List<Producto> productos = productoDao.listarActivos();
+
+        IndiceExacto nuevo = new IndiceExacto();
+        productos.forEach(nuevo::agregar);
+        if (versionCatalogo.get() == version) {
+            indice = nuevo;
+            inexistentes.clear();
+        }
+        return productos;
     }
 
     public Optional<Producto> buscarPorId(Integer id) {
-        return productoDao.buscarPorId(id);
+        return METRICA_POR_ID.medir(() -> productoDao.buscarPorId(id));
+    }
+
+    // --- CATÁLOGO PAGINADO ---
+    // Para catálogos que no conviene cargar completos: se recorren por páginas keyset
+    // (nombre, id) y la búsqueda por texto se resuelve en SQLite con un tope de filas.
+
+    /**
+     * Cantidad de productos físicos activos (los que muestra el buscador).
+     */
+    public int contarCatalogo() {
+        return productoDao.contarCatalogo();
+    }
+
+    /**
+     * Primera fila de cada página del catálogo; la página N empieza en el ancla N.
+     * @param tamanoPagina Filas por página.
+     */
+    public List<AnclaCatalogo> anclasCatalogo(int tamanoPagina) {
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo.");
+        }
+        return METRICA_ANCLAS.medir(() -> productoDao.listarAnclas(tamanoPagina));
+    }
+
+    /**
+     * Página del catálogo desde el ancla (inclusive), en orden por nombre e id.
+     */
+    public List<Producto> listarPagina(AnclaCatalogo desde, int limite) {
+        return METRICA_PAGINA.medir(() -> productoDao.listarPagina(desde.nombre(), desde.id(), limite));
+    }
+
+    /**
+     * Búsqueda de texto completo en la base (FTS5), ordenada por relevancia.
+     * Cada palabra del texto se busca como prefijo de una palabra del nombre, la descripción,
+     * el SKU o el código ("cuad riv" encuentra "Cuaderno Rivadavia"); no distingue acentos.
+     * @param limite Máximo de filas devueltas.
+     */
+    public List<Producto> buscarEnCatalogo(String texto, int limite) {
+        String consulta = consultaFts(texto);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+        return METRICA_BUSCAR_TEXTO.medir(() -> productoDao.buscarTextoCompleto(consulta, limite));
+    }
+
+    /**
+     * Arma la expresión MATCH: se parte el texto igual que el tokenizador (letras y dígitos)
+     * y cada término va entre comillas, así ningún carácter del usuario es sintaxis de FTS5.
+     */
+    static String consultaFts(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder consulta = new StringBuilder();
+        int inicio = -1;
+        for (int i = 0; i <= texto.length(); i++) {
+            boolean esTermino = i < texto.length() && Character.isLetterOrDigit(texto.charAt(i));
+            if (esTermino && inicio < 0) {
+                inicio = i;
+            } else if (!esTermino && inicio >= 0) {
+                if (!consulta.isEmpty()) {
+                    consulta.append(' ');
+                }
+                consulta.append('"').append(texto, inicio, i).append("\"*");
+                inicio = -1;
+            }
+        }
+        return consulta.toString();
+    }
+
+    /**
+     * Descarta los índices y la caché negativa.
+     * Llamar cada vez que cambia el catálogo (altas, bajas, códigos, importaciones).
+     */
+    public void invalidarCache() {
+        versionCatalogo.incrementAndGet();
+        indice = new IndiceExacto();
+        inexistentes.clear();
+    }
+
+    private static String clave(String codigo) {
+        return codigo.trim();
+    }
+
+    private static final class IndiceExacto {
+        private final Map<String, Producto> porCodigoBarras = new ConcurrentHashMap<>();
+        private final Map<String, Producto> porSku = new ConcurrentHashMap<>();
+
+        Producto buscar(String clave) {
+            Producto p = porCodigoBarras.get(clave);
+            return (p != null) ? p : porSku.get(clave);
+        }
+
+        void agregar(Producto p) {
+            if (p.codigoBarras() != null && !p.codigoBarras().isBlank()) {
+                porCodigoBarras.put(clave(p.codigoBarras()), p);
+            }
+            if (p.skuInterno() != null) {
+                porSku.put(clave(p.skuInterno()), p);
+            }
+        }
     }
-}
\ No newline at end of file
+}
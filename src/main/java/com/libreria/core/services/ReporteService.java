@@ -0,0 +1,79 @@
+package com.libreria.core.services;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.models.dto.CierreCaja;
+import com.libreria.core.models.dto.TotalAgrupado;
+import com.libreria.data.dao.ResumenVentasDao;
+import org.jdbi.v3.core.Jdbi;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REPORTES DE VENTAS
+ * --------------------------------------------------
+ * Responsabilidad: Cierres de caja y reportes por período.
+ * Lee solo las tablas de resumen (una fila por día y grupo), así que el costo no depende
+ * del tamaño del historial. Usa las conexiones de lectura: en modo WAL no bloquea las
+ * ventas que se están registrando.
+ */
+public class ReporteService {
+
+    private static final MetricaOperacion METRICA_CIERRE = Metricas.operacion("ReporteService.cierreCaja");
+
+    private final ResumenVentasDao resumenDao;
+
+    public ReporteService(Jdbi jdbi) {
+        this.resumenDao = jdbi.onDemand(ResumenVentasDao.class);
+    }
+
+    /**
+     * Cierre del día de todo el local: total, cantidad de ventas, apertura por medio de pago
+     * y por hora. Con varias cajas incluye las ventas recibidas de las otras.
+     */
+    public CierreCaja cierreCaja(LocalDate fecha) {
+        return METRICA_CIERRE.medir(() -> cierre(fecha, null));
+    }
+
+    /**
+     * Cierre del día de una sola caja, para cuadrar contra su cajón: solo las ventas que
+     * registró esa terminal.
+     *
+     * @param terminal Número de la caja ({@code Terminal.numero()}, 0 = base de una sola caja).
+     */
+    public CierreCaja cierreCaja(LocalDate fecha, int terminal) {
+        return METRICA_CIERRE.medir(() -> cierre(fecha, terminal));
+    }
+
+    private CierreCaja cierre(LocalDate fecha, Integer terminal) {
+        String dia = fecha.toString();
+        List<TotalAgrupado> total = resumenDao.porDia(dia, dia, terminal);
+        long ventas = total.isEmpty() ? 0 : total.get(0).cantidad();
+        long totalCentavos = total.isEmpty() ? 0 : total.get(0).totalCentavos();
+        return new CierreCaja(fecha, terminal, ventas, totalCentavos,
+                resumenDao.porMetodoPago(dia, dia, terminal), resumenDao.porHora(dia, terminal));
+    }
+
+    /**
+     * Ventas y total por día (solo los días con ventas), ambos extremos inclusive.
+     */
+    public List<TotalAgrupado> ventasPorDia(LocalDate desde, LocalDate hasta) {
+        return resumenDao.porDia(desde.toString(), hasta.toString(), null);
+    }
+
+    public List<TotalAgrupado> ventasPorMetodoPago(LocalDate desde, LocalDate hasta) {
+        return resumenDao.porMetodoPago(desde.toString(), hasta.toString(), null);
+    }
+
+    /**
+     * Productos ordenados por importe vendido; la cantidad es en unidades.
+     */
+    public List<TotalAgrupado> productosMasVendidos(LocalDate desde, LocalDate hasta, int limite) {
+        return resumenDao.productosMasVendidos(desde.toString(), hasta.toString(), limite);
+    }
+
+    public List<TotalAgrupado> ventasPorCategoria(LocalDate desde, LocalDate hasta) {
+        return resumenDao.porCategoria(desde.toString(), hasta.toString());
+    }
+}
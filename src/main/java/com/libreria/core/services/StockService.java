@@ -0,0 +1,230 @@
+package com.libreria.core.services;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import com.libreria.core.models.dto.AlertaStock;
+import com.libreria.core.models.dto.NivelStock;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.dao.StockDao;
+import com.libreria.data.diario.DiarioVentas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * STOCK EN MEMORIA
+ * --------------------------------------------------
+ * Responsabilidad: Responder "¿hay stock?" al escanear sin consultar SQLite.
+ * Un contador atómico por producto físico activo (stock y cantidad reservada por el
+ * carrito abierto). Las ventas confirmadas descuentan el contador (oyente de
+ * {@link VentaService}); SQLite sigue siendo la fuente de verdad y se reconcilia
+ * periódicamente. Al cruzar el stock mínimo se avisa a los oyentes de stock bajo.
+ */
+public class StockService implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockService.class);
+
+    private static final MetricaOperacion METRICA_RECONCILIAR = Metricas.operacion("StockService.reconciliar");
+
+    private final CarrilEscritura carril;
+    private final DiarioVentas diario;
+    private final Map<Integer, Contador> contadores = new ConcurrentHashMap<>();
+    private final List<Consumer<AlertaStock>> oyentesStockBajo = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService planificador;
+
+    /**
+     * Disponibilidad de un producto: stock según la memoria y lo reservado por el carrito.
+     */
+    public record Disponibilidad(int stock, int reservado) {
+        public int disponible() {
+            return stock - reservado;
+        }
+
+        /**
+         * false si lo reservado supera el stock.
+         */
+        public boolean alcanza() {
+            return reservado <= stock;
+        }
+    }
+
+    /**
+     * @param carril Las lecturas de reconciliación pasan por el carril para no intercalarse
+     *               con una venta a medio escribir.
+     * @param diario Diario de ventas; mientras tenga ventas sin aplicar no se reconcilia
+     *               (SQLite todavía no las descontó). Puede ser null.
+     */
+    public StockService(CarrilEscritura carril, DiarioVentas diario) {
+        this.carril = carril;
+        this.diario = diario;
+    }
+
+    /**
+     * Carga los contadores y programa la reconciliación cada {@code intervaloSeg} segundos
+     * (0 = solo la carga inicial). Hace I/O: llamar fuera del hilo de JavaFX.
+     */
+    public synchronized void iniciar(long intervaloSeg) {
+        // La carga inicial no espera al diario: sin contadores no hay avisos de ningún tipo
+        reconciliar(true);
+        if (intervaloSeg > 0 && planificador == null) {
+            planificador = Executors.newSingleThreadScheduledExecutor(
+                    r -> Thread.ofPlatform().name("reconciliacion-stock").daemon(true).unstarted(r));
+            planificador.scheduleWithFixedDelay(this::reconciliarProgramado, intervaloSeg, intervaloSeg,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Reserva unidades para el carrito abierto. Nunca rechaza: el producto está en el
+     * mostrador aunque la base diga otra cosa, así que solo se informa si alcanza.
+     * @return la disponibilidad después de reservar, o vacío si el producto no tiene
+     *         contador (servicio, inactivo o alta posterior a la última carga).
+     */
+    public Optional<Disponibilidad> reservar(int productoId, int cantidad) {
+        Contador contador = contadores.get(productoId);
+        if (contador == null) {
+            return Optional.empty();
+        }
+        int reservado = contador.reservado.addAndGet(cantidad);
+        return Optional.of(new Disponibilidad(contador.stock.get(), reservado));
+    }
+
+    /**
+     * Devuelve unidades reservadas (renglón quitado, cantidad reducida o carrito vaciado).
+     */
+    public void liberar(int productoId, int cantidad) {
+        Contador contador = contadores.get(productoId);
+        if (contador != null) {
+            contador.reservado.updateAndGet(r -> Math.max(0, r - cantidad));
+        }
+    }
+
+    public Optional<Disponibilidad> consultar(int productoId) {
+        Contador contador = contadores.get(productoId);
+        if (contador == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Disponibilidad(contador.stock.get(), contador.reservado.get()));
+    }
+
+    /**
+     * Oyente de ventas confirmadas: descuenta los contadores y avisa si algún producto
+     * cruzó su stock mínimo. Las líneas de servicios no tienen contador y se ignoran.
+     */
+    public void registrarVenta(Venta venta) {
+        if (venta.detalles() == null) {
+            return;
+        }
+        for (DetalleVenta detalle : venta.detalles()) {
+            Contador contador = contadores.get(detalle.productoId());
+            if (contador == null) {
+                continue;
+            }
+            int despues = contador.stock.addAndGet(-detalle.cantidad());
+            int antes = despues + detalle.cantidad();
+            int minimo = contador.minimo;
+            if (antes > minimo && despues <= minimo) {
+                avisarStockBajo(new AlertaStock(detalle.productoId(), detalle.descripcionLinea(), despues, minimo));
+            }
+        }
+    }
+
+    public void agregarOyenteStockBajo(Consumer<AlertaStock> oyente) {
+        oyentesStockBajo.add(oyente);
+    }
+
+    /**
+     * Lleva los contadores al stock de SQLite (altas, bajas y correcciones hechas fuera de
+     * esta terminal). Las reservas se conservan. Una venta confirmada mientras se lee la
+     * base puede quedar descontada dos veces en memoria; la ronda siguiente lo corrige.
+     * @return cantidad de productos cuyo contador cambió, o -1 si se postergó porque el
+     *         diario tiene ventas sin aplicar.
+     */
+    public int reconciliar() {
+        return reconciliar(false);
+    }
+
+    private int reconciliar(boolean forzar) {
+        if (!forzar && diario != null && diario.bytesPendientes() > 0) {
+            return -1;
+        }
+        return METRICA_RECONCILIAR.medir(() -> {
+            List<NivelStock> niveles = carril.ejecutar(handle -> handle.attach(StockDao.class).listarNiveles());
+
+            int corregidos = 0;
+            Set<Integer> vigentes = new HashSet<>(niveles.size() * 4 / 3 + 1);
+            for (NivelStock nivel : niveles) {
+                vigentes.add(nivel.productoId());
+                Contador contador = contadores.get(nivel.productoId());
+                if (contador == null) {
+                    contadores.put(nivel.productoId(), new Contador(nivel.stockActual(), nivel.stockMinimo()));
+                    corregidos++;
+                    continue;
+                }
+                contador.minimo = nivel.stockMinimo();
+                if (contador.stock.getAndSet(nivel.stockActual()) != nivel.stockActual()) {
+                    corregidos++;
+                }
+            }
+            // Productos dados de baja o convertidos en servicio
+            if (contadores.keySet().retainAll(vigentes)) {
+                corregidos++;
+            }
+            return corregidos;
+        });
+    }
+
+    private void reconciliarProgramado() {
+        try {
+            int corregidos = reconciliar();
+            if (corregidos > 0) {
+                logger.info("[Stock] Reconciliado con la base: {} contadores corregidos.", corregidos);
+            }
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las ejecuciones siguientes del planificador
+            logger.error("[Stock] Error reconciliando stock", e);
+        }
+    }
+
+    private void avisarStockBajo(AlertaStock alerta) {
+        for (Consumer<AlertaStock> oyente : oyentesStockBajo) {
+            try {
+                oyente.accept(alerta);
+            } catch (RuntimeException e) {
+                logger.error("[Stock] Error en oyente de stock bajo", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
+    }
+
+    private static final class Contador {
+        private final AtomicInteger stock;
+        private final AtomicInteger reservado = new AtomicInteger();
+        private volatile int minimo;
+
+        Contador(int stock, int minimo) {
+            this.stock = new AtomicInteger(stock);
+            this.minimo = minimo;
+        }
+    }
+}
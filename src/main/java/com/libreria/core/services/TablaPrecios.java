@@ -0,0 +1,146 @@
+package com.libreria.core.services;
+
+import com.libreria.core.models.MatrizPrecio;
+import com.libreria.core.models.enums.Color;
+import com.libreria.core.models.enums.Faz;
+import com.libreria.core.models.enums.Tamano;
+import com.libreria.core.models.enums.TipoPapel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MATRIZ DE PRECIOS EN MEMORIA (Inmutable)
+ * --------------------------------------------------
+ * Tabla densa indexada por los ordinales de Tamano, TipoPapel, Color y Faz,
+ * una por servicio (productos.id). Se construye una sola vez desde matriz_precios
+ * y se reemplaza completa cuando cambian los precios, nunca se modifica.
+ * Las búsquedas no reservan memoria: un binarySearch sobre los servicios y un
+ * acceso a array.
+ */
+public final class TablaPrecios {
+
+    /** Valor centinela para combinaciones sin precio configurado. */
+    public static final int SIN_PRECIO = -1;
+
+    private static final Logger logger = LoggerFactory.getLogger(TablaPrecios.class);
+
+    private static final int N_TAMANO = Tamano.values().length;
+    private static final int N_PAPEL = TipoPapel.values().length;
+    private static final int N_COLOR = Color.values().length;
+    private static final int N_FAZ = Faz.values().length;
+    private static final int CELDAS = N_TAMANO * N_PAPEL * N_COLOR * N_FAZ;
+
+    public static final TablaPrecios VACIA = new TablaPrecios(new int[0], new int[0][], vacia(), vacia());
+
+    // Servicios ordenados por id (para binarySearch) y sus tablas en el mismo orden
+    private final int[] servicioIds;
+    private final int[][] precios;
+
+    // Vista "sin servicio": para cada celda, el precio y el servicio de menor id que la define.
+    // Reproduce el comportamiento histórico de la consulta sin filtro por servicio_id.
+    private final int[] preciosPorDefecto;
+    private final int[] servicioPorDefecto;
+
+    private TablaPrecios(int[] servicioIds, int[][] precios, int[] preciosPorDefecto, int[] servicioPorDefecto) {
+        this.servicioIds = servicioIds;
+        this.precios = precios;
+        this.preciosPorDefecto = preciosPorDefecto;
+        this.servicioPorDefecto = servicioPorDefecto;
+    }
+
+    /**
+     * Construye la tabla a partir de las filas de matriz_precios.
+     * Las filas con dimensiones sin Enum equivalente (ej: 'CARTA') se ignoran.
+     */
+    public static TablaPrecios desde(List<MatrizPrecio> filas) {
+        int[] ids = filas.stream().mapToInt(MatrizPrecio::servicioId).distinct().sorted().toArray();
+        int[][] precios = new int[ids.length][];
+        for (int i = 0; i < ids.length; i++) {
+            precios[i] = vacia();
+        }
+
+        int ignoradas = 0;
+        for (MatrizPrecio fila : filas) {
+            int celda = indice(fila);
+            if (celda < 0) {
+                ignoradas++;
+                continue;
+            }
+            precios[Arrays.binarySearch(ids, fila.servicioId())][celda] = fila.precioCentavos();
+        }
+        if (ignoradas > 0) {
+            logger.warn("[Precios] {} filas de la matriz con dimensiones desconocidas fueron ignoradas.", ignoradas);
+        }
+
+        int[] preciosPorDefecto = vacia();
+        int[] servicioPorDefecto = vacia();
+        for (int i = ids.length - 1; i >= 0; i--) {
+            for (int celda = 0; celda < CELDAS; celda++) {
+                if (precios[i][celda] != SIN_PRECIO) {
+                    preciosPorDefecto[celda] = precios[i][celda];
+                    servicioPorDefecto[celda] = ids[i];
+                }
+            }
+        }
+
+        return new TablaPrecios(ids, precios, preciosPorDefecto, servicioPorDefecto);
+    }
+
+    /**
+     * Precio en centavos de la combinación para un servicio concreto.
+     * @return el precio o {@link #SIN_PRECIO}.
+     */
+    public int precio(int servicioId, Tamano tamano, TipoPapel tipoPapel, Color color, Faz faz) {
+        int pos = Arrays.binarySearch(servicioIds, servicioId);
+        if (pos < 0) {
+            return SIN_PRECIO;
+        }
+        return precios[pos][indice(tamano, tipoPapel, color, faz)];
+    }
+
+    /**
+     * Precio en centavos de la combinación en cualquier servicio (el de menor id que la tenga).
+     * @return el precio o {@link #SIN_PRECIO}.
+     */
+    public int precio(Tamano tamano, TipoPapel tipoPapel, Color color, Faz faz) {
+        return preciosPorDefecto[indice(tamano, tipoPapel, color, faz)];
+    }
+
+    /**
+     * Servicio que aporta el precio devuelto por {@link #precio(Tamano, TipoPapel, Color, Faz)}.
+     * @return el id del servicio o {@link #SIN_PRECIO}.
+     */
+    public int servicio(Tamano tamano, TipoPapel tipoPapel, Color color, Faz faz) {
+        return servicioPorDefecto[indice(tamano, tipoPapel, color, faz)];
+    }
+
+    public int cantidadServicios() {
+        return servicioIds.length;
+    }
+
+    private static int indice(Tamano tamano, TipoPapel tipoPapel, Color color, Faz faz) {
+        return ((tamano.ordinal() * N_PAPEL + tipoPapel.ordinal()) * N_COLOR + color.ordinal()) * N_FAZ
+                + faz.ordinal();
+    }
+
+    private static int indice(MatrizPrecio fila) {
+        try {
+            return indice(
+                    Tamano.valueOf(fila.tamano()),
+                    TipoPapel.valueOf(fila.tipoPapel()),
+                    Color.valueOf(fila.color()),
+                    Faz.valueOf(fila.faz()));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return -1;
+        }
+    }
+
+    private static int[] vacia() {
+        int[] celdas = new int[CELDAS];
+        Arrays.fill(celdas, SIN_PRECIO);
+        return celdas;
+    }
+}
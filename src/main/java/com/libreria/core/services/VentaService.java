@@ -5,20 +5,72 @@ import com.libreria.core.models.Venta;
 import com.libreria.core.models.dto.ItemCarrito;
 import com.libreria.core.models.enums.EstadoFiscal;
 import com.libreria.core.models.enums.MetodoPago;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.dao.CambiosDao;
 import com.libreria.data.dao.VentaDao;
+import com.libreria.data.diario.DiarioVentas;
+import com.libreria.data.replicacion.Terminal;
 import com.libreria.core.models.Cliente;
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
 
+import org.jdbi.v3.core.HandleCallback;
 import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class VentaService {
 
+        private static final Logger logger = LoggerFactory.getLogger(VentaService.class);
+
+        private static final MetricaOperacion METRICA_VENTA = Metricas.operacion("VentaService.realizarVenta");
+        private static final MetricaOperacion METRICA_PERSISTIR = Metricas.operacion("VentaService.persistir");
+
         private final Jdbi jdbi;
+        private final CarrilEscritura carril;
+        private final DiarioVentas diario;
+        // Caja de un local con varias (null = caja única): IDs en su rango y registro de cambios
+        private final Terminal terminal;
+        // Se avisan en el hilo de la venta, después de confirmarla: deben ser rápidos
+        private final List<Consumer<Venta>> oyentes = new CopyOnWriteArrayList<>();
 
         public VentaService(Jdbi jdbi) {
                 this.jdbi = jdbi;
+                this.carril = null;
+                this.diario = null;
+                this.terminal = null;
+        }
+
+        /**
+         * @param carril Carril único de escritura por el que pasan las transacciones.
+         * @param diario Diario de ventas (write-behind). Si es null se escribe directo en SQLite.
+         */
+        public VentaService(CarrilEscritura carril, DiarioVentas diario) {
+                this(carril, diario, null);
+        }
+
+        /**
+         * @param terminal Caja de un local con varias (null = caja única). Con diario, el
+         *                 diario ya numera en el rango de la caja y el aplicador anota los cambios.
+         */
+        public VentaService(CarrilEscritura carril, DiarioVentas diario, Terminal terminal) {
+                this.jdbi = null;
+                this.carril = carril;
+                this.diario = diario;
+                this.terminal = terminal;
+        }
+
+        /**
+         * Registra un oyente de ventas confirmadas (stock en memoria, tickets, etc.).
+         * Un error en un oyente no afecta la venta ni a los demás oyentes.
+         */
+        public void agregarOyente(Consumer<Venta> oyente) {
+                oyentes.add(oyente);
         }
 
         /**
@@ -31,6 +83,10 @@ public class VentaService {
          * @return El objeto Venta persistido (con ID).
          */
         public Venta realizarVenta(List<ItemCarrito> items, MetodoPago pago, Cliente cliente, boolean requiereFactura) {
+                return METRICA_VENTA.medir(() -> registrarVenta(items, pago, cliente, requiereFactura));
+        }
+
+        private Venta registrarVenta(List<ItemCarrito> items, MetodoPago pago, Cliente cliente, boolean requiereFactura) {
                 if (items == null || items.isEmpty())
                         throw new IllegalArgumentException("Carrito vacío");
 
@@ -60,12 +116,50 @@ public class VentaService {
                                                 item.nombreProducto()))
                                 .collect(Collectors.toList());
 
-                // 6. PERSISTENCIA TRANSACCIONAL (ATOMICIDAD)
-                long idGenerado = jdbi.inTransaction(handle -> {
+                // 6. PERSISTENCIA
+                long idGenerado = (diario != null)
+                                ? diario.registrar(ventaNueva, detalles) // Durable en el diario; SQLite después
+                                : METRICA_PERSISTIR.medir(() -> persistir(items, ventaNueva, detalles));
+
+                // Retornamos una copia con el ID asignado
+                Venta registrada = new Venta(
+                                (int) idGenerado, ventaNueva.fechaCreacion(), total, pago, ventaNueva.estado(),
+                                clienteId, cuitSnapshot, requiereFactura, estadoFiscalInicial,
+                                null, null, 1, null, detalles);
+                notificar(registrada);
+                return registrada;
+        }
+
+        private void notificar(Venta venta) {
+                for (Consumer<Venta> oyente : oyentes) {
+                        try {
+                                oyente.accept(venta);
+                        } catch (RuntimeException e) {
+                                logger.error("Error en oyente de ventas (venta {})", venta.id(), e);
+                        }
+                }
+        }
+
+        /**
+         * Persistencia transaccional directa (ATOMICIDAD): cabecera, detalles y stock.
+         */
+        private long persistir(List<ItemCarrito> items, Venta ventaNueva, List<DetalleVenta> detalles) {
+                HandleCallback<Long, RuntimeException> transaccion = handle -> {
                         VentaDao ventaDao = handle.attach(VentaDao.class);
 
-                        // A. Insertar Venta y Detalles
-                        long id = ventaDao.crearVentaCompleta(ventaNueva, detalles);
+                        // A. Insertar Venta y Detalles (con varias cajas, en el rango de IDs de esta)
+                        long id;
+                        if (terminal != null) {
+                                id = ventaDao.maximoIdEnRango(terminal.primerId(), terminal.ultimoId()) + 1;
+                                if (id > terminal.ultimoId()) {
+                                        throw new IllegalStateException("Se agotó el rango de IDs de la terminal "
+                                                        + terminal.numero());
+                                }
+                                ventaDao.crearVentaConId(id, null, ventaNueva, detalles);
+                                handle.attach(CambiosDao.class).registrarVenta(terminal.numero(), id);
+                        } else {
+                                id = ventaDao.crearVentaCompleta(ventaNueva, detalles);
+                        }
 
                         // B. Descontar Stock (Batch Update)
                         // Filtramos solo los productos físicos para el batch
@@ -84,14 +178,7 @@ public class VentaService {
                         }
 
                         return id;
-                });
-
-                System.out.println("Venta registrada ID: " + idGenerado + " [Fiscal: " + estadoFiscalInicial + "]");
-
-                // Retornamos una copia con el ID asignado
-                return new Venta(
-                                (int) idGenerado, ventaNueva.fechaCreacion(), total, pago, ventaNueva.estado(),
-                                clienteId, cuitSnapshot, requiereFactura, estadoFiscalInicial,
-                                null, null, 1, null, detalles);
+                };
+                return (carril != null) ? carril.ejecutar(transaccion) : jdbi.inTransaction(transaccion);
         }
 }
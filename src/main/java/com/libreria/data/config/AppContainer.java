@@ -1,12 +1,51 @@
 package com.libreria.data.config;
 
+import com.libreria.core.fiscal.ClienteFacturacion;
+import com.libreria.core.fiscal.ClienteFacturacionSimulado;
+import com.libreria.core.fiscal.ConfiguracionFiscal;
+import com.libreria.core.fiscal.TrabajadorFiscal;
+import com.libreria.core.metricas.VolcadoMetricas;
+import com.libreria.core.models.dto.ProgresoImportacion;
+import com.libreria.core.models.dto.ResultadoImportacion;
 import com.libreria.core.services.ConfiguracionService;
+import com.libreria.core.services.HistorialVentasService;
+import com.libreria.core.services.ImportadorCatalogo;
+import com.libreria.core.services.ListaPrecios;
 import com.libreria.core.services.PrecioCalculatorService;
 import com.libreria.core.services.ProductoService;
+import com.libreria.core.services.ReporteService;
+import com.libreria.core.services.StockService;
 import com.libreria.core.services.VentaService;
+import com.libreria.data.dao.VentaDao;
+import com.libreria.data.diario.AplicadorDiario;
+import com.libreria.data.diario.DiarioVentas;
+import com.libreria.data.historico.ArchivadorVentas;
+import com.libreria.data.replicacion.ReplicadorCambios;
+import com.libreria.data.replicacion.Terminal;
+import com.libreria.data.respaldo.ConfiguracionRespaldo;
+import com.libreria.data.respaldo.RespaldoBase;
+import com.libreria.hardware.printer.ColaImpresion;
+import com.libreria.hardware.printer.PlantillaTicket;
+import com.libreria.hardware.printer.SalidaArchivo;
+import com.libreria.hardware.printer.SalidaDispositivo;
+import com.libreria.hardware.printer.SalidaImpresora;
+import com.libreria.hardware.printer.SalidaMemoria;
+import com.libreria.hardware.scanner.LectorSerie;
 import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * CONTENEDOR DE DEPENDENCIAS (Service Locator / Composition Root).
@@ -15,22 +54,369 @@ import java.util.concurrent.Executors;
  */
 public class AppContainer {
 
+    private static final Logger logger = LoggerFactory.getLogger(AppContainer.class);
+
     private static AppContainer instance;
 
+    // Capacidad del diario de ventas (write-behind), ~100k ventas típicas
+    private static final int CAPACIDAD_DIARIO = 32 * 1024 * 1024;
+
     public final ConfiguracionService configuracionService;
     public final VentaService ventaService;
     public final PrecioCalculatorService precioService;
     public final ProductoService productoService;
+    public final StockService stockService;
+    public final ReporteService reporteService;
+    // Consultas de ventas de cualquier fecha, en la base o en los archivos mensuales
+    public final HistorialVentasService historialService;
+    // Precios de venta ya calculados; se rearma al cambiar márgenes o costos
+    public final ListaPrecios listaPrecios;
+    // Lecturas bloqueantes (consultas, carga de catálogo): un hilo virtual por tarea
     private final ExecutorService executorService;
+    // Escrituras: un único hilo ordenado
+    private final CarrilEscritura carrilEscritura;
+    private DiarioVentas diarioVentas;
+    private AplicadorDiario aplicadorDiario;
+    // Caja de un local con varias (null si trabaja sola) y su replicación
+    private final Terminal terminal;
+    private final ReplicadorCambios replicador;
+    // Copias de la base con la caja abierta (null si no se indicó carpeta de respaldos)
+    private final RespaldoBase respaldo;
+    // Pasa los meses cerrados a archivos mensuales (null si no se indicó carpeta de historial)
+    private final ArchivadorVentas archivador;
+    // Autorización de facturas en segundo plano (null si no hay cliente fiscal configurado)
+    private final TrabajadorFiscal trabajadorFiscal;
+    // Tickets impresos en segundo plano (null si no hay impresora configurada)
+    private final ColaImpresion colaImpresion;
+    // Escáner serie (null si se usa como teclado, el caso habitual)
+    private final LectorSerie lectorSerie;
+    // Volcado periódico de métricas al log (null si está desactivado)
+    private final VolcadoMetricas volcadoMetricas;
+    // Pantallas con el catálogo en memoria, para recargarlo después de una importación
+    private final List<Runnable> oyentesCatalogo = new CopyOnWriteArrayList<>();
+    private boolean cerrado;
 
     private AppContainer() {
         Jdbi jdbi = DatabaseManager.get();
+        Jdbi jdbiLectura = DatabaseManager.getLectura();
+
+        this.executorService = Executors.newVirtualThreadPerTaskExecutor();
+        this.carrilEscritura = new CarrilEscritura(jdbi);
+        this.terminal = leerTerminal();
+
+        this.configuracionService = new ConfiguracionService(jdbi, carrilEscritura);
+        this.productoService = new ProductoService(jdbiLectura);
+        this.ventaService = new VentaService(carrilEscritura, abrirDiarioVentas(jdbi), terminal);
+        this.stockService = new StockService(carrilEscritura, diarioVentas);
+        ventaService.agregarOyente(stockService::registrarVenta);
+        this.precioService = new PrecioCalculatorService(jdbiLectura, carrilEscritura);
+        this.reporteService = new ReporteService(jdbiLectura);
+        Path carpetaHistorial = carpetaHistorial();
+        this.historialService = new HistorialVentasService(jdbiLectura, carpetaHistorial, executorService);
+        this.listaPrecios = new ListaPrecios(jdbiLectura, configuracionService, executorService);
+        listaPrecios.reconstruirEnSegundoPlano();
+        this.volcadoMetricas = VolcadoMetricas.desdePropiedadesSistema();
+        this.trabajadorFiscal = iniciarTrabajadorFiscal();
+        this.colaImpresion = iniciarColaImpresion();
+        this.lectorSerie = iniciarLectorSerie();
+        this.replicador = iniciarReplicador(jdbiLectura);
+        this.respaldo = iniciarRespaldo();
+        this.archivador = iniciarArchivador(jdbiLectura, carpetaHistorial);
+
+        // Contadores de stock: carga en segundo plano y reconciliación cada pos.stock.reconciliarSeg
+        executorService.submit(() -> {
+            try {
+                stockService.iniciar(Long.getLong("pos.stock.reconciliarSeg", 300));
+            } catch (Exception e) {
+                logger.warn("No se pudo cargar el stock en memoria", e);
+            }
+        });
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::cerrar, "cierre-app-container"));
+    }
+
+    /**
+     * Activa el diario de ventas si se indicó la propiedad -Dpos.ventas.diario=ruta.
+     * Ante cualquier error se sigue escribiendo directo en SQLite.
+     */
+    private DiarioVentas abrirDiarioVentas(Jdbi jdbi) {
+        String ruta = System.getProperty("pos.ventas.diario");
+        if (ruta == null || ruta.isBlank()) {
+            return null;
+        }
+        try {
+            // Con varias cajas el diario numera dentro del rango de esta
+            long maximoId = terminal == null
+                    ? jdbi.withExtension(VentaDao.class, VentaDao::maximoId)
+                    : jdbi.withExtension(VentaDao.class,
+                            dao -> dao.maximoIdEnRango(terminal.primerId(), terminal.ultimoId()));
+            diarioVentas = DiarioVentas.abrir(Path.of(ruta), CAPACIDAD_DIARIO, maximoId);
+            aplicadorDiario = new AplicadorDiario(diarioVentas, carrilEscritura, terminal);
+            aplicadorDiario.iniciar();
+            return diarioVentas;
+        } catch (Exception e) {
+            logger.warn("No se pudo abrir el diario de ventas ({})", ruta, e);
+            return null;
+        }
+    }
+
+    /**
+     * Arranca el trabajador fiscal si se indicó -Dpos.fiscal.cliente: "simulado" o el nombre
+     * de una clase que implemente {@link ClienteFacturacion} con constructor sin argumentos.
+     * Sin cliente, las ventas con factura quedan PENDIENTE hasta que haya uno.
+     */
+    private TrabajadorFiscal iniciarTrabajadorFiscal() {
+        String nombre = System.getProperty("pos.fiscal.cliente");
+        if (nombre == null || nombre.isBlank()) {
+            return null;
+        }
+        try {
+            ClienteFacturacion cliente = "simulado".equals(nombre)
+                    ? new ClienteFacturacionSimulado()
+                    : (ClienteFacturacion) Class.forName(nombre).getDeclaredConstructor().newInstance();
+            TrabajadorFiscal trabajador = new TrabajadorFiscal(carrilEscritura, cliente,
+                    ConfiguracionFiscal.desdePropiedadesSistema(), terminal);
+            trabajador.iniciar();
+            ventaService.agregarOyente(venta -> {
+                if (venta.requiereFactura()) {
+                    trabajador.despertar();
+                }
+            });
+            return trabajador;
+        } catch (Exception e) {
+            logger.warn("No se pudo iniciar el trabajador fiscal ({})", nombre, e);
+            return null;
+        }
+    }
+
+    /**
+     * Arranca la cola de impresión si se indicó -Dpos.impresora:
+     * "dispositivo:/dev/usb/lp0" (o \\.\COM3), "archivo:ruta" o "memoria".
+     * Opcionales: pos.impresora.columnas (48 en papel de 80 mm, 32 en 58 mm) y
+     * pos.impresora.plantilla (ruta de una plantilla propia).
+     */
+    private ColaImpresion iniciarColaImpresion() {
+        String destino = System.getProperty("pos.impresora");
+        if (destino == null || destino.isBlank()) {
+            return null;
+        }
+        try {
+            SalidaImpresora salida;
+            if (destino.startsWith("dispositivo:")) {
+                salida = new SalidaDispositivo(destino.substring("dispositivo:".length()));
+            } else if (destino.startsWith("archivo:")) {
+                salida = new SalidaArchivo(Path.of(destino.substring("archivo:".length())));
+            } else if (destino.equals("memoria")) {
+                salida = new SalidaMemoria();
+            } else {
+                throw new IllegalArgumentException("destino desconocido");
+            }
+
+            int columnas = Integer.getInteger("pos.impresora.columnas", 48);
+            String rutaPlantilla = System.getProperty("pos.impresora.plantilla");
+            PlantillaTicket plantilla = (rutaPlantilla == null || rutaPlantilla.isBlank())
+                    ? PlantillaTicket.porDefecto(columnas)
+                    : PlantillaTicket.compilar(Files.readString(Path.of(rutaPlantilla)), columnas);
+
+            ColaImpresion cola = new ColaImpresion(plantilla, salida,
+                    Integer.getInteger("pos.impresora.capacidad", 500), historialService::buscarVenta);
+            cola.iniciar();
+            ventaService.agregarOyente(cola::encolar);
+            return cola;
+        } catch (Exception e) {
+            logger.warn("No se pudo iniciar la impresora ({}): {}", destino, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Abre el escáner serie si se indicó -Dpos.escaner.serie=ruta (/dev/ttyACM0, \\.\COM4).
+     * Los escáneres USB en modo teclado no necesitan configuración.
+     */
+    private LectorSerie iniciarLectorSerie() {
+        String ruta = System.getProperty("pos.escaner.serie");
+        if (ruta == null || ruta.isBlank()) {
+            return null;
+        }
+        LectorSerie lector = new LectorSerie(ruta);
+        lector.iniciar();
+        return lector;
+    }
+
+    /**
+     * Número de caja de -Dpos.terminal (local con varias cajas). Sin la propiedad, o con un
+     * número inválido, la caja trabaja sola como siempre.
+     */
+    private static Terminal leerTerminal() {
+        try {
+            return Terminal.desdePropiedadesSistema();
+        } catch (IllegalArgumentException e) {
+            logger.warn("{}. La caja trabaja sin replicar.", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Arranca la replicación si la caja tiene número y se indicó -Dpos.replicacion.carpeta
+     * (carpeta compartida por todas las cajas). Opcional: pos.replicacion.intervaloSeg (5).
+     */
+    private ReplicadorCambios iniciarReplicador(Jdbi jdbiLectura) {
+        String carpeta = System.getProperty("pos.replicacion.carpeta");
+        if (terminal == null || carpeta == null || carpeta.isBlank()) {
+            return null;
+        }
+        ReplicadorCambios replicador = new ReplicadorCambios(carrilEscritura, jdbiLectura, terminal,
+                Path.of(carpeta), Duration.ofSeconds(Long.getLong("pos.replicacion.intervaloSeg", 5)));
+        // Las ventas de otras cajas descuentan stock en la base: llevarlo a los contadores
+        replicador.setAlRecibir(stockService::reconciliar);
+        replicador.iniciar();
+        return replicador;
+    }
+
+    /**
+     * Arranca el respaldo automático si se indicó -Dpos.respaldo.carpeta
+     * (ver {@link ConfiguracionRespaldo#desdePropiedadesSistema()}).
+     */
+    private RespaldoBase iniciarRespaldo() {
+        ConfiguracionRespaldo config;
+        try {
+            config = ConfiguracionRespaldo.desdePropiedadesSistema();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Respaldo automático desactivado: {}", e.getMessage());
+            return null;
+        }
+        if (config == null) {
+            return null;
+        }
+        RespaldoBase respaldo = new RespaldoBase(DatabaseManager.getConfiguracion(), carrilEscritura, config);
+        respaldo.iniciar();
+        return respaldo;
+    }
+
+    /**
+     * Carpeta de los archivos mensuales del historial (-Dpos.historial.carpeta), o null.
+     */
+    private static Path carpetaHistorial() {
+        String carpeta = System.getProperty("pos.historial.carpeta");
+        return (carpeta == null || carpeta.isBlank()) ? null : Path.of(carpeta);
+    }
+
+    /**
+     * Arranca el archivo de meses cerrados si hay carpeta de historial. Opcionales:
+     * pos.historial.mesesActivos (meses que quedan en la base, 3) y
+     * pos.historial.intervaloHoras (24).
+     */
+    private ArchivadorVentas iniciarArchivador(Jdbi jdbiLectura, Path carpeta) {
+        if (carpeta == null) {
+            return null;
+        }
+        try {
+            // Con varias cajas, lo propio que todavía no salió a las otras queda en la base
+            ArchivadorVentas archivador = new ArchivadorVentas(carrilEscritura, jdbiLectura,
+                    DatabaseManager.getConfiguracion().rutaArchivo(), carpeta,
+                    Integer.getInteger("pos.historial.mesesActivos", 3), terminal,
+                    replicador != null ? replicador::ultimaSecuenciaExportada : null);
+            archivador.iniciar(Duration.ofHours(Long.getLong("pos.historial.intervaloHoras", 24)));
+            return archivador;
+        } catch (IllegalArgumentException e) {
+            logger.warn("Archivo del historial desactivado: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Importa una lista de precios con la caja abierta y refresca el catálogo en memoria
+     * (índices del escáner, lista de precios, contadores de stock y, por los oyentes de
+     * catálogo, el buscador) al terminar. Bloquea: llamar desde el executor.
+     */
+    public ResultadoImportacion importarCatalogo(Path csv, Charset charset, Path rechazos,
+            Consumer<ProgresoImportacion> progreso) throws IOException {
+        try {
+            return new ImportadorCatalogo(carrilEscritura).importar(csv, charset, rechazos, progreso);
+        } finally {
+            // Aun si falló a mitad, los lotes ya escritos quedaron en la base
+            productoService.invalidarCache();
+            listaPrecios.reconstruirEnSegundoPlano();
+            stockService.reconciliar();
+            avisarCambioCatalogo();
+        }
+    }
+
+    /**
+     * Registra quién recarga su copia del catálogo cuando cambia por una importación. Se
+     * llama en el hilo de la importación (pasar a la UI con Platform.runLater).
+     */
+    public void agregarOyenteCatalogo(Runnable oyente) {
+        oyentesCatalogo.add(oyente);
+    }
 
-        this.configuracionService = new ConfiguracionService(jdbi);
-        this.productoService = new ProductoService(jdbi);
-        this.ventaService = new VentaService(jdbi);
-        this.precioService = new PrecioCalculatorService(jdbi);
-        this.executorService = Executors.newCachedThreadPool();
+    private void avisarCambioCatalogo() {
+        for (Runnable oyente : oyentesCatalogo) {
+            try {
+                oyente.run();
+            } catch (RuntimeException e) {
+                logger.error("Error refrescando el catálogo", e);
+            }
+        }
+    }
+
+    /**
+     * Apagado ordenado: termina las lecturas en curso, vacía el diario y el carril de
+     * escritura y cierra las conexiones. Idempotente (lo llaman App.stop y el shutdown hook).
+     */
+    public synchronized void cerrar() {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        try {
+            executorService.shutdown();
+            executorService.awaitTermination(5, TimeUnit.SECONDS);
+            stockService.close();
+            if (colaImpresion != null) {
+                colaImpresion.close();
+            }
+            if (lectorSerie != null) {
+                lectorSerie.close();
+            }
+            if (trabajadorFiscal != null) {
+                trabajadorFiscal.close();
+            }
+            if (replicador != null) {
+                replicador.close();
+            }
+            if (archivador != null) {
+                archivador.close();
+            }
+            if (respaldo != null) {
+                respaldo.close();
+            }
+            if (aplicadorDiario != null) {
+                aplicadorDiario.close();
+            }
+            carrilEscritura.close();
+            if (diarioVentas != null) {
+                diarioVentas.close();
+            }
+            if (volcadoMetricas != null) {
+                volcadoMetricas.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error cerrando servicios", e);
+        } finally {
+            DatabaseManager.cerrar();
+        }
+    }
+
+    /**
+     * Cierra el contenedor solo si llegó a crearse.
+     */
+    public static synchronized void cerrarSiExiste() {
+        if (instance != null) {
+            instance.cerrar();
+        }
     }
 
     public static synchronized AppContainer getInstance() {
@@ -56,7 +442,55 @@ public class AppContainer {
         return productoService;
     }
 
+    public StockService getStockService() {
+        return stockService;
+    }
+
+    public ReporteService getReporteService() {
+        return reporteService;
+    }
+
+    public HistorialVentasService getHistorialService() {
+        return historialService;
+    }
+
+    public ListaPrecios getListaPrecios() {
+        return listaPrecios;
+    }
+
+    /**
+     * @return la cola de impresión, o null si no hay impresora configurada.
+     */
+    public ColaImpresion getColaImpresion() {
+        return colaImpresion;
+    }
+
+    /**
+     * @return el escáner serie, o null si no está configurado.
+     */
+    public LectorSerie getLectorSerie() {
+        return lectorSerie;
+    }
+
+    /**
+     * @return el replicador entre cajas, o null si la caja trabaja sola.
+     */
+    public ReplicadorCambios getReplicador() {
+        return replicador;
+    }
+
+    /**
+     * @return el respaldo automático, o null si no hay carpeta de respaldos configurada.
+     */
+    public RespaldoBase getRespaldo() {
+        return respaldo;
+    }
+
     public ExecutorService getExecutor() {
         return executorService;
     }
+
+    public CarrilEscritura getCarrilEscritura() {
+        return carrilEscritura;
+    }
 }
@@ -0,0 +1,133 @@
+package com.libreria.data.config;
+
+import org.jdbi.v3.core.statement.DefaultStatementBuilder;
+import org.jdbi.v3.core.statement.StatementBuilder;
+import org.jdbi.v3.core.statement.StatementBuilderFactory;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de sentencias preparadas por conexión física.
+ * Las conexiones del pool viven toda la sesión, así que reutilizar el PreparedStatement
+ * evita volver a compilar el SQL en SQLite en cada llamada a un DAO.
+ * Jdbi pide la sentencia al builder y la devuelve al terminar: si está libre se reutiliza,
+ * si ya está en uso (consultas anidadas) se prepara una nueva sin cachear.
+ */
+public class CacheSentencias implements StatementBuilderFactory {
+
+    private final int maxPorConexion;
+    private final Map<Connection, SentenciasConexion> porConexion = new ConcurrentHashMap<>();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    public CacheSentencias(int maxPorConexion) {
+        this.maxPorConexion = maxPorConexion;
+    }
+
+    @Override
+    public StatementBuilder createStatementBuilder(Connection conn) {
+        if (maxPorConexion <= 0) {
+            return new DefaultStatementBuilder();
+        }
+        return porConexion.computeIfAbsent(conn, c -> new SentenciasConexion());
+    }
+
+    /**
+     * Cierra las sentencias retenidas de una conexión que el pool va a descartar.
+     */
+    public void descartar(Connection conn) {
+        SentenciasConexion sentencias = porConexion.remove(conn);
+        if (sentencias != null) {
+            sentencias.cerrarTodas();
+        }
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    private final class SentenciasConexion extends DefaultStatementBuilder {
+
+        // Sentencias libres, en orden de acceso (la más antigua se cierra al superar el tope)
+        private final LinkedHashMap<String, PreparedStatement> libres = new LinkedHashMap<>(16, 0.75f, true);
+        // Sentencias entregadas por este builder que pueden volver a la caché
+        private final Set<Statement> prestadas = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        @Override
+        public synchronized PreparedStatement create(Connection conn, String sql, StatementContext ctx)
+                throws SQLException {
+            // Las sentencias con claves generadas o cursores especiales no se comparten
+            if (!cacheable(ctx)) {
+                return super.create(conn, sql, ctx);
+            }
+            PreparedStatement stmt = libres.remove(sql);
+            if (stmt != null && !stmt.isClosed()) {
+                aciertos.increment();
+            } else {
+                fallos.increment();
+                stmt = conn.prepareStatement(sql);
+            }
+            prestadas.add(stmt);
+            return stmt;
+        }
+
+        @Override
+        public synchronized void close(Connection conn, String sql, Statement stmt) throws SQLException {
+            if (!prestadas.remove(stmt) || !(stmt instanceof PreparedStatement ps) || stmt instanceof CallableStatement
+                    || stmt.isClosed() || libres.containsKey(sql)) {
+                super.close(conn, sql, stmt);
+                return;
+            }
+            try {
+                ps.clearParameters();
+                ps.clearBatch();
+            } catch (SQLException e) {
+                ps.close();
+                return;
+            }
+            libres.put(sql, ps);
+            if (libres.size() > maxPorConexion) {
+                var masAntigua = libres.entrySet().iterator().next();
+                libres.remove(masAntigua.getKey());
+                masAntigua.getValue().close();
+            }
+        }
+
+        @Override
+        public void close(Connection conn) {
+            // La conexión vuelve al pool: las sentencias se conservan para el próximo uso
+        }
+
+        synchronized void cerrarTodas() {
+            for (PreparedStatement ps : libres.values()) {
+                try {
+                    ps.close();
+                } catch (SQLException ignored) {
+                    // La conexión se está cerrando de todos modos
+                }
+            }
+            libres.clear();
+            prestadas.clear();
+        }
+
+        private boolean cacheable(StatementContext ctx) {
+            return !ctx.isReturningGeneratedKeys() && !ctx.isConcurrentUpdatable();
+        }
+    }
+}
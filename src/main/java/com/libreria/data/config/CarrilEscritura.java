@@ -0,0 +1,188 @@
+package com.libreria.data.config;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.HandleCallback;
+import org.jdbi.v3.core.Jdbi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CARRIL ÚNICO DE ESCRITURA
+ * --------------------------------------------------
+ * Todas las modificaciones de la base pasan por un solo hilo, en orden de llegada.
+ * SQLite admite un único escritor: serializar aquí elimina la contienda por el lock
+ * (SQLITE_BUSY) en lugar de resolverla con reintentos.
+ * Las tareas que se acumulan mientras se ejecuta un lote se agrupan en la misma
+ * transacción (un commit para todas); cada una corre en su propio SAVEPOINT, así que
+ * el fallo de una no deshace a las demás.
+ */
+public class CarrilEscritura implements AutoCloseable {
+
+    private static final int MAX_TAREAS_POR_LOTE = 64;
+
+    // Espera en cola (desde enviar hasta que arranca su lote) y duración de cada lote con su commit
+    private static final MetricaOperacion METRICA_ESPERA = Metricas.operacion("CarrilEscritura.espera");
+    private static final MetricaOperacion METRICA_LOTE = Metricas.operacion("CarrilEscritura.lote");
+
+    private final Jdbi jdbi;
+    private final BlockingQueue<Tarea<?>> cola = new LinkedBlockingQueue<>();
+    private final Thread hilo;
+    private volatile boolean aceptando = true;
+    // Fin del último lote (System.nanoTime); con la cola vacía indica cuánto hace que no se escribe
+    private volatile long finUltimoLoteNanos = System.nanoTime();
+
+    public CarrilEscritura(Jdbi jdbi) {
+        this.jdbi = jdbi;
+        this.hilo = Thread.ofPlatform().name("carril-escritura-db").daemon(true).start(this::ejecutar);
+    }
+
+    /**
+     * Encola una operación de escritura; el Handle ya está dentro de una transacción.
+     */
+    public <T> CompletableFuture<T> enviar(HandleCallback<T, RuntimeException> operacion) {
+        if (!aceptando) {
+            return CompletableFuture.failedFuture(new IllegalStateException("El carril de escritura está cerrado"));
+        }
+        Tarea<T> tarea = new Tarea<>(operacion, new CompletableFuture<>(), System.nanoTime());
+        cola.add(tarea);
+        return tarea.resultado();
+    }
+
+    /**
+     * Encola la operación y espera su resultado (propaga la excepción original).
+     * Llamada desde el propio carril, se ejecuta en línea para no bloquearse a sí misma.
+     */
+    public <T> T ejecutar(HandleCallback<T, RuntimeException> operacion) {
+        if (Thread.currentThread() == hilo) {
+            return jdbi.inTransaction(operacion);
+        }
+        try {
+            return enviar(operacion).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    public int tareasPendientes() {
+        return cola.size();
+    }
+
+    /**
+     * Milisegundos sin escrituras: 0 si hay tareas en cola o un lote en curso.
+     * Sirve a las tareas de fondo para aprovechar los momentos sin ventas.
+     */
+    public long msInactivo() {
+        long fin = finUltimoLoteNanos;
+        if (!cola.isEmpty() || fin == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fin);
+    }
+
+    /**
+     * Deja de aceptar tareas, termina las encoladas y detiene el hilo.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        aceptando = false;
+        cola.add(Tarea.FIN);
+        hilo.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void ejecutar() {
+        List<Tarea<?>> lote = new ArrayList<>(MAX_TAREAS_POR_LOTE);
+        while (true) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            cola.drainTo(lote, MAX_TAREAS_POR_LOTE - 1);
+
+            boolean fin = lote.remove(Tarea.FIN);
+            if (!lote.isEmpty()) {
+                ejecutarLote(lote);
+            }
+            lote.clear();
+            if (fin) {
+                return;
+            }
+        }
+    }
+
+    private void ejecutarLote(List<Tarea<?>> lote) {
+        finUltimoLoteNanos = 0;
+        try {
+            ejecutarTareas(lote);
+        } finally {
+            finUltimoLoteNanos = System.nanoTime();
+        }
+    }
+
+    private void ejecutarTareas(List<Tarea<?>> lote) {
+        long inicio = System.nanoTime();
+        for (Tarea<?> t : lote) {
+            METRICA_ESPERA.registrarDuracion(inicio - t.encoladaNanos(), true);
+        }
+
+        List<Object> resultados = new ArrayList<>(lote.size());
+        try {
+            jdbi.useTransaction(handle -> {
+                for (int i = 0; i < lote.size(); i++) {
+                    resultados.add(ejecutarEnSavepoint(handle, lote.get(i), "t" + i));
+                }
+            });
+        } catch (Exception e) {
+            // Falló el commit: ninguna tarea del lote quedó persistida
+            METRICA_LOTE.registrar(inicio, false);
+            lote.forEach(t -> t.resultado().completeExceptionally(e));
+            return;
+        }
+        METRICA_LOTE.registrar(inicio, true);
+
+        for (int i = 0; i < lote.size(); i++) {
+            lote.get(i).completar(resultados.get(i));
+        }
+    }
+
+    private Object ejecutarEnSavepoint(Handle handle, Tarea<?> tarea, String savepoint) {
+        handle.savepoint(savepoint);
+        try {
+            Object resultado = tarea.operacion().withHandle(handle);
+            handle.releaseSavepoint(savepoint);
+            return resultado;
+        } catch (RuntimeException e) {
+            // Jdbi deja de rastrear el savepoint al volver a él: no hace falta liberarlo
+            handle.rollbackToSavepoint(savepoint);
+            return new Fallo(e);
+        }
+    }
+
+    private record Fallo(RuntimeException causa) {
+    }
+
+    private record Tarea<T>(HandleCallback<T, RuntimeException> operacion, CompletableFuture<T> resultado,
+            long encoladaNanos) {
+        static final Tarea<Void> FIN = new Tarea<>(h -> null, new CompletableFuture<>(), 0);
+
+        @SuppressWarnings("unchecked")
+        void completar(Object valor) {
+            if (valor instanceof Fallo f) {
+                resultado.completeExceptionally(f.causa());
+            } else {
+                resultado.complete((T) valor);
+            }
+        }
+    }
+}
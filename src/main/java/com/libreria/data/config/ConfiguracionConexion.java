@@ -0,0 +1,73 @@
+package com.libreria.data.config;
+
+/**
+ * Parámetros de la capa de conexión a SQLite.
+ * Los valores por defecto se pueden sobreescribir con propiedades de sistema
+ * (-Dpos.db.ruta=..., -Dpos.db.synchronous=FULL, etc.) para medir variantes
+ * sin recompilar.
+ *
+ * @param rutaArchivo        Archivo de la base de datos.
+ * @param tamanoPoolLectura  Conexiones de solo lectura (búsquedas, listados).
+ * @param journalMode        WAL permite lectores concurrentes con el escritor.
+ * @param synchronous        NORMAL es seguro en WAL y evita un fsync por commit.
+ * @param foreignKeys        Activar claves foráneas en cada conexión.
+ * @param cacheSizeKb        Caché de páginas por conexión, en KiB.
+ * @param mmapSizeBytes      Tamaño del mapeo en memoria (0 = desactivado).
+ * @param busyTimeoutMs      Espera ante SQLITE_BUSY antes de fallar.
+ * @param cacheSentencias    Sentencias preparadas retenidas por conexión (0 = sin caché).
+ * @param esperaConexionMs   Espera máxima para obtener una conexión del pool.
+ */
+public record ConfiguracionConexion(
+        String rutaArchivo,
+        int tamanoPoolLectura,
+        String journalMode,
+        String synchronous,
+        boolean foreignKeys,
+        int cacheSizeKb,
+        long mmapSizeBytes,
+        int busyTimeoutMs,
+        int cacheSentencias,
+        long esperaConexionMs) {
+
+    public static final String RUTA_POR_DEFECTO = "pos-db.sqlite";
+
+    public ConfiguracionConexion {
+        if (rutaArchivo == null || rutaArchivo.isBlank()) {
+            throw new IllegalArgumentException("La ruta de la base de datos es obligatoria");
+        }
+        if (tamanoPoolLectura < 1) {
+            throw new IllegalArgumentException("El pool de lectura necesita al menos una conexión");
+        }
+    }
+
+    public static ConfiguracionConexion porDefecto() {
+        return porDefecto(RUTA_POR_DEFECTO);
+    }
+
+    public static ConfiguracionConexion porDefecto(String rutaArchivo) {
+        return new ConfiguracionConexion(rutaArchivo, 4, "WAL", "NORMAL", true,
+                8 * 1024, 64L * 1024 * 1024, 5000, 64, 10_000);
+    }
+
+    /**
+     * Valores por defecto con los overrides de las propiedades de sistema "pos.db.*".
+     */
+    public static ConfiguracionConexion desdePropiedadesSistema() {
+        ConfiguracionConexion d = porDefecto();
+        return new ConfiguracionConexion(
+                System.getProperty("pos.db.ruta", d.rutaArchivo()),
+                Integer.getInteger("pos.db.pool.lectura", d.tamanoPoolLectura()),
+                System.getProperty("pos.db.journal", d.journalMode()),
+                System.getProperty("pos.db.synchronous", d.synchronous()),
+                Boolean.parseBoolean(System.getProperty("pos.db.foreignKeys", String.valueOf(d.foreignKeys()))),
+                Integer.getInteger("pos.db.cacheKb", d.cacheSizeKb()),
+                Long.getLong("pos.db.mmap", d.mmapSizeBytes()),
+                Integer.getInteger("pos.db.busyTimeout", d.busyTimeoutMs()),
+                Integer.getInteger("pos.db.cacheSentencias", d.cacheSentencias()),
+                Long.getLong("pos.db.esperaConexion", d.esperaConexionMs()));
+    }
+
+    public String url() {
+        return "jdbc:sqlite:" + rutaArchivo;
+    }
+}
@@ -1,22 +1,28 @@
 package com.libreria.data.config;
 
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.SqlStatements;
 import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
+import java.util.List;
 
 public class DatabaseManager {
 
-    // Cadena de conexión para SQLite local
-    private static final String CONNECTION_STRING = "jdbc:sqlite:pos-db.sqlite";
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
+
+    private static ConfiguracionConexion config;
+    private static PoolConexionesSqlite poolEscritura;
+    private static PoolConexionesSqlite poolLectura;
     private static Jdbi jdbi;
+    private static Jdbi jdbiLectura;
+    // Tiempos por sentencia, compartido por ambos pools
+    private static final MetricasSql metricasSql = new MetricasSql();
 
     /**
      * Obtiene la instancia única de Jdbi configurada.
+     * Usa la única conexión de escritura: todas las modificaciones pasan por aquí.
      */
     public static Jdbi get() {
         if (jdbi == null) {
@@ -25,48 +31,88 @@ public class DatabaseManager {
         return jdbi;
     }
 
+    /**
+     * Instancia Jdbi sobre el pool de solo lectura (búsquedas, listados, precios).
+     * En modo WAL los lectores no esperan a la conexión de escritura.
+     */
+    public static Jdbi getLectura() {
+        if (jdbiLectura == null) {
+            throw new IllegalStateException("DatabaseManager no ha sido inicializado. Llama a initDb() primero.");
+        }
+        return jdbiLectura;
+    }
+
     /**
      * Inicializa la conexión y asegura que las tablas existan.
+     * Toma la configuración de las propiedades de sistema "pos.db.*".
      */
     public static void initDb() {
-        System.out.println("[DB] Conectando a SQLite...");
-
-        // 1. Crear instancia Jdbi
-        jdbi = Jdbi.create(CONNECTION_STRING);
-
-        // 2. Instalar Plugins (CRÍTICO para usar interfaces DAO @SqlQuery)
-        jdbi.installPlugin(new SqlObjectPlugin());
-
-        // 3. Ejecutar Schema
-        System.out.println("[DB] Verificando esquema de tablas...");
-        try (var handle = jdbi.open()) {
-            String sql = loadSchemaSql();
-            // Ejecutamos como script para permitir múltiples sentencias (create table,
-            // index, etc)
-            handle.createScript(sql).execute();
-            System.out.println("[DB] Esquema verificado correctamente.");
+        initDb(ConfiguracionConexion.desdePropiedadesSistema());
+    }
+
+    /**
+     * Inicializa la conexión con una configuración explícita (benchmarks, bases temporales).
+     */
+    public static synchronized void initDb(ConfiguracionConexion configuracion) {
+        logger.info("[DB] Conectando a SQLite ({})...", configuracion.rutaArchivo());
+        cerrar();
+        config = configuracion;
+
+        // 1. Crear pools: un escritor y N lectores, cada uno con su caché de sentencias
+        poolEscritura = new PoolConexionesSqlite("escritura", configuracion, 1, false,
+                new CacheSentencias(configuracion.cacheSentencias()));
+        jdbi = crearJdbi(poolEscritura);
+
+        // 2. Migrar el esquema (por la conexión de escritura, que además fija el modo WAL).
+        // Con la base al día solo se lee PRAGMA user_version.
+        try {
+            new MigradorEsquema(jdbi).migrar();
         } catch (Exception e) {
-            System.err.println("[DB] Error crítico inicializando la base de datos: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("[DB] Error crítico inicializando la base de datos", e);
             throw new RuntimeException("Error inicializando la base de datos: " + e.getMessage(), e);
         }
+
+        poolLectura = new PoolConexionesSqlite("lectura", configuracion, configuracion.tamanoPoolLectura(), true,
+                new CacheSentencias(configuracion.cacheSentencias()));
+        jdbiLectura = crearJdbi(poolLectura);
     }
 
     /**
-     * Lee el archivo schema.sql desde los recursos del JAR/Classpath.
+     * Cierra las conexiones físicas de ambos pools.
      */
-    private static String loadSchemaSql() {
-        String path = "/db/schema.sql";
-        InputStream is = DatabaseManager.class.getResourceAsStream(path);
-
-        if (is == null) {
-            throw new RuntimeException("No se encontró el archivo de esquema en: " + path);
+    public static synchronized void cerrar() {
+        if (poolLectura != null) {
+            poolLectura.cerrar();
         }
+        if (poolEscritura != null) {
+            poolEscritura.cerrar();
+        }
+        poolLectura = null;
+        poolEscritura = null;
+        jdbi = null;
+        jdbiLectura = null;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            return reader.lines().collect(Collectors.joining("\n"));
-        } catch (Exception e) {
-            throw new RuntimeException("Error leyendo schema.sql", e);
+    public static ConfiguracionConexion getConfiguracion() {
+        return config;
+    }
+
+    /**
+     * Estado de los pools (conexiones, esperas, reutilización de sentencias).
+     */
+    public static List<PoolConexionesSqlite.EstadisticasPool> estadisticas() {
+        if (poolEscritura == null || poolLectura == null) {
+            return List.of();
         }
+        return List.of(poolEscritura.estadisticas(), poolLectura.estadisticas());
+    }
+
+    private static Jdbi crearJdbi(PoolConexionesSqlite pool) {
+        Jdbi instancia = Jdbi.create(pool);
+        // Instalar Plugins (CRÍTICO para usar interfaces DAO @SqlQuery)
+        instancia.installPlugin(new SqlObjectPlugin());
+        instancia.setStatementBuilderFactory(pool.getCacheSentencias());
+        instancia.getConfig(SqlStatements.class).setSqlLogger(metricasSql);
+        return instancia;
     }
 }
@@ -0,0 +1,71 @@
+package com.libreria.data.config;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import org.jdbi.v3.core.extension.ExtensionMethod;
+import org.jdbi.v3.core.statement.SqlLogger;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SqlLogger de Jdbi que mide cada sentencia ejecutada.
+ * Las sentencias de un DAO se registran como "sql.Dao.metodo"; las que se arman a mano
+ * sobre un Handle (scripts, pragmas, batches) como "sql." + el comienzo del SQL.
+ */
+public class MetricasSql implements SqlLogger {
+
+    private static final int LARGO_SQL = 48;
+    private static final int MAX_SQL_DIRECTO = 256;
+
+    // Scripts y Batch sin SQL único (ej: migraciones)
+    private final MetricaOperacion sinSql = Metricas.operacion("sql.script");
+    private final Map<Method, MetricaOperacion> porMetodo = new ConcurrentHashMap<>();
+    private final Map<String, MetricaOperacion> porSql = new ConcurrentHashMap<>();
+
+    @Override
+    public void logAfterExecution(StatementContext context) {
+        operacion(context).registrarDuracion(context.getElapsedTime(ChronoUnit.NANOS), true);
+    }
+
+    @Override
+    public void logException(StatementContext context, SQLException ex) {
+        long nanos;
+        try {
+            nanos = context.getElapsedTime(ChronoUnit.NANOS);
+        } catch (RuntimeException e) {
+            nanos = 0; // Falló antes de ejecutarse (sin marca de inicio/fin)
+        }
+        operacion(context).registrarDuracion(nanos, false);
+    }
+
+    private MetricaOperacion operacion(StatementContext context) {
+        ExtensionMethod extension = context.getExtensionMethod();
+        if (extension != null) {
+            return porMetodo.computeIfAbsent(extension.getMethod(), m -> Metricas.operacion(
+                    "sql." + extension.getType().getSimpleName() + "." + m.getName()));
+        }
+
+        String sql = context.getRawSql();
+        if (sql == null) {
+            return sinSql;
+        }
+        MetricaOperacion metrica = porSql.get(sql);
+        if (metrica == null) {
+            metrica = Metricas.operacion("sql." + resumir(sql));
+            if (porSql.size() < MAX_SQL_DIRECTO) {
+                porSql.put(sql, metrica);
+            }
+        }
+        return metrica;
+    }
+
+    private static String resumir(String sql) {
+        String compacto = sql.strip().replaceAll("\\s+", " ");
+        return compacto.length() <= LARGO_SQL ? compacto : compacto.substring(0, LARGO_SQL) + "...";
+    }
+}
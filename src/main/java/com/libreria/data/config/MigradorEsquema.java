@@ -0,0 +1,137 @@
+package com.libreria.data.config;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * MIGRACIONES DEL ESQUEMA
+ * --------------------------------------------------
+ * Las migraciones son scripts numerados en /db/migrations (VNNN__descripcion.sql),
+ * listados en orden en /db/migrations/indice.txt.
+ * La versión aplicada se guarda en PRAGMA user_version (cabecera del archivo): con el
+ * esquema al día, el arranque cuesta esa única lectura y no se abre ningún script.
+ * Cada migración pendiente corre en su propia transacción junto con el cambio de versión
+ * y su registro en la tabla schema_version (historial con fecha y checksum).
+ */
+public class MigradorEsquema {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigradorEsquema.class);
+
+    private static final String CARPETA = "/db/migrations/";
+    private static final Pattern NOMBRE = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final Jdbi jdbi;
+
+    public MigradorEsquema(Jdbi jdbi) {
+        this.jdbi = jdbi;
+    }
+
+    /**
+     * Aplica las migraciones pendientes.
+     * @return la versión del esquema resultante.
+     */
+    public int migrar() {
+        try (Handle handle = jdbi.open()) {
+            int actual = versionActual(handle);
+            List<Migracion> migraciones = listar();
+            int ultima = migraciones.isEmpty() ? 0 : migraciones.get(migraciones.size() - 1).version();
+
+            if (actual == ultima) {
+                logger.info("[DB] Esquema al día (versión {}).", actual);
+                return actual;
+            }
+            if (actual > ultima) {
+                throw new IllegalStateException("La base está en la versión " + actual
+                        + " pero esta aplicación solo conoce hasta la " + ultima + ". Actualice la aplicación.");
+            }
+
+            for (Migracion m : migraciones) {
+                if (m.version() > actual) {
+                    aplicar(handle, m);
+                    actual = m.version();
+                }
+            }
+            return actual;
+        }
+    }
+
+    private static int versionActual(Handle handle) {
+        return handle.createQuery("PRAGMA user_version").mapTo(Integer.class).one();
+    }
+
+    private static void aplicar(Handle handle, Migracion m) {
+        logger.info("[DB] Aplicando migración {}...", m.archivo());
+        String sql = leer(m.archivo());
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+
+        handle.useTransaction(h -> {
+            h.createScript(sql).execute();
+            h.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        descripcion TEXT NOT NULL,
+                        checksum INTEGER NOT NULL,
+                        aplicada_en DATETIME DEFAULT CURRENT_TIMESTAMP
+                    )""");
+            h.createUpdate("INSERT INTO schema_version (version, descripcion, checksum) VALUES (:v, :d, :c)")
+                    .bind("v", m.version())
+                    .bind("d", m.descripcion())
+                    .bind("c", crc.getValue())
+                    .execute();
+            // PRAGMA no admite parámetros; la versión es un entero validado por el patrón del nombre
+            h.execute("PRAGMA user_version = " + m.version());
+        });
+    }
+
+    /**
+     * Lee el índice y valida que las versiones sean consecutivas desde 1.
+     */
+    private static List<Migracion> listar() {
+        List<Migracion> migraciones = new ArrayList<>();
+        for (String linea : leer("indice.txt").split("\n")) {
+            String archivo = linea.strip();
+            if (archivo.isEmpty() || archivo.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = NOMBRE.matcher(archivo);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Nombre de migración inválido: " + archivo);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version != migraciones.size() + 1) {
+                throw new IllegalStateException("Migración fuera de orden: " + archivo);
+            }
+            migraciones.add(new Migracion(version, matcher.group(2).replace('_', ' '), archivo));
+        }
+        return migraciones;
+    }
+
+    private static String leer(String archivo) {
+        InputStream is = MigradorEsquema.class.getResourceAsStream(CARPETA + archivo);
+        if (is == null) {
+            throw new IllegalStateException("No se encontró el recurso de migración: " + CARPETA + archivo);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.joining("\n"));
+        } catch (Exception e) {
+            throw new IllegalStateException("Error leyendo " + archivo, e);
+        }
+    }
+
+    private record Migracion(int version, String descripcion, String archivo) {
+    }
+}
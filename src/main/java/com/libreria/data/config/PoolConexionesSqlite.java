@@ -0,0 +1,190 @@
+package com.libreria.data.config;
+
+import org.jdbi.v3.core.ConnectionFactory;
+import org.sqlite.SQLiteConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool mínimo de conexiones SQLite para Jdbi.
+ * Jdbi pide una conexión al abrir cada Handle y la devuelve al cerrarlo: en lugar de
+ * abrir y cerrar el archivo en cada llamada a un DAO, las conexiones físicas se crean
+ * una sola vez (con sus PRAGMAs) y se reutilizan.
+ */
+public class PoolConexionesSqlite implements ConnectionFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoolConexionesSqlite.class);
+
+    private final String nombre;
+    private final ConfiguracionConexion config;
+    private final boolean soloLectura;
+    private final CacheSentencias cacheSentencias;
+    private final int tamanoMaximo;
+
+    private final BlockingQueue<Connection> libres;
+    private final List<Connection> todas = new ArrayList<>();
+    private final AtomicInteger creadas = new AtomicInteger();
+    private final LongAdder prestamos = new LongAdder();
+    private final LongAdder esperasNanos = new LongAdder();
+    private volatile boolean cerrado;
+
+    public PoolConexionesSqlite(String nombre, ConfiguracionConexion config, int tamano, boolean soloLectura,
+            CacheSentencias cacheSentencias) {
+        this.nombre = nombre;
+        this.config = config;
+        this.tamanoMaximo = tamano;
+        this.soloLectura = soloLectura;
+        this.cacheSentencias = cacheSentencias;
+        this.libres = new ArrayBlockingQueue<>(tamano);
+    }
+
+    @Override
+    public Connection openConnection() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("Pool " + nombre + " cerrado");
+        }
+        prestamos.increment();
+
+        Connection conn = libres.poll();
+        if (conn != null) {
+            return conn;
+        }
+        if (creadas.getAndIncrement() < tamanoMaximo) {
+            try {
+                return crearConexion();
+            } catch (SQLException | RuntimeException e) {
+                creadas.decrementAndGet();
+                throw e;
+            }
+        }
+        creadas.decrementAndGet();
+
+        long inicio = System.nanoTime();
+        try {
+            conn = libres.poll(config.esperaConexionMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando conexión del pool " + nombre, e);
+        } finally {
+            esperasNanos.add(System.nanoTime() - inicio);
+        }
+        if (conn == null) {
+            throw new SQLException("Tiempo agotado esperando conexión del pool " + nombre);
+        }
+        return conn;
+    }
+
+    @Override
+    public void closeConnection(Connection conn) throws SQLException {
+        if (conn.isClosed()) {
+            descartar(conn);
+            return;
+        }
+        try {
+            // Una transacción que quedó abierta no debe filtrarse al próximo usuario
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            descartar(conn);
+            conn.close();
+            return;
+        }
+        if (cerrado || !libres.offer(conn)) {
+            descartar(conn);
+            conn.close();
+        }
+    }
+
+    /**
+     * Cierra todas las conexiones físicas (al apagar la aplicación).
+     */
+    public void cerrar() {
+        cerrado = true;
+        List<Connection> copia;
+        synchronized (todas) {
+            copia = new ArrayList<>(todas);
+        }
+        for (Connection conn : copia) {
+            descartar(conn);
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                logger.warn("[DB] Error cerrando conexión del pool {}: {}", nombre, e.getMessage());
+            }
+        }
+        libres.clear();
+    }
+
+    public CacheSentencias getCacheSentencias() {
+        return cacheSentencias;
+    }
+
+    public EstadisticasPool estadisticas() {
+        return new EstadisticasPool(nombre, tamanoMaximo, creadas.get(), libres.size(), prestamos.sum(),
+                TimeUnit.NANOSECONDS.toMillis(esperasNanos.sum()),
+                cacheSentencias.getAciertos(), cacheSentencias.getFallos());
+    }
+
+    private Connection crearConexion() throws SQLException {
+        SQLiteConfig sqlite = new SQLiteConfig();
+        sqlite.enforceForeignKeys(config.foreignKeys());
+        sqlite.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(config.synchronous().toUpperCase()));
+        sqlite.setCacheSize(-config.cacheSizeKb()); // Negativo = KiB en lugar de páginas
+        sqlite.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(config.mmapSizeBytes()));
+        sqlite.setBusyTimeout(config.busyTimeoutMs());
+        // El modo de journal es persistente en el archivo: lo fija la conexión de escritura
+        if (!soloLectura) {
+            sqlite.setJournalMode(SQLiteConfig.JournalMode.valueOf(config.journalMode().toUpperCase()));
+            // Tomar el lock de escritura al empezar evita SQLITE_BUSY al promover un lector
+            sqlite.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        }
+
+        Connection conn = DriverManager.getConnection(config.url(), sqlite.toProperties());
+        if (soloLectura) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA query_only = 1");
+            }
+        }
+        synchronized (todas) {
+            todas.add(conn);
+        }
+        return conn;
+    }
+
+    private void descartar(Connection conn) {
+        cacheSentencias.descartar(conn);
+        synchronized (todas) {
+            if (todas.remove(conn)) {
+                creadas.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Foto de uso del pool para diagnóstico y benchmarks.
+     */
+    public record EstadisticasPool(
+            String nombre,
+            int tamanoMaximo,
+            int conexionesAbiertas,
+            int conexionesLibres,
+            long prestamos,
+            long esperaTotalMs,
+            long sentenciasReutilizadas,
+            long sentenciasPreparadas) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.libreria.data.dao;
+
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import com.libreria.core.models.enums.EstadoFiscal;
+import com.libreria.core.models.enums.EstadoVenta;
+import com.libreria.core.models.enums.MetodoPago;
+import com.libreria.data.replicacion.LoteCambios.Cambio;
+import com.libreria.data.replicacion.LoteCambios.MovimientoStock;
+import com.libreria.data.replicacion.LoteCambios.RenglonRemoto;
+import com.libreria.data.replicacion.LoteCambios.VentaRemota;
+import org.jdbi.v3.sqlobject.SqlObject;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registro de cambios entre cajas (tabla cambios, ver migración V006 y ReplicadorCambios).
+ * Las secuencias de cada caja empiezan en 1 y no tienen huecos.
+ */
+public interface CambiosDao extends SqlObject {
+
+    /**
+     * Anota una venta propia. Llamar dentro de la transacción que la inserta.
+     */
+    @SqlUpdate("""
+                INSERT INTO cambios (terminal, secuencia, tipo, venta_id)
+                VALUES (:terminal, (SELECT COALESCE(MAX(secuencia), 0) + 1 FROM cambios WHERE terminal = :terminal),
+                        'VENTA', :ventaId)
+            """)
+    void registrarVenta(@Bind("terminal") int terminal, @Bind("ventaId") long ventaId);
+
+    /**
+     * Anota un ajuste de stock propio. Llamar dentro de la transacción que lo aplica.
+     */
+    @SqlUpdate("""
+                INSERT INTO cambios (terminal, secuencia, tipo, sku, cantidad, motivo)
+                VALUES (:terminal, (SELECT COALESCE(MAX(secuencia), 0) + 1 FROM cambios WHERE terminal = :terminal),
+                        'STOCK', :sku, :cantidad, :motivo)
+            """)
+    void registrarMovimiento(@Bind("terminal") int terminal, @Bind("sku") String sku,
+            @Bind("cantidad") int cantidad, @Bind("motivo") String motivo);
+
+    /**
+     * Última secuencia registrada de la caja: la propia, o lo ya recibido de otra.
+     */
+    @SqlQuery("SELECT COALESCE(MAX(secuencia), 0) FROM cambios WHERE terminal = :terminal")
+    long ultimaSecuencia(@Bind("terminal") int terminal);
+
+    /**
+     * Cambios de la caja posteriores a {@code desde}, con los datos de cada venta como están ahora.
+     */
+    default List<Cambio> leer(int terminal, long desde, int limite) {
+        List<Cambio> cambios = new ArrayList<>();
+        Map<Long, List<RenglonRemoto>> renglones = new LinkedHashMap<>();
+        getHandle().createQuery("""
+                    SELECT c.secuencia, c.tipo, c.sku, c.cantidad, c.motivo,
+                           v.id AS venta_id, v.fecha_creacion, v.total_centavos, v.metodo_pago, v.estado,
+                           v.cuit_cliente, v.requiere_factura, v.estado_fiscal, COALESCE(v.punto_venta, 1) AS punto_venta
+                    FROM cambios c
+                    LEFT JOIN ventas v ON v.id = c.venta_id
+                    WHERE c.terminal = :terminal AND c.secuencia > :desde
+                    ORDER BY c.secuencia
+                    LIMIT :limite
+                """)
+                .bind("terminal", terminal).bind("desde", desde).bind("limite", limite)
+                .map((rs, ctx) -> {
+                    long secuencia = rs.getLong("secuencia");
+                    if ("STOCK".equals(rs.getString("tipo"))) {
+                        return new MovimientoStock(secuencia, rs.getString("sku"), rs.getInt("cantidad"),
+                                rs.getString("motivo"));
+                    }
+                    long ventaId = rs.getLong("venta_id");
+                    if (rs.wasNull()) {
+                        // La venta ya no está en esta base (archivada): no hay nada que mandar
+                        return null;
+                    }
+                    List<RenglonRemoto> lista = new ArrayList<>();
+                    renglones.put(ventaId, lista);
+                    return new VentaRemota(secuencia, ventaId, rs.getString("fecha_creacion"),
+                            rs.getInt("total_centavos"), rs.getString("metodo_pago"), rs.getString("estado"),
+                            rs.getString("cuit_cliente"), rs.getBoolean("requiere_factura"),
+                            rs.getString("estado_fiscal"), rs.getInt("punto_venta"), lista);
+                })
+                .forEach(c -> {
+                    if (c != null) {
+                        cambios.add(c);
+                    }
+                });
+
+        if (!renglones.isEmpty()) {
+            getHandle().createQuery("""
+                        SELECT d.venta_id, p.sku_interno, d.cantidad, d.precio_unitario_centavos,
+                               d.subtotal_centavos, d.descripcion_linea
+                        FROM detalle_ventas d
+                        JOIN productos p ON p.id = d.producto_id
+                        WHERE d.venta_id IN (<ventas>)
+                        ORDER BY d.id
+                    """)
+                    .bindList("ventas", renglones.keySet())
+                    .map((rs, ctx) -> {
+                        renglones.get(rs.getLong("venta_id")).add(new RenglonRemoto(rs.getString("sku_interno"),
+                                rs.getInt("cantidad"), rs.getInt("precio_unitario_centavos"),
+                                rs.getInt("subtotal_centavos"), rs.getString("descripcion_linea")));
+                        return 0;
+                    })
+                    .forEach(x -> {
+                    });
+        }
+        return cambios;
+    }
+
+    /**
+     * Aplica cambios de otra caja y los anota con su secuencia. Idempotente: una venta
+     * cuyo ID ya existe se saltea (no descuenta stock dos veces).
+     * @return cantidad de renglones descartados porque su SKU no existe en esta base.
+     */
+    default int aplicarRemotos(int terminal, List<Cambio> cambios) {
+        Set<String> skus = new LinkedHashSet<>();
+        for (Cambio c : cambios) {
+            if (c instanceof VentaRemota v) {
+                v.renglones().forEach(r -> skus.add(r.sku()));
+            }
+        }
+        Map<String, Integer> productos = new HashMap<>();
+        if (!skus.isEmpty()) {
+            getHandle().createQuery("SELECT sku_interno, id FROM productos WHERE sku_interno IN (<skus>)")
+                    .bindList("skus", skus)
+                    .map((rs, ctx) -> Map.entry(rs.getString("sku_interno"), rs.getInt("id")))
+                    .forEach(e -> productos.put(e.getKey(), e.getValue()));
+        }
+
+        VentaDao ventaDao = getHandle().attach(VentaDao.class);
+        int descartados = 0;
+        for (Cambio cambio : cambios) {
+            switch (cambio) {
+                case VentaRemota v -> {
+                    if (!ventaDao.existeVenta(v.ventaId())) {
+                        descartados += insertarVenta(ventaDao, v, productos);
+                    }
+                    anotarRemoto(terminal, v.secuencia(), "VENTA", v.ventaId(), null, null, null);
+                }
+                case MovimientoStock s -> {
+                    ajustarStock(s.sku(), s.cantidad());
+                    anotarRemoto(terminal, s.secuencia(), "STOCK", null, s.sku(), s.cantidad(), s.motivo());
+                }
+            }
+        }
+        return descartados;
+    }
+
+    private int insertarVenta(VentaDao ventaDao, VentaRemota v, Map<String, Integer> productos) {
+        List<DetalleVenta> detalles = new ArrayList<>(v.renglones().size());
+        int descartados = 0;
+        for (RenglonRemoto r : v.renglones()) {
+            Integer productoId = productos.get(r.sku());
+            if (productoId == null) {
+                descartados++;
+                continue;
+            }
+            detalles.add(new DetalleVenta(null, null, productoId, r.cantidad(), r.precioUnitarioCentavos(),
+                    r.subtotalCentavos(), r.descripcion()));
+        }
+
+        // fecha_creacion es UTC 'yyyy-MM-dd HH:mm:ss' (CURRENT_TIMESTAMP); los resúmenes usan hora local
+        LocalDateTime fechaLocal = LocalDateTime.parse(v.fechaUtc().replace(' ', 'T'))
+                .atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        Venta venta = new Venta((int) v.ventaId(), fechaLocal, v.totalCentavos(),
+                v.metodoPago() != null ? MetodoPago.valueOf(v.metodoPago()) : null,
+                EstadoVenta.valueOf(v.estado()), clientePorCuit(v.cuitCliente()), v.cuitCliente(),
+                v.requiereFactura(), EstadoFiscal.valueOf(v.estadoFiscal()), null, null, v.puntoVenta(), null,
+                detalles);
+        ventaDao.crearVentaConId(v.ventaId(), v.fechaUtc(), venta, detalles);
+        // El UPDATE filtra por tipo = 'FISICO': los servicios no afectan el stock
+        if (!detalles.isEmpty() && venta.estado() != EstadoVenta.ANULADA) {
+            ventaDao.descontarStockBatch(detalles);
+        }
+        return descartados;
+    }
+
+    @SqlQuery("SELECT id FROM clientes WHERE cuit = :cuit")
+    Integer clientePorCuit(@Bind("cuit") String cuit);
+
+    @SqlUpdate("UPDATE productos SET stock_actual = stock_actual + :cantidad WHERE sku_interno = :sku AND tipo = 'FISICO'")
+    int ajustarStock(@Bind("sku") String sku, @Bind("cantidad") int cantidad);
+
+    @SqlUpdate("""
+                INSERT OR IGNORE INTO cambios (terminal, secuencia, tipo, venta_id, sku, cantidad, motivo)
+                VALUES (:terminal, :secuencia, :tipo, :ventaId, :sku, :cantidad, :motivo)
+            """)
+    void anotarRemoto(@Bind("terminal") int terminal, @Bind("secuencia") long secuencia, @Bind("tipo") String tipo,
+            @Bind("ventaId") Long ventaId, @Bind("sku") String sku, @Bind("cantidad") Integer cantidad,
+            @Bind("motivo") String motivo);
+}
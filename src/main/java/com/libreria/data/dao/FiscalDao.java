@@ -0,0 +1,126 @@
+package com.libreria.data.dao;
+
+import com.libreria.core.fiscal.ResultadoFacturacion;
+import com.libreria.core.fiscal.SolicitudFactura;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.sqlobject.SqlObject;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+import java.util.List;
+
+/**
+ * Cola de facturación sobre la tabla ventas (columnas estado_fiscal, intentos_fiscal,
+ * proximo_intento_fiscal, error_fiscal). Los estados son los literales del CHECK de la tabla.
+ */
+public interface FiscalDao extends SqlObject {
+
+    /**
+     * Una venta a reintentar: vuelve a PENDIENTE con espera, o pasa a ERROR si se agotaron los intentos.
+     */
+    record Reintento(int ventaId, int intentos, long esperaSegundos, String error, boolean agotado) {
+    }
+
+    /**
+     * Toma hasta {@code limite} ventas pendientes cuya espera venció y las marca ENVIADO,
+     * en una sola sentencia (nadie más puede tomar las mismas). Solo IDs entre
+     * {@code desde} y {@code hasta}: con varias cajas, cada una factura las suyas.
+     */
+    @SqlQuery("""
+                UPDATE ventas SET estado_fiscal = 'ENVIADO'
+                WHERE id IN (
+                    SELECT id FROM ventas
+                    WHERE estado_fiscal = 'PENDIENTE'
+                    AND id BETWEEN :desde AND :hasta
+                    AND (proximo_intento_fiscal IS NULL OR proximo_intento_fiscal <= CURRENT_TIMESTAMP)
+                    ORDER BY id
+                    LIMIT :limite
+                )
+                RETURNING id, total_centavos, cuit_cliente, COALESCE(punto_venta, 1) AS punto_venta, intentos_fiscal
+            """)
+    @RegisterConstructorMapper(SolicitudFactura.class)
+    List<SolicitudFactura> tomarPendientes(@Bind("limite") int limite, @Bind("desde") long desde,
+            @Bind("hasta") long hasta);
+
+    /**
+     * Devuelve a la cola las ventas que quedaron ENVIADO (la aplicación se cerró a mitad de un lote).
+     * Solo IDs entre {@code desde} y {@code hasta}: las de otra caja pueden estar en vuelo en esa caja.
+     */
+    @SqlUpdate("""
+                UPDATE ventas SET estado_fiscal = 'PENDIENTE'
+                WHERE estado_fiscal = 'ENVIADO' AND id BETWEEN :desde AND :hasta
+            """)
+    int reencolarEnviadas(@Bind("desde") long desde, @Bind("hasta") long hasta);
+
+    @SqlQuery("SELECT COUNT(*) FROM ventas WHERE estado_fiscal = 'PENDIENTE'")
+    int contarPendientes();
+
+    /**
+     * Guarda las respuestas definitivas: APROBADO con CAE, vencimiento y número, o RECHAZADO con el motivo.
+     */
+    default void registrarResultados(List<ResultadoFacturacion> resultados) {
+        PreparedBatch aprobadas = getHandle().prepareBatch("""
+                    UPDATE ventas SET estado_fiscal = 'APROBADO', cae = :cae, vto_cae = :vtoCae,
+                        numero_factura = :numero, error_fiscal = NULL, proximo_intento_fiscal = NULL
+                    WHERE id = :id
+                """);
+        PreparedBatch rechazadas = getHandle().prepareBatch("""
+                    UPDATE ventas SET estado_fiscal = 'RECHAZADO', error_fiscal = :motivo, proximo_intento_fiscal = NULL
+                    WHERE id = :id
+                """);
+        for (ResultadoFacturacion r : resultados) {
+            if (r.aprobada()) {
+                aprobadas.bind("id", r.ventaId())
+                        .bind("cae", r.cae())
+                        .bind("vtoCae", r.vtoCae() != null ? r.vtoCae().toString() : null)
+                        .bind("numero", r.numeroFactura())
+                        .add();
+            } else {
+                rechazadas.bind("id", r.ventaId()).bind("motivo", r.motivoRechazo()).add();
+            }
+        }
+        if (aprobadas.size() > 0) {
+            aprobadas.execute();
+        }
+        if (rechazadas.size() > 0) {
+            rechazadas.execute();
+        }
+    }
+
+    default void reprogramar(List<Reintento> reintentos) {
+        if (reintentos.isEmpty()) {
+            return;
+        }
+        PreparedBatch batch = getHandle().prepareBatch("""
+                    UPDATE ventas SET
+                        estado_fiscal = :estado,
+                        intentos_fiscal = :intentos,
+                        proximo_intento_fiscal = datetime('now', '+' || :espera || ' seconds'),
+                        error_fiscal = :error
+                    WHERE id = :id
+                """);
+        for (Reintento r : reintentos) {
+            batch.bind("id", r.ventaId())
+                    .bind("estado", r.agotado() ? "ERROR" : "PENDIENTE")
+                    .bind("intentos", r.intentos())
+                    .bind("espera", r.esperaSegundos())
+                    .bind("error", r.error())
+                    .add();
+        }
+        batch.execute();
+    }
+
+    /**
+     * Devuelve ventas a la cola sin contar un intento (no se llegaron a enviar: circuito abierto).
+     */
+    default void devolver(List<Integer> ventaIds) {
+        if (ventaIds.isEmpty()) {
+            return;
+        }
+        PreparedBatch batch = getHandle().prepareBatch("UPDATE ventas SET estado_fiscal = 'PENDIENTE' WHERE id = :id");
+        ventaIds.forEach(id -> batch.bind("id", id).add());
+        batch.execute();
+    }
+}
@@ -0,0 +1,108 @@
+package com.libreria.data.dao;
+
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import com.libreria.core.models.enums.EstadoFiscal;
+import com.libreria.core.models.enums.EstadoVenta;
+import com.libreria.core.models.enums.MetodoPago;
+import org.jdbi.v3.sqlobject.SqlObject;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Consultas de ventas con sus renglones. Sirve igual para la base principal y para los
+ * archivos mensuales del historial (mismas tablas y columnas); el reparto entre ambos lo
+ * hace HistorialVentasService.
+ */
+public interface HistorialDao extends SqlObject {
+
+    String COLUMNAS = """
+                id, fecha_creacion, total_centavos, metodo_pago, estado, cliente_id, cuit_cliente,
+                requiere_factura, estado_fiscal, cae, vto_cae, punto_venta, numero_factura
+            """;
+
+    /**
+     * Ventas con fecha UTC en [desde, hasta), de la más nueva a la más vieja.
+     *
+     * @param cuit Solo las de este cliente (null = todas).
+     */
+    default List<Venta> ventasEntre(String desdeUtc, String hastaUtc, String cuit, int limite) {
+        Map<Integer, List<DetalleVenta>> renglones = new LinkedHashMap<>();
+        List<Venta> ventas = getHandle().createQuery("SELECT " + COLUMNAS + """
+                    FROM ventas
+                    WHERE fecha_creacion >= :desde AND fecha_creacion < :hasta
+                    AND (:cuit IS NULL OR cuit_cliente = :cuit)
+                    ORDER BY fecha_creacion DESC, id DESC
+                    LIMIT :limite
+                """)
+                .bind("desde", desdeUtc).bind("hasta", hastaUtc).bind("cuit", cuit).bind("limite", limite)
+                .map((rs, ctx) -> mapear(rs, renglones))
+                .list();
+        cargarRenglones(renglones);
+        return ventas;
+    }
+
+    default Optional<Venta> buscar(long id) {
+        Map<Integer, List<DetalleVenta>> renglones = new LinkedHashMap<>();
+        Optional<Venta> venta = getHandle().createQuery("SELECT " + COLUMNAS + " FROM ventas WHERE id = :id")
+                .bind("id", id)
+                .map((rs, ctx) -> mapear(rs, renglones))
+                .findOne();
+        cargarRenglones(renglones);
+        return venta;
+    }
+
+    private void cargarRenglones(Map<Integer, List<DetalleVenta>> renglones) {
+        if (renglones.isEmpty()) {
+            return;
+        }
+        getHandle().createQuery("""
+                    SELECT id, venta_id, producto_id, cantidad, precio_unitario_centavos,
+                           subtotal_centavos, descripcion_linea
+                    FROM detalle_ventas
+                    WHERE venta_id IN (<ventas>)
+                    ORDER BY id
+                """)
+                .bindList("ventas", renglones.keySet())
+                .map((rs, ctx) -> new DetalleVenta(rs.getInt("id"), rs.getInt("venta_id"), rs.getInt("producto_id"),
+                        rs.getInt("cantidad"), rs.getInt("precio_unitario_centavos"), rs.getInt("subtotal_centavos"),
+                        rs.getString("descripcion_linea")))
+                .forEach(d -> renglones.get(d.ventaId()).add(d));
+    }
+
+    private static Venta mapear(ResultSet rs, Map<Integer, List<DetalleVenta>> renglones) throws SQLException {
+        int id = rs.getInt("id");
+        List<DetalleVenta> detalles = new ArrayList<>();
+        renglones.put(id, detalles);
+        // Fechas guardadas en UTC ('yyyy-MM-dd HH:mm:ss'), se muestran en hora local
+        LocalDateTime fecha = LocalDateTime.parse(rs.getString("fecha_creacion").replace(' ', 'T'))
+                .atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        String metodo = rs.getString("metodo_pago");
+        String estado = rs.getString("estado");
+        String estadoFiscal = rs.getString("estado_fiscal");
+        String vtoCae = rs.getString("vto_cae");
+        int clienteId = rs.getInt("cliente_id");
+        Integer cliente = rs.wasNull() ? null : clienteId;
+        int numero = rs.getInt("numero_factura");
+        Integer numeroFactura = rs.wasNull() ? null : numero;
+        int punto = rs.getInt("punto_venta");
+        Integer puntoVenta = rs.wasNull() ? 1 : punto;
+        return new Venta(id, fecha, rs.getInt("total_centavos"),
+                metodo != null ? MetodoPago.valueOf(metodo) : MetodoPago.EFECTIVO,
+                estado != null ? EstadoVenta.valueOf(estado) : EstadoVenta.COMPLETADA,
+                cliente, rs.getString("cuit_cliente"), rs.getBoolean("requiere_factura"),
+                estadoFiscal != null ? EstadoFiscal.valueOf(estadoFiscal) : EstadoFiscal.NO_REQUIERE,
+                rs.getString("cae"), vtoCae != null ? LocalDate.parse(vtoCae) : null,
+                puntoVenta, numeroFactura, detalles);
+    }
+}
@@ -0,0 +1,153 @@
+package com.libreria.data.dao;
+
+import com.libreria.core.models.dto.FilaCatalogo;
+import org.jdbi.v3.core.mapper.reflect.ColumnName;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.sqlobject.SqlObject;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import org.jdbi.v3.sqlobject.customizer.BindList;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escrituras de la importación de listas de precios, por lotes (ver ImportadorCatalogo).
+ * Todo se llama dentro de la transacción del lote.
+ */
+public interface ImportacionDao extends SqlObject {
+
+    /**
+     * Producto ya cargado que coincide por SKU o código de barras con algún renglón del lote.
+     */
+    record ProductoExistente(
+            int id,
+            @ColumnName("sku_interno") String sku,
+            @ColumnName("codigo_barras") String codigoBarras,
+            String nombre,
+            String descripcion,
+            @ColumnName("categoria_id") Integer categoriaId,
+            @ColumnName("precio_base_centavos") int costoCentavos,
+            @ColumnName("stock_minimo") Integer stockMinimo,
+            String tipo) {
+    }
+
+    /**
+     * Renglón a actualizar: el producto existente y los datos nuevos.
+     */
+    record Actualizacion(int id, FilaCatalogo fila, Integer categoriaId) {
+    }
+
+    @SqlQuery("""
+                SELECT id, sku_interno, codigo_barras, nombre, descripcion, categoria_id,
+                       precio_base_centavos, stock_minimo, tipo
+                FROM productos
+                WHERE sku_interno IN (<skus>) OR codigo_barras IN (<barras>)
+            """)
+    @RegisterConstructorMapper(ProductoExistente.class)
+    List<ProductoExistente> buscarExistentes(
+            @BindList("skus") Collection<String> skus,
+            @BindList(value = "barras", onEmpty = BindList.EmptyHandling.NULL_STRING) Collection<String> barras);
+
+    /**
+     * IDs de las categorías por nombre; las que no existen se crean.
+     */
+    default Map<String, Integer> idsCategorias(Collection<String> nombres) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (nombres.isEmpty()) {
+            return ids;
+        }
+        PreparedBatch altas = getHandle().prepareBatch("INSERT OR IGNORE INTO categorias (nombre) VALUES (:nombre)");
+        nombres.forEach(nombre -> altas.bind("nombre", nombre).add());
+        altas.execute();
+        getHandle().createQuery("SELECT nombre, id FROM categorias WHERE nombre IN (<nombres>)")
+                .bindList("nombres", nombres)
+                .map((rs, ctx) -> Map.entry(rs.getString("nombre"), rs.getInt("id")))
+                .forEach(e -> ids.put(e.getKey(), e.getValue()));
+        return ids;
+    }
+
+    default void insertar(List<FilaCatalogo> filas, Map<String, Integer> categorias) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        PreparedBatch batch = getHandle().prepareBatch("""
+                    INSERT INTO productos (categoria_id, codigo_barras, sku_interno, nombre, descripcion, tipo,
+                                           precio_base_centavos, stock_actual, stock_minimo)
+                    VALUES (:categoriaId, :codigoBarras, :sku, :nombre, :descripcion, 'FISICO',
+                            :costo, COALESCE(:stock, 0), COALESCE(:stockMinimo, 5))
+                """);
+        for (FilaCatalogo f : filas) {
+            batch.bind("categoriaId", f.categoria() != null ? categorias.get(f.categoria()) : null)
+                    .bind("codigoBarras", f.codigoBarras())
+                    .bind("sku", f.sku())
+                    .bind("nombre", f.nombre())
+                    .bind("descripcion", f.descripcion())
+                    .bind("costo", f.costoCentavos())
+                    .bind("stock", f.stock())
+                    .bind("stockMinimo", f.stockMinimo())
+                    .add();
+        }
+        batch.execute();
+    }
+
+    /**
+     * Cambios que no tocan columnas indexadas por la búsqueda de texto (productos_fts):
+     * el caso típico de una lista de precios semanal.
+     */
+    default void actualizarPrecios(List<Actualizacion> cambios) {
+        if (cambios.isEmpty()) {
+            return;
+        }
+        PreparedBatch batch = getHandle().prepareBatch("""
+                    UPDATE productos SET
+                        precio_base_centavos = :costo,
+                        categoria_id = COALESCE(:categoriaId, categoria_id),
+                        stock_minimo = COALESCE(:stockMinimo, stock_minimo)
+                    WHERE id = :id
+                """);
+        for (Actualizacion a : cambios) {
+            batch.bind("id", a.id())
+                    .bind("costo", a.fila().costoCentavos())
+                    .bind("categoriaId", a.categoriaId())
+                    .bind("stockMinimo", a.fila().stockMinimo())
+                    .add();
+        }
+        batch.execute();
+    }
+
+    /**
+     * Cambios de nombre, descripción, SKU o código de barras (actualizan también el índice FTS).
+     */
+    default void actualizarCompleto(List<Actualizacion> cambios) {
+        if (cambios.isEmpty()) {
+            return;
+        }
+        PreparedBatch batch = getHandle().prepareBatch("""
+                    UPDATE productos SET
+                        sku_interno = :sku,
+                        codigo_barras = COALESCE(:codigoBarras, codigo_barras),
+                        nombre = :nombre,
+                        descripcion = COALESCE(:descripcion, descripcion),
+                        precio_base_centavos = :costo,
+                        categoria_id = COALESCE(:categoriaId, categoria_id),
+                        stock_minimo = COALESCE(:stockMinimo, stock_minimo)
+                    WHERE id = :id
+                """);
+        for (Actualizacion a : cambios) {
+            FilaCatalogo f = a.fila();
+            batch.bind("id", a.id())
+                    .bind("sku", f.sku())
+                    .bind("codigoBarras", f.codigoBarras())
+                    .bind("nombre", f.nombre())
+                    .bind("descripcion", f.descripcion())
+                    .bind("costo", f.costoCentavos())
+                    .bind("categoriaId", a.categoriaId())
+                    .bind("stockMinimo", f.stockMinimo())
+                    .add();
+        }
+        batch.execute();
+    }
+}
@@ -1,8 +1,11 @@
 package com.libreria.data.dao;
+import com.libreria.core.models.MatrizPrecio;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 
-import java.util.Optional;
+import java.util.List;
 
 /**
  * Interfaz DAO para JDBI.
@@ -11,18 +14,25 @@ import java.util.Optional;
 public interface PreciosDao {
 
     @SqlQuery("""
-            SELECT precio_centavos 
-            FROM matriz_precios 
-            WHERE tamano = :tamano 
-              AND tipo_papel = :tipoPapel 
-              AND color = :color 
-              AND faz = :faz
-            LIMIT 1
+            SELECT servicio_id, tamano, tipo_papel, color, faz, precio_centavos
+            FROM matriz_precios
+            ORDER BY servicio_id
             """)
-    Optional<Integer> buscarPrecio(
+    @RegisterConstructorMapper(MatrizPrecio.class)
+    List<MatrizPrecio> listarMatriz();
+
+    @SqlUpdate("""
+            INSERT INTO matriz_precios (servicio_id, tamano, tipo_papel, color, faz, precio_centavos)
+            VALUES (:servicioId, :tamano, :tipoPapel, :color, :faz, :precioCentavos)
+            ON CONFLICT (servicio_id, tamano, tipo_papel, color, faz)
+            DO UPDATE SET precio_centavos = excluded.precio_centavos
+            """)
+    void guardarPrecio(
+            @Bind("servicioId") Integer servicioId,
             @Bind("tamano") String tamano,
             @Bind("tipoPapel") String tipoPapel,
             @Bind("color") String color,
-            @Bind("faz") String faz
+            @Bind("faz") String faz,
+            @Bind("precioCentavos") Integer precioCentavos
     );
 }
@@ -1,6 +1,8 @@
 package com.libreria.data.dao;
 
 import com.libreria.core.models.Producto;
+import com.libreria.core.models.dto.AnclaCatalogo;
+import com.libreria.core.models.dto.CostoProducto;
 import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
@@ -26,4 +28,61 @@ public interface ProductoDao {
     @SqlQuery("SELECT * FROM productos WHERE id = :id")
     @RegisterConstructorMapper(Producto.class)
     Optional<Producto> buscarPorId(@Bind("id") Integer id);
-}
\ No newline at end of file
+
+    /**
+     * Costos de todo el catálogo activo en orden de ID (lista de precios).
+     */
+    @SqlQuery("SELECT id, precio_base_centavos FROM productos WHERE activo = 1 ORDER BY id")
+    @RegisterConstructorMapper(CostoProducto.class)
+    List<CostoProducto> listarCostos();
+
+    // --- CATÁLOGO PAGINADO (solo productos físicos, orden nombre, id) ---
+
+    @SqlQuery("SELECT COUNT(*) FROM productos WHERE activo = 1 AND tipo = 'FISICO'")
+    int contarCatalogo();
+
+    /**
+     * Primera fila de cada página: una pasada por el índice idx_productos_catalogo.
+     */
+    @SqlQuery("""
+                SELECT nombre, id FROM (
+                    SELECT nombre, id, ROW_NUMBER() OVER (ORDER BY nombre, id) - 1 AS fila
+                    FROM productos
+                    WHERE activo = 1 AND tipo = 'FISICO'
+                )
+                WHERE fila % :tamano = 0
+                ORDER BY fila
+            """)
+    @RegisterConstructorMapper(AnclaCatalogo.class)
+    List<AnclaCatalogo> listarAnclas(@Bind("tamano") int tamanoPagina);
+
+    /**
+     * Página keyset: desde el ancla (inclusive) en orden (nombre, id).
+     */
+    @SqlQuery("""
+                SELECT * FROM productos
+                WHERE activo = 1 AND tipo = 'FISICO'
+                AND (nombre, id) >= (:nombre, :id)
+                ORDER BY nombre, id
+                LIMIT :limite
+            """)
+    @RegisterConstructorMapper(Producto.class)
+    List<Producto> listarPagina(@Bind("nombre") String nombre, @Bind("id") int id, @Bind("limite") int limite);
+
+    // --- BÚSQUEDA DE TEXTO COMPLETO (productos_fts) ---
+
+    /**
+     * Búsqueda rankeada: bm25 con más peso al nombre que a los códigos y la descripción.
+     * @param consulta Expresión MATCH de FTS5 ya armada (términos entre comillas con prefijo).
+     */
+    @SqlQuery("""
+                SELECT p.* FROM productos_fts f
+                JOIN productos p ON p.id = f.rowid
+                WHERE productos_fts MATCH :consulta
+                AND p.activo = 1 AND p.tipo = 'FISICO'
+                ORDER BY bm25(productos_fts, 10.0, 1.0, 4.0, 4.0), p.nombre
+                LIMIT :limite
+            """)
+    @RegisterConstructorMapper(Producto.class)
+    List<Producto> buscarTextoCompleto(@Bind("consulta") String consulta, @Bind("limite") int limite);
+}
@@ -0,0 +1,298 @@
+package com.libreria.data.dao;
+
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import com.libreria.core.models.dto.TotalAgrupado;
+import com.libreria.core.models.enums.EstadoVenta;
+import com.libreria.core.models.enums.MetodoPago;
+import com.libreria.data.replicacion.Terminal;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.sqlobject.SqlObject;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resúmenes de ventas (tablas resumen_ventas_*, ver migraciones V004 y V007).
+ * Las escrituras se hacen dentro de la transacción de la venta; las fechas son locales.
+ * Cada fila es de una terminal ({@link Terminal#origen(long)} de la venta): las lecturas
+ * reciben {@code terminal} null para el total del local o el número de una caja.
+ */
+@RegisterConstructorMapper(TotalAgrupado.class)
+public interface ResumenVentasDao extends SqlObject {
+
+    // --- ACUMULACIÓN (una venta nueva) ---
+
+    /**
+     * Suma la venta a todos los resúmenes. Llamar dentro de la transacción que la inserta.
+     * @param ventaId ID con que quedó guardada (de él sale la terminal).
+     */
+    default void acumular(long ventaId, Venta venta, List<DetalleVenta> detalles) {
+        if (venta.estado() == EstadoVenta.ANULADA) {
+            return;
+        }
+        LocalDateTime momento = (venta.fechaCreacion() != null) ? venta.fechaCreacion() : LocalDateTime.now();
+        String fecha = momento.toLocalDate().toString();
+        int terminal = Terminal.origen(ventaId);
+        int total = venta.totalCentavos();
+
+        acumularDia(fecha, terminal, total);
+        acumularHora(fecha, terminal, momento.getHour(), total);
+        acumularMetodoPago(fecha, terminal, venta.metodoPago(), total);
+
+        // Un servicio puede ocupar varios renglones (A4 B/N, A4 Color): se agrupa por producto
+        Map<Integer, long[]> porProducto = new LinkedHashMap<>();
+        for (DetalleVenta d : detalles) {
+            long[] acumulado = porProducto.computeIfAbsent(d.productoId(), k -> new long[2]);
+            acumulado[0] += d.cantidad();
+            acumulado[1] += d.subtotalCentavos();
+        }
+
+        PreparedBatch productos = getHandle().prepareBatch("""
+                    INSERT INTO resumen_ventas_producto (fecha, terminal, producto_id, unidades, total_centavos)
+                    VALUES (:fecha, :terminal, :productoId, :unidades, :total)
+                    ON CONFLICT (fecha, terminal, producto_id) DO UPDATE SET
+                        unidades = unidades + excluded.unidades,
+                        total_centavos = total_centavos + excluded.total_centavos
+                """);
+        PreparedBatch categorias = getHandle().prepareBatch("""
+                    INSERT INTO resumen_ventas_categoria (fecha, terminal, categoria_id, unidades, total_centavos)
+                    SELECT :fecha, :terminal, COALESCE(categoria_id, 0), :unidades, :total
+                    FROM productos WHERE id = :productoId
+                    ON CONFLICT (fecha, terminal, categoria_id) DO UPDATE SET
+                        unidades = unidades + excluded.unidades,
+                        total_centavos = total_centavos + excluded.total_centavos
+                """);
+        porProducto.forEach((productoId, acumulado) -> {
+            productos.bind("fecha", fecha).bind("terminal", terminal).bind("productoId", productoId)
+                    .bind("unidades", acumulado[0]).bind("total", acumulado[1]).add();
+            categorias.bind("fecha", fecha).bind("terminal", terminal).bind("productoId", productoId)
+                    .bind("unidades", acumulado[0]).bind("total", acumulado[1]).add();
+        });
+        if (!porProducto.isEmpty()) {
+            productos.execute();
+            categorias.execute();
+        }
+    }
+
+    @SqlUpdate("""
+                INSERT INTO resumen_ventas_dia (fecha, terminal, ventas, total_centavos) VALUES (:fecha, :terminal, 1, :total)
+                ON CONFLICT (fecha, terminal) DO UPDATE SET
+                    ventas = ventas + 1,
+                    total_centavos = total_centavos + excluded.total_centavos
+            """)
+    void acumularDia(@Bind("fecha") String fecha, @Bind("terminal") int terminal, @Bind("total") int totalCentavos);
+
+    @SqlUpdate("""
+                INSERT INTO resumen_ventas_hora (fecha, terminal, hora, ventas, total_centavos)
+                VALUES (:fecha, :terminal, :hora, 1, :total)
+                ON CONFLICT (fecha, terminal, hora) DO UPDATE SET
+                    ventas = ventas + 1,
+                    total_centavos = total_centavos + excluded.total_centavos
+            """)
+    void acumularHora(@Bind("fecha") String fecha, @Bind("terminal") int terminal, @Bind("hora") int hora,
+            @Bind("total") int totalCentavos);
+
+    @SqlUpdate("""
+                INSERT INTO resumen_ventas_metodo_pago (fecha, terminal, metodo_pago, ventas, total_centavos)
+                VALUES (:fecha, :terminal, :metodoPago, 1, :total)
+                ON CONFLICT (fecha, terminal, metodo_pago) DO UPDATE SET
+                    ventas = ventas + 1,
+                    total_centavos = total_centavos + excluded.total_centavos
+            """)
+    void acumularMetodoPago(@Bind("fecha") String fecha, @Bind("terminal") int terminal,
+            @Bind("metodoPago") MetodoPago metodoPago, @Bind("total") int totalCentavos);
+
+    // --- LECTURA (reportes) ---
+
+    @SqlQuery("""
+                SELECT fecha AS grupo, SUM(ventas) AS cantidad, SUM(total_centavos) AS total_centavos
+                FROM resumen_ventas_dia
+                WHERE fecha BETWEEN :desde AND :hasta
+                AND (:terminal IS NULL OR terminal = :terminal)
+                GROUP BY fecha
+                ORDER BY fecha
+            """)
+    List<TotalAgrupado> porDia(@Bind("desde") String desde, @Bind("hasta") String hasta,
+            @Bind("terminal") Integer terminal);
+
+    @SqlQuery("""
+                SELECT printf('%02d:00', hora) AS grupo, SUM(ventas) AS cantidad, SUM(total_centavos) AS total_centavos
+                FROM resumen_ventas_hora
+                WHERE fecha = :fecha
+                AND (:terminal IS NULL OR terminal = :terminal)
+                GROUP BY hora
+                ORDER BY hora
+            """)
+    List<TotalAgrupado> porHora(@Bind("fecha") String fecha, @Bind("terminal") Integer terminal);
+
+    @SqlQuery("""
+                SELECT metodo_pago AS grupo, SUM(ventas) AS cantidad, SUM(total_centavos) AS total_centavos
+                FROM resumen_ventas_metodo_pago
+                WHERE fecha BETWEEN :desde AND :hasta
+                AND (:terminal IS NULL OR terminal = :terminal)
+                GROUP BY metodo_pago
+                ORDER BY metodo_pago
+            """)
+    List<TotalAgrupado> porMetodoPago(@Bind("desde") String desde, @Bind("hasta") String hasta,
+            @Bind("terminal") Integer terminal);
+
+    @SqlQuery("""
+                SELECT COALESCE(p.nombre, 'Producto ' || r.producto_id) AS grupo,
+                       SUM(r.unidades) AS cantidad, SUM(r.total_centavos) AS total_centavos
+                FROM resumen_ventas_producto r
+                LEFT JOIN productos p ON p.id = r.producto_id
+                WHERE r.fecha BETWEEN :desde AND :hasta
+                GROUP BY r.producto_id
+                ORDER BY total_centavos DESC
+                LIMIT :limite
+            """)
+    List<TotalAgrupado> productosMasVendidos(@Bind("desde") String desde, @Bind("hasta") String hasta,
+            @Bind("limite") int limite);
+
+    @SqlQuery("""
+                SELECT COALESCE(c.nombre, 'Sin categoría') AS grupo,
+                       SUM(r.unidades) AS cantidad, SUM(r.total_centavos) AS total_centavos
+                FROM resumen_ventas_categoria r
+                LEFT JOIN categorias c ON c.id = r.categoria_id
+                WHERE r.fecha BETWEEN :desde AND :hasta
+                GROUP BY r.categoria_id
+                ORDER BY total_centavos DESC
+            """)
+    List<TotalAgrupado> porCategoria(@Bind("desde") String desde, @Bind("hasta") String hasta);
+
+    // --- RECONSTRUCCIÓN (backfill desde el historial) ---
+
+    /**
+     * Vacía todos los resúmenes. La reconstrucción vuelve a sumar desde ventas/detalle_ventas.
+     */
+    default void vaciar() {
+        getHandle().execute("DELETE FROM resumen_ventas_dia");
+        getHandle().execute("DELETE FROM resumen_ventas_hora");
+        getHandle().execute("DELETE FROM resumen_ventas_metodo_pago");
+        getHandle().execute("DELETE FROM resumen_ventas_producto");
+        getHandle().execute("DELETE FROM resumen_ventas_categoria");
+    }
+
+    /**
+     * Último ID de venta de cada rango de terminal ({@link Terminal#origen(long)}), en orden.
+     * Con varias cajas los IDs no crecen juntos: una venta recibida de otra caja puede
+     * quedar debajo del máximo general.
+     */
+    default Map<Integer, Long> maximoIdVentaPorTerminal() {
+        Map<Integer, Long> maximos = new LinkedHashMap<>();
+        getHandle().createQuery("SELECT id / :rango AS terminal, MAX(id) AS maximo FROM ventas GROUP BY 1 ORDER BY 1")
+                .bind("rango", Terminal.TAMANO_RANGO)
+                .map((rs, ctx) -> Map.entry(rs.getInt("terminal"), rs.getLong("maximo")))
+                .forEach(e -> maximos.put(e.getKey(), e.getValue()));
+        return maximos;
+    }
+
+    @SqlQuery("SELECT COALESCE(MAX(id), 0) FROM detalle_ventas")
+    long maximoIdDetalle();
+
+    /**
+     * Último ID de las próximas {@code filas} filas de la tabla a partir de {@code desde}
+     * (inclusive), o 0 si no quedan. Permite recorrer por lotes aunque los IDs tengan huecos
+     * (rangos de cada caja, ventas archivadas).
+     * @param tabla Tabla con esquema, por ejemplo "main.ventas" o "archivo.detalle_ventas".
+     */
+    default long finDeLote(String tabla, long desde, int filas) {
+        return getHandle().createQuery("SELECT COALESCE(MAX(id), 0) FROM (SELECT id FROM " + tabla
+                        + " WHERE id >= :desde ORDER BY id LIMIT :filas)")
+                .bind("desde", desde).bind("filas", filas)
+                .mapTo(Long.class).one();
+    }
+
+    /**
+     * Suma las ventas con ID en [desde, hasta] a los resúmenes por día, hora y medio de pago.
+     * Recorre ventas por clave primaria; la fecha UTC guardada se pasa a hora local.
+     */
+    default void reconstruirVentas(long desde, long hasta) {
+        reconstruirVentas("main", desde, hasta);
+    }
+
+    /**
+     * Igual que {@link #reconstruirVentas(long, long)} sobre las ventas de otro esquema
+     * (un archivo mensual del historial adjuntado con ATTACH).
+     */
+    default void reconstruirVentas(String esquema, long desde, long hasta) {
+        String filtro = "FROM " + esquema + ".ventas WHERE id BETWEEN :desde AND :hasta AND estado <> 'ANULADA'";
+        getHandle().createUpdate("""
+                    INSERT INTO resumen_ventas_dia (fecha, terminal, ventas, total_centavos)
+                    SELECT date(fecha_creacion, 'localtime'), id / :rango, COUNT(*), SUM(total_centavos)
+                    """ + filtro + """
+                     GROUP BY 1, 2
+                    ON CONFLICT (fecha, terminal) DO UPDATE SET
+                        ventas = ventas + excluded.ventas,
+                        total_centavos = total_centavos + excluded.total_centavos
+                """).bind("desde", desde).bind("hasta", hasta).bind("rango", Terminal.TAMANO_RANGO).execute();
+        getHandle().createUpdate("""
+                    INSERT INTO resumen_ventas_hora (fecha, terminal, hora, ventas, total_centavos)
+                    SELECT date(fecha_creacion, 'localtime'), id / :rango,
+                           CAST(strftime('%H', fecha_creacion, 'localtime') AS INTEGER), COUNT(*), SUM(total_centavos)
+                    """ + filtro + """
+                     GROUP BY 1, 2, 3
+                    ON CONFLICT (fecha, terminal, hora) DO UPDATE SET
+                        ventas = ventas + excluded.ventas,
+                        total_centavos = total_centavos + excluded.total_centavos
+                """).bind("desde", desde).bind("hasta", hasta).bind("rango", Terminal.TAMANO_RANGO).execute();
+        getHandle().createUpdate("""
+                    INSERT INTO resumen_ventas_metodo_pago (fecha, terminal, metodo_pago, ventas, total_centavos)
+                    SELECT date(fecha_creacion, 'localtime'), id / :rango, COALESCE(metodo_pago, 'EFECTIVO'),
+                           COUNT(*), SUM(total_centavos)
+                    """ + filtro + """
+                     GROUP BY 1, 2, 3
+                    ON CONFLICT (fecha, terminal, metodo_pago) DO UPDATE SET
+                        ventas = ventas + excluded.ventas,
+                        total_centavos = total_centavos + excluded.total_centavos
+                """).bind("desde", desde).bind("hasta", hasta).bind("rango", Terminal.TAMANO_RANGO).execute();
+    }
+
+    /**
+     * Suma los renglones con ID en [desde, hasta] a los resúmenes por producto y categoría.
+     * Recorre detalle_ventas por clave primaria.
+     */
+    default void reconstruirDetalles(long desde, long hasta) {
+        reconstruirDetalles("main", desde, hasta);
+    }
+
+    /**
+     * Igual que {@link #reconstruirDetalles(long, long)} sobre los renglones de otro esquema.
+     * Los productos se buscan en la base principal; uno que ya no existe suma sin categoría.
+     */
+    default void reconstruirDetalles(String esquema, long desde, long hasta) {
+        String origen = """
+                    FROM %1$s.detalle_ventas d
+                    JOIN %1$s.ventas v ON v.id = d.venta_id
+                    LEFT JOIN main.productos p ON p.id = d.producto_id
+                    WHERE d.id BETWEEN :desde AND :hasta AND v.estado <> 'ANULADA'
+                """.formatted(esquema);
+        getHandle().createUpdate("""
+                    INSERT INTO resumen_ventas_producto (fecha, terminal, producto_id, unidades, total_centavos)
+                    SELECT date(v.fecha_creacion, 'localtime'), v.id / :rango, d.producto_id,
+                           SUM(d.cantidad), SUM(d.subtotal_centavos)
+                """ + origen + """
+                    GROUP BY 1, 2, 3
+                    ON CONFLICT (fecha, terminal, producto_id) DO UPDATE SET
+                        unidades = unidades + excluded.unidades,
+                        total_centavos = total_centavos + excluded.total_centavos
+                """).bind("desde", desde).bind("hasta", hasta).bind("rango", Terminal.TAMANO_RANGO).execute();
+        getHandle().createUpdate("""
+                    INSERT INTO resumen_ventas_categoria (fecha, terminal, categoria_id, unidades, total_centavos)
+                    SELECT date(v.fecha_creacion, 'localtime'), v.id / :rango, COALESCE(p.categoria_id, 0),
+                           SUM(d.cantidad), SUM(d.subtotal_centavos)
+                """ + origen + """
+                    GROUP BY 1, 2, 3
+                    ON CONFLICT (fecha, terminal, categoria_id) DO UPDATE SET
+                        unidades = unidades + excluded.unidades,
+                        total_centavos = total_centavos + excluded.total_centavos
+                """).bind("desde", desde).bind("hasta", hasta).bind("rango", Terminal.TAMANO_RANGO).execute();
+    }
+}
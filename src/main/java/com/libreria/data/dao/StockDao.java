@@ -0,0 +1,18 @@
+package com.libreria.data.dao;
+
+import com.libreria.core.models.dto.NivelStock;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+
+import java.util.List;
+
+public interface StockDao {
+
+    @SqlQuery("""
+                SELECT id, COALESCE(stock_actual, 0) AS stock_actual, COALESCE(stock_minimo, 0) AS stock_minimo
+                FROM productos
+                WHERE activo = 1 AND tipo = 'FISICO'
+            """)
+    @RegisterConstructorMapper(NivelStock.class)
+    List<NivelStock> listarNiveles();
+}
@@ -9,6 +9,7 @@ import org.jdbi.v3.core.statement.PreparedBatch;
 import org.jdbi.v3.sqlobject.SqlObject;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
 
@@ -35,6 +36,9 @@ public interface VentaDao extends SqlObject {
 
         insertarDetalles(detallesConId);
 
+        // Resúmenes para reportes, en la misma transacción
+        getHandle().attach(ResumenVentasDao.class).acumular(ventaId, venta, detallesConId);
+
         return ventaId;
     }
 
@@ -60,6 +64,68 @@ public interface VentaDao extends SqlObject {
             @Bind("estadoFiscal") EstadoFiscal estadoFiscal,
             @Bind("puntoVenta") Integer puntoVenta);
 
+    /**
+     * Inserta una venta cuyo ID ya fue asignado (diario de ventas, rango de la terminal).
+     * @param fechaUtc fecha en formato 'yyyy-MM-dd HH:mm:ss' UTC, igual que CURRENT_TIMESTAMP
+     *                 (null = ahora).
+     */
+    @Transaction
+    default void crearVentaConId(long ventaId, String fechaUtc, Venta venta, List<DetalleVenta> detallesSinId) {
+        insertarCabeceraConId(
+                ventaId,
+                fechaUtc,
+                venta.totalCentavos(),
+                venta.metodoPago(),
+                venta.estado(),
+                venta.clienteId(),
+                venta.cuitCliente(),
+                venta.requiereFactura(),
+                venta.estadoFiscal(),
+                venta.puntoVenta());
+
+        List<DetalleVenta> detallesConId = detallesSinId.stream()
+                .map(d -> d.withVentaId((int) ventaId))
+                .collect(Collectors.toList());
+        insertarDetalles(detallesConId);
+
+        getHandle().attach(ResumenVentasDao.class).acumular(ventaId, venta, detallesConId);
+    }
+
+    @SqlUpdate("""
+                INSERT INTO ventas (
+                    id, fecha_creacion, total_centavos, metodo_pago, estado,
+                    cliente_id, cuit_cliente, requiere_factura, estado_fiscal,
+                    punto_venta
+                ) VALUES (
+                    :id, COALESCE(:fechaCreacion, CURRENT_TIMESTAMP), :totalCentavos, :metodoPago, :estado,
+                    :clienteId, :cuitCliente, :requiereFactura, :estadoFiscal,
+                    :puntoVenta
+                )
+            """)
+    void insertarCabeceraConId(
+            @Bind("id") long id,
+            @Bind("fechaCreacion") String fechaCreacion,
+            @Bind("totalCentavos") Integer totalCentavos,
+            @Bind("metodoPago") MetodoPago metodoPago,
+            @Bind("estado") EstadoVenta estado,
+            @Bind("clienteId") Integer clienteId,
+            @Bind("cuitCliente") String cuitCliente,
+            @Bind("requiereFactura") boolean requiereFactura,
+            @Bind("estadoFiscal") EstadoFiscal estadoFiscal,
+            @Bind("puntoVenta") Integer puntoVenta);
+
+    @SqlQuery("SELECT EXISTS (SELECT 1 FROM ventas WHERE id = :id)")
+    boolean existeVenta(@Bind("id") long id);
+
+    @SqlQuery("SELECT COALESCE(MAX(id), 0) FROM ventas")
+    long maximoId();
+
+    /**
+     * Mayor ID usado dentro del rango de una terminal, o {@code desde - 1} si no vendió nada.
+     */
+    @SqlQuery("SELECT COALESCE(MAX(id), :desde - 1) FROM ventas WHERE id BETWEEN :desde AND :hasta")
+    long maximoIdEnRango(@Bind("desde") long desde, @Bind("hasta") long hasta);
+
     default void insertarDetalles(List<DetalleVenta> detalles) {
         String sql = """
                     INSERT INTO detalle_ventas (
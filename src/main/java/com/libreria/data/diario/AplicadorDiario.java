@@ -0,0 +1,121 @@
+package com.libreria.data.diario;
+
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.dao.CambiosDao;
+import com.libreria.data.dao.VentaDao;
+import com.libreria.data.replicacion.Terminal;
+import org.jdbi.v3.core.Handle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Hilo de fondo que vuelca el {@link DiarioVentas} en SQLite a través del carril de escritura.
+ * Agrupa varias ventas por transacción (un solo commit/fsync por lote) y es idempotente:
+ * una venta cuyo ID ya existe se saltea, así que reaplicar tras una caída no duplica
+ * ventas ni descuenta stock dos veces.
+ */
+public class AplicadorDiario implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AplicadorDiario.class);
+
+    private static final int VENTAS_POR_LOTE = 200;
+    private static final long ESPERA_MS = 250;
+    private static final long PAUSA_ERROR_MS = 2000;
+
+    // Mismo formato que CURRENT_TIMESTAMP de SQLite
+    private static final DateTimeFormatter FORMATO_FECHA_UTC = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final DiarioVentas diario;
+    private final CarrilEscritura carril;
+    // Caja de un local con varias (null = caja única): cada venta aplicada se anota en cambios
+    private final Terminal terminal;
+    private final Thread hilo;
+    private volatile boolean activo = true;
+
+    public AplicadorDiario(DiarioVentas diario, CarrilEscritura carril) {
+        this(diario, carril, null);
+    }
+
+    public AplicadorDiario(DiarioVentas diario, CarrilEscritura carril, Terminal terminal) {
+        this.diario = diario;
+        this.carril = carril;
+        this.terminal = terminal;
+        this.hilo = Thread.ofPlatform().name("aplicador-diario-ventas").daemon(true).unstarted(this::ejecutar);
+    }
+
+    public void iniciar() {
+        hilo.start();
+    }
+
+    /**
+     * Detiene el hilo después de vaciar lo pendiente (o al agotar la espera).
+     */
+    @Override
+    public void close() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (diario.bytesPendientes() > 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        activo = false;
+        hilo.interrupt();
+        hilo.join(2000);
+    }
+
+    private void ejecutar() {
+        while (activo) {
+            try {
+                List<DiarioVentas.RegistroDiario> lote = diario.pendientes(VENTAS_POR_LOTE, ESPERA_MS);
+                if (lote.isEmpty()) {
+                    continue;
+                }
+                carril.ejecutar(handle -> {
+                    lote.forEach(r -> aplicar(handle, r.venta()));
+                    return null;
+                });
+                diario.marcarAplicado(lote.get(lote.size() - 1).offsetFin());
+            } catch (InterruptedException e) {
+                if (!activo) {
+                    return;
+                }
+            } catch (Exception e) {
+                // El diario conserva los registros: se reintenta el mismo lote
+                logger.error("[Diario] Error aplicando ventas, se reintenta", e);
+                try {
+                    Thread.sleep(PAUSA_ERROR_MS);
+                } catch (InterruptedException ie) {
+                    if (!activo) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void aplicar(Handle handle, Venta venta) {
+        VentaDao ventaDao = handle.attach(VentaDao.class);
+        if (ventaDao.existeVenta(venta.id())) {
+            return;
+        }
+
+        String fechaUtc = venta.fechaCreacion().atZone(ZoneId.systemDefault())
+                .withZoneSameInstant(ZoneOffset.UTC)
+                .format(FORMATO_FECHA_UTC);
+        ventaDao.crearVentaConId(venta.id(), fechaUtc, venta, venta.detalles());
+        if (terminal != null) {
+            handle.attach(CambiosDao.class).registrarVenta(terminal.numero(), venta.id());
+        }
+
+        // El UPDATE filtra por tipo = 'FISICO': los servicios no afectan el stock
+        List<DetalleVenta> detalles = venta.detalles();
+        if (!detalles.isEmpty()) {
+            ventaDao.descontarStockBatch(detalles);
+        }
+    }
+}
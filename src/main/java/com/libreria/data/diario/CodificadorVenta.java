@@ -0,0 +1,117 @@
+package com.libreria.data.diario;
+
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import com.libreria.core.models.enums.EstadoFiscal;
+import com.libreria.core.models.enums.EstadoVenta;
+import com.libreria.core.models.enums.MetodoPago;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codificación binaria compacta de una Venta con sus detalles.
+ * Formato (big-endian):
+ * <pre>
+ * id:long  fechaEpochMs:long  total:int  metodoPago:byte  estado:byte
+ * clienteId:int(-1=null)  cuit:str  requiereFactura:byte  estadoFiscal:byte  puntoVenta:int
+ * nDetalles:int  { productoId:int cantidad:int precioUnitario:int subtotal:int descripcion:str }*
+ * str = largo:short(-1=null) + bytes UTF-8
+ * </pre>
+ * Los Enums se guardan por ordinal: solo se puede agregar valores al final.
+ */
+public final class CodificadorVenta {
+
+    private CodificadorVenta() {
+    }
+
+    public static int tamanoMaximo(Venta venta, List<DetalleVenta> detalles) {
+        int tamano = 8 + 8 + 4 + 1 + 1 + 4 + largoStr(venta.cuitCliente()) + 1 + 1 + 4 + 4;
+        for (DetalleVenta d : detalles) {
+            tamano += 16 + largoStr(d.descripcionLinea());
+        }
+        return tamano;
+    }
+
+    public static void escribir(ByteBuffer buf, long ventaId, Venta venta, List<DetalleVenta> detalles) {
+        buf.putLong(ventaId);
+        buf.putLong(venta.fechaCreacion().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        buf.putInt(venta.totalCentavos());
+        buf.put((byte) venta.metodoPago().ordinal());
+        buf.put((byte) venta.estado().ordinal());
+        buf.putInt(venta.clienteId() != null ? venta.clienteId() : -1);
+        putStr(buf, venta.cuitCliente());
+        buf.put((byte) (venta.requiereFactura() ? 1 : 0));
+        buf.put((byte) venta.estadoFiscal().ordinal());
+        buf.putInt(venta.puntoVenta() != null ? venta.puntoVenta() : 1);
+
+        buf.putInt(detalles.size());
+        for (DetalleVenta d : detalles) {
+            buf.putInt(d.productoId());
+            buf.putInt(d.cantidad());
+            buf.putInt(d.precioUnitarioCentavos());
+            buf.putInt(d.subtotalCentavos());
+            putStr(buf, d.descripcionLinea());
+        }
+    }
+
+    /**
+     * Decodifica una venta completa; los detalles quedan con ventaId asignado.
+     */
+    public static Venta leer(ByteBuffer buf) {
+        long id = buf.getLong();
+        LocalDateTime fecha = LocalDateTime.ofInstant(Instant.ofEpochMilli(buf.getLong()), ZoneId.systemDefault());
+        int total = buf.getInt();
+        MetodoPago pago = MetodoPago.values()[buf.get()];
+        EstadoVenta estado = EstadoVenta.values()[buf.get()];
+        int clienteId = buf.getInt();
+        String cuit = getStr(buf);
+        boolean requiereFactura = buf.get() == 1;
+        EstadoFiscal estadoFiscal = EstadoFiscal.values()[buf.get()];
+        int puntoVenta = buf.getInt();
+
+        int n = buf.getInt();
+        List<DetalleVenta> detalles = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            detalles.add(new DetalleVenta(null, (int) id, buf.getInt(), buf.getInt(), buf.getInt(), buf.getInt(),
+                    getStr(buf)));
+        }
+
+        return new Venta((int) id, fecha, total, pago, estado,
+                clienteId == -1 ? null : clienteId, cuit, requiereFactura, estadoFiscal,
+                null, null, puntoVenta, null, detalles);
+    }
+
+    private static int largoStr(String s) {
+        // Cota superior: UTF-8 usa a lo sumo 3 bytes por char del BMP
+        return 2 + (s == null ? 0 : s.length() * 3);
+    }
+
+    private static void putStr(ByteBuffer buf, String s) {
+        if (s == null) {
+            buf.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Texto demasiado largo para el diario de ventas");
+        }
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static String getStr(ByteBuffer buf) {
+        short largo = buf.getShort();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
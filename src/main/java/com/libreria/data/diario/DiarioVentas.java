@@ -0,0 +1,255 @@
+package com.libreria.data.diario;
+
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * DIARIO DE VENTAS (Write-Behind)
+ * --------------------------------------------------
+ * Log binario de solo agregado, mapeado en memoria. Una venta se considera confirmada
+ * cuando su registro está escrito y forzado a disco (force del rango mapeado); el
+ * {@link AplicadorDiario} la pasa después a SQLite en lotes.
+ *
+ * Estructura del archivo:
+ * <pre>
+ * [0..HEADER)  magic:int  version:int  offsetAplicado:long
+ * [HEADER..)   registros: largo:int  crc32c:int  payload (ver CodificadorVenta)
+ *              un largo 0 marca el final de los datos válidos
+ * </pre>
+ * Cuando el aplicador alcanza al escritor el archivo se reinicia desde el principio,
+ * así que el tamaño queda acotado a la capacidad configurada.
+ */
+public class DiarioVentas implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiarioVentas.class);
+
+    private static final int MAGIC = 0x504F5356; // "POSV"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int POS_APLICADO = 8;
+    private static final int CABECERA_REGISTRO = 8;
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private final MappedByteBuffer mapa;
+    private final int capacidad;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayDatos = lock.newCondition();
+    private final Condition hayEspacio = lock.newCondition();
+
+    // Protegidos por lock
+    private int offsetEscritura;
+    private int offsetAplicado;
+
+    private final AtomicLong proximoId = new AtomicLong();
+
+    private DiarioVentas(Path ruta, FileChannel canal, MappedByteBuffer mapa, int capacidad) {
+        this.ruta = ruta;
+        this.canal = canal;
+        this.mapa = mapa;
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Abre (o crea) el diario y recupera los registros pendientes de aplicar.
+     * @param maximoIdPersistido mayor ID de venta ya guardado en SQLite.
+     */
+    public static DiarioVentas abrir(Path ruta, int capacidadBytes, long maximoIdPersistido) throws IOException {
+        FileChannel canal = FileChannel.open(ruta,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int capacidad = (int) Math.max(capacidadBytes, canal.size());
+        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidad);
+
+        DiarioVentas diario = new DiarioVentas(ruta, canal, mapa, capacidad);
+        diario.recuperar(maximoIdPersistido);
+        return diario;
+    }
+
+    /**
+     * Registra la venta de forma durable y devuelve el ID asignado.
+     * Bloquea solo si el diario está lleno y el aplicador todavía no lo vació.
+     */
+    public long registrar(Venta venta, List<DetalleVenta> detalles) {
+        int maximo = CodificadorVenta.tamanoMaximo(venta, detalles);
+        if (HEADER + CABECERA_REGISTRO + maximo + 4 > capacidad) {
+            throw new IllegalArgumentException("La venta no entra en el diario (" + maximo + " bytes)");
+        }
+
+        lock.lock();
+        try {
+            while (offsetEscritura + CABECERA_REGISTRO + maximo + 4 > capacidad) {
+                if (offsetAplicado == offsetEscritura) {
+                    reiniciar();
+                } else {
+                    hayEspacio.awaitUninterruptibly();
+                }
+            }
+
+            long id = proximoId.getAndIncrement();
+            int inicio = offsetEscritura;
+            ByteBuffer registro = mapa.duplicate();
+            registro.position(inicio + CABECERA_REGISTRO);
+            CodificadorVenta.escribir(registro, id, venta, detalles);
+            int largo = registro.position() - inicio - CABECERA_REGISTRO;
+
+            CRC32C crc = new CRC32C();
+            crc.update(mapa.slice(inicio + CABECERA_REGISTRO, largo));
+            mapa.putInt(inicio + 4, (int) crc.getValue());
+            mapa.putInt(inicio + CABECERA_REGISTRO + largo, 0); // Marca de fin
+            mapa.putInt(inicio, largo);
+
+            // Durable antes de confirmar al cajero
+            mapa.force(inicio, CABECERA_REGISTRO + largo + 4);
+
+            offsetEscritura = inicio + CABECERA_REGISTRO + largo;
+            hayDatos.signalAll();
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera hasta que haya registros sin aplicar y devuelve hasta {@code maximo} de ellos,
+     * sin marcarlos como aplicados.
+     * @return lista vacía si se agotó la espera.
+     */
+    List<RegistroDiario> pendientes(int maximo, long esperaMs) throws InterruptedException {
+        int desde;
+        int hasta;
+        lock.lock();
+        try {
+            if (offsetAplicado == offsetEscritura) {
+                hayDatos.await(esperaMs, TimeUnit.MILLISECONDS);
+            }
+            desde = offsetAplicado;
+            hasta = offsetEscritura;
+        } finally {
+            lock.unlock();
+        }
+
+        // El rango [desde, hasta) no se sobreescribe hasta que se marque como aplicado
+        List<RegistroDiario> registros = new ArrayList<>();
+        int pos = desde;
+        while (pos < hasta && registros.size() < maximo) {
+            int largo = mapa.getInt(pos);
+            ByteBuffer payload = mapa.slice(pos + CABECERA_REGISTRO, largo);
+            registros.add(new RegistroDiario(CodificadorVenta.leer(payload), pos + CABECERA_REGISTRO + largo));
+            pos += CABECERA_REGISTRO + largo;
+        }
+        return registros;
+    }
+
+    /**
+     * Marca como aplicados todos los registros hasta {@code offsetFin} (exclusivo).
+     */
+    void marcarAplicado(int offsetFin) {
+        lock.lock();
+        try {
+            offsetAplicado = offsetFin;
+            if (offsetAplicado == offsetEscritura) {
+                reiniciar();
+            } else {
+                mapa.putLong(POS_APLICADO, offsetAplicado);
+                mapa.force(0, HEADER);
+            }
+            hayEspacio.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int bytesPendientes() {
+        lock.lock();
+        try {
+            return offsetEscritura - offsetAplicado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getRuta() {
+        return ruta;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            mapa.force();
+            canal.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Requiere lock: todo lo escrito ya fue aplicado, se vuelve al inicio del archivo
+    private void reiniciar() {
+        mapa.putInt(HEADER, 0);
+        mapa.putLong(POS_APLICADO, HEADER);
+        mapa.force(0, HEADER + 4);
+        offsetEscritura = HEADER;
+        offsetAplicado = HEADER;
+    }
+
+    private void recuperar(long maximoIdPersistido) {
+        if (mapa.getInt(0) != MAGIC) {
+            mapa.putInt(0, MAGIC);
+            mapa.putInt(4, VERSION);
+            reiniciar();
+            proximoId.set(maximoIdPersistido + 1);
+            return;
+        }
+
+        offsetAplicado = (int) mapa.getLong(POS_APLICADO);
+        long maximoId = maximoIdPersistido;
+
+        // Recorre los registros pendientes hasta el primero inválido (escritura cortada)
+        int pos = offsetAplicado;
+        while (pos + CABECERA_REGISTRO <= capacidad) {
+            int largo = mapa.getInt(pos);
+            if (largo <= 0 || pos + CABECERA_REGISTRO + largo > capacidad) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(mapa.slice(pos + CABECERA_REGISTRO, largo));
+            if ((int) crc.getValue() != mapa.getInt(pos + 4)) {
+                break;
+            }
+            maximoId = Math.max(maximoId, mapa.getLong(pos + CABECERA_REGISTRO));
+            pos += CABECERA_REGISTRO + largo;
+        }
+        offsetEscritura = pos;
+        if (pos + 4 <= capacidad) {
+            mapa.putInt(pos, 0);
+        }
+        proximoId.set(maximoId + 1);
+
+        if (offsetEscritura > offsetAplicado) {
+            logger.info("[Diario] Recuperando {} bytes de ventas sin aplicar.", offsetEscritura - offsetAplicado);
+        }
+    }
+
+    /**
+     * Venta leída del diario y la posición donde termina su registro.
+     */
+    record RegistroDiario(Venta venta, int offsetFin) {
+    }
+}
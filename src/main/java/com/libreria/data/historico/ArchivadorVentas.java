@@ -0,0 +1,252 @@
+package com.libreria.data.historico;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.replicacion.Terminal;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * ARCHIVO DEL HISTORIAL DE VENTAS
+ * --------------------------------------------------
+ * Responsabilidad: Que la base principal no crezca con los años.
+ * Las ventas de los meses cerrados (anteriores a los últimos {@code mesesActivos}) pasan
+ * a un archivo por mes (ver {@link ArchivosMensuales}); en la base quedan las recientes,
+ * así los índices que se actualizan en cada venta, las copias de respaldo y un VACUUM
+ * trabajan sobre un archivo chico. Los resúmenes de reportes no se tocan.
+ * <p>
+ * Por mes: se abre el archivo, se le adjunta la base principal (ATTACH, solo para leer:
+ * en WAL no frena al carril) y se copian ventas y renglones en una transacción del
+ * archivo. Se comparan cantidades e importes copiados y recién entonces se borran de la
+ * base por el carril, en tandas cortas para que las ventas de la caja se intercalen.
+ * Copiar es idempotente: si algo se corta, la próxima vuelta completa lo que faltó.
+ * <p>
+ * No se archivan ventas con la facturación en curso (el trabajador fiscal las necesita en
+ * la base), ni la última venta de la caja (de ella sale la numeración con ID asignado), ni
+ * con varias cajas las ventas propias que todavía no se exportaron a la carpeta compartida
+ * (el replicador las lee de la base; archivada, una venta nunca llegaría a las otras cajas).
+ */
+public class ArchivadorVentas implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivadorVentas.class);
+
+    public static final int VENTAS_POR_BORRADO = 500;
+    private static final MetricaOperacion METRICA_ARCHIVAR = Metricas.operacion("Historial.archivarMes");
+
+    private final CarrilEscritura carril;
+    private final Jdbi jdbiLectura;
+    private final String rutaBase;
+    private final Path carpeta;
+    private final int mesesActivos;
+    private final long idDesde;
+    private final long idHasta;
+    private final int numeroTerminal;
+    private final LongSupplier exportado;
+    private ScheduledExecutorService planificador;
+
+    /**
+     * Resultado del archivo de un mes.
+     */
+    public record Resultado(YearMonth mes, int ventas, int renglones, long duracionMs) {
+    }
+
+    /**
+     * @param rutaBase     Archivo de la base principal (se adjunta al archivo mensual).
+     * @param mesesActivos Meses que quedan en la base, incluido el actual (mínimo 1).
+     * @param terminal     Caja de un local con varias (null = caja única).
+     * @param exportado    Última secuencia propia ya exportada a las otras cajas (ver
+     *                     {@link com.libreria.data.replicacion.ReplicadorCambios#ultimaSecuenciaExportada()});
+     *                     null = nada exportado: con terminal no se archiva ninguna venta propia
+     *                     anotada para replicar.
+     */
+    public ArchivadorVentas(CarrilEscritura carril, Jdbi jdbiLectura, String rutaBase, Path carpeta,
+            int mesesActivos, Terminal terminal, LongSupplier exportado) {
+        if (mesesActivos < 1) {
+            throw new IllegalArgumentException("Tiene que quedar al menos el mes actual en la base");
+        }
+        this.carril = carril;
+        this.jdbiLectura = jdbiLectura;
+        this.rutaBase = rutaBase;
+        this.carpeta = carpeta;
+        this.mesesActivos = mesesActivos;
+        this.idDesde = terminal != null ? terminal.primerId() : 0;
+        this.idHasta = terminal != null ? terminal.ultimoId() : Long.MAX_VALUE;
+        // Sin terminal no se anotan cambios: el filtro de pendientes no encuentra nada
+        this.numeroTerminal = terminal != null ? terminal.numero() : 0;
+        this.exportado = exportado != null ? exportado : () -> 0;
+    }
+
+    /**
+     * Archiva en segundo plano un minuto después de arrancar y luego cada {@code intervalo}.
+     */
+    public void iniciar(Duration intervalo) {
+        planificador = Executors.newSingleThreadScheduledExecutor(
+                r -> Thread.ofPlatform().name("archivador-ventas").daemon(true).unstarted(r));
+        planificador.scheduleWithFixedDelay(this::archivarProgramado, 1, Math.max(intervalo.toMinutes(), 1),
+                TimeUnit.MINUTES);
+    }
+
+    /**
+     * Primer mes que queda en la base: los anteriores están cerrados.
+     */
+    public YearMonth primerMesActivo() {
+        return YearMonth.now().minusMonths(mesesActivos - 1L);
+    }
+
+    /**
+     * Archiva todos los meses cerrados que todavía tienen ventas en la base. Bloquea.
+     */
+    public synchronized List<Resultado> archivarCerrados() throws IOException {
+        String limite = ArchivosMensuales.inicioUtc(primerMesActivo());
+        List<String> meses = jdbiLectura.withHandle(handle -> handle.createQuery("""
+                    SELECT DISTINCT strftime('%Y-%m', fecha_creacion, 'localtime')
+                    FROM ventas
+                    WHERE fecha_creacion < :limite
+                    ORDER BY 1
+                """).bind("limite", limite).mapTo(String.class).list());
+
+        List<Resultado> resultados = new ArrayList<>();
+        for (String mes : meses) {
+            Resultado r = archivarMes(YearMonth.parse(mes));
+            if (r.ventas() > 0) {
+                resultados.add(r);
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Pasa al archivo del mes sus ventas archivables. Bloquea.
+     *
+     * @throws IllegalArgumentException si el mes todavía no está cerrado.
+     */
+    public synchronized Resultado archivarMes(YearMonth mes) throws IOException {
+        if (!mes.isBefore(primerMesActivo())) {
+            throw new IllegalArgumentException("El mes " + mes + " todavía está activo");
+        }
+        long inicio = System.nanoTime();
+        boolean exito = false;
+        Files.createDirectories(carpeta);
+        Path archivo = ArchivosMensuales.ruta(carpeta, mes);
+        try {
+            Resultado resultado = Jdbi.create("jdbc:sqlite:" + archivo).withHandle(handle -> {
+                ArchivosMensuales.crearEsquema(handle);
+                handle.createUpdate("ATTACH DATABASE :ruta AS vivo").bind("ruta", rutaBase).execute();
+                try {
+                    int[] copiados = copiar(handle, mes);
+                    List<Long> ids = handle.createQuery("SELECT id FROM temp.a_mover ORDER BY id")
+                            .mapTo(Long.class).list();
+                    borrar(ids);
+                    return new Resultado(mes, copiados[0], copiados[1],
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                } finally {
+                    handle.execute("DETACH DATABASE vivo");
+                }
+            });
+            exito = true;
+            return resultado;
+        } finally {
+            METRICA_ARCHIVAR.registrar(inicio, exito);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (planificador != null) {
+            planificador.shutdownNow();
+            planificador.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void archivarProgramado() {
+        try {
+            for (Resultado r : archivarCerrados()) {
+                logger.info("[Historial] {}: {} ventas y {} renglones archivados en {} ms.", r.mes(), r.ventas(),
+                        r.renglones(), r.duracionMs());
+            }
+        } catch (IOException e) {
+            logger.warn("[Historial] Carpeta de archivo no disponible ({}): {}", carpeta, e.getMessage());
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las ejecuciones siguientes del planificador
+            logger.error("[Historial] Error archivando ventas", e);
+        }
+    }
+
+    /**
+     * Copia las ventas archivables del mes al archivo y verifica la copia. Deja sus IDs en
+     * temp.a_mover.
+     *
+     * @return {ventas, renglones} copiados.
+     */
+    private int[] copiar(Handle handle, YearMonth mes) {
+        handle.execute("DROP TABLE IF EXISTS temp.a_mover");
+        handle.execute("CREATE TEMP TABLE a_mover (id INTEGER PRIMARY KEY)");
+        return handle.inTransaction(h -> {
+            h.createUpdate("""
+                        INSERT INTO temp.a_mover (id)
+                        SELECT id FROM vivo.ventas
+                        WHERE fecha_creacion >= :desde AND fecha_creacion < :hasta
+                        AND COALESCE(estado_fiscal, 'NO_REQUIERE') IN ('NO_REQUIERE', 'APROBADO', 'RECHAZADO')
+                        AND id <> COALESCE((SELECT MAX(id) FROM vivo.ventas WHERE id BETWEEN :idDesde AND :idHasta), 0)
+                        AND id NOT IN (
+                            SELECT venta_id FROM vivo.cambios
+                            WHERE terminal = :terminal AND secuencia > :exportado AND venta_id IS NOT NULL
+                        )
+                    """)
+                    .bind("desde", ArchivosMensuales.inicioUtc(mes))
+                    .bind("hasta", ArchivosMensuales.inicioUtc(mes.plusMonths(1)))
+                    .bind("idDesde", idDesde).bind("idHasta", idHasta)
+                    .bind("terminal", numeroTerminal).bind("exportado", exportado.getAsLong())
+                    .execute();
+            h.execute("INSERT OR IGNORE INTO main.ventas (" + ArchivosMensuales.COLUMNAS_VENTA + ") SELECT "
+                    + ArchivosMensuales.COLUMNAS_VENTA + " FROM vivo.ventas WHERE id IN (SELECT id FROM temp.a_mover)");
+            h.execute("INSERT OR IGNORE INTO main.detalle_ventas (" + ArchivosMensuales.COLUMNAS_DETALLE
+                    + ") SELECT " + ArchivosMensuales.COLUMNAS_DETALLE
+                    + " FROM vivo.detalle_ventas WHERE venta_id IN (SELECT id FROM temp.a_mover)");
+
+            // Lo que se va a borrar tiene que estar igual en el archivo
+            String ventas = "SELECT COUNT(*) || '/' || COALESCE(SUM(total_centavos), 0) FROM %s.ventas"
+                    + " WHERE id IN (SELECT id FROM temp.a_mover)";
+            String renglones = "SELECT COUNT(*) || '/' || COALESCE(SUM(subtotal_centavos), 0) FROM %s.detalle_ventas"
+                    + " WHERE venta_id IN (SELECT id FROM temp.a_mover)";
+            String ventasBase = h.createQuery(ventas.formatted("vivo")).mapTo(String.class).one();
+            String renglonesBase = h.createQuery(renglones.formatted("vivo")).mapTo(String.class).one();
+            if (!ventasBase.equals(h.createQuery(ventas.formatted("main")).mapTo(String.class).one())
+                    || !renglonesBase.equals(h.createQuery(renglones.formatted("main")).mapTo(String.class).one())) {
+                throw new IllegalStateException("El archivo de " + mes + " no coincide con la base; no se borra nada");
+            }
+            return new int[] { Integer.parseInt(ventasBase.substring(0, ventasBase.indexOf('/'))),
+                    Integer.parseInt(renglonesBase.substring(0, renglonesBase.indexOf('/'))) };
+        });
+    }
+
+    /**
+     * Borra de la base las ventas ya archivadas, en tandas por el carril.
+     */
+    private void borrar(List<Long> ids) {
+        for (int i = 0; i < ids.size(); i += VENTAS_POR_BORRADO) {
+            List<Long> tanda = ids.subList(i, Math.min(i + VENTAS_POR_BORRADO, ids.size()));
+            carril.ejecutar(handle -> {
+                handle.createUpdate("DELETE FROM detalle_ventas WHERE venta_id IN (<ids>)")
+                        .bindList("ids", tanda).execute();
+                return handle.createUpdate("DELETE FROM ventas WHERE id IN (<ids>)")
+                        .bindList("ids", tanda).execute();
+            });
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.libreria.data.historico;
+
+import org.jdbi.v3.core.Handle;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Archivos del historial: una base SQLite por mes, {@code carpeta/ventas-aaaa-MM.sqlite},
+ * con las tablas ventas y detalle_ventas (mismas columnas que en la base principal, sin
+ * claves foráneas: productos y clientes quedan en la principal).
+ * El mes es el de la fecha local de la venta, igual que en los resúmenes; en la base las
+ * fechas están en UTC, así que los límites de cada mes se pasan a UTC para filtrar.
+ */
+public final class ArchivosMensuales {
+
+    public static final int VERSION_ESQUEMA = 1;
+
+    private static final String PREFIJO = "ventas-";
+    private static final String EXTENSION = ".sqlite";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter FORMATO_UTC = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<String> ESQUEMA = List.of("""
+                CREATE TABLE IF NOT EXISTS ventas (
+                    id INTEGER PRIMARY KEY,
+                    fecha_creacion DATETIME NOT NULL,
+                    total_centavos INTEGER NOT NULL,
+                    metodo_pago TEXT,
+                    cliente_id INTEGER,
+                    cuit_cliente TEXT,
+                    requiere_factura INTEGER,
+                    estado_fiscal TEXT,
+                    cae TEXT,
+                    vto_cae DATE,
+                    punto_venta INTEGER,
+                    numero_factura INTEGER,
+                    estado TEXT,
+                    intentos_fiscal INTEGER,
+                    proximo_intento_fiscal DATETIME,
+                    error_fiscal TEXT
+                )
+            """, """
+                CREATE TABLE IF NOT EXISTS detalle_ventas (
+                    id INTEGER PRIMARY KEY,
+                    venta_id INTEGER NOT NULL,
+                    producto_id INTEGER NOT NULL,
+                    cantidad INTEGER NOT NULL,
+                    precio_unitario_centavos INTEGER NOT NULL,
+                    subtotal_centavos INTEGER NOT NULL,
+                    descripcion_linea TEXT
+                )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_ventas_fecha ON ventas(fecha_creacion)",
+            "CREATE INDEX IF NOT EXISTS idx_ventas_cuit ON ventas(cuit_cliente) WHERE cuit_cliente IS NOT NULL",
+            "CREATE INDEX IF NOT EXISTS idx_detalle_ventas_venta ON detalle_ventas(venta_id)");
+
+    /**
+     * Columnas de ventas que se copian al archivo (las de V001 y V005).
+     */
+    static final String COLUMNAS_VENTA = "id, fecha_creacion, total_centavos, metodo_pago, cliente_id, cuit_cliente, "
+            + "requiere_factura, estado_fiscal, cae, vto_cae, punto_venta, numero_factura, estado, "
+            + "intentos_fiscal, proximo_intento_fiscal, error_fiscal";
+
+    static final String COLUMNAS_DETALLE = "id, venta_id, producto_id, cantidad, precio_unitario_centavos, "
+            + "subtotal_centavos, descripcion_linea";
+
+    private ArchivosMensuales() {
+    }
+
+    public static Path ruta(Path carpeta, YearMonth mes) {
+        return carpeta.resolve(PREFIJO + mes.format(FORMATO_MES) + EXTENSION);
+    }
+
+    /**
+     * Archivos de la carpeta por mes (vacío si la carpeta no existe).
+     */
+    public static NavigableMap<YearMonth, Path> listar(Path carpeta) throws IOException {
+        NavigableMap<YearMonth, Path> archivos = new TreeMap<>();
+        if (carpeta == null || !Files.isDirectory(carpeta)) {
+            return archivos;
+        }
+        try (DirectoryStream<Path> entradas = Files.newDirectoryStream(carpeta, PREFIJO + "*" + EXTENSION)) {
+            for (Path archivo : entradas) {
+                String nombre = archivo.getFileName().toString();
+                try {
+                    YearMonth mes = YearMonth.parse(
+                            nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()), FORMATO_MES);
+                    archivos.put(mes, archivo);
+                } catch (DateTimeParseException e) {
+                    // Otro archivo con nombre parecido: no es del historial
+                }
+            }
+        }
+        return archivos;
+    }
+
+    /**
+     * Primer instante del mes (hora local) en UTC, en el formato de CURRENT_TIMESTAMP.
+     */
+    public static String inicioUtc(YearMonth mes) {
+        return inicioUtc(mes.atDay(1));
+    }
+
+    /**
+     * Comienzo del día (hora local) en UTC, en el formato de CURRENT_TIMESTAMP.
+     */
+    public static String inicioUtc(LocalDate dia) {
+        return dia.atStartOfDay(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).format(FORMATO_UTC);
+    }
+
+    /**
+     * Crea las tablas si el archivo es nuevo. Llamar fuera de una transacción.
+     */
+    static void crearEsquema(Handle handle) {
+        int version = handle.createQuery("PRAGMA user_version").mapTo(Integer.class).one();
+        if (version == VERSION_ESQUEMA) {
+            return;
+        }
+        if (version > VERSION_ESQUEMA) {
+            throw new IllegalStateException("Archivo de historial de una versión más nueva (" + version + ")");
+        }
+        handle.useTransaction(h -> {
+            ESQUEMA.forEach(h::execute);
+            h.execute("PRAGMA user_version = " + VERSION_ESQUEMA);
+        });
+    }
+}
@@ -0,0 +1,195 @@
+package com.libreria.data.replicacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Formato de los archivos de cambios que cada caja deja en la carpeta compartida.
+ * <p>
+ * Texto UTF-8, un registro por línea, campos separados por '|':
+ * <pre>
+ * #cambios v1 terminal=2
+ * V|secuencia|ventaId|fechaUtc|total|metodoPago|estado|cuit|factura|estadoFiscal|puntoVenta|renglones
+ * R|sku|cantidad|precioUnitario|subtotal|descripcion      (uno por renglón, después de su V)
+ * S|secuencia|sku|cantidad|motivo
+ * #fin N                                                  (N = cambios del archivo)
+ * </pre>
+ * En los textos, '\' se escribe "\\", '|' como "\p" y los saltos como "\n"/"\r"; null es "\0".
+ * Sin la línea de fin el archivo se considera incompleto (copia cortada).
+ */
+public final class LoteCambios {
+
+    private static final String VERSION = "#cambios v1";
+    private static final Pattern NOMBRE = Pattern.compile("(\\d{12})-(\\d{12})\\.cambios");
+
+    private LoteCambios() {
+    }
+
+    /**
+     * Cambio de una caja, en orden de secuencia.
+     */
+    public sealed interface Cambio permits VentaRemota, MovimientoStock {
+        long secuencia();
+    }
+
+    public record RenglonRemoto(String sku, int cantidad, int precioUnitarioCentavos, int subtotalCentavos,
+            String descripcion) {
+    }
+
+    /**
+     * Venta tal como estaba al exportarla. Los productos van por SKU y el cliente por CUIT.
+     */
+    public record VentaRemota(long secuencia, long ventaId, String fechaUtc, int totalCentavos, String metodoPago,
+            String estado, String cuitCliente, boolean requiereFactura, String estadoFiscal, int puntoVenta,
+            List<RenglonRemoto> renglones) implements Cambio {
+    }
+
+    /**
+     * Ajuste de stock (ingreso de mercadería, rotura, conteo): suma {@code cantidad}, que puede ser negativa.
+     */
+    public record MovimientoStock(long secuencia, String sku, int cantidad, String motivo) implements Cambio {
+    }
+
+    /**
+     * "000000000001-000000005000.cambios": secuencias incluidas en el archivo.
+     */
+    public static String nombreArchivo(long desde, long hasta) {
+        return String.format("%012d-%012d.cambios", desde, hasta);
+    }
+
+    /**
+     * @return {desde, hasta} del nombre, o null si no es un archivo de cambios.
+     */
+    public static long[] rango(String nombreArchivo) {
+        Matcher m = NOMBRE.matcher(nombreArchivo);
+        return m.matches() ? new long[] { Long.parseLong(m.group(1)), Long.parseLong(m.group(2)) } : null;
+    }
+
+    public static void escribir(int terminal, List<Cambio> cambios, Writer salida) throws IOException {
+        StringBuilder sb = new StringBuilder(256);
+        salida.write(VERSION + " terminal=" + terminal + "\n");
+        for (Cambio cambio : cambios) {
+            sb.setLength(0);
+            switch (cambio) {
+                case VentaRemota v -> {
+                    sb.append("V|").append(v.secuencia()).append('|').append(v.ventaId()).append('|');
+                    texto(sb, v.fechaUtc()).append('|').append(v.totalCentavos()).append('|');
+                    texto(sb, v.metodoPago()).append('|');
+                    texto(sb, v.estado()).append('|');
+                    texto(sb, v.cuitCliente()).append('|').append(v.requiereFactura() ? 1 : 0).append('|');
+                    texto(sb, v.estadoFiscal()).append('|').append(v.puntoVenta()).append('|')
+                            .append(v.renglones().size()).append('\n');
+                    for (RenglonRemoto r : v.renglones()) {
+                        sb.append("R|");
+                        texto(sb, r.sku()).append('|').append(r.cantidad()).append('|')
+                                .append(r.precioUnitarioCentavos()).append('|').append(r.subtotalCentavos()).append('|');
+                        texto(sb, r.descripcion()).append('\n');
+                    }
+                }
+                case MovimientoStock s -> {
+                    sb.append("S|").append(s.secuencia()).append('|');
+                    texto(sb, s.sku()).append('|').append(s.cantidad()).append('|');
+                    texto(sb, s.motivo()).append('\n');
+                }
+            }
+            salida.append(sb);
+        }
+        salida.write("#fin " + cambios.size() + "\n");
+    }
+
+    /**
+     * @throws IllegalArgumentException si el archivo está incompleto o mal formado.
+     */
+    public static List<Cambio> leer(BufferedReader entrada) throws IOException {
+        String encabezado = entrada.readLine();
+        if (encabezado == null || !encabezado.startsWith(VERSION)) {
+            throw new IllegalArgumentException("No es un archivo de cambios: " + encabezado);
+        }
+        List<Cambio> cambios = new ArrayList<>();
+        String linea;
+        int numero = 1;
+        while ((linea = entrada.readLine()) != null) {
+            numero++;
+            if (linea.startsWith("#fin ")) {
+                if (Integer.parseInt(linea.substring(5).strip()) != cambios.size()) {
+                    throw new IllegalArgumentException("La cantidad de cambios no coincide con el fin del archivo");
+                }
+                return cambios;
+            }
+            String[] c = linea.split("\\|", -1);
+            try {
+                switch (c[0]) {
+                    case "V" -> {
+                        int cantidad = Integer.parseInt(c[11]);
+                        List<RenglonRemoto> renglones = new ArrayList<>(cantidad);
+                        for (int i = 0; i < cantidad; i++) {
+                            String[] r = entrada.readLine().split("\\|", -1);
+                            numero++;
+                            if (!r[0].equals("R")) {
+                                throw new IllegalArgumentException("se esperaba un renglón");
+                            }
+                            renglones.add(new RenglonRemoto(desescapar(r[1]), Integer.parseInt(r[2]),
+                                    Integer.parseInt(r[3]), Integer.parseInt(r[4]), desescapar(r[5])));
+                        }
+                        cambios.add(new VentaRemota(Long.parseLong(c[1]), Long.parseLong(c[2]), desescapar(c[3]),
+                                Integer.parseInt(c[4]), desescapar(c[5]), desescapar(c[6]), desescapar(c[7]),
+                                c[8].equals("1"), desescapar(c[9]), Integer.parseInt(c[10]), renglones));
+                    }
+                    case "S" -> cambios.add(new MovimientoStock(Long.parseLong(c[1]), desescapar(c[2]),
+                            Integer.parseInt(c[3]), desescapar(c[4])));
+                    default -> throw new IllegalArgumentException("registro desconocido " + c[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Línea " + numero + ": " + e.getMessage(), e);
+            }
+        }
+        throw new IllegalArgumentException("Archivo incompleto (falta la línea de fin)");
+    }
+
+    private static StringBuilder texto(StringBuilder sb, String valor) {
+        if (valor == null) {
+            return sb.append("\\0");
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char ch = valor.charAt(i);
+            switch (ch) {
+                case '\\' -> sb.append("\\\\");
+                case '|' -> sb.append("\\p");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(ch);
+            }
+        }
+        return sb;
+    }
+
+    private static String desescapar(String campo) {
+        if (campo.equals("\\0")) {
+            return null;
+        }
+        if (campo.indexOf('\\') < 0) {
+            return campo;
+        }
+        StringBuilder sb = new StringBuilder(campo.length());
+        for (int i = 0; i < campo.length(); i++) {
+            char ch = campo.charAt(i);
+            if (ch != '\\' || i + 1 == campo.length()) {
+                sb.append(ch);
+                continue;
+            }
+            char siguiente = campo.charAt(++i);
+            sb.append(switch (siguiente) {
+                case 'p' -> '|';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> siguiente;
+            });
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,354 @@
+package com.libreria.data.replicacion;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.dao.CambiosDao;
+import com.libreria.data.replicacion.LoteCambios.Cambio;
+import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * REPLICACIÓN ENTRE CAJAS
+ * --------------------------------------------------
+ * Responsabilidad: Que las cajas de un local converjan a las mismas ventas y el mismo stock,
+ * sin que ninguna dependa de las otras para vender.
+ * <p>
+ * Cada caja vende contra su propia base (velocidad local, funciona sin red) y anota sus
+ * ventas y ajustes de stock en la tabla cambios, en la misma transacción. Este hilo:
+ * <ul>
+ * <li>exporta los cambios propios nuevos a {@code carpeta/terminal-N/desde-hasta.cambios}
+ * (archivo temporal renombrado al final: los demás nunca leen uno a medio escribir);</li>
+ * <li>lee los archivos de las otras cajas a partir de lo ya recibido de cada una y los
+ * aplica en una transacción del carril por archivo: las ventas se insertan con su ID (el
+ * rango de cada caja evita choques), descuentan su stock y suman a los resúmenes.</li>
+ * </ul>
+ * Aplicar es idempotente y lo recibido se deduce de la tabla cambios, así que un corte a
+ * mitad de camino solo repite trabajo. Los productos se identifican por SKU (el catálogo
+ * se carga igual en todas las cajas, por ejemplo con la misma lista de precios).
+ * Cada caja factura solo sus ventas; CAE y estado fiscal posteriores no se replican.
+ */
+public class ReplicadorCambios implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicadorCambios.class);
+
+    public static final int CAMBIOS_POR_ARCHIVO = 5000;
+    private static final String PREFIJO_CARPETA = "terminal-";
+    private static final MetricaOperacion METRICA_SINCRONIZAR = Metricas.operacion("Replicacion.sincronizar");
+
+    private final CarrilEscritura carril;
+    private final Jdbi jdbiLectura;
+    private final Terminal terminal;
+    private final Path carpeta;
+    private final Duration intervalo;
+    private final Thread hilo;
+    private final Semaphore despertador = new Semaphore(0);
+    private volatile boolean activo = true;
+    // Para avisar una sola vez cuando la carpeta compartida deja de estar disponible
+    private volatile boolean carpetaDisponible = true;
+    private volatile Runnable alRecibir;
+    // Última secuencia propia publicada en la carpeta (0 hasta la primera exportación)
+    private volatile long ultimaExportada;
+
+    /**
+     * Resultado de una vuelta de sincronización.
+     */
+    public record Resultado(int exportados, int recibidos, int renglonesSinProducto) {
+    }
+
+    /**
+     * @param carpeta Carpeta compartida por todas las cajas (recurso de red o disco común).
+     */
+    public ReplicadorCambios(CarrilEscritura carril, Jdbi jdbiLectura, Terminal terminal, Path carpeta,
+            Duration intervalo) {
+        this.carril = carril;
+        this.jdbiLectura = jdbiLectura;
+        this.terminal = terminal;
+        this.carpeta = carpeta;
+        this.intervalo = intervalo;
+        this.hilo = Thread.ofPlatform().name("replicador-cambios").daemon(true).unstarted(this::ejecutar);
+    }
+
+    public void iniciar() {
+        hilo.start();
+    }
+
+    /**
+     * Se llama (en el hilo del replicador) después de aplicar cambios de otras cajas,
+     * para refrescar lo que se tenga en memoria (contadores de stock).
+     */
+    public void setAlRecibir(Runnable alRecibir) {
+        this.alRecibir = alRecibir;
+    }
+
+    /**
+     * Adelanta la próxima sincronización (por ejemplo, después de una venta). No bloquea.
+     */
+    public void despertar() {
+        despertador.release();
+    }
+
+    /**
+     * Ajuste de stock propio (ingreso de mercadería, rotura, conteo) que se replica a las
+     * demás cajas. Bloquea hasta que queda escrito.
+     * @param cantidad Unidades a sumar (negativa para descontar).
+     * @return false si el SKU no es un producto físico de esta base.
+     */
+    public boolean registrarMovimientoStock(String sku, int cantidad, String motivo) {
+        boolean aplicado = carril.ejecutar(handle -> {
+            CambiosDao dao = handle.attach(CambiosDao.class);
+            if (dao.ajustarStock(sku, cantidad) == 0) {
+                return false;
+            }
+            dao.registrarMovimiento(terminal.numero(), sku, cantidad, motivo);
+            return true;
+        });
+        if (aplicado) {
+            despertar();
+        }
+        return aplicado;
+    }
+
+    /**
+     * Última secuencia propia que ya está en la carpeta compartida, según la última
+     * sincronización que la pudo leer (0 si todavía ninguna). Las ventas con secuencia
+     * posterior no se pueden sacar de la base (ver ArchivadorVentas).
+     */
+    public long ultimaSecuenciaExportada() {
+        return ultimaExportada;
+    }
+
+    /**
+     * Última secuencia de la terminal publicada en la carpeta compartida. Hace I/O.
+     */
+    public static long ultimaSecuenciaExportada(Path carpeta, Terminal terminal) throws IOException {
+        Path propia = carpeta.resolve(PREFIJO_CARPETA + terminal.numero());
+        if (!Files.isDirectory(propia)) {
+            return 0;
+        }
+        long exportado = 0;
+        for (long[] rango : archivos(propia)) {
+            exportado = Math.max(exportado, rango[1]);
+        }
+        return exportado;
+    }
+
+    /**
+     * Exporta lo propio y aplica lo de las demás cajas. Hace I/O.
+     */
+    public synchronized Resultado sincronizar() throws IOException {
+        long inicio = System.nanoTime();
+        boolean exito = false;
+        try {
+            int exportados = exportar();
+            int[] recibidos = importar();
+            exito = true;
+            return new Resultado(exportados, recibidos[0], recibidos[1]);
+        } finally {
+            METRICA_SINCRONIZAR.registrar(inicio, exito);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        activo = false;
+        despertar();
+        hilo.join(5000);
+    }
+
+    private void ejecutar() {
+        while (activo) {
+            try {
+                Resultado resultado = sincronizar();
+                if (!carpetaDisponible) {
+                    carpetaDisponible = true;
+                    logger.info("[Replicación] Carpeta compartida disponible de nuevo ({}).", carpeta);
+                }
+                if (resultado.recibidos() > 0) {
+                    avisarRecepcion();
+                }
+            } catch (IOException e) {
+                // Sin red la caja sigue vendiendo; los cambios se mandan al volver
+                if (carpetaDisponible) {
+                    carpetaDisponible = false;
+                    logger.warn("[Replicación] Carpeta compartida no disponible ({})."
+                            + " Se sigue vendiendo sin sincronizar.", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                logger.error("[Replicación] Error sincronizando", e);
+            }
+            try {
+                if (despertador.tryAcquire(intervalo.toMillis(), TimeUnit.MILLISECONDS)) {
+                    despertador.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void avisarRecepcion() {
+        Runnable oyente = alRecibir;
+        if (oyente != null) {
+            try {
+                oyente.run();
+            } catch (RuntimeException e) {
+                logger.error("[Replicación] Error en oyente de recepción", e);
+            }
+        }
+    }
+
+    private record Pendientes(List<Cambio> cambios, long ultima) {
+    }
+
+    /**
+     * @return cantidad de cambios exportados.
+     */
+    private int exportar() throws IOException {
+        Path propia = carpeta.resolve(PREFIJO_CARPETA + terminal.numero());
+        Files.createDirectories(propia);
+        long exportado = ultimaSecuenciaExportada(carpeta, terminal);
+        ultimaExportada = exportado;
+
+        int total = 0;
+        while (true) {
+            long desde = exportado;
+            // Una sola transacción de lectura: cambios y última secuencia del mismo instante. Si
+            // no, una venta confirmada entre ambas lecturas quedaría dentro de un rango vacío y
+            // las otras cajas la darían por archivada.
+            Pendientes pendientes = jdbiLectura.inTransaction(handle -> {
+                CambiosDao dao = handle.attach(CambiosDao.class);
+                return new Pendientes(dao.leer(terminal.numero(), desde, CAMBIOS_POR_ARCHIVO),
+                        dao.ultimaSecuencia(terminal.numero()));
+            });
+            List<Cambio> cambios = pendientes.cambios();
+            long ultima = pendientes.ultima();
+            if (cambios.isEmpty() && ultima <= desde) {
+                return total;
+            }
+            // Las ventas archivadas no se exportan, pero su secuencia cuenta como enviada
+            long hasta = cambios.isEmpty() ? Math.min(ultima, desde + CAMBIOS_POR_ARCHIVO)
+                    : cambios.get(cambios.size() - 1).secuencia();
+
+            Path destino = propia.resolve(LoteCambios.nombreArchivo(desde + 1, hasta));
+            Path temporal = propia.resolve(destino.getFileName() + ".tmp");
+            try (Writer salida = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                LoteCambios.escribir(terminal.numero(), cambios, salida);
+            }
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+            total += cambios.size();
+            exportado = hasta;
+            ultimaExportada = hasta;
+        }
+    }
+
+    /**
+     * @return {cambios recibidos, renglones descartados por SKU desconocido}.
+     */
+    private int[] importar() throws IOException {
+        int recibidos = 0;
+        int descartados = 0;
+        try (DirectoryStream<Path> carpetas = Files.newDirectoryStream(carpeta, PREFIJO_CARPETA + "*")) {
+            for (Path otra : carpetas) {
+                int numero;
+                try {
+                    numero = Integer.parseInt(otra.getFileName().toString().substring(PREFIJO_CARPETA.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (numero == terminal.numero() || !Files.isDirectory(otra)) {
+                    continue;
+                }
+                int[] parcial = importarTerminal(numero, otra);
+                recibidos += parcial[0];
+                descartados += parcial[1];
+            }
+        }
+        return new int[] { recibidos, descartados };
+    }
+
+    private int[] importarTerminal(int numero, Path origen) throws IOException {
+        long recibido = carril.ejecutar(handle -> handle.attach(CambiosDao.class).ultimaSecuencia(numero));
+        int recibidos = 0;
+        int descartados = 0;
+        for (long[] rango : archivos(origen)) {
+            if (rango[1] <= recibido) {
+                continue;
+            }
+            if (rango[0] > recibido + 1) {
+                logger.warn("[Replicación] Faltan cambios de la terminal {} entre {} y {}; se espera a que aparezcan.",
+                        numero, recibido + 1, rango[0] - 1);
+                break;
+            }
+            Path archivo = origen.resolve(LoteCambios.nombreArchivo(rango[0], rango[1]));
+            List<Cambio> cambios;
+            try (BufferedReader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                cambios = LoteCambios.leer(entrada);
+            } catch (IllegalArgumentException e) {
+                logger.error("[Replicación] Archivo inválido {}: {}", archivo, e.getMessage());
+                break;
+            }
+            long yaRecibido = recibido;
+            List<Cambio> nuevos = new ArrayList<>(cambios.size());
+            for (Cambio c : cambios) {
+                if (c.secuencia() > yaRecibido) {
+                    nuevos.add(c);
+                }
+            }
+            descartados += carril.ejecutar(handle -> {
+                CambiosDao dao = handle.attach(CambiosDao.class);
+                int sinProducto = dao.aplicarRemotos(numero, nuevos);
+                if (nuevos.isEmpty() || nuevos.get(nuevos.size() - 1).secuencia() != rango[1]) {
+                    // El archivo termina en ventas archivadas en origen: igual cuenta como recibido
+                    dao.anotarRemoto(numero, rango[1], "VENTA", null, null, null, "archivada en origen");
+                }
+                return sinProducto;
+            });
+            recibidos += nuevos.size();
+            recibido = rango[1];
+        }
+        if (descartados > 0) {
+            logger.warn("[Replicación] {} renglones de la terminal {} con SKU inexistente en esta caja"
+                    + " (la venta se guardó sin ellos).", descartados, numero);
+        }
+        return new int[] { recibidos, descartados };
+    }
+
+    /**
+     * Archivos de cambios de una carpeta, ordenados por secuencia.
+     */
+    private static List<long[]> archivos(Path carpetaTerminal) throws IOException {
+        List<long[]> rangos = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(carpetaTerminal, "*.cambios")) {
+            for (Path archivo : archivos) {
+                long[] rango = LoteCambios.rango(archivo.getFileName().toString());
+                if (rango != null) {
+                    rangos.add(rango);
+                }
+            }
+        }
+        rangos.sort(Comparator.comparingLong(r -> r[0]));
+        return rangos;
+    }
+}
@@ -0,0 +1,44 @@
+package com.libreria.data.replicacion;
+
+/**
+ * Caja de un local con varias terminales (-Dpos.terminal=N, de 1 a {@link #MAXIMO}).
+ * <p>
+ * Cada caja numera sus ventas en su propio rango de IDs, así las ventas de todas las
+ * cajas conviven en cada base sin chocar: la caja N usa [N * 100.000.000, (N+1) * 100.000.000).
+ * El rango 0 queda para las bases de una sola caja (historial anterior).
+ */
+public record Terminal(int numero) {
+
+    public static final long TAMANO_RANGO = 100_000_000L;
+    // Los IDs de venta son int: 20 rangos caben debajo de Integer.MAX_VALUE
+    public static final int MAXIMO = 20;
+
+    public Terminal {
+        if (numero < 1 || numero > MAXIMO) {
+            throw new IllegalArgumentException("El número de terminal debe ir de 1 a " + MAXIMO + ": " + numero);
+        }
+    }
+
+    /**
+     * @return la terminal de -Dpos.terminal, o null si la caja trabaja sola.
+     */
+    public static Terminal desdePropiedadesSistema() {
+        Integer numero = Integer.getInteger("pos.terminal");
+        return numero != null ? new Terminal(numero) : null;
+    }
+
+    public long primerId() {
+        return numero * TAMANO_RANGO;
+    }
+
+    public long ultimoId() {
+        return primerId() + TAMANO_RANGO - 1;
+    }
+
+    /**
+     * Terminal que registró la venta (0 = base de una sola caja).
+     */
+    public static int origen(long ventaId) {
+        return (int) (ventaId / TAMANO_RANGO);
+    }
+}
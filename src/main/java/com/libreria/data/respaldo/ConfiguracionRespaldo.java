@@ -0,0 +1,57 @@
+package com.libreria.data.respaldo;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Parámetros del {@link RespaldoBase}.
+ * Se pueden ajustar con propiedades de sistema "pos.respaldo.*" (ver {@link #desdePropiedadesSistema()}).
+ *
+ * @param carpeta         Dónde se guardan las copias (conviene otro disco o un recurso de red).
+ * @param intervalo       Tiempo entre copias.
+ * @param conservar       Copias que se guardan; las más viejas se borran.
+ * @param paginasPorPaso  Páginas copiadas por paso: cada paso toma el lock de lectura solo ese rato.
+ * @param inactividad     Tiempo sin escrituras en el carril antes de dar el paso siguiente.
+ * @param esperaMaxima    Tope de la espera por inactividad en toda una copia (caja con ventas sin pausa).
+ */
+public record ConfiguracionRespaldo(
+        Path carpeta,
+        Duration intervalo,
+        int conservar,
+        int paginasPorPaso,
+        Duration inactividad,
+        Duration esperaMaxima) {
+
+    public ConfiguracionRespaldo {
+        if (carpeta == null) {
+            throw new IllegalArgumentException("La carpeta de respaldos es obligatoria");
+        }
+        if (conservar < 1 || paginasPorPaso < 1) {
+            throw new IllegalArgumentException("Copias a conservar y páginas por paso deben ser positivas");
+        }
+    }
+
+    public static ConfiguracionRespaldo porDefecto(Path carpeta) {
+        return new ConfiguracionRespaldo(carpeta, Duration.ofHours(1), 48, 64, Duration.ofSeconds(2),
+                Duration.ofMinutes(2));
+    }
+
+    /**
+     * Configuración de -Dpos.respaldo.carpeta y los overrides "pos.respaldo.*"; null si no
+     * se indicó carpeta (sin respaldo automático).
+     */
+    public static ConfiguracionRespaldo desdePropiedadesSistema() {
+        String carpeta = System.getProperty("pos.respaldo.carpeta");
+        if (carpeta == null || carpeta.isBlank()) {
+            return null;
+        }
+        ConfiguracionRespaldo d = porDefecto(Path.of(carpeta));
+        return new ConfiguracionRespaldo(
+                d.carpeta(),
+                Duration.ofMinutes(Long.getLong("pos.respaldo.intervaloMin", d.intervalo().toMinutes())),
+                Integer.getInteger("pos.respaldo.conservar", d.conservar()),
+                Integer.getInteger("pos.respaldo.paginasPorPaso", d.paginasPorPaso()),
+                Duration.ofMillis(Long.getLong("pos.respaldo.inactividadMs", d.inactividad().toMillis())),
+                Duration.ofMillis(Long.getLong("pos.respaldo.esperaMaximaMs", d.esperaMaxima().toMillis())));
+    }
+}
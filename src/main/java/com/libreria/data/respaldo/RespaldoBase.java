@@ -0,0 +1,298 @@
+package com.libreria.data.respaldo;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.config.ConfiguracionConexion;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * RESPALDO EN CALIENTE
+ * --------------------------------------------------
+ * Responsabilidad: Copias consistentes de la base sin cerrar la caja.
+ * Copiar el archivo con la aplicación abierta puede dejar una copia rota (páginas de
+ * antes y después de un commit, o ventas que todavía están en el -wal).
+ * <p>
+ * Usa la API de respaldo en línea de SQLite desde una conexión propia: copia
+ * {@code paginasPorPaso} páginas por paso y entre pasos no retiene ningún lock. Cada paso
+ * solo toma el lock de lectura, que en WAL no frena al carril de escritura; además, antes de
+ * cada paso se espera a que el carril lleve {@code inactividad} sin escribir. Si una venta se
+ * guarda a mitad de la copia, SQLite la reinicia desde el principio: la copia siempre refleja
+ * un único instante.
+ * <p>
+ * La copia se verifica (integrity_check), se comprime a
+ * {@code carpeta/<base>-aaaaMMdd-HHmmss.sqlite.gz}, se relee el .gz (CRC) y recién entonces
+ * se publica con un renombrado. Se conservan las últimas {@code conservar}.
+ * Para restaurar: descomprimir sobre pos-db.sqlite con la aplicación cerrada.
+ */
+public class RespaldoBase implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RespaldoBase.class);
+
+    private static final MetricaOperacion METRICA_RESPALDAR = Metricas.operacion("Respaldo.respaldar");
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String EXTENSION = ".sqlite.gz";
+    private static final long PAUSA_ESPERA_MS = 50;
+
+    private final ConfiguracionConexion conexion;
+    private final CarrilEscritura carril;
+    private final ConfiguracionRespaldo config;
+    private final String prefijo;
+    private final Thread hilo;
+    private final Semaphore despertador = new Semaphore(0);
+    private volatile boolean activo = true;
+    // Hasta cuándo la copia en curso puede esperar inactividad (System.nanoTime)
+    private long limiteEsperaNanos;
+
+    /**
+     * Resultado de una copia.
+     *
+     * @param reinicios Veces que la copia volvió a empezar por escrituras en la base.
+     */
+    public record Resultado(Path archivo, long bytesBase, long bytesComprimidos, int reinicios, long duracionMs) {
+    }
+
+    /**
+     * @param carril Carril de escritura de la caja, para copiar en los momentos sin ventas
+     *               (null desde herramientas sin carril: copia sin esperar).
+     */
+    public RespaldoBase(ConfiguracionConexion conexion, CarrilEscritura carril, ConfiguracionRespaldo config) {
+        this.conexion = conexion;
+        this.carril = carril;
+        this.config = config;
+        String nombre = Path.of(conexion.rutaArchivo()).getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        this.prefijo = (punto > 0 ? nombre.substring(0, punto) : nombre) + "-";
+        this.hilo = Thread.ofPlatform().name("respaldo-base").daemon(true).unstarted(this::ejecutar);
+    }
+
+    public void iniciar() {
+        hilo.start();
+    }
+
+    /**
+     * Copias existentes, de la más vieja a la más nueva.
+     */
+    public List<Path> copias() throws IOException {
+        List<Path> copias = new ArrayList<>();
+        if (!Files.isDirectory(config.carpeta())) {
+            return copias;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(config.carpeta(), prefijo + "*" + EXTENSION)) {
+            archivos.forEach(copias::add);
+        }
+        // La fecha en el nombre ordena igual que el texto
+        copias.sort(null);
+        return copias;
+    }
+
+    /**
+     * Hace una copia completa, verificada y comprimida, y borra las que sobran. Hace I/O y
+     * puede tardar (espera los momentos sin ventas); no llamar desde el hilo de la UI.
+     */
+    public synchronized Resultado respaldar() throws IOException, SQLException {
+        long inicio = System.nanoTime();
+        boolean exito = false;
+        Files.createDirectories(config.carpeta());
+        String nombre = prefijo + LocalDateTime.now().format(FORMATO_NOMBRE);
+        Path copia = config.carpeta().resolve(nombre + ".sqlite.tmp");
+        Path comprimida = config.carpeta().resolve(nombre + EXTENSION + ".tmp");
+        Path destino = config.carpeta().resolve(nombre + EXTENSION);
+        try {
+            int reinicios = copiar(copia);
+            verificarCopia(copia);
+            long bytesBase = Files.size(copia);
+            comprimir(copia, comprimida);
+            verificarComprimida(comprimida, bytesBase);
+            try {
+                Files.move(comprimida, destino, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(comprimida, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+            rotar();
+            exito = true;
+            return new Resultado(destino, bytesBase, Files.size(destino), reinicios,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } finally {
+            METRICA_RESPALDAR.registrar(inicio, exito);
+            Files.deleteIfExists(copia);
+            Files.deleteIfExists(comprimida);
+        }
+    }
+
+    /**
+     * Detiene el hilo. Una copia en curso deja de esperar inactividad y termina enseguida.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        activo = false;
+        despertador.release();
+        hilo.join(10_000);
+    }
+
+    private void ejecutar() {
+        try {
+            dormir(msHastaProxima());
+            while (activo) {
+                try {
+                    Resultado r = respaldar();
+                    logger.info("[Respaldo] {}: {} KiB -> {} KiB en {} ms{}.", r.archivo().getFileName(),
+                            r.bytesBase() / 1024, r.bytesComprimidos() / 1024, r.duracionMs(),
+                            r.reinicios() > 0 ? " (" + r.reinicios() + " reinicios por ventas)" : "");
+                } catch (IOException | SQLException e) {
+                    // La caja sigue vendiendo; se reintenta en el próximo intervalo
+                    logger.warn("[Respaldo] No se pudo respaldar la base en {}: {}", config.carpeta(), e.getMessage());
+                } catch (RuntimeException e) {
+                    logger.error("[Respaldo] Error respaldando la base", e);
+                }
+                dormir(config.intervalo().toMillis());
+            }
+        } catch (InterruptedException e) {
+            // Cierre
+        }
+    }
+
+    private void dormir(long ms) throws InterruptedException {
+        if (ms > 0 && despertador.tryAcquire(ms, TimeUnit.MILLISECONDS)) {
+            despertador.drainPermits();
+        }
+    }
+
+    /**
+     * Al reiniciar la caja no se repite la copia si la última es reciente.
+     */
+    private long msHastaProxima() {
+        try {
+            List<Path> copias = copias();
+            if (copias.isEmpty()) {
+                return 0;
+            }
+            long ultima = Files.getLastModifiedTime(copias.get(copias.size() - 1)).toMillis();
+            return Math.max(0, ultima + config.intervalo().toMillis() - System.currentTimeMillis());
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Copia la base paso a paso con la API de respaldo de SQLite.
+     *
+     * @return cantidad de reinicios por escrituras durante la copia.
+     */
+    private int copiar(Path copia) throws SQLException {
+        SQLiteConfig sqlite = new SQLiteConfig();
+        sqlite.setBusyTimeout(conexion.busyTimeoutMs());
+        try (Connection conn = DriverManager.getConnection(conexion.url(), sqlite.toProperties())) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA query_only = 1");
+            }
+            limiteEsperaNanos = System.nanoTime() + config.esperaMaxima().toNanos();
+            int[] reinicios = { 0 };
+            int[] restantesAnterior = { Integer.MAX_VALUE };
+            int rc = conn.unwrap(SQLiteConnection.class).getDatabase().backup("main", copia.toString(),
+                    (restantes, total) -> {
+                        // Si quedan más páginas que en el paso anterior, SQLite empezó de nuevo
+                        if (restantes > restantesAnterior[0]) {
+                            reinicios[0]++;
+                        }
+                        restantesAnterior[0] = restantes;
+                        if (restantes > 0) {
+                            esperarInactividad();
+                        }
+                    },
+                    100, 50, config.paginasPorPaso());
+            if (rc != 0) {
+                throw new SQLException("La copia de la base terminó con el código " + rc);
+            }
+            return reinicios[0];
+        }
+    }
+
+    /**
+     * Entre pasos: espera a que el carril esté sin escribir. La espera total de una copia
+     * tiene tope; en una caja que no para de vender, el resto se copia sin pausas (los
+     * pasos siguen sin frenar al carril, solo dejan de ceder).
+     */
+    private void esperarInactividad() {
+        if (carril == null) {
+            return;
+        }
+        long inactividad = config.inactividad().toMillis();
+        while (activo && carril.msInactivo() < inactividad && System.nanoTime() < limiteEsperaNanos) {
+            try {
+                Thread.sleep(PAUSA_ESPERA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Revisa la copia y la deja autónoma (sin -wal), lista para reemplazar la base.
+     */
+    private static void verificarCopia(Path copia) throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + copia);
+             Statement st = conn.createStatement()) {
+            st.execute("PRAGMA journal_mode = DELETE");
+            try (ResultSet rs = st.executeQuery("PRAGMA integrity_check")) {
+                String resultado = rs.next() ? rs.getString(1) : "sin resultado";
+                if (!"ok".equals(resultado)) {
+                    throw new SQLException("La copia no pasó la verificación de integridad: " + resultado);
+                }
+            }
+        }
+    }
+
+    private static void comprimir(Path origen, Path destino) throws IOException {
+        try (InputStream entrada = Files.newInputStream(origen);
+             OutputStream salida = new GZIPOutputStream(Files.newOutputStream(destino), 64 * 1024)) {
+            entrada.transferTo(salida);
+        }
+    }
+
+    /**
+     * Relee el .gz completo: GZIPInputStream valida el CRC y el largo al llegar al final.
+     */
+    private static void verificarComprimida(Path comprimida, long bytesEsperados) throws IOException {
+        long leidos;
+        try (InputStream entrada = new GZIPInputStream(Files.newInputStream(comprimida), 64 * 1024)) {
+            leidos = entrada.transferTo(OutputStream.nullOutputStream());
+        }
+        if (leidos != bytesEsperados) {
+            throw new IOException("La copia comprimida tiene " + leidos + " bytes y se esperaban " + bytesEsperados);
+        }
+    }
+
+    private void rotar() throws IOException {
+        List<Path> copias = copias();
+        for (int i = 0; i < copias.size() - config.conservar(); i++) {
+            Files.deleteIfExists(copias.get(i));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.libreria.hardware.printer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Bytes de un ticket, reutilizable entre tickets: {@link #reiniciar()} conserva la
+ * capacidad, así que el arreglo solo crece con el ticket más largo. No es thread-safe.
+ */
+public final class BufferTicket {
+
+    private byte[] datos;
+    private int largo;
+    private final CharsetEncoder encoder = ComandosEscPos.CHARSET.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // Para armar textos (importes, fechas) antes de codificarlos
+    private final StringBuilder auxiliar = new StringBuilder(64);
+
+    public BufferTicket(int capacidadInicial) {
+        this.datos = new byte[Math.max(capacidadInicial, 64)];
+    }
+
+    public void reiniciar() {
+        largo = 0;
+    }
+
+    public BufferTicket bytes(byte[] bytes) {
+        asegurar(bytes.length);
+        System.arraycopy(bytes, 0, datos, largo, bytes.length);
+        largo += bytes.length;
+        return this;
+    }
+
+    public BufferTicket byteSuelto(byte b) {
+        asegurar(1);
+        datos[largo++] = b;
+        return this;
+    }
+
+    /**
+     * Agrega el texto codificado en la página de la impresora (los caracteres sin
+     * equivalente salen como '?').
+     */
+    public BufferTicket texto(CharSequence texto) {
+        CharBuffer entrada = CharBuffer.wrap(texto);
+        encoder.reset();
+        asegurar(entrada.remaining());
+        while (true) {
+            ByteBuffer salida = ByteBuffer.wrap(datos, largo, datos.length - largo);
+            CoderResult resultado = encoder.encode(entrada, salida, true);
+            largo = salida.position();
+            if (resultado.isOverflow()) {
+                asegurar(entrada.remaining() + 16);
+                continue;
+            }
+            break;
+        }
+        return this;
+    }
+
+    public BufferTicket espacios(int cantidad) {
+        asegurar(Math.max(cantidad, 0));
+        for (int i = 0; i < cantidad; i++) {
+            datos[largo++] = ' ';
+        }
+        return this;
+    }
+
+    /**
+     * StringBuilder de trabajo, vacío, para armar un texto antes de pasarlo a {@link #texto}.
+     */
+    StringBuilder auxiliar() {
+        auxiliar.setLength(0);
+        return auxiliar;
+    }
+
+    /**
+     * Arreglo interno: válido hasta {@link #largo()} y hasta la próxima modificación.
+     */
+    public byte[] datos() {
+        return datos;
+    }
+
+    public int largo() {
+        return largo;
+    }
+
+    public byte[] copia() {
+        return Arrays.copyOf(datos, largo);
+    }
+
+    private void asegurar(int adicional) {
+        if (largo + adicional > datos.length) {
+            datos = Arrays.copyOf(datos, Math.max(datos.length * 2, largo + adicional));
+        }
+    }
+}
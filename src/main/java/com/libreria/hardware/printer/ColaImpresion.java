@@ -0,0 +1,257 @@
+package com.libreria.hardware.printer;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.models.Venta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * COLA DE IMPRESIÓN
+ * --------------------------------------------------
+ * Responsabilidad: Imprimir los tickets sin demorar el cobro.
+ * {@link #encolar(Venta)} solo agrega la venta a una cola acotada (oyente de
+ * {@link com.libreria.core.services.VentaService}); un hilo propio arma el ticket con la
+ * {@link PlantillaTicket} en un {@link BufferTicket} reutilizable y lo manda a la salida.
+ * <p>
+ * Si la impresora no responde, el ticket queda primero en la cola y se reintenta con
+ * espera creciente hasta que vuelva: no se pierde ni se saltea ninguno. Si la cola se
+ * llena, de los tickets que no entran se guarda solo el ID y se vuelven a encolar desde la
+ * venta guardada cuando hay lugar. Los cambios de estado se avisan a los oyentes (para
+ * mostrar una alerta, nunca un error fatal).
+ */
+public class ColaImpresion implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColaImpresion.class);
+
+    public enum Estado {
+        LISTA, DESCONECTADA,
+        /** Aviso, no estado: un ticket no entró en la cola y espera lugar (ver {@link #descartados()}). */
+        COLA_LLENA
+    }
+
+    private static final MetricaOperacion METRICA_IMPRIMIR = Metricas.operacion("Impresora.imprimir");
+    private static final long ESPERA_INICIAL_MS = 1000;
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+
+    private final PlantillaTicket plantilla;
+    private final SalidaImpresora salida;
+    private final BlockingQueue<Venta> cola;
+    private final BufferTicket buffer = new BufferTicket(4096);
+    private final List<Consumer<Estado>> oyentesEstado = new CopyOnWriteArrayList<>();
+    // Busca la venta guardada para reimprimir (null = sin reimpresión)
+    private final IntFunction<Optional<Venta>> buscarVenta;
+    // IDs de tickets que no entraron en la cola, del más viejo al más nuevo
+    private final Set<Integer> descartados = new ConcurrentSkipListSet<>();
+    private final Thread hilo;
+    private volatile boolean activo = true;
+    private volatile Estado estado = Estado.LISTA;
+    // Venta que se está imprimiendo (ya salió de la cola)
+    private volatile Venta enCurso;
+
+    /**
+     * @param capacidad Tickets que pueden esperar (con la impresora desconectada).
+     */
+    public ColaImpresion(PlantillaTicket plantilla, SalidaImpresora salida, int capacidad) {
+        this(plantilla, salida, capacidad, null);
+    }
+
+    /**
+     * @param capacidad   Tickets que pueden esperar (con la impresora desconectada).
+     * @param buscarVenta Lee una venta guardada por ID, con sus renglones, para reimprimirla.
+     */
+    public ColaImpresion(PlantillaTicket plantilla, SalidaImpresora salida, int capacidad,
+            IntFunction<Optional<Venta>> buscarVenta) {
+        this.plantilla = plantilla;
+        this.salida = salida;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.buscarVenta = buscarVenta;
+        this.hilo = Thread.ofPlatform().name("cola-impresion").daemon(true).unstarted(this::ejecutar);
+    }
+
+    public void iniciar() {
+        hilo.start();
+    }
+
+    /**
+     * Agrega el ticket de la venta. No bloquea: con la cola llena devuelve false, avisa
+     * {@link Estado#COLA_LLENA} y el ticket se reimprime desde la venta guardada en cuanto
+     * haya lugar (o con {@link #reimprimir(int)}).
+     */
+    public boolean encolar(Venta venta) {
+        if (!activo) {
+            return false;
+        }
+        if (!cola.offer(venta)) {
+            descartados.add(venta.id());
+            logger.warn("[Impresora] Cola llena ({}): el ticket #{} espera lugar", cola.size(), venta.id());
+            avisar(Estado.COLA_LLENA);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Vuelve a encolar el ticket de una venta guardada. Devuelve false si no hay búsqueda
+     * configurada, la venta no existe (todavía) o la cola sigue llena.
+     */
+    public boolean reimprimir(int ventaId) {
+        if (!activo || buscarVenta == null) {
+            return false;
+        }
+        Optional<Venta> venta = buscarVenta.apply(ventaId);
+        if (venta.isEmpty() || !cola.offer(venta.get())) {
+            return false;
+        }
+        descartados.remove(ventaId);
+        return true;
+    }
+
+    /**
+     * IDs de los tickets que no entraron en la cola y todavía no se reimprimieron.
+     */
+    public List<Integer> descartados() {
+        return List.copyOf(descartados);
+    }
+
+    /**
+     * Tickets sin imprimir, incluido el que está en curso.
+     */
+    public int pendientes() {
+        return cola.size() + (enCurso != null ? 1 : 0);
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void agregarOyenteEstado(Consumer<Estado> oyente) {
+        oyentesEstado.add(oyente);
+    }
+
+    /**
+     * Espera hasta 3 segundos a que se impriman los pendientes y detiene el hilo.
+     * Los que no se llegaron a imprimir (incluidos los descartados) se informan en el log.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        activo = false;
+        long limite = System.currentTimeMillis() + 3000;
+        while (pendientes() > 0 && estado == Estado.LISTA && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        hilo.interrupt();
+        hilo.join(2000);
+
+        List<Integer> sinImprimir = new ArrayList<>();
+        Venta actual = enCurso;
+        if (actual != null) {
+            sinImprimir.add(actual.id());
+        }
+        cola.forEach(v -> sinImprimir.add(v.id()));
+        sinImprimir.addAll(descartados);
+        if (!sinImprimir.isEmpty()) {
+            logger.warn("[Impresora] Tickets sin imprimir al cerrar: {}", sinImprimir);
+        }
+    }
+
+    private void ejecutar() {
+        while (activo || !cola.isEmpty()) {
+            try {
+                Venta venta = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (venta != null) {
+                    enCurso = venta;
+                    plantilla.renderizar(venta, buffer);
+                    imprimir(venta);
+                    enCurso = null;
+                }
+                reencolarDescartados();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Un ticket que no se puede armar no debe frenar a los demás
+                logger.error("[Impresora] Error armando el ticket #{}", enCurso != null ? enCurso.id() : "?", e);
+                enCurso = null;
+            }
+        }
+    }
+
+    /**
+     * Manda el buffer hasta que la salida lo acepte. Solo sale antes por interrupción (cierre).
+     */
+    private void imprimir(Venta venta) throws InterruptedException {
+        long espera = ESPERA_INICIAL_MS;
+        while (true) {
+            long inicio = System.nanoTime();
+            try {
+                salida.escribir(buffer.datos(), buffer.largo());
+                METRICA_IMPRIMIR.registrar(inicio, true);
+                cambiarEstado(Estado.LISTA);
+                return;
+            } catch (IOException e) {
+                METRICA_IMPRIMIR.registrar(inicio, false);
+                if (estado == Estado.LISTA) {
+                    logger.warn("[Impresora] {} no disponible ({}). Ticket #{} en espera; {} más en cola.",
+                            salida.descripcion(), e.getMessage(), venta.id(), cola.size());
+                }
+                cambiarEstado(Estado.DESCONECTADA);
+                Thread.sleep(espera);
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+            }
+        }
+    }
+
+    /**
+     * Pasa a la cola, desde la venta guardada, los descartados que entren. El que no se
+     * encuentra (el diario todavía no lo aplicó) se reintenta en la vuelta siguiente.
+     * Al terminar con todos se avisa el estado actual para que la pantalla quite la alerta.
+     */
+    private void reencolarDescartados() {
+        if (descartados.isEmpty() || !activo) {
+            return;
+        }
+        for (Integer id : descartados) {
+            if (cola.remainingCapacity() == 0 || !reimprimir(id)) {
+                return;
+            }
+        }
+        if (descartados.isEmpty()) {
+            logger.info("[Impresora] Tickets descartados de nuevo en la cola.");
+            avisar(estado);
+        }
+    }
+
+    private void cambiarEstado(Estado nuevo) {
+        if (estado == nuevo) {
+            return;
+        }
+        estado = nuevo;
+        if (nuevo == Estado.LISTA) {
+            logger.info("[Impresora] {} disponible de nuevo.", salida.descripcion());
+        }
+        avisar(nuevo);
+    }
+
+    private void avisar(Estado nuevo) {
+        for (Consumer<Estado> oyente : oyentesEstado) {
+            try {
+                oyente.accept(nuevo);
+            } catch (RuntimeException e) {
+                logger.error("[Impresora] Error en oyente de estado", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.libreria.hardware.printer;
+
+import java.nio.charset.Charset;
+
+/**
+ * Secuencias ESC/POS usadas por las plantillas (subconjunto común a Epson y compatibles).
+ */
+public final class ComandosEscPos {
+
+    /**
+     * Juego de caracteres del texto: una posición por carácter (columnas = caracteres).
+     */
+    public static final Charset CHARSET = Charset.forName("windows-1252");
+
+    public static final byte[] INICIALIZAR = { 0x1B, '@' };
+    // ESC t 16: página de códigos WPC1252 (acentos y ñ)
+    public static final byte[] PAGINA_WPC1252 = { 0x1B, 't', 16 };
+
+    public static final byte[] ALINEAR_IZQUIERDA = { 0x1B, 'a', 0 };
+    public static final byte[] ALINEAR_CENTRO = { 0x1B, 'a', 1 };
+    public static final byte[] ALINEAR_DERECHA = { 0x1B, 'a', 2 };
+
+    public static final byte[] NEGRITA = { 0x1B, 'E', 1 };
+    public static final byte[] SIN_NEGRITA = { 0x1B, 'E', 0 };
+    public static final byte[] DOBLE_TAMANO = { 0x1D, '!', 0x11 };
+    public static final byte[] TAMANO_NORMAL = { 0x1D, '!', 0 };
+
+    // GS V 66 n: avanza hasta la cuchilla y hace corte parcial
+    public static final byte[] CORTE_PARCIAL = { 0x1D, 'V', 66, 0 };
+    // ESC p 0: pulso al cajón de dinero conectado a la impresora
+    public static final byte[] ABRIR_CAJON = { 0x1B, 'p', 0, 25, (byte) 250 };
+
+    public static final byte SALTO_LINEA = '\n';
+
+    private ComandosEscPos() {
+    }
+
+    /**
+     * ESC d n: imprime y avanza {@code lineas} renglones.
+     */
+    public static byte[] avanzar(int lineas) {
+        return new byte[] { 0x1B, 'd', (byte) Math.min(Math.max(lineas, 0), 255) };
+    }
+}
@@ -0,0 +1,248 @@
+package com.libreria.hardware.printer;
+
+import com.libreria.core.models.DetalleVenta;
+import com.libreria.core.models.Venta;
+import com.libreria.ui.utils.FormatoMoneda;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * PLANTILLA DE TICKET
+ * --------------------------------------------------
+ * Se compila una vez: el texto fijo queda codificado en bytes (comandos ESC/POS incluidos)
+ * y solo los campos se formatean al imprimir, directo sobre un {@link BufferTicket}.
+ * Inmutable y thread-safe.
+ * <p>
+ * Formato, una instrucción por línea:
+ * <pre>
+ * # comentario
+ * &#64;centro  &#64;izquierda  &#64;derecha  &#64;negrita  &#64;normal  &#64;doble  &#64;simple
+ * &#64;avance N  &#64;corte  &#64;cajon
+ * ?factura texto       (solo si la venta lleva factura)
+ * ?sinfactura texto    (solo si no la lleva)
+ * texto con {venta} {fecha} {pago} {total} {separador}
+ * {renglones}          (sola en su línea: un renglón por ítem)
+ * </pre>
+ */
+public final class PlantillaTicket {
+
+    public static final String RECURSO_POR_DEFECTO = "/impresion/ticket.txt";
+
+    private static final Pattern CAMPO = Pattern.compile("\\{(\\w+)}");
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private enum Campo {
+        VENTA, FECHA, PAGO, TOTAL
+    }
+
+    private enum Condicion {
+        SIEMPRE, FACTURA, SIN_FACTURA;
+
+        boolean aplica(Venta venta) {
+            return switch (this) {
+                case SIEMPRE -> true;
+                case FACTURA -> venta.requiereFactura();
+                case SIN_FACTURA -> !venta.requiereFactura();
+            };
+        }
+    }
+
+    // Una parte de la línea: bytes ya codificados o un campo a formatear
+    private record Segmento(byte[] literal, Campo campo) {
+    }
+
+    private record Linea(Condicion condicion, List<Segmento> segmentos, boolean renglones) {
+    }
+
+    private final List<Linea> lineas;
+    private final int columnas;
+
+    private PlantillaTicket(List<Linea> lineas, int columnas) {
+        this.lineas = lineas;
+        this.columnas = columnas;
+    }
+
+    /**
+     * Compila la plantilla incluida en la aplicación.
+     */
+    public static PlantillaTicket porDefecto(int columnas) {
+        InputStream is = PlantillaTicket.class.getResourceAsStream(RECURSO_POR_DEFECTO);
+        if (is == null) {
+            throw new IllegalStateException("No se encontró la plantilla " + RECURSO_POR_DEFECTO);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            return compilar(reader.lines().collect(Collectors.joining("\n")), columnas);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param fuente   Texto de la plantilla.
+     * @param columnas Caracteres por línea del papel (32 en 58 mm, 48 en 80 mm).
+     * @throws IllegalArgumentException si la plantilla tiene una instrucción o campo desconocido.
+     */
+    public static PlantillaTicket compilar(String fuente, int columnas) {
+        List<Linea> lineas = new ArrayList<>();
+        String[] textos = fuente.stripTrailing().split("\n");
+        for (int i = 0; i < textos.length; i++) {
+            String texto = textos[i].stripTrailing();
+            try {
+                Linea linea = compilarLinea(texto, columnas);
+                if (linea != null) {
+                    lineas.add(linea);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Plantilla, línea " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return new PlantillaTicket(List.copyOf(lineas), columnas);
+    }
+
+    private static Linea compilarLinea(String texto, int columnas) {
+        if (texto.startsWith("#")) {
+            return null;
+        }
+        if (texto.startsWith("@")) {
+            return new Linea(Condicion.SIEMPRE, List.of(new Segmento(directiva(texto), null)), false);
+        }
+
+        Condicion condicion = Condicion.SIEMPRE;
+        if (texto.startsWith("?factura ")) {
+            condicion = Condicion.FACTURA;
+            texto = texto.substring("?factura ".length());
+        } else if (texto.startsWith("?sinfactura ")) {
+            condicion = Condicion.SIN_FACTURA;
+            texto = texto.substring("?sinfactura ".length());
+        }
+
+        if (texto.strip().equals("{renglones}")) {
+            return new Linea(condicion, List.of(), true);
+        }
+
+        List<Segmento> segmentos = new ArrayList<>();
+        StringBuilder fijo = new StringBuilder();
+        Matcher matcher = CAMPO.matcher(texto);
+        int desde = 0;
+        while (matcher.find()) {
+            fijo.append(texto, desde, matcher.start());
+            desde = matcher.end();
+            String nombre = matcher.group(1);
+            if (nombre.equals("separador")) {
+                fijo.append("-".repeat(columnas));
+                continue;
+            }
+            Campo campo = switch (nombre) {
+                case "venta" -> Campo.VENTA;
+                case "fecha" -> Campo.FECHA;
+                case "pago" -> Campo.PAGO;
+                case "total" -> Campo.TOTAL;
+                default -> throw new IllegalArgumentException("campo desconocido {" + nombre + "}");
+            };
+            if (!fijo.isEmpty()) {
+                segmentos.add(new Segmento(fijo.toString().getBytes(ComandosEscPos.CHARSET), null));
+                fijo.setLength(0);
+            }
+            segmentos.add(new Segmento(null, campo));
+        }
+        fijo.append(texto, desde, texto.length()).append('\n');
+        segmentos.add(new Segmento(fijo.toString().getBytes(ComandosEscPos.CHARSET), null));
+        return new Linea(condicion, List.copyOf(segmentos), false);
+    }
+
+    private static byte[] directiva(String texto) {
+        String[] partes = texto.substring(1).strip().split("\\s+");
+        return switch (partes[0]) {
+            case "centro" -> ComandosEscPos.ALINEAR_CENTRO;
+            case "izquierda" -> ComandosEscPos.ALINEAR_IZQUIERDA;
+            case "derecha" -> ComandosEscPos.ALINEAR_DERECHA;
+            case "negrita" -> ComandosEscPos.NEGRITA;
+            case "normal" -> ComandosEscPos.SIN_NEGRITA;
+            case "doble" -> ComandosEscPos.DOBLE_TAMANO;
+            case "simple" -> ComandosEscPos.TAMANO_NORMAL;
+            case "corte" -> ComandosEscPos.CORTE_PARCIAL;
+            case "cajon" -> ComandosEscPos.ABRIR_CAJON;
+            case "avance" -> ComandosEscPos.avanzar(partes.length > 1 ? Integer.parseInt(partes[1]) : 1);
+            default -> throw new IllegalArgumentException("instrucción desconocida " + texto);
+        };
+    }
+
+    /**
+     * Escribe el ticket de la venta en {@code destino} (lo reinicia antes).
+     */
+    public void renderizar(Venta venta, BufferTicket destino) {
+        destino.reiniciar();
+        destino.bytes(ComandosEscPos.INICIALIZAR).bytes(ComandosEscPos.PAGINA_WPC1252);
+        for (Linea linea : lineas) {
+            if (!linea.condicion().aplica(venta)) {
+                continue;
+            }
+            if (linea.renglones()) {
+                renderizarRenglones(venta, destino);
+                continue;
+            }
+            for (Segmento segmento : linea.segmentos()) {
+                if (segmento.literal() != null) {
+                    destino.bytes(segmento.literal());
+                } else {
+                    destino.texto(valor(segmento.campo(), venta, destino.auxiliar()));
+                }
+            }
+        }
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    private static CharSequence valor(Campo campo, Venta venta, StringBuilder sb) {
+        switch (campo) {
+            case VENTA -> sb.append(venta.id());
+            case FECHA -> {
+                if (venta.fechaCreacion() != null) {
+                    FORMATO_FECHA.formatTo(venta.fechaCreacion(), sb);
+                }
+            }
+            case PAGO -> sb.append(venta.metodoPago() != null ? venta.metodoPago().name() : "");
+            case TOTAL -> FormatoMoneda.formatear(venta.totalCentavos(), sb);
+        }
+        return sb;
+    }
+
+    /**
+     * "2 x Lápiz HB Faber          $ 360,00": la descripción se corta para que el importe
+     * quede alineado a la derecha.
+     */
+    private void renderizarRenglones(Venta venta, BufferTicket destino) {
+        if (venta.detalles() == null) {
+            return;
+        }
+        for (DetalleVenta detalle : venta.detalles()) {
+            String descripcion = detalle.descripcionLinea() != null ? detalle.descripcionLinea() : "";
+            // Importe primero para conocer su ancho; después cantidad y descripción
+            StringBuilder sb = destino.auxiliar();
+            FormatoMoneda.formatear(detalle.subtotalCentavos(), sb);
+            int importe = sb.length();
+            sb.append(detalle.cantidad()).append(" x ");
+            int lugar = Math.max(columnas - sb.length() - 1, 0);
+            sb.append(descripcion, 0, Math.min(descripcion.length(), lugar));
+
+            destino.texto(CharBuffer.wrap(sb, importe, sb.length()))
+                    .espacios(Math.max(columnas - sb.length(), 1))
+                    .texto(CharBuffer.wrap(sb, 0, importe))
+                    .byteSuelto(ComandosEscPos.SALTO_LINEA);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.libreria.hardware.printer;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Agrega los tickets, tal cual se mandarían a la impresora, al final de un archivo.
+ * Sirve para impresoras compartidas que leen de una carpeta y para revisar la salida.
+ */
+public class SalidaArchivo implements SalidaImpresora {
+
+    private final Path archivo;
+
+    public SalidaArchivo(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    @Override
+    public void escribir(byte[] datos, int largo) throws IOException {
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if (carpeta != null) {
+            Files.createDirectories(carpeta);
+        }
+        try (FileOutputStream salida = new FileOutputStream(archivo.toFile(), true)) {
+            salida.write(datos, 0, largo);
+        }
+    }
+
+    @Override
+    public String descripcion() {
+        return "archivo " + archivo;
+    }
+}
@@ -0,0 +1,42 @@
+package com.libreria.hardware.printer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Impresora serie/USB vista por el sistema operativo como dispositivo
+ * (/dev/usb/lp0, /dev/ttyUSB0 o \\.\COM3 en Windows). El puerto se abre en cada ticket,
+ * así que reconectar la impresora no requiere reiniciar la aplicación.
+ * La velocidad del puerto serie se configura en el sistema (stty / mode).
+ */
+public class SalidaDispositivo implements SalidaImpresora {
+
+    private final File dispositivo;
+
+    public SalidaDispositivo(String ruta) {
+        this.dispositivo = new File(ruta);
+    }
+
+    @Override
+    public void escribir(byte[] datos, int largo) throws IOException {
+        // En Linux el nodo desaparece al desenchufar: no crear un archivo común en su lugar
+        if (!esPuertoWindows() && !dispositivo.exists()) {
+            throw new FileNotFoundException("Impresora no conectada: " + dispositivo);
+        }
+        try (FileOutputStream salida = new FileOutputStream(dispositivo)) {
+            salida.write(datos, 0, largo);
+            salida.flush();
+        }
+    }
+
+    private boolean esPuertoWindows() {
+        return dispositivo.getPath().startsWith("\\\\.\\");
+    }
+
+    @Override
+    public String descripcion() {
+        return "dispositivo " + dispositivo;
+    }
+}
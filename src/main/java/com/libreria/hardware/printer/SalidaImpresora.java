@@ -0,0 +1,17 @@
+package com.libreria.hardware.printer;
+
+import java.io.IOException;
+
+/**
+ * Destino de los bytes de un ticket. Una {@link IOException} significa "impresora no
+ * disponible": la {@link ColaImpresion} conserva el ticket y reintenta.
+ */
+public interface SalidaImpresora {
+
+    /**
+     * Envía un ticket completo. Se llama siempre desde el hilo de la cola.
+     */
+    void escribir(byte[] datos, int largo) throws IOException;
+
+    String descripcion();
+}
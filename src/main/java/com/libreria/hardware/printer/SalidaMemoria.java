@@ -0,0 +1,37 @@
+package com.libreria.hardware.printer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Impresora falsa: guarda cada ticket en memoria. Se puede "desconectar" para probar
+ * los reintentos de la cola.
+ */
+public class SalidaMemoria implements SalidaImpresora {
+
+    private final List<byte[]> tickets = new ArrayList<>();
+    private volatile boolean conectada = true;
+
+    @Override
+    public synchronized void escribir(byte[] datos, int largo) throws IOException {
+        if (!conectada) {
+            throw new IOException("Impresora desconectada (simulada)");
+        }
+        tickets.add(Arrays.copyOf(datos, largo));
+    }
+
+    public void setConectada(boolean conectada) {
+        this.conectada = conectada;
+    }
+
+    public synchronized List<byte[]> getTickets() {
+        return List.copyOf(tickets);
+    }
+
+    @Override
+    public String descripcion() {
+        return "memoria";
+    }
+}
@@ -0,0 +1,72 @@
+package com.libreria.hardware.scanner;
+
+import java.util.List;
+
+/**
+ * Validación de códigos GTIN (EAN-8, UPC-A, EAN-13, GTIN-14) leídos por el escáner.
+ * Los códigos no numéricos (Code 128 con SKU interno) o de otro largo pasan sin validar.
+ */
+public final class CodigoBarras {
+
+    private CodigoBarras() {
+    }
+
+    /**
+     * @return el código sin espacios, o null si es un GTIN con dígito verificador
+     *         incorrecto (lectura defectuosa).
+     */
+    public static String normalizar(String crudo) {
+        if (crudo == null) {
+            return null;
+        }
+        String codigo = crudo.strip();
+        if (codigo.isEmpty()) {
+            return null;
+        }
+        if (esGtin(codigo) && !digitoVerificadorValido(codigo)) {
+            return null;
+        }
+        return codigo;
+    }
+
+    /**
+     * Formas equivalentes a buscar: un UPC-A de 12 dígitos es el EAN-13 con un 0 adelante,
+     * y el catálogo puede tener cargada cualquiera de las dos.
+     */
+    public static List<String> candidatos(String codigo) {
+        if (esNumerico(codigo) && codigo.length() == 12) {
+            return List.of(codigo, "0" + codigo);
+        }
+        if (esNumerico(codigo) && codigo.length() == 13 && codigo.charAt(0) == '0') {
+            return List.of(codigo, codigo.substring(1));
+        }
+        return List.of(codigo);
+    }
+
+    /**
+     * Dígito verificador GTIN: desde la derecha (sin contarlo) los dígitos pesan 3, 1, 3...
+     */
+    public static boolean digitoVerificadorValido(String digitos) {
+        int suma = 0;
+        int ultimo = digitos.length() - 1;
+        for (int i = ultimo - 1, peso = 3; i >= 0; i--, peso = 4 - peso) {
+            suma += (digitos.charAt(i) - '0') * peso;
+        }
+        return (10 - suma % 10) % 10 == digitos.charAt(ultimo) - '0';
+    }
+
+    private static boolean esGtin(String codigo) {
+        int largo = codigo.length();
+        return (largo == 8 || largo == 12 || largo == 13 || largo == 14) && esNumerico(codigo);
+    }
+
+    private static boolean esNumerico(String codigo) {
+        for (int i = 0; i < codigo.length(); i++) {
+            char c = codigo.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return !codigo.isEmpty();
+    }
+}
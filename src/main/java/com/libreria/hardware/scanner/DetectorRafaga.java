@@ -0,0 +1,55 @@
+package com.libreria.hardware.scanner;
+
+/**
+ * Distingue un escáner (teclado HID) de una persona por el tiempo entre teclas: el
+ * escáner manda el código entero en pocos milisegundos y termina con ENTER.
+ * Una pausa mayor a {@code intervaloMaximo} descarta lo acumulado. No es thread-safe
+ * (se usa desde el hilo de JavaFX).
+ */
+public final class DetectorRafaga {
+
+    private final long intervaloMaximoNanos;
+    private final int largoMinimo;
+    private final StringBuilder acumulado = new StringBuilder(32);
+    private long ultimaTeclaNanos;
+
+    /**
+     * @param intervaloMaximoMs Pausa máxima entre teclas de una misma ráfaga.
+     * @param largoMinimo       Caracteres mínimos para considerarla un código.
+     */
+    public DetectorRafaga(long intervaloMaximoMs, int largoMinimo) {
+        this.intervaloMaximoNanos = intervaloMaximoMs * 1_000_000L;
+        this.largoMinimo = largoMinimo;
+    }
+
+    /**
+     * Registra un carácter.
+     * @return true si empieza una secuencia nueva (el llamador guarda el estado previo).
+     */
+    public boolean tecla(char c, long ahoraNanos) {
+        if (!acumulado.isEmpty() && ahoraNanos - ultimaTeclaNanos > intervaloMaximoNanos) {
+            acumulado.setLength(0);
+        }
+        boolean inicio = acumulado.isEmpty();
+        acumulado.append(c);
+        ultimaTeclaNanos = ahoraNanos;
+        return inicio;
+    }
+
+    /**
+     * Registra el terminador (ENTER/TAB).
+     * @return el código si lo acumulado fue una ráfaga de escáner; null si lo tipeó una persona.
+     */
+    public String fin(long ahoraNanos) {
+        String codigo = null;
+        if (acumulado.length() >= largoMinimo && ahoraNanos - ultimaTeclaNanos <= intervaloMaximoNanos) {
+            codigo = acumulado.toString();
+        }
+        acumulado.setLength(0);
+        return codigo;
+    }
+
+    public void reiniciar() {
+        acumulado.setLength(0);
+    }
+}
@@ -0,0 +1,124 @@
+package com.libreria.hardware.scanner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Escáner en modo serie (o USB CDC) visto por el sistema como dispositivo
+ * (/dev/ttyACM0, \\.\COM4). Lee líneas terminadas en CR o LF en un hilo propio y
+ * reabre el puerto si se desconecta. La velocidad del puerto se configura en el sistema.
+ */
+public class LectorSerie implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LectorSerie.class);
+
+    private static final long ESPERA_RECONEXION_MS = 2000;
+    private static final int LARGO_MAXIMO = 128;
+
+    private final File dispositivo;
+    private final Thread hilo;
+    private volatile Consumer<String> oyente;
+    private volatile InputStream entrada;
+    private volatile boolean activo = true;
+
+    public LectorSerie(String ruta) {
+        this.dispositivo = new File(ruta);
+        this.hilo = Thread.ofPlatform().name("lector-serie").daemon(true).unstarted(this::ejecutar);
+    }
+
+    public void iniciar() {
+        hilo.start();
+    }
+
+    /**
+     * @param oyente Recibe cada código en el hilo del lector (no en el de JavaFX).
+     */
+    public void setOyente(Consumer<String> oyente) {
+        this.oyente = oyente;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        activo = false;
+        hilo.interrupt();
+        // La lectura de un FileInputStream no se interrumpe: cerrar el flujo la desbloquea
+        cerrarEntrada();
+        hilo.join(2000);
+    }
+
+    private void ejecutar() {
+        boolean avisado = false;
+        while (activo) {
+            try (InputStream flujo = new FileInputStream(dispositivo)) {
+                entrada = flujo;
+                if (avisado) {
+                    logger.info("[Escáner] {} conectado.", dispositivo);
+                    avisado = false;
+                }
+                leer(flujo);
+            } catch (IOException e) {
+                if (activo && !avisado) {
+                    logger.warn("[Escáner] {} no disponible: {}", dispositivo, e.getMessage());
+                    avisado = true;
+                }
+            } finally {
+                entrada = null;
+            }
+            try {
+                Thread.sleep(ESPERA_RECONEXION_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void leer(InputStream flujo) throws IOException {
+        byte[] linea = new byte[LARGO_MAXIMO];
+        int largo = 0;
+        int b;
+        while (activo && (b = flujo.read()) != -1) {
+            if (b == '\r' || b == '\n') {
+                if (largo > 0) {
+                    entregar(new String(linea, 0, largo, StandardCharsets.US_ASCII));
+                    largo = 0;
+                }
+            } else if (largo < LARGO_MAXIMO) {
+                linea[largo++] = (byte) b;
+            }
+        }
+        if (activo) {
+            throw new IOException("fin de datos (dispositivo desconectado)");
+        }
+    }
+
+    private void entregar(String codigo) {
+        Consumer<String> actual = oyente;
+        if (actual == null) {
+            logger.warn("[Escáner] Código descartado (sin pantalla de venta): {}", codigo);
+            return;
+        }
+        try {
+            actual.accept(codigo);
+        } catch (RuntimeException e) {
+            logger.error("[Escáner] Error procesando el código {}", codigo, e);
+        }
+    }
+
+    private void cerrarEntrada() {
+        InputStream actual = entrada;
+        if (actual != null) {
+            try {
+                actual.close();
+            } catch (IOException e) {
+                // Se está cerrando de todos modos
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.libreria.hardware.scanner;
+
+import javafx.scene.Scene;
+import javafx.scene.control.TextInputControl;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Escáner conectado como teclado (USB HID). Filtra las teclas de la escena entera:
+ * cuando una ráfaga termina en ENTER, consume el ENTER, devuelve el campo con foco al
+ * texto que tenía antes de la ráfaga (lo que estaba tipeando la persona queda intacto)
+ * y entrega el código. Las teclas de una persona siguen su camino normal.
+ */
+public class LectorTeclado {
+
+    private final DetectorRafaga detector;
+    private final Consumer<String> oyente;
+
+    // Campo que recibió la primera tecla de la secuencia y su estado previo
+    private TextInputControl destino;
+    private String textoPrevio;
+    private int cursorPrevio;
+
+    private LectorTeclado(DetectorRafaga detector, Consumer<String> oyente) {
+        this.detector = detector;
+        this.oyente = oyente;
+    }
+
+    /**
+     * @param oyente Recibe cada código leído, en el hilo de JavaFX.
+     */
+    public static LectorTeclado instalar(Scene escena, DetectorRafaga detector, Consumer<String> oyente) {
+        LectorTeclado lector = new LectorTeclado(detector, oyente);
+        escena.addEventFilter(KeyEvent.KEY_TYPED, lector::alTipear);
+        escena.addEventFilter(KeyEvent.KEY_PRESSED, lector::alPresionar);
+        return lector;
+    }
+
+    private void alTipear(KeyEvent evento) {
+        String caracteres = evento.getCharacter();
+        long ahora = System.nanoTime();
+        for (int i = 0; i < caracteres.length(); i++) {
+            char c = caracteres.charAt(i);
+            // ENTER/TAB también generan KEY_TYPED: se tratan en alPresionar
+            if (c < ' ') {
+                continue;
+            }
+            if (detector.tecla(c, ahora)) {
+                recordarDestino(evento);
+            }
+        }
+    }
+
+    private void alPresionar(KeyEvent evento) {
+        KeyCode tecla = evento.getCode();
+        if (tecla == KeyCode.ENTER || tecla == KeyCode.TAB) {
+            String codigo = detector.fin(System.nanoTime());
+            if (codigo != null) {
+                evento.consume();
+                restaurarDestino();
+                oyente.accept(codigo);
+            }
+            destino = null;
+        } else if (tecla == KeyCode.BACK_SPACE || tecla == KeyCode.DELETE || tecla.isNavigationKey()) {
+            // Edición manual: lo acumulado ya no es una lectura
+            detector.reiniciar();
+            destino = null;
+        }
+    }
+
+    private void recordarDestino(KeyEvent evento) {
+        if (evento.getTarget() instanceof TextInputControl campo) {
+            destino = campo;
+            textoPrevio = campo.getText();
+            cursorPrevio = campo.getCaretPosition();
+        } else {
+            destino = null;
+        }
+    }
+
+    private void restaurarDestino() {
+        if (destino != null) {
+            destino.setText(textoPrevio);
+            destino.positionCaret(Math.min(cursorPrevio, textoPrevio != null ? textoPrevio.length() : 0));
+            destino = null;
+        }
+    }
+}
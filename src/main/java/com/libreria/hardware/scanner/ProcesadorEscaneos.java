@@ -0,0 +1,117 @@
+package com.libreria.hardware.scanner;
+
+import com.libreria.core.metricas.MetricaOperacion;
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.models.Producto;
+import com.libreria.core.services.ProductoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * PROCESADOR DE ESCANEOS
+ * --------------------------------------------------
+ * Responsabilidad: Convertir un código leído en un producto, sin pasar por la búsqueda
+ * interactiva. Valida el dígito verificador, busca el código exacto en los índices en
+ * memoria de {@link ProductoService} (caso normal: sin I/O, en el mismo hilo) y solo si
+ * no está consulta SQLite por SKU/código en el executor.
+ * El resultado se entrega siempre a través de {@code hiloUi}.
+ */
+public class ProcesadorEscaneos {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcesadorEscaneos.class);
+
+    private static final MetricaOperacion METRICA_ESCANEO = Metricas.operacion("Escaner.escaneoAProducto");
+
+    /**
+     * Destino de los escaneos (lo implementa la pantalla de ventas).
+     */
+    public interface Oyente {
+        void encontrado(Producto producto, String codigo);
+
+        void noEncontrado(String codigo);
+
+        /**
+         * Código GTIN con dígito verificador incorrecto: hay que volver a escanear.
+         */
+        void invalido(String codigo);
+
+        void error(String codigo, Exception causa);
+    }
+
+    private final ProductoService productoService;
+    private final ExecutorService executor;
+    private final Executor hiloUi;
+    private final Oyente oyente;
+
+    /**
+     * @param executor Consultas a la base de los códigos que no están en memoria.
+     * @param hiloUi   Dónde se avisa al oyente (Platform::runLater o directo si ya es el hilo de JavaFX).
+     */
+    public ProcesadorEscaneos(ProductoService productoService, ExecutorService executor, Executor hiloUi,
+            Oyente oyente) {
+        this.productoService = productoService;
+        this.executor = executor;
+        this.hiloUi = hiloUi;
+        this.oyente = oyente;
+    }
+
+    /**
+     * Procesa un código crudo. Se puede llamar desde cualquier hilo; no bloquea.
+     */
+    public void procesar(String crudo) {
+        long inicio = System.nanoTime();
+        String codigo = CodigoBarras.normalizar(crudo);
+        if (codigo == null) {
+            String leido = crudo == null ? "" : crudo.strip();
+            hiloUi.execute(() -> {
+                METRICA_ESCANEO.registrar(inicio, false);
+                oyente.invalido(leido);
+            });
+            return;
+        }
+
+        List<String> candidatos = CodigoBarras.candidatos(codigo);
+        for (String candidato : candidatos) {
+            Optional<Producto> producto = productoService.buscarEnCache(candidato);
+            if (producto.isPresent()) {
+                entregar(producto, codigo, inicio);
+                return;
+            }
+        }
+
+        executor.submit(() -> {
+            try {
+                Optional<Producto> producto = Optional.empty();
+                for (String candidato : candidatos) {
+                    producto = productoService.buscarPorSku(candidato);
+                    if (producto.isPresent()) {
+                        break;
+                    }
+                }
+                entregar(producto, codigo, inicio);
+            } catch (RuntimeException e) {
+                logger.error("[Escáner] Error buscando el código {}", codigo, e);
+                hiloUi.execute(() -> {
+                    METRICA_ESCANEO.registrar(inicio, false);
+                    oyente.error(codigo, e);
+                });
+            }
+        });
+    }
+
+    private void entregar(Optional<Producto> producto, String codigo, long inicio) {
+        hiloUi.execute(() -> {
+            METRICA_ESCANEO.registrar(inicio, producto.isPresent());
+            if (producto.isPresent()) {
+                oyente.encontrado(producto.get(), codigo);
+            } else {
+                oyente.noEncontrado(codigo);
+            }
+        });
+    }
+}
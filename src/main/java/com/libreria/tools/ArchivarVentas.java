@@ -0,0 +1,61 @@
+package com.libreria.tools;
+
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.config.ConfiguracionConexion;
+import com.libreria.data.config.DatabaseManager;
+import com.libreria.data.historico.ArchivadorVentas;
+import com.libreria.data.replicacion.ReplicadorCambios;
+import com.libreria.data.replicacion.Terminal;
+
+import java.nio.file.Path;
+
+/**
+ * ARCHIVO DEL HISTORIAL (línea de comandos)
+ * --------------------------------------------------
+ * Pasa los meses cerrados a archivos mensuales (ver {@link ArchivadorVentas}); útil la
+ * primera vez, con años de ventas acumulados en la base.
+ *
+ * Uso: mvn -q compile exec:java -Dexec.mainClass=com.libreria.tools.ArchivarVentas
+ *          -Dexec.args="carpeta [ruta.sqlite]"
+ * Sin base usa la de -Dpos.db.ruta (o pos-db.sqlite). Quedan en la base los últimos
+ * -Dpos.historial.mesesActivos meses (3); con varias cajas indicar -Dpos.terminal y
+ * -Dpos.replicacion.carpeta: las ventas propias que todavía no están en la carpeta
+ * compartida no se archivan (sin la carpeta, ninguna de las anotadas para replicar).
+ * La caja debe usar la misma carpeta (-Dpos.historial.carpeta) para ver lo archivado.
+ * Después conviene un VACUUM con la aplicación cerrada para achicar el archivo; sin él,
+ * el espacio liberado se reutiliza para las ventas nuevas.
+ */
+public final class ArchivarVentas {
+
+    private ArchivarVentas() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Uso: ArchivarVentas carpeta [ruta.sqlite]");
+            System.exit(2);
+        }
+        if (args.length > 1) {
+            DatabaseManager.initDb(ConfiguracionConexion.porDefecto(args[1]));
+        } else {
+            DatabaseManager.initDb();
+        }
+        Terminal terminal = Terminal.desdePropiedadesSistema();
+        String replicacion = System.getProperty("pos.replicacion.carpeta");
+        long exportado = (terminal == null || replicacion == null || replicacion.isBlank()) ? 0
+                : ReplicadorCambios.ultimaSecuenciaExportada(Path.of(replicacion), terminal);
+        CarrilEscritura carril = new CarrilEscritura(DatabaseManager.get());
+        try {
+            ArchivadorVentas archivador = new ArchivadorVentas(carril, DatabaseManager.getLectura(),
+                    DatabaseManager.getConfiguracion().rutaArchivo(), Path.of(args[0]),
+                    Integer.getInteger("pos.historial.mesesActivos", 3), terminal, () -> exportado);
+            for (ArchivadorVentas.Resultado r : archivador.archivarCerrados()) {
+                System.out.println("[Historial] " + r.mes() + ": " + r.ventas() + " ventas y " + r.renglones()
+                        + " renglones archivados en " + r.duracionMs() + " ms.");
+            }
+        } finally {
+            carril.close();
+            DatabaseManager.cerrar();
+        }
+    }
+}
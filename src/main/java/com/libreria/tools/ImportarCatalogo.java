@@ -0,0 +1,64 @@
+package com.libreria.tools;
+
+import com.libreria.core.models.dto.ResultadoImportacion;
+import com.libreria.core.services.ImportadorCatalogo;
+import com.libreria.data.config.CarrilEscritura;
+import com.libreria.data.config.ConfiguracionConexion;
+import com.libreria.data.config.DatabaseManager;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * IMPORTACIÓN DE LISTA DE PRECIOS (línea de comandos)
+ * --------------------------------------------------
+ * Carga o actualiza productos desde el CSV de un proveedor (ver {@link ImportadorCatalogo}).
+ *
+ * Uso: mvn -q compile exec:java -Dexec.mainClass=com.libreria.tools.ImportarCatalogo
+ *          -Dexec.args="lista.csv [ruta.sqlite]"
+ * Sin base usa la de -Dpos.db.ruta (o pos-db.sqlite). El archivo se lee en UTF-8, o en el
+ * charset de -Dpos.importacion.charset (las planillas exportadas de Excel suelen venir en
+ * windows-1252). Las líneas rechazadas se guardan en lista.csv.rechazos.csv.
+ *
+ * Con el POS abierto la importación no lo frena (escribe por lotes), pero la caja sigue
+ * usando el catálogo que tenía en memoria hasta reiniciarla. Desde la aplicación usar
+ * AppContainer.importarCatalogo, que refresca los cachés al terminar.
+ */
+public final class ImportarCatalogo {
+
+    private ImportarCatalogo() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Uso: ImportarCatalogo lista.csv [ruta.sqlite]");
+            System.exit(2);
+        }
+        Path csv = Path.of(args[0]);
+        Path rechazos = Path.of(args[0] + ".rechazos.csv");
+        String nombreCharset = System.getProperty("pos.importacion.charset");
+        Charset charset = nombreCharset != null ? Charset.forName(nombreCharset) : StandardCharsets.UTF_8;
+
+        if (args.length > 1) {
+            DatabaseManager.initDb(ConfiguracionConexion.porDefecto(args[1]));
+        } else {
+            DatabaseManager.initDb();
+        }
+        CarrilEscritura carril = new CarrilEscritura(DatabaseManager.get());
+        try {
+            ResultadoImportacion resultado = new ImportadorCatalogo(carril).importar(csv, charset, rechazos,
+                    p -> System.out.printf("[Importación] %.0f%% - %d líneas%n", p.porcentaje(), p.lineas()));
+            System.out.println("[Importación] " + resultado.lineas() + " líneas en " + resultado.duracionMs()
+                    + " ms: " + resultado.insertadas() + " altas, " + resultado.actualizadas()
+                    + " actualizadas, " + resultado.sinCambios() + " sin cambios, "
+                    + resultado.rechazadas() + " rechazadas.");
+            if (resultado.rechazadas() > 0) {
+                System.out.println("[Importación] Detalle de rechazos en " + rechazos);
+            }
+        } finally {
+            carril.close();
+            DatabaseManager.cerrar();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.libreria.tools;
+
+import com.libreria.data.config.ConfiguracionConexion;
+import com.libreria.data.config.DatabaseManager;
+import com.libreria.data.dao.ResumenVentasDao;
+import com.libreria.data.historico.ArchivosMensuales;
+import com.libreria.data.replicacion.Terminal;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * RECONSTRUCCIÓN DE RESÚMENES DE VENTAS (línea de comandos)
+ * --------------------------------------------------
+ * Vuelve a calcular las tablas resumen_ventas_* desde ventas y detalle_ventas
+ * (backfill de bases anteriores a la migración V004, o después de corregir datos).
+ * Cada venta vuelve a la terminal de su rango de IDs: en una base con varias cajas,
+ * correrla una vez después de la migración V007 reparte por caja los días anteriores.
+ *
+ * Uso: mvn -q compile exec:java -Dexec.mainClass=com.libreria.tools.ReconstruirResumenes [-Dexec.args=ruta.sqlite]
+ * Sin argumento usa la base de -Dpos.db.ruta (o pos-db.sqlite).
+ *
+ * Se puede correr con el POS abierto: el historial se recorre por rangos de ID en
+ * transacciones cortas, así la conexión de escritura se libera entre lote y lote.
+ * Las ventas posteriores al inicio las acumula la propia aplicación: al empezar se fija
+ * el último ID de cada rango de terminal y cada rango se recorre solo hasta el suyo (una
+ * venta que llega replicada de otra caja durante la reconstrucción tiene un ID más bajo
+ * que el máximo general, pero más alto que el de su rango). Los renglones sí tienen IDs
+ * crecientes en cada base. Durante la reconstrucción los reportes muestran totales parciales.
+ *
+ * Con -Dpos.historial.carpeta también suma las ventas ya archivadas (cada archivo mensual
+ * se adjunta a la conexión mientras se recorre). No correrla mientras el archivador está
+ * pasando un mes: una venta movida a mitad de camino se contaría dos veces o ninguna.
+ */
+public final class ReconstruirResumenes {
+
+    private static final int FILAS_POR_LOTE = 5000;
+    // Respiro entre lotes para que entren las ventas de la caja
+    private static final long PAUSA_MS = 20;
+
+    private ReconstruirResumenes() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length > 0) {
+            DatabaseManager.initDb(ConfiguracionConexion.porDefecto(args[0]));
+        } else {
+            DatabaseManager.initDb();
+        }
+        String historial = System.getProperty("pos.historial.carpeta");
+        try {
+            reconstruir(DatabaseManager.get(), (historial == null || historial.isBlank()) ? null : Path.of(historial));
+        } finally {
+            DatabaseManager.cerrar();
+        }
+    }
+
+    /**
+     * @param carpetaHistorial Carpeta de los archivos mensuales (null = solo la base).
+     * @return último ID de venta recorrido en la base (0 si no hay ventas).
+     */
+    public static long reconstruir(Jdbi jdbi, Path carpetaHistorial) throws InterruptedException, IOException {
+        long inicio = System.currentTimeMillis();
+
+        // Vaciar y fijar los límites en la misma transacción: lo posterior ya lo acumula la app
+        Limites limites = jdbi.inTransaction(handle -> {
+            ResumenVentasDao dao = handle.attach(ResumenVentasDao.class);
+            dao.vaciar();
+            return new Limites(dao.maximoIdVentaPorTerminal(), dao.maximoIdDetalle());
+        });
+        long ultimaVenta = limites.ventas().values().stream().mapToLong(Long::longValue).max().orElse(0);
+        System.out.println("[Resúmenes] Reconstruyendo hasta la venta " + ultimaVenta + "...");
+        try (Handle handle = jdbi.open()) {
+            for (Map.Entry<Integer, Long> rango : limites.ventas().entrySet()) {
+                recorrerVentas(handle, "main", rango.getKey() * Terminal.TAMANO_RANGO, rango.getValue());
+            }
+            recorrerDetalles(handle, "main", limites.detalles());
+        }
+
+        for (Path archivo : ArchivosMensuales.listar(carpetaHistorial).values()) {
+            System.out.println("[Resúmenes] Sumando " + archivo.getFileName() + "...");
+            try (Handle handle = jdbi.open()) {
+                handle.createUpdate("ATTACH DATABASE :ruta AS archivo").bind("ruta", archivo.toString()).execute();
+                try {
+                    recorrerVentas(handle, "archivo", 0, Long.MAX_VALUE);
+                    recorrerDetalles(handle, "archivo", Long.MAX_VALUE);
+                } finally {
+                    handle.execute("DETACH DATABASE archivo");
+                }
+            }
+        }
+
+        System.out.println("[Resúmenes] Listo en " + (System.currentTimeMillis() - inicio) + " ms.");
+        return ultimaVenta;
+    }
+
+    /**
+     * Límites fijados al empezar: último ID de venta por terminal y último renglón.
+     */
+    private record Limites(Map<Integer, Long> ventas, long detalles) {
+    }
+
+    /**
+     * Suma las ventas del esquema con ID en [desde, maximo], por lotes de clave primaria.
+     */
+    private static void recorrerVentas(Handle handle, String esquema, long desde, long maximo)
+            throws InterruptedException {
+        ResumenVentasDao dao = handle.attach(ResumenVentasDao.class);
+        while (desde <= maximo) {
+            long hasta = Math.min(dao.finDeLote(esquema + ".ventas", desde, FILAS_POR_LOTE), maximo);
+            if (hasta < desde) {
+                break;
+            }
+            long d = desde;
+            handle.useTransaction(h -> h.attach(ResumenVentasDao.class).reconstruirVentas(esquema, d, hasta));
+            desde = hasta + 1;
+            Thread.sleep(PAUSA_MS);
+        }
+    }
+
+    /**
+     * Suma los renglones del esquema hasta el ID indicado, por lotes de clave primaria.
+     */
+    private static void recorrerDetalles(Handle handle, String esquema, long maximo) throws InterruptedException {
+        ResumenVentasDao dao = handle.attach(ResumenVentasDao.class);
+        for (long desde = 1; desde <= maximo; ) {
+            long hasta = Math.min(dao.finDeLote(esquema + ".detalle_ventas", desde, FILAS_POR_LOTE), maximo);
+            if (hasta < desde) {
+                break;
+            }
+            long d = desde;
+            handle.useTransaction(h -> h.attach(ResumenVentasDao.class).reconstruirDetalles(esquema, d, hasta));
+            desde = hasta + 1;
+            Thread.sleep(PAUSA_MS);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.libreria.tools;
+
+import com.libreria.data.config.ConfiguracionConexion;
+import com.libreria.data.respaldo.ConfiguracionRespaldo;
+import com.libreria.data.respaldo.RespaldoBase;
+
+import java.nio.file.Path;
+
+/**
+ * RESPALDO DE LA BASE (línea de comandos)
+ * --------------------------------------------------
+ * Hace una copia verificada y comprimida de la base (ver {@link RespaldoBase}), por ejemplo
+ * antes de actualizar la aplicación o desde una tarea programada del sistema.
+ *
+ * Uso: mvn -q compile exec:java -Dexec.mainClass=com.libreria.tools.RespaldarBase
+ *          -Dexec.args="carpeta [ruta.sqlite]"
+ * Sin base usa la de -Dpos.db.ruta (o pos-db.sqlite). Se puede correr con el POS abierto:
+ * la copia no frena las ventas, aunque sin el carril de la aplicación no espera a los
+ * momentos sin ventas (lo programado dentro de la caja sí, con -Dpos.respaldo.carpeta).
+ */
+public final class RespaldarBase {
+
+    private RespaldarBase() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Uso: RespaldarBase carpeta [ruta.sqlite]");
+            System.exit(2);
+        }
+        ConfiguracionConexion conexion = args.length > 1
+                ? ConfiguracionConexion.porDefecto(args[1])
+                : ConfiguracionConexion.desdePropiedadesSistema();
+        ConfiguracionRespaldo config = ConfiguracionRespaldo.porDefecto(Path.of(args[0]));
+
+        RespaldoBase.Resultado r = new RespaldoBase(conexion, null, config).respaldar();
+        System.out.println("[Respaldo] " + r.archivo() + ": " + r.bytesBase() / 1024 + " KiB -> "
+                + r.bytesComprimidos() / 1024 + " KiB en " + r.duracionMs() + " ms.");
+    }
+}
@@ -1,19 +1,27 @@
 package com.libreria.ui.controllers;
 
 import com.libreria.core.models.Producto;
-import com.libreria.core.services.ConfiguracionService;
+import com.libreria.core.services.IndiceBusquedaProductos;
+import com.libreria.core.services.ListaPrecios;
 import com.libreria.core.services.ProductoService;
+import com.libreria.hardware.scanner.DetectorRafaga;
+import com.libreria.hardware.scanner.LectorTeclado;
+import com.libreria.ui.models.CacheFilasProducto;
+import com.libreria.ui.models.CatalogoPaginado;
+import com.libreria.ui.models.FilaProducto;
+import com.libreria.ui.utils.BusquedaDiferida;
 import com.libreria.ui.utils.DialogUtils;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
+import javafx.util.Callback;
+import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,40 +29,75 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class BuscadorProductosController {
 
     private static final Logger logger = LoggerFactory.getLogger(BuscadorProductosController.class);
 
+    // Ventana para agrupar teclas: cubre una ráfaga completa de lector de códigos
+    private static final Duration VENTANA_BUSQUEDA = Duration.millis(120);
+
+    // Hasta este tamaño el catálogo se carga entero y se busca en memoria; por encima,
+    // las búsquedas van a SQLite y solo se listan las páginas visibles
+    private static final int MAX_CATALOGO_EN_MEMORIA = Integer.getInteger("pos.catalogo.maxEnMemoria", 50_000);
+    // Tope de filas de una búsqueda resuelta en la base
+    private static final int LIMITE_RESULTADOS_DB = 500;
+
+    // Escáner como teclado: pausa máxima entre teclas de una lectura y largo mínimo del código
+    private static final int INTERVALO_ESCANER_MS = Integer.getInteger("pos.escaner.intervaloMaxMs", 35);
+    private static final int LARGO_MINIMO_CODIGO = 6;
+
     // Dependencies
     private ProductoService productoService;
-    private ConfiguracionService configService;
+    private ListaPrecios listaPrecios;
     private ExecutorService executor;
     private Consumer<Producto> onProductoSeleccionado;
+    private Consumer<String> onCodigoEscaneado;
 
     // UI
     @FXML
     private TextField txtSku;
     @FXML
-    private TableView<Producto> tablaBusqueda;
+    private TableView<FilaProducto> tablaBusqueda;
     @FXML
-    private TableColumn<Producto, String> colBusquedaNombre;
+    private TableColumn<FilaProducto, String> colBusquedaNombre;
     @FXML
-    private TableColumn<Producto, String> colBusquedaCosto;
+    private TableColumn<FilaProducto, String> colBusquedaCosto;
     @FXML
-    private TableColumn<Producto, String> colBusquedaEfectivo;
+    private TableColumn<FilaProducto, String> colBusquedaEfectivo;
     @FXML
-    private TableColumn<Producto, String> colBusquedaTransferencia;
+    private TableColumn<FilaProducto, String> colBusquedaTransferencia;
 
     // State
-    private final ObservableList<Producto> masterData = FXCollections.observableArrayList();
-    private FilteredList<Producto> filteredData;
-    private SortedList<Producto> sortedData;
-
-    public void init(ProductoService productoService, ConfiguracionService configService, ExecutorService executor) {
+    private final ObservableList<FilaProducto> resultados = FXCollections.observableArrayList();
+    private volatile IndiceBusquedaProductos indice = IndiceBusquedaProductos.VACIO;
+    private volatile boolean catalogoEnMemoria = true;
+    private SortedList<FilaProducto> sortedData;
+    // Sin texto se muestra el catálogo completo, paginado
+    private CatalogoPaginado catalogo;
+    // null = mostrar el catálogo; si no, las filas encontradas
+    private BusquedaDiferida<List<FilaProducto>> busqueda;
+    // Filas con precios formateados, por libro de precios
+    private CacheFilasProducto filas;
+    // Lecturas del escáner (ráfagas de teclado) en toda la escena
+    private LectorTeclado lectorTeclado;
+
+    public void init(ProductoService productoService, ListaPrecios listaPrecios, ExecutorService executor) {
         this.productoService = productoService;
-        this.configService = configService;
+        this.listaPrecios = listaPrecios;
         this.executor = executor;
+        this.filas = new CacheFilasProducto(listaPrecios);
+        // Las filas se arman en el hilo de búsqueda, junto con el filtrado
+        this.busqueda = new BusquedaDiferida<>(VENTANA_BUSQUEDA, executor, this::buscar, this::mostrar);
+        cargarProductosEnMemoria();
+    }
+
+    /**
+     * Vuelve a cargar el catálogo (índice de búsqueda, filas y anclas) desde la base,
+     * por ejemplo después de importar una lista de precios. Llamar en el hilo de JavaFX.
+     */
+    public void recargarCatalogo() {
         cargarProductosEnMemoria();
     }
 
@@ -62,6 +105,13 @@ public class BuscadorProductosController {
         this.onProductoSeleccionado = callback;
     }
 
+    /**
+     * Recibe los códigos leídos por el escáner; no pasan por la búsqueda ni por la tabla.
+     */
+    public void setOnCodigoEscaneado(Consumer<String> callback) {
+        this.onCodigoEscaneado = callback;
+    }
+
     @FXML
     public void initialize() {
         configurarTablaBusqueda();
@@ -70,50 +120,102 @@ public class BuscadorProductosController {
 
     private void configurarListeners() {
         txtSku.textProperty().addListener((observable, oldValue, newValue) -> {
-            if (filteredData != null) {
-                filteredData.setPredicate(crearPredicado(newValue));
+            if (busqueda != null) {
+                busqueda.solicitar(newValue);
             }
         });
 
         txtSku.setOnKeyPressed(this::manejarEnterSku);
 
+        // El filtro del escáner va en la escena: lee aunque el foco esté en otro control
+        txtSku.sceneProperty().addListener((observable, anterior, escena) -> {
+            if (escena != null && lectorTeclado == null) {
+                lectorTeclado = LectorTeclado.instalar(escena,
+                        new DetectorRafaga(INTERVALO_ESCANER_MS, LARGO_MINIMO_CODIGO), this::codigoEscaneado);
+            }
+        });
+    }
+
+    private void codigoEscaneado(String codigo) {
+        if (onCodigoEscaneado != null) {
+            onCodigoEscaneado.accept(codigo);
+        }
     }
 
     private void configurarTablaBusqueda() {
-        colBusquedaNombre.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().nombre()));
-        colBusquedaCosto.setCellValueFactory(
-                cellData -> new SimpleStringProperty(formatearMoneda(cellData.getValue().getCosto())));
-        colBusquedaEfectivo.setCellValueFactory(
-                cellData -> new SimpleStringProperty(
-                        formatearMoneda(cellData.getValue().getPrecioEfectivo(configService.getMargenEfectivo()))));
-        colBusquedaTransferencia.setCellValueFactory(
-                cellData -> new SimpleStringProperty(formatearMoneda(
-                        cellData.getValue().getPrecioTransferencia(configService.getMargenTransferencia()))));
-
-        filteredData = new FilteredList<>(masterData, p -> !p.esServicio());
-        sortedData = new SortedList<>(filteredData);
+        // Las filas ya traen sus textos: las celdas no calculan ni formatean al renderizar
+        colBusquedaNombre.setCellValueFactory(celda(FilaProducto::nombreProperty));
+        colBusquedaCosto.setCellValueFactory(celda(FilaProducto::costoProperty));
+        colBusquedaEfectivo.setCellValueFactory(celda(FilaProducto::efectivoProperty));
+        colBusquedaTransferencia.setCellValueFactory(celda(FilaProducto::transferenciaProperty));
+
+        sortedData = new SortedList<>(resultados);
         sortedData.comparatorProperty().bind(tablaBusqueda.comparatorProperty());
         tablaBusqueda.setItems(sortedData);
+        // El catálogo paginado ya viene ordenado por nombre y no se puede reordenar en memoria
+        tablaBusqueda.setSortPolicy(tabla -> tabla.getItems() != catalogo
+                && TableView.DEFAULT_SORT_POLICY.call(tabla));
 
         tablaBusqueda.setOnMouseClicked(event -> {
             if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
-                Producto selected = tablaBusqueda.getSelectionModel().getSelectedItem();
+                FilaProducto selected = tablaBusqueda.getSelectionModel().getSelectedItem();
                 if (selected != null) {
-                    notificarSeleccion(selected);
+                    notificarSeleccion(selected.getProducto());
                 }
             }
         });
 
         tablaBusqueda.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ENTER) {
-                Producto selected = tablaBusqueda.getSelectionModel().getSelectedItem();
+                FilaProducto selected = tablaBusqueda.getSelectionModel().getSelectedItem();
                 if (selected != null) {
-                    notificarSeleccion(selected);
+                    notificarSeleccion(selected.getProducto());
                 }
             }
         });
     }
 
+    /**
+     * Las filas del catálogo paginado pueden no estar cargadas todavía (null).
+     */
+    private static Callback<TableColumn.CellDataFeatures<FilaProducto, String>, ObservableValue<String>> celda(
+            Function<FilaProducto, ObservableValue<String>> propiedad) {
+        return d -> d.getValue() == null ? null : propiedad.apply(d.getValue());
+    }
+
+    /**
+     * Corre en el hilo de búsqueda. Devuelve null para un texto vacío (se muestra el catálogo).
+     */
+    private List<FilaProducto> buscar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        if (catalogoEnMemoria) {
+            return filas.filas(indice.buscar(texto));
+        }
+        // Catálogo grande: primero el código exacto (lector de barras), después texto completo (FTS5)
+        Optional<Producto> exacto = productoService.buscarPorSku(texto);
+        if (exacto.isPresent() && !exacto.get().esServicio()) {
+            return filas.filas(List.of(exacto.get()));
+        }
+        return filas.filas(productoService.buscarEnCatalogo(texto, LIMITE_RESULTADOS_DB));
+    }
+
+    private void mostrar(List<FilaProducto> encontradas) {
+        if (encontradas == null) {
+            resultados.clear();
+            if (catalogo != null && tablaBusqueda.getItems() != catalogo) {
+                tablaBusqueda.getSortOrder().clear();
+                tablaBusqueda.setItems(catalogo);
+            }
+            return;
+        }
+        resultados.setAll(encontradas);
+        if (tablaBusqueda.getItems() != sortedData) {
+            tablaBusqueda.setItems(sortedData);
+        }
+    }
+
     @FXML
     private void onAgregarFisico() {
         String sku = txtSku.getText().trim();
@@ -165,14 +267,32 @@ public class BuscadorProductosController {
     }
 
     private void cargarProductosEnMemoria() {
-        javafx.concurrent.Task<List<Producto>> task = new javafx.concurrent.Task<>() {
+        // El índice y las anclas del catálogo se construyen en el hilo de fondo junto con la carga.
+        // Un catálogo grande no se trae entero: solo se cuentan las filas y se calculan las anclas.
+        javafx.concurrent.Task<Carga> task = new javafx.concurrent.Task<>() {
             @Override
-            protected List<Producto> call() throws Exception {
-                return productoService.listarProductosActivos();
+            protected Carga call() throws Exception {
+                CatalogoPaginado paginado = CatalogoPaginado.cargar(productoService, listaPrecios, executor);
+                if (paginado.size() > MAX_CATALOGO_EN_MEMORIA) {
+                    logger.info("Catálogo de {} productos: búsqueda en la base y listado paginado", paginado.size());
+                    return new Carga(IndiceBusquedaProductos.VACIO, false, paginado);
+                }
+                return new Carga(new IndiceBusquedaProductos(productoService.listarProductosActivos()), true,
+                        paginado);
             }
         };
 
-        task.setOnSucceeded(e -> masterData.setAll(task.getValue()));
+        task.setOnSucceeded(e -> {
+            Carga carga = task.getValue();
+            indice = carga.indice();
+            catalogoEnMemoria = carga.enMemoria();
+            if (tablaBusqueda.getItems() == catalogo) {
+                tablaBusqueda.setItems(carga.catalogo());
+            }
+            catalogo = carga.catalogo();
+            filas.invalidar();
+            busqueda.ejecutarAhora(txtSku.getText(), null);
+        });
         task.setOnFailed(e -> {
             logger.error("Error cargando productos", task.getException());
             DialogUtils.showError("Error", "No se pudieron cargar los productos.", "");
@@ -181,37 +301,14 @@ public class BuscadorProductosController {
         executor.submit(task);
     }
 
-    private java.util.function.Predicate<Producto> crearPredicado(String searchText) {
-        return producto -> {
-            if (producto.esServicio())
-                return false;
-            if (searchText == null || searchText.isEmpty())
-                return true;
-
-            String lowerQuery = removerAcentos(searchText.toLowerCase());
-
-            return removerAcentos(producto.nombre().toLowerCase()).contains(lowerQuery) ||
-                    removerAcentos(producto.skuInterno().toLowerCase()).contains(lowerQuery) ||
-                    (producto.codigoBarras() != null && producto.codigoBarras().toLowerCase().contains(lowerQuery));
-        };
-    }
-
-    private String removerAcentos(String input) {
-        if (input == null)
-            return "";
-        return java.text.Normalizer.normalize(input, java.text.Normalizer.Form.NFD)
-                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-    }
-
     private void manejarEnterSku(KeyEvent event) {
         if (event.getCode() == KeyCode.ENTER) {
             String query = txtSku.getText().trim();
             if (query.isEmpty())
                 return;
 
-            Optional<Producto> exactMatch = masterData.stream()
-                    .filter(p -> query.equalsIgnoreCase(p.skuInterno()) || query.equalsIgnoreCase(p.codigoBarras()))
-                    .findFirst();
+            // Coincidencia exacta por código/SKU contra los índices en memoria del servicio
+            Optional<Producto> exactMatch = productoService.buscarEnCache(query);
 
             if (exactMatch.isPresent()) {
                 Producto prod = exactMatch.get();
@@ -224,20 +321,27 @@ public class BuscadorProductosController {
                 return;
             }
 
-            if (filteredData.size() == 1) {
-                notificarSeleccion(filteredData.get(0));
-                txtSku.clear();
-                return;
-            }
+            // La búsqueda diferida puede estar pendiente: se fuerza y se decide con el resultado final
+            busqueda.ejecutarAhora(txtSku.getText(), this::resolverResultadosEnter);
+        }
+    }
 
-            if (!filteredData.isEmpty()) {
-                tablaBusqueda.requestFocus();
-                tablaBusqueda.getSelectionModel().selectFirst();
-            }
+    private void resolverResultadosEnter() {
+        if (tablaBusqueda.getItems() == catalogo) {
+            return;
+        }
+        if (resultados.size() == 1) {
+            notificarSeleccion(resultados.get(0).getProducto());
+            txtSku.clear();
+            return;
+        }
+
+        if (!resultados.isEmpty()) {
+            tablaBusqueda.requestFocus();
+            tablaBusqueda.getSelectionModel().selectFirst();
         }
     }
 
-    private String formatearMoneda(int centavos) {
-        return String.format("$ %,.2f", centavos / 100.0);
+    private record Carga(IndiceBusquedaProductos indice, boolean enMemoria, CatalogoPaginado catalogo) {
     }
 }
@@ -1,15 +1,18 @@
 package com.libreria.ui.controllers;
 
+import com.libreria.core.models.Carrito;
 import com.libreria.core.models.Venta;
+import com.libreria.core.models.dto.AlertaStock;
 import com.libreria.core.models.dto.ItemCarrito;
 import com.libreria.core.models.enums.MetodoPago;
+import com.libreria.core.services.StockService;
 import com.libreria.core.services.VentaService;
+import com.libreria.hardware.printer.ColaImpresion;
+import com.libreria.ui.models.FilaCarrito;
 import com.libreria.ui.utils.DialogUtils;
+import com.libreria.ui.utils.FormatoMoneda;
 import atlantafx.base.controls.ToggleSwitch;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -17,7 +20,9 @@ import javafx.util.Callback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 public class CarritoController {
@@ -26,70 +31,78 @@ public class CarritoController {
 
     // Dependencies
     private VentaService ventaService;
+    private StockService stockService;
     private ExecutorService executor;
 
     // UI
     @FXML
-    private TableView<ItemCarrito> tablaCarrito;
+    private TableView<FilaCarrito> tablaCarrito;
     @FXML
-    private TableColumn<ItemCarrito, String> colProducto;
+    private TableColumn<FilaCarrito, String> colProducto;
     @FXML
-    private TableColumn<ItemCarrito, Integer> colCantidad;
+    private TableColumn<FilaCarrito, Integer> colCantidad;
+    // Una columna de importes por medio de pago; el descuento cambia cuál se ve
     @FXML
-    private TableColumn<ItemCarrito, String> colPrecio;
+    private TableColumn<FilaCarrito, String> colPrecio;
     @FXML
-    private TableColumn<ItemCarrito, String> colSubtotal;
+    private TableColumn<FilaCarrito, String> colSubtotal;
     @FXML
-    private TableColumn<ItemCarrito, Void> colAccion;
+    private TableColumn<FilaCarrito, String> colPrecioEfectivo;
+    @FXML
+    private TableColumn<FilaCarrito, String> colSubtotalEfectivo;
+    @FXML
+    private TableColumn<FilaCarrito, Void> colAccion;
     @FXML
     private Label lblTotal;
     @FXML
     private ToggleSwitch toggleFactura;
     @FXML
     private ToggleSwitch toggleDescuento;
+    @FXML
+    private Label lblAvisoStock;
 
-    // State
-    private final ObservableList<ItemCarrito> itemsCarrito = FXCollections.observableArrayList();
+    // State: el carrito es la fuente de verdad; la lista observable solo lo muestra
+    private final Carrito carrito = new Carrito();
+    private final ObservableList<FilaCarrito> itemsCarrito = FXCollections.observableArrayList();
+    private final Map<Carrito.Clave, FilaCarrito> filasPorClave = new HashMap<>();
     private boolean descuentoActivo = false;
+    // El aviso visible es el de la impresora (se oculta al reconectarse)
+    private boolean avisoImpresora = false;
 
-    public void init(VentaService ventaService, ExecutorService executor) {
+    public void init(VentaService ventaService, StockService stockService, ExecutorService executor) {
         this.ventaService = ventaService;
+        this.stockService = stockService;
         this.executor = executor;
     }
 
     @FXML
     public void initialize() {
         configurarTabla();
-        itemsCarrito.addListener((ListChangeListener<ItemCarrito>) c -> actualizarTotal());
+        aplicarMetodoPago();
 
-        toggleDescuento.selectedProperty().addListener((obs, oldVal, newVal) -> {
-            descuentoActivo = newVal;
-            tablaCarrito.refresh(); // Refresh table to show new prices
-            actualizarTotal();
-        });
+        toggleDescuento.selectedProperty().addListener((obs, oldVal, newVal) -> setDescuentoActivo(newVal));
     }
 
     private void configurarTabla() {
         tablaCarrito.setItems(itemsCarrito);
 
-        colProducto.setCellValueFactory(d -> new SimpleStringProperty(d.getValue().nombreProducto()));
-        colCantidad.setCellValueFactory(d -> new SimpleObjectProperty<>(d.getValue().cantidad()));
-        colPrecio.setCellValueFactory(
-                d -> new SimpleStringProperty(formatearMoneda(d.getValue().getPrecioUnitario(descuentoActivo))));
-        colSubtotal
-                .setCellValueFactory(
-                        d -> new SimpleStringProperty(formatearMoneda(d.getValue().calcularSubtotal(descuentoActivo))));
+        colProducto.setCellValueFactory(d -> d.getValue().nombreProperty());
+        colCantidad.setCellValueFactory(d -> d.getValue().cantidadProperty());
+        colPrecio.setCellValueFactory(d -> d.getValue().precioListaProperty());
+        colSubtotal.setCellValueFactory(d -> d.getValue().subtotalListaProperty());
+        colPrecioEfectivo.setCellValueFactory(d -> d.getValue().precioEfectivoProperty());
+        colSubtotalEfectivo.setCellValueFactory(d -> d.getValue().subtotalEfectivoProperty());
 
         colAccion.setCellFactory(new Callback<>() {
             @Override
-            public TableCell<ItemCarrito, Void> call(final TableColumn<ItemCarrito, Void> param) {
+            public TableCell<FilaCarrito, Void> call(final TableColumn<FilaCarrito, Void> param) {
                 return new TableCell<>() {
                     private final Button btn = new Button("X");
                     {
                         btn.getStyleClass().add("danger");
                         btn.setOnAction(event -> {
-                            ItemCarrito item = getTableView().getItems().get(getIndex());
-                            itemsCarrito.remove(item);
+                            FilaCarrito fila = getTableView().getItems().get(getIndex());
+                            quitarItem(fila.getClave());
                         });
                     }
 
@@ -107,44 +120,87 @@ public class CarritoController {
     }
 
     public void agregarItem(ItemCarrito newItem) {
-        // Check for duplicates
-        for (int i = 0; i < itemsCarrito.size(); i++) {
-            ItemCarrito existing = itemsCarrito.get(i);
-            if (existing.productoId().equals(newItem.productoId())
-                    && existing.esProductoFisico() == newItem.esProductoFisico()) {
-                // Update quantity
-                ItemCarrito updated = new ItemCarrito(
-                        existing.productoId(),
-                        existing.nombreProducto(),
-                        existing.cantidad() + newItem.cantidad(),
-                        existing.precioListaCentavos(),
-                        existing.precioEfectivoCentavos(),
-                        existing.esProductoFisico());
-                itemsCarrito.set(i, updated);
-                return;
+        // El aviso de la venta anterior se descarta al empezar la siguiente (el de la
+        // impresora sigue hasta que se reconecte)
+        if (carrito.isEmpty() && !avisoImpresora) {
+            ocultarAviso();
+        }
+        // Búsqueda por clave: si ya existe el renglón solo se actualiza su cantidad
+        ItemCarrito resultado = carrito.agregar(newItem);
+        reservar(resultado, newItem.cantidad());
+        Carrito.Clave clave = Carrito.Clave.de(resultado);
+        FilaCarrito fila = filasPorClave.get(clave);
+        if (fila != null) {
+            fila.actualizar(resultado);
+        } else {
+            fila = new FilaCarrito(resultado);
+            filasPorClave.put(clave, fila);
+            itemsCarrito.add(fila);
+        }
+        actualizarTotal();
+    }
+
+    public void cambiarCantidad(Carrito.Clave clave, int cantidad) {
+        ItemCarrito anterior = carrito.get(clave);
+        ItemCarrito resultado = carrito.cambiarCantidad(clave, cantidad);
+        if (anterior != null) {
+            int delta = (resultado != null ? resultado.cantidad() : 0) - anterior.cantidad();
+            if (delta > 0) {
+                reservar(anterior, delta);
+            } else {
+                liberar(anterior, -delta);
             }
         }
-        itemsCarrito.add(newItem);
+        if (resultado == null) {
+            quitarFila(clave);
+        } else {
+            filasPorClave.get(clave).actualizar(resultado);
+        }
+        actualizarTotal();
     }
 
-    public ObservableList<ItemCarrito> getItems() {
-        return itemsCarrito;
+    public void quitarItem(Carrito.Clave clave) {
+        ItemCarrito quitado = carrito.quitar(clave);
+        if (quitado != null) {
+            liberar(quitado, quitado.cantidad());
+        }
+        quitarFila(clave);
+        actualizarTotal();
+    }
+
+    /**
+     * Copia de los ítems actuales del carrito.
+     */
+    public List<ItemCarrito> getItems() {
+        return carrito.getItems();
     }
 
     public void setItems(List<ItemCarrito> items) {
-        itemsCarrito.setAll(items);
+        vaciar();
+        items.forEach(this::agregarItem);
+    }
+
+    public void vaciar() {
+        // Después de cobrar, la venta ya descontó el stock en memoria: las reservas se devuelven
+        for (ItemCarrito item : carrito.getItems()) {
+            liberar(item, item.cantidad());
+        }
+        carrito.vaciar();
+        filasPorClave.clear();
+        itemsCarrito.clear();
+        actualizarTotal();
     }
 
     @FXML
     private void onCobrar() {
-        if (itemsCarrito.isEmpty()) {
+        if (carrito.isEmpty()) {
             DialogUtils.showWarning("Carrito Vacío", "Agrega ítems antes de cobrar.", "");
             return;
         }
 
-        List<ItemCarrito> itemsSnapshot = itemsCarrito.stream().toList();
+        List<ItemCarrito> itemsSnapshot = carrito.getItems();
         boolean requiereFactura = toggleFactura.isSelected();
-        MetodoPago metodoPago = descuentoActivo ? MetodoPago.EFECTIVO : MetodoPago.TRANSFERENCIA;
+        MetodoPago metodoPago = carrito.getMetodoPago();
 
         tablaCarrito.setDisable(true);
 
@@ -160,8 +216,8 @@ public class CarritoController {
             Venta venta = task.getValue();
             logger.info("Venta registrada ID: {}", venta.id());
             DialogUtils.showInfo("Venta Exitosa", "Ticket #" + venta.id() + " registrado.",
-                    "Total: " + formatearMoneda(venta.totalCentavos()));
-            itemsCarrito.clear();
+                    "Total: " + FormatoMoneda.formatear(venta.totalCentavos()));
+            vaciar();
             toggleFactura.setSelected(false);
         });
 
@@ -175,20 +231,96 @@ public class CarritoController {
         executor.submit(task);
     }
 
-    private void actualizarTotal() {
-        int totalCentavos = itemsCarrito.stream().mapToInt(item -> item.calcularSubtotal(descuentoActivo)).sum();
-        lblTotal.setText(formatearMoneda(totalCentavos));
+    /**
+     * Reserva las unidades agregadas y avisa (sin bloquear al cajero) si no alcanza el stock.
+     */
+    private void reservar(ItemCarrito item, int cantidad) {
+        if (!item.esProductoFisico() || stockService == null) {
+            return;
+        }
+        stockService.reservar(item.productoId(), cantidad)
+                .filter(d -> !d.alcanza())
+                .ifPresent(d -> mostrarAviso("Stock insuficiente: " + item.nombreProducto()
+                        + " (stock " + d.stock() + ", en carrito " + d.reservado() + ")"));
     }
 
-    private String formatearMoneda(int centavos) {
-        return String.format("$ %,.2f", centavos / 100.0);
+    private void liberar(ItemCarrito item, int cantidad) {
+        if (item.esProductoFisico() && stockService != null && cantidad > 0) {
+            stockService.liberar(item.productoId(), cantidad);
+        }
+    }
+
+    /**
+     * Aviso de stock mínimo después de una venta. Debe llamarse desde el hilo de JavaFX.
+     */
+    public void mostrarStockBajo(AlertaStock alerta) {
+        logger.info("Stock bajo: producto {} quedan {} (mínimo {})", alerta.productoId(), alerta.stockActual(),
+                alerta.stockMinimo());
+        mostrarAviso("Stock bajo: " + alerta.nombreProducto() + " (quedan " + alerta.stockActual()
+                + ", mínimo " + alerta.stockMinimo() + ")");
+    }
+
+    /**
+     * Alerta recuperable de la impresora: los tickets esperan en la cola, o con la cola
+     * llena se reimprimen desde la venta guardada. Debe llamarse desde el hilo de JavaFX.
+     */
+    public void mostrarEstadoImpresora(ColaImpresion.Estado estado) {
+        if (estado == ColaImpresion.Estado.DESCONECTADA) {
+            logger.warn("Impresora desconectada: los tickets quedan en cola");
+            mostrarAviso("Impresora desconectada: los tickets se imprimirán al reconectarla");
+            avisoImpresora = true;
+        } else if (estado == ColaImpresion.Estado.COLA_LLENA) {
+            mostrarAviso("Cola de impresión llena: los tickets que faltan se imprimirán cuando haya lugar");
+            avisoImpresora = true;
+        } else if (avisoImpresora) {
+            ocultarAviso();
+        }
+    }
+
+    private void mostrarAviso(String texto) {
+        avisoImpresora = false;
+        lblAvisoStock.setText(texto);
+        lblAvisoStock.setManaged(true);
+        lblAvisoStock.setVisible(true);
+    }
+
+    private void ocultarAviso() {
+        avisoImpresora = false;
+        lblAvisoStock.setText(null);
+        lblAvisoStock.setManaged(false);
+        lblAvisoStock.setVisible(false);
     }
 
+    private void quitarFila(Carrito.Clave clave) {
+        FilaCarrito fila = filasPorClave.remove(clave);
+        if (fila != null) {
+            itemsCarrito.remove(fila);
+        }
+    }
+
+    private void actualizarTotal() {
+        lblTotal.setText(FormatoMoneda.formatear(carrito.getTotalCentavos()));
+    }
+
+    /**
+     * Cambia el medio de pago: el total ya está acumulado para ambos y la tabla solo
+     * alterna la visibilidad de las columnas de importes.
+     */
     public void setDescuentoActivo(boolean activo) {
         this.descuentoActivo = activo;
+        aplicarMetodoPago();
     }
 
     public boolean isDescuentoActivo() {
         return descuentoActivo;
     }
+
+    private void aplicarMetodoPago() {
+        carrito.setMetodoPago(descuentoActivo ? MetodoPago.EFECTIVO : MetodoPago.TRANSFERENCIA);
+        colPrecio.setVisible(!descuentoActivo);
+        colSubtotal.setVisible(!descuentoActivo);
+        colPrecioEfectivo.setVisible(descuentoActivo);
+        colSubtotalEfectivo.setVisible(descuentoActivo);
+        actualizarTotal();
+    }
 }
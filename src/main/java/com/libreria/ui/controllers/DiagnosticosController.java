@@ -0,0 +1,112 @@
+package com.libreria.ui.controllers;
+
+import com.libreria.core.metricas.Metricas;
+import com.libreria.core.metricas.ResumenOperacion;
+import com.libreria.data.config.AppContainer;
+import com.libreria.data.config.DatabaseManager;
+import com.libreria.data.config.PoolConexionesSqlite;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Vista de diagnóstico: latencias por operación (servicios y SQL), estado de los pools
+ * y del carril de escritura. Se refresca cada 2 s solo mientras está en pantalla.
+ */
+public class DiagnosticosController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosticosController.class);
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("dd/MM HH:mm:ss");
+
+    @FXML
+    private TableView<ResumenOperacion> tablaMetricas;
+    @FXML
+    private TableColumn<ResumenOperacion, String> colOperacion;
+    @FXML
+    private TableColumn<ResumenOperacion, Long> colLlamadas;
+    @FXML
+    private TableColumn<ResumenOperacion, Long> colErrores;
+    @FXML
+    private TableColumn<ResumenOperacion, String> colP50;
+    @FXML
+    private TableColumn<ResumenOperacion, String> colP99;
+    @FXML
+    private TableColumn<ResumenOperacion, String> colMaximo;
+    @FXML
+    private Label lblPools;
+    @FXML
+    private Label lblDesde;
+
+    private final ObservableList<ResumenOperacion> filas = FXCollections.observableArrayList();
+    private final Timeline refresco = new Timeline(new KeyFrame(Duration.seconds(2), e -> actualizar()));
+
+    @FXML
+    public void initialize() {
+        tablaMetricas.setItems(filas);
+        colOperacion.setCellValueFactory(d -> new SimpleStringProperty(d.getValue().nombre()));
+        colLlamadas.setCellValueFactory(d -> new SimpleObjectProperty<>(d.getValue().llamadas()));
+        colErrores.setCellValueFactory(d -> new SimpleObjectProperty<>(d.getValue().errores()));
+        colP50.setCellValueFactory(d -> new SimpleStringProperty(ResumenOperacion.ms(d.getValue().p50Nanos())));
+        colP99.setCellValueFactory(d -> new SimpleStringProperty(ResumenOperacion.ms(d.getValue().p99Nanos())));
+        colMaximo.setCellValueFactory(d -> new SimpleStringProperty(ResumenOperacion.ms(d.getValue().maximoNanos())));
+
+        refresco.setCycleCount(Animation.INDEFINITE);
+        // Solo refrescar mientras la vista está montada en la escena
+        tablaMetricas.sceneProperty().addListener((obs, anterior, escena) -> {
+            if (escena != null) {
+                actualizar();
+                refresco.play();
+            } else {
+                refresco.stop();
+            }
+        });
+        actualizar();
+    }
+
+    @FXML
+    private void actualizar() {
+        filas.setAll(Metricas.resumen());
+
+        StringBuilder pools = new StringBuilder();
+        for (PoolConexionesSqlite.EstadisticasPool p : DatabaseManager.estadisticas()) {
+            pools.append(String.format("Pool %s: %d/%d abiertas, %d libres, espera total %d ms, sentencias reutilizadas %d/%d%n",
+                    p.nombre(), p.conexionesAbiertas(), p.tamanoMaximo(), p.conexionesLibres(), p.esperaTotalMs(),
+                    p.sentenciasReutilizadas(), p.sentenciasReutilizadas() + p.sentenciasPreparadas()));
+        }
+        pools.append("Carril de escritura: ")
+                .append(AppContainer.getInstance().getCarrilEscritura().tareasPendientes())
+                .append(" tareas en cola");
+        lblPools.setText(pools.toString());
+
+        LocalDateTime desde = LocalDateTime.ofInstant(Instant.ofEpochMilli(Metricas.getInicioMillis()),
+                ZoneId.systemDefault());
+        lblDesde.setText("Datos acumulados desde " + desde.format(FORMATO_HORA));
+    }
+
+    @FXML
+    private void reiniciar() {
+        Metricas.reiniciar();
+        actualizar();
+    }
+
+    @FXML
+    private void volcarAlLog() {
+        logger.info("Métricas de rendimiento (manual):\n{}", Metricas.comoTexto());
+    }
+}
@@ -25,6 +25,9 @@ public class MainLayoutController {
     @FXML
     private Button btnProductos;
 
+    @FXML
+    private Button btnDiagnosticos;
+
     // Cache for loaded views
     private final Map<String, Parent> viewCache = new HashMap<>();
 
@@ -84,6 +87,12 @@ public class MainLayoutController {
         setActiveButton(btnProductos);
     }
 
+    @FXML
+    private void mostrarDiagnosticos() {
+        loadView("diagnosticos", "/fxml/diagnosticos.fxml");
+        setActiveButton(btnDiagnosticos);
+    }
+
     private void loadView(String key, String fxmlPath) {
         if (viewCache.containsKey(key)) {
             contentArea.getChildren().clear();
@@ -111,6 +120,7 @@ public class MainLayoutController {
     private void setActiveButton(Button activeButton) {
         btnVentas.getStyleClass().remove("accent");
         btnProductos.getStyleClass().remove("accent");
+        btnDiagnosticos.getStyleClass().remove("accent");
 
         activeButton.getStyleClass().add("accent");
     }
@@ -89,7 +89,7 @@ public class PanelServiciosController {
 
             String descripcion = String.format("Copia %s %s %s %s", t, p, c, f);
             ItemCarrito item = new ItemCarrito(
-                    9999, // ID ficticio
+                    resultado.servicioId(), // Servicio dueño de la fila de la matriz
                     descripcion,
                     cantidad,
                     resultado.precioCentavos(), // Precio Lista
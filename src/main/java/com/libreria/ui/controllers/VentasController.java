@@ -3,8 +3,13 @@ package com.libreria.ui.controllers;
 
 import com.libreria.core.models.Producto;
 import com.libreria.core.models.dto.ItemCarrito;
-import com.libreria.core.services.ConfiguracionService;
+import com.libreria.core.services.ListaPrecios;
 import com.libreria.data.config.AppContainer;
+import com.libreria.hardware.printer.ColaImpresion;
+import com.libreria.hardware.scanner.LectorSerie;
+import com.libreria.hardware.scanner.ProcesadorEscaneos;
+import com.libreria.ui.utils.DialogUtils;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 
 public class VentasController {
@@ -20,19 +25,19 @@ public class VentasController {
 
     // --- DEPENDENCIES ---
     private final AppContainer container;
-    private final ConfiguracionService configService;
+    private final ListaPrecios listaPrecios;
 
     public VentasController() {
         this.container = AppContainer.getInstance();
-        this.configService = container.getConfiguracionService();
+        this.listaPrecios = container.getListaPrecios();
     }
 
     @FXML
     public void initialize() {
         // 1. Initialize Sub-Controllers with Dependencies
-        buscadorProductosController.init(container.getProductoService(), configService, container.getExecutor());
+        buscadorProductosController.init(container.getProductoService(), listaPrecios, container.getExecutor());
         panelServiciosController.init(container.getPrecioService(), container.getExecutor());
-        carritoController.init(container.getVentaService(), container.getExecutor());
+        carritoController.init(container.getVentaService(), container.getStockService(), container.getExecutor());
 
         // 2. Wire Events
 
@@ -41,12 +46,36 @@ public class VentasController {
 
         // Event: Service Created -> Add to Cart
         panelServiciosController.setOnServicioCreado(item -> carritoController.agregarItem(item));
+
+        // Event: Price list imported -> reload the finder's catalog (arrives on the import thread)
+        container.agregarOyenteCatalogo(() -> Platform.runLater(buscadorProductosController::recargarCatalogo));
+
+        // Event: Stock crossed its minimum after a sale (arrives on the sale thread)
+        container.getStockService().agregarOyenteStockBajo(
+                alerta -> Platform.runLater(() -> carritoController.mostrarStockBajo(alerta)));
+
+        // Event: Barcode scanned (keyboard burst or serial scanner) -> exact lookup -> Add to Cart
+        ProcesadorEscaneos escaneos = new ProcesadorEscaneos(container.getProductoService(),
+                container.getExecutor(), VentasController::enHiloUi, new OyenteEscaneos());
+        buscadorProductosController.setOnCodigoEscaneado(escaneos::procesar);
+        LectorSerie lectorSerie = container.getLectorSerie();
+        if (lectorSerie != null) {
+            lectorSerie.setOyente(escaneos::procesar);
+        }
+
+        // Event: Printer disconnected / back (arrives on the print queue thread)
+        ColaImpresion colaImpresion = container.getColaImpresion();
+        if (colaImpresion != null) {
+            colaImpresion.agregarOyenteEstado(
+                    estado -> Platform.runLater(() -> carritoController.mostrarEstadoImpresora(estado)));
+        }
     }
 
     private void agregarProductoAlCarrito(Producto prod) {
-        // Calculate both prices based on current margins
-        int precioEfectivo = prod.getPrecioEfectivo(configService.getMargenEfectivo());
-        int precioTransferencia = prod.getPrecioTransferencia(configService.getMargenTransferencia());
+        // Both prices from the same price book (precomputed for the current margins)
+        ListaPrecios.Libro precios = listaPrecios.getLibro();
+        int precioEfectivo = precios.precioEfectivo(prod);
+        int precioTransferencia = precios.precioTransferencia(prod);
 
         ItemCarrito item = new ItemCarrito(
                 prod.id(),
@@ -58,4 +87,39 @@ public class VentasController {
         );
         carritoController.agregarItem(item);
     }
+
+    private static void enHiloUi(Runnable accion) {
+        if (Platform.isFxApplicationThread()) {
+            accion.run();
+        } else {
+            Platform.runLater(accion);
+        }
+    }
+
+    private class OyenteEscaneos implements ProcesadorEscaneos.Oyente {
+        @Override
+        public void encontrado(Producto producto, String codigo) {
+            if (producto.esServicio()) {
+                DialogUtils.showWarning("Producto Incorrecto", "El ítem es un SERVICIO. Úselo en el panel derecho.", "");
+                return;
+            }
+            agregarProductoAlCarrito(producto);
+        }
+
+        @Override
+        public void noEncontrado(String codigo) {
+            DialogUtils.showWarning("No encontrado", "No existe producto con código: " + codigo, "");
+        }
+
+        @Override
+        public void invalido(String codigo) {
+            DialogUtils.showWarning("Código inválido", "El dígito verificador de " + codigo + " no coincide.",
+                    "Vuelva a escanear el producto.");
+        }
+
+        @Override
+        public void error(String codigo, Exception causa) {
+            DialogUtils.showError("Error de Base de Datos", "No se pudo consultar el producto.", "");
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.libreria.ui.models;
+
+import com.libreria.core.models.Producto;
+import com.libreria.core.services.ListaPrecios;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filas de búsqueda ya armadas, por ID de producto, para el libro de precios vigente.
+ * Si se publica otro libro (cambiaron los márgenes) se descarta la generación completa; si cambia el catálogo
+ * se llama a {@link #invalidar()}. Seguro para usar desde los hilos de búsqueda.
+ * Con catálogos grandes las búsquedas van a la base y traen registros nuevos en cada
+ * consulta: la generación se vacía al llegar a {@link #MAX_FILAS} para no crecer sin tope.
+ */
+public final class CacheFilasProducto {
+
+    static final int MAX_FILAS = 20_000;
+
+    private final ListaPrecios listaPrecios;
+    private volatile Generacion actual;
+
+    public CacheFilasProducto(ListaPrecios listaPrecios) {
+        this.listaPrecios = listaPrecios;
+        this.actual = new Generacion(listaPrecios.getLibro());
+    }
+
+    /**
+     * Convierte los productos en filas, reutilizando las ya armadas.
+     */
+    public List<FilaProducto> filas(List<Producto> productos) {
+        Generacion generacion = vigente();
+        List<FilaProducto> filas = new ArrayList<>(productos.size());
+        for (Producto p : productos) {
+            filas.add(generacion.fila(p));
+        }
+        return filas;
+    }
+
+    /**
+     * Descarta todas las filas (el catálogo cambió).
+     */
+    public void invalidar() {
+        actual = new Generacion(listaPrecios.getLibro());
+    }
+
+    private Generacion vigente() {
+        Generacion generacion = actual;
+        ListaPrecios.Libro precios = listaPrecios.getLibro();
+        if (generacion.precios.version() != precios.version()) {
+            generacion = new Generacion(precios);
+            actual = generacion;
+        }
+        return generacion;
+    }
+
+    private static final class Generacion {
+        private final ListaPrecios.Libro precios;
+        private final Map<Integer, FilaProducto> porId = new ConcurrentHashMap<>();
+
+        Generacion(ListaPrecios.Libro precios) {
+            this.precios = precios;
+        }
+
+        FilaProducto fila(Producto p) {
+            FilaProducto fila = porId.get(p.id());
+            // El mismo ID con otro registro (producto editado) se vuelve a armar
+            if (fila == null || !fila.getProducto().equals(p)) {
+                if (porId.size() >= MAX_FILAS) {
+                    porId.clear();
+                }
+                fila = new FilaProducto(p, precios);
+                porId.put(p.id(), fila);
+            }
+            return fila;
+        }
+    }
+}
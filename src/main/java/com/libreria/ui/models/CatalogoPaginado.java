@@ -0,0 +1,158 @@
+package com.libreria.ui.models;
+
+import com.libreria.core.models.Producto;
+import com.libreria.core.models.dto.AnclaCatalogo;
+import com.libreria.core.services.ListaPrecios;
+import com.libreria.core.services.ProductoService;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * CATÁLOGO COMPLETO COMO LISTA PAGINADA
+ * --------------------------------------------------
+ * Lista de solo lectura para la tabla del buscador: informa el tamaño total del catálogo
+ * pero solo tiene en memoria las páginas que se miraron últimamente (LRU, a lo sumo
+ * {@link #MAX_PAGINAS}). Una fila que no está cargada se devuelve como null y su página
+ * se pide en el executor con una consulta keyset; al llegar se avisa a la tabla con un
+ * cambio de reemplazo sobre ese rango. Las anclas de página se calculan una vez al crear
+ * la lista: si el catálogo cambia, se crea una lista nueva.
+ * Todos los métodos de lista deben llamarse desde el hilo de JavaFX.
+ */
+public final class CatalogoPaginado extends ObservableListBase<FilaProducto> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoPaginado.class);
+
+    public static final int TAMANO_PAGINA = 200;
+    // 40 páginas de 200: hasta 8000 filas residentes, cualquiera sea el tamaño del catálogo
+    public static final int MAX_PAGINAS = 40;
+
+    private final ProductoService productoService;
+    private final ListaPrecios listaPrecios;
+    private final ExecutorService executor;
+    private final List<AnclaCatalogo> anclas;
+    private final int total;
+
+    private final Map<Integer, List<FilaProducto>> paginas = new LinkedHashMap<>(MAX_PAGINAS * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<FilaProducto>> eldest) {
+            return size() > MAX_PAGINAS;
+        }
+    };
+    private final Set<Integer> pedidas = new HashSet<>();
+    // Versión del libro de precios con la que se armaron las páginas residentes
+    private long versionPrecios;
+
+    private CatalogoPaginado(ProductoService productoService, ListaPrecios listaPrecios,
+            ExecutorService executor, List<AnclaCatalogo> anclas, int total) {
+        this.productoService = productoService;
+        this.listaPrecios = listaPrecios;
+        this.executor = executor;
+        this.anclas = anclas;
+        this.total = total;
+        this.versionPrecios = listaPrecios.getLibro().version();
+    }
+
+    /**
+     * Cuenta el catálogo y calcula las anclas. Hace I/O: llamar fuera del hilo de JavaFX.
+     */
+    public static CatalogoPaginado cargar(ProductoService productoService, ListaPrecios listaPrecios,
+            ExecutorService executor) {
+        List<AnclaCatalogo> anclas = productoService.anclasCatalogo(TAMANO_PAGINA);
+        int total = productoService.contarCatalogo();
+        // Un alta entre ambas consultas no debe dejar índices sin página
+        total = Math.min(total, anclas.size() * TAMANO_PAGINA);
+        return new CatalogoPaginado(productoService, listaPrecios, executor, anclas, total);
+    }
+
+    @Override
+    public int size() {
+        return total;
+    }
+
+    /**
+     * @return la fila, o null si su página todavía no está cargada (queda pedida).
+     */
+    @Override
+    public FilaProducto get(int index) {
+        if (index < 0 || index >= total) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        descartarSiCambiaronPrecios();
+        int pagina = index / TAMANO_PAGINA;
+        List<FilaProducto> filas = paginas.get(pagina);
+        if (filas == null) {
+            pedir(pagina);
+            return null;
+        }
+        int desplazamiento = index % TAMANO_PAGINA;
+        return desplazamiento < filas.size() ? filas.get(desplazamiento) : null;
+    }
+
+    /**
+     * Cantidad de filas residentes (para diagnóstico).
+     */
+    public int filasResidentes() {
+        int filas = 0;
+        for (List<FilaProducto> pagina : paginas.values()) {
+            filas += pagina.size();
+        }
+        return filas;
+    }
+
+    private void descartarSiCambiaronPrecios() {
+        long version = listaPrecios.getLibro().version();
+        if (version != versionPrecios) {
+            versionPrecios = version;
+            paginas.clear();
+            pedidas.clear();
+        }
+    }
+
+    private void pedir(int pagina) {
+        if (!pedidas.add(pagina)) {
+            return;
+        }
+        AnclaCatalogo ancla = anclas.get(pagina);
+        long version = versionPrecios;
+        executor.submit(() -> {
+            try {
+                ListaPrecios.Libro precios = listaPrecios.getLibro();
+                List<Producto> productos = productoService.listarPagina(ancla, TAMANO_PAGINA);
+                List<FilaProducto> filas = new ArrayList<>(productos.size());
+                for (Producto p : productos) {
+                    filas.add(new FilaProducto(p, precios));
+                }
+                Platform.runLater(() -> publicar(pagina, version, filas));
+            } catch (Exception e) {
+                logger.error("Error cargando la página {} del catálogo", pagina, e);
+                Platform.runLater(() -> pedidas.remove(pagina));
+            }
+        });
+    }
+
+    private void publicar(int pagina, long version, List<FilaProducto> filas) {
+        // Si los precios cambiaron mientras tanto, la página se vuelve a pedir al mostrarse
+        if (version != versionPrecios || !pedidas.remove(pagina)) {
+            return;
+        }
+        paginas.put(pagina, filas);
+
+        int desde = pagina * TAMANO_PAGINA;
+        int hasta = Math.min(desde + TAMANO_PAGINA, total);
+        beginChange();
+        for (int i = desde; i < hasta; i++) {
+            nextSet(i, null);
+        }
+        endChange();
+    }
+}
@@ -0,0 +1,77 @@
+package com.libreria.ui.models;
+
+import com.libreria.core.models.Carrito;
+import com.libreria.core.models.dto.ItemCarrito;
+import com.libreria.ui.utils.FormatoMoneda;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+
+/**
+ * Renglón de la tabla del carrito. Los importes de ambos medios de pago se formatean
+ * al crear o actualizar la fila; la tabla tiene una columna por medio de pago y el
+ * descuento solo cambia cuál está visible.
+ */
+public final class FilaCarrito {
+
+    private final Carrito.Clave clave;
+    private ItemCarrito item;
+
+    private final SimpleStringProperty nombre;
+    private final SimpleObjectProperty<Integer> cantidad = new SimpleObjectProperty<>(this, "cantidad");
+    private final SimpleStringProperty precioEfectivo = new SimpleStringProperty(this, "precioEfectivo");
+    private final SimpleStringProperty precioLista = new SimpleStringProperty(this, "precioLista");
+    private final SimpleStringProperty subtotalEfectivo = new SimpleStringProperty(this, "subtotalEfectivo");
+    private final SimpleStringProperty subtotalLista = new SimpleStringProperty(this, "subtotalLista");
+
+    public FilaCarrito(ItemCarrito item) {
+        this.clave = Carrito.Clave.de(item);
+        this.nombre = new SimpleStringProperty(this, "nombre", item.nombreProducto());
+        this.precioEfectivo.set(FormatoMoneda.formatear(item.getPrecioUnitario(true)));
+        this.precioLista.set(FormatoMoneda.formatear(item.getPrecioUnitario(false)));
+        actualizar(item);
+    }
+
+    /**
+     * Refleja un cambio de cantidad del mismo renglón (solo se reformatean los subtotales).
+     */
+    public void actualizar(ItemCarrito item) {
+        this.item = item;
+        cantidad.set(item.cantidad());
+        subtotalEfectivo.set(FormatoMoneda.formatear(item.calcularSubtotal(true)));
+        subtotalLista.set(FormatoMoneda.formatear(item.calcularSubtotal(false)));
+    }
+
+    public Carrito.Clave getClave() {
+        return clave;
+    }
+
+    public ItemCarrito getItem() {
+        return item;
+    }
+
+    public ReadOnlyStringProperty nombreProperty() {
+        return nombre;
+    }
+
+    public ReadOnlyObjectProperty<Integer> cantidadProperty() {
+        return cantidad;
+    }
+
+    public ReadOnlyStringProperty precioEfectivoProperty() {
+        return precioEfectivo;
+    }
+
+    public ReadOnlyStringProperty precioListaProperty() {
+        return precioLista;
+    }
+
+    public ReadOnlyStringProperty subtotalEfectivoProperty() {
+        return subtotalEfectivo;
+    }
+
+    public ReadOnlyStringProperty subtotalListaProperty() {
+        return subtotalLista;
+    }
+}
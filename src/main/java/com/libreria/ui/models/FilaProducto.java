@@ -0,0 +1,65 @@
+package com.libreria.ui.models;
+
+import com.libreria.core.models.Producto;
+import com.libreria.core.services.ListaPrecios;
+import com.libreria.ui.utils.FormatoMoneda;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleStringProperty;
+
+/**
+ * Fila de la tabla de búsqueda con los precios ya calculados y formateados para
+ * una versión de márgenes. Las celdas devuelven siempre las mismas propiedades:
+ * hacer scroll no calcula ni formatea nada.
+ */
+public final class FilaProducto {
+
+    private final Producto producto;
+    private final int precioEfectivoCentavos;
+    private final int precioTransferenciaCentavos;
+
+    private final SimpleStringProperty nombre;
+    private final SimpleStringProperty costo;
+    private final SimpleStringProperty efectivo;
+    private final SimpleStringProperty transferencia;
+
+    public FilaProducto(Producto producto, ListaPrecios.Libro precios) {
+        this.producto = producto;
+        this.precioEfectivoCentavos = precios.precioEfectivo(producto);
+        this.precioTransferenciaCentavos = precios.precioTransferencia(producto);
+
+        this.nombre = new SimpleStringProperty(this, "nombre", producto.nombre());
+        this.costo = new SimpleStringProperty(this, "costo",
+                FormatoMoneda.formatear(producto.getCosto() != null ? producto.getCosto() : 0));
+        this.efectivo = new SimpleStringProperty(this, "efectivo", FormatoMoneda.formatear(precioEfectivoCentavos));
+        this.transferencia = new SimpleStringProperty(this, "transferencia",
+                FormatoMoneda.formatear(precioTransferenciaCentavos));
+    }
+
+    public Producto getProducto() {
+        return producto;
+    }
+
+    public int getPrecioEfectivoCentavos() {
+        return precioEfectivoCentavos;
+    }
+
+    public int getPrecioTransferenciaCentavos() {
+        return precioTransferenciaCentavos;
+    }
+
+    public ReadOnlyStringProperty nombreProperty() {
+        return nombre;
+    }
+
+    public ReadOnlyStringProperty costoProperty() {
+        return costo;
+    }
+
+    public ReadOnlyStringProperty efectivoProperty() {
+        return efectivo;
+    }
+
+    public ReadOnlyStringProperty transferenciaProperty() {
+        return transferencia;
+    }
+}
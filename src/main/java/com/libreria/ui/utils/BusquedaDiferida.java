@@ -0,0 +1,114 @@
+package com.libreria.ui.utils;
+
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Búsqueda con "debounce" fuera del JavaFX Application Thread.
+ * Agrupa las teclas que llegan dentro de la ventana de espera (una ráfaga de lector de
+ * códigos dispara una sola búsqueda), calcula el resultado en el executor y publica
+ * solo el de la última consulta: las anteriores se cancelan o se descartan.
+ * Todos los métodos públicos deben llamarse desde el hilo de JavaFX.
+ */
+public class BusquedaDiferida<R> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusquedaDiferida.class);
+
+    private final ExecutorService executor;
+    private final Function<String, R> buscar;
+    private final Consumer<R> publicar;
+    private final PauseTransition espera;
+
+    private String textoPendiente = "";
+    // Texto de la última consulta lanzada y no cancelada
+    private String ultimoLanzado;
+    private Task<R> enCurso;
+    private long generacion;
+
+    public BusquedaDiferida(Duration ventana, ExecutorService executor, Function<String, R> buscar,
+            Consumer<R> publicar) {
+        this.executor = executor;
+        this.buscar = buscar;
+        this.publicar = publicar;
+        this.espera = new PauseTransition(ventana);
+        this.espera.setOnFinished(e -> lanzar(textoPendiente, null));
+    }
+
+    /**
+     * Registra una nueva consulta; reinicia la ventana de espera.
+     */
+    public void solicitar(String texto) {
+        textoPendiente = texto;
+        // Volver al texto ya buscado (ej: el campo se restauró tras leer un código) no repite la consulta
+        if (Objects.equals(texto, ultimoLanzado)) {
+            espera.stop();
+            return;
+        }
+        espera.playFromStart();
+    }
+
+    /**
+     * Ejecuta la consulta sin esperar la ventana (ej: ENTER) y corre la continuación
+     * después de publicar el resultado.
+     */
+    public void ejecutarAhora(String texto, Runnable despues) {
+        espera.stop();
+        textoPendiente = texto;
+        lanzar(texto, despues);
+    }
+
+    /**
+     * Descarta la consulta pendiente y la que esté en curso.
+     */
+    public void cancelar() {
+        espera.stop();
+        generacion++;
+        ultimoLanzado = null;
+        if (enCurso != null) {
+            enCurso.cancel(true);
+            enCurso = null;
+        }
+    }
+
+    private void lanzar(String texto, Runnable despues) {
+        cancelar();
+        final long miGeneracion = generacion;
+        ultimoLanzado = texto;
+
+        Task<R> task = new Task<>() {
+            @Override
+            protected R call() {
+                return buscar.apply(texto);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            // Solo se publica el resultado de la consulta vigente
+            if (miGeneracion != generacion) {
+                return;
+            }
+            enCurso = null;
+            publicar.accept(task.getValue());
+            if (despues != null) {
+                despues.run();
+            }
+        });
+        task.setOnFailed(e -> {
+            if (miGeneracion == generacion) {
+                enCurso = null;
+                logger.error("Error ejecutando búsqueda: {}", texto, task.getException());
+            }
+        });
+
+        enCurso = task;
+        executor.submit(task);
+    }
+}
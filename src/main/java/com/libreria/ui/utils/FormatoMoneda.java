@@ -0,0 +1,63 @@
+package com.libreria.ui.utils;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formato de montos en centavos, equivalente a String.format("$ %,.2f", centavos / 100.0)
+ * con el Locale del sistema, pero sin pasar por Formatter ni double:
+ * la variante con StringBuilder no asigna memoria.
+ */
+public final class FormatoMoneda {
+
+    private static final char SEPARADOR_MILES;
+    private static final char SEPARADOR_DECIMAL;
+
+    static {
+        DecimalFormatSymbols simbolos = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        SEPARADOR_MILES = simbolos.getGroupingSeparator();
+        SEPARADOR_DECIMAL = simbolos.getDecimalSeparator();
+    }
+
+    private FormatoMoneda() {
+    }
+
+    public static String formatear(int centavos) {
+        return formatear(centavos, new StringBuilder(20)).toString();
+    }
+
+    /**
+     * Agrega el monto formateado al final de {@code destino}.
+     */
+    public static StringBuilder formatear(int centavos, StringBuilder destino) {
+        long valor = centavos;
+        destino.append('$').append(' ');
+        if (valor < 0) {
+            destino.append('-');
+            valor = -valor;
+        }
+
+        long enteros = valor / 100;
+        int decimales = (int) (valor % 100);
+
+        // Dígitos de la parte entera con separador cada 3, de izquierda a derecha
+        long divisor = 1;
+        int digitos = 1;
+        while (divisor * 10 <= enteros) {
+            divisor *= 10;
+            digitos++;
+        }
+        for (int i = digitos; i > 0; i--) {
+            destino.append((char) ('0' + (enteros / divisor) % 10));
+            if (i > 1 && (i - 1) % 3 == 0) {
+                destino.append(SEPARADOR_MILES);
+            }
+            divisor /= 10;
+        }
+
+        destino.append(SEPARADOR_DECIMAL)
+                .append((char) ('0' + decimales / 10))
+                .append((char) ('0' + decimales % 10));
+        return destino;
+    }
+}
@@ -1,16 +1,15 @@
 -- =================================================================================
--- ARCHIVO: schema.sql (Versión Definitiva 2.0)
+-- ARCHIVO: V001__esquema_inicial.sql (antes schema.sql, Versión Definitiva 2.0)
 -- PROYECTO: POS Híbrido (Librería + Centro de Copiado)
 -- MOTOR: SQLite 3.x
 -- DESCRIPCIÓN: Esquema relacional con soporte para productos, servicios complejos y facturación AFIP.
 -- =================================================================================
 
 -- 1. CONFIGURACIÓN INICIAL
--- Activar soporte de claves foráneas (Obligatorio en cada conexión de SQLite)
-PRAGMA foreign_keys = ON;
-PRAGMA encoding = "UTF-8";
-
-BEGIN TRANSACTION;
+-- Las claves foráneas se activan en cada conexión (ver PoolConexionesSqlite) y
+-- MigradorEsquema ejecuta cada migración dentro de su propia transacción.
+-- Es idempotente (IF NOT EXISTS / INSERT OR IGNORE): aplicada sobre una base creada
+-- con el antiguo schema.sql solo la marca como versión 1.
 
 -- =================================================================================
 -- 2. TABLAS MAESTRAS (CATÁLOGOS)
@@ -148,12 +147,7 @@ CREATE TABLE IF NOT EXISTS detalle_ventas (
         ON DELETE RESTRICT -- No permitir borrar productos vendidos
 );
 
-COMMIT;
-
-//SEED DATA
-
-
-BEGIN TRANSACTION;
+-- SEED DATA
 
 -- Categorías (Usamos INSERT OR IGNORE para evitar error UNIQUE si ya existen)
 INSERT OR IGNORE INTO categorias (nombre) VALUES ('Papelería General');
@@ -206,5 +200,3 @@ CREATE TABLE IF NOT EXISTS configuracion (
 INSERT OR IGNORE INTO configuracion (clave, valor, descripcion) VALUES 
 ('MARGEN_EFECTIVO', '1.50', 'Multiplicador para precio en efectivo (Costo * Margen)'),
 ('MARGEN_TRANSFERENCIA', '1.52', 'Multiplicador para precio lista/transferencia (Costo * Margen)');
-
-COMMIT;
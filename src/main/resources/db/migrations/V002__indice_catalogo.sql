@@ -0,0 +1,6 @@
+-- =================================================================================
+-- V002: Índice para recorrer el catálogo por páginas (keyset por nombre, id)
+-- =================================================================================
+-- Cubre el filtro del buscador (activo, tipo) y el orden (nombre, id): las páginas y
+-- las anclas se leen del índice sin ordenar ni tocar la tabla para las anclas.
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo ON productos(activo, tipo, nombre, id);
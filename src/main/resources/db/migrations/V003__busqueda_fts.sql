@@ -0,0 +1,42 @@
+-- =================================================================================
+-- V003: Búsqueda de texto completo del catálogo (FTS5)
+-- =================================================================================
+-- Tabla de contenido externo: el texto vive en productos y el índice FTS solo guarda
+-- los tokens. unicode61 con remove_diacritics 2 ignora mayúsculas y acentos
+-- ("lapiz" encuentra "Lápiz"). Sin índices de prefijo: con 200k productos casi no
+-- aceleran las consultas y encarecen cada alta.
+CREATE VIRTUAL TABLE IF NOT EXISTS productos_fts USING fts5(
+    nombre,
+    descripcion,
+    sku_interno,
+    codigo_barras,
+    content = 'productos',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2'
+);
+
+-- Carga inicial desde los productos existentes
+INSERT INTO productos_fts (productos_fts) VALUES ('rebuild');
+
+-- Sincronización: cada cambio en productos se refleja en el índice dentro de la misma transacción
+CREATE TRIGGER IF NOT EXISTS trg_productos_fts_insert AFTER INSERT ON productos
+BEGIN
+    INSERT INTO productos_fts (rowid, nombre, descripcion, sku_interno, codigo_barras)
+    VALUES (new.id, new.nombre, new.descripcion, new.sku_interno, new.codigo_barras);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_productos_fts_delete AFTER DELETE ON productos
+BEGIN
+    INSERT INTO productos_fts (productos_fts, rowid, nombre, descripcion, sku_interno, codigo_barras)
+    VALUES ('delete', old.id, old.nombre, old.descripcion, old.sku_interno, old.codigo_barras);
+END;
+
+-- Solo los campos indexados: los cambios de stock o precio no tocan el índice
+CREATE TRIGGER IF NOT EXISTS trg_productos_fts_update
+AFTER UPDATE OF nombre, descripcion, sku_interno, codigo_barras ON productos
+BEGIN
+    INSERT INTO productos_fts (productos_fts, rowid, nombre, descripcion, sku_interno, codigo_barras)
+    VALUES ('delete', old.id, old.nombre, old.descripcion, old.sku_interno, old.codigo_barras);
+    INSERT INTO productos_fts (rowid, nombre, descripcion, sku_interno, codigo_barras)
+    VALUES (new.id, new.nombre, new.descripcion, new.sku_interno, new.codigo_barras);
+END;
@@ -0,0 +1,46 @@
+-- =================================================================================
+-- V004: Resúmenes de ventas (rollups) para cierres de caja y reportes
+-- =================================================================================
+-- Se actualizan en la misma transacción que inserta cada venta (ResumenVentasDao):
+-- un reporte lee unas pocas filas por día en lugar de recorrer ventas/detalle_ventas.
+-- fecha es la fecha LOCAL de la venta ('yyyy-MM-dd') y hora la hora local (0-23).
+-- Para reconstruirlos desde el historial: com.libreria.tools.ReconstruirResumenes.
+
+CREATE TABLE IF NOT EXISTS resumen_ventas_dia (
+    fecha TEXT PRIMARY KEY,
+    ventas INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS resumen_ventas_hora (
+    fecha TEXT NOT NULL,
+    hora INTEGER NOT NULL CHECK (hora BETWEEN 0 AND 23),
+    ventas INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, hora)
+);
+
+CREATE TABLE IF NOT EXISTS resumen_ventas_metodo_pago (
+    fecha TEXT NOT NULL,
+    metodo_pago TEXT NOT NULL,
+    ventas INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, metodo_pago)
+);
+
+CREATE TABLE IF NOT EXISTS resumen_ventas_producto (
+    fecha TEXT NOT NULL,
+    producto_id INTEGER NOT NULL,
+    unidades INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, producto_id)
+);
+
+-- categoria_id 0 = producto sin categoría
+CREATE TABLE IF NOT EXISTS resumen_ventas_categoria (
+    fecha TEXT NOT NULL,
+    categoria_id INTEGER NOT NULL,
+    unidades INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, categoria_id)
+);
@@ -0,0 +1,12 @@
+-- =================================================================================
+-- V005: Cola de facturación electrónica (TrabajadorFiscal)
+-- =================================================================================
+-- Reintentos con espera creciente y motivo del último error o rechazo.
+ALTER TABLE ventas ADD COLUMN intentos_fiscal INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE ventas ADD COLUMN proximo_intento_fiscal DATETIME;  -- UTC; NULL = lo antes posible
+ALTER TABLE ventas ADD COLUMN error_fiscal TEXT;
+
+-- Índice parcial: solo las ventas pendientes, el resto del historial no ocupa lugar.
+-- La condición tiene que aparecer igual en la consulta para que SQLite lo use.
+CREATE INDEX IF NOT EXISTS idx_ventas_fiscal_pendiente ON ventas(id)
+    WHERE estado_fiscal = 'PENDIENTE';
@@ -0,0 +1,22 @@
+-- =================================================================================
+-- V006: Varias cajas en el local (ReplicadorCambios)
+-- =================================================================================
+-- Registro de cambios, solo se agrega: las ventas y movimientos de stock de cada caja
+-- con su número de secuencia. Las filas de otras cajas se guardan al aplicarlas, así el
+-- máximo de secuencia por caja es lo ya recibido de ella.
+-- Una VENTA referencia la venta (sus datos se leen al exportar); un movimiento de
+-- STOCK lleva el producto por SKU (los IDs de producto pueden diferir entre cajas).
+CREATE TABLE IF NOT EXISTS cambios (
+    terminal INTEGER NOT NULL,
+    secuencia INTEGER NOT NULL,
+    tipo TEXT NOT NULL CHECK (tipo IN ('VENTA', 'STOCK')),
+    venta_id INTEGER,
+    sku TEXT,
+    cantidad INTEGER,
+    motivo TEXT,
+    fecha DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (terminal, secuencia)
+) WITHOUT ROWID;
+
+-- La exportación lee los renglones de cada venta del lote
+CREATE INDEX IF NOT EXISTS idx_detalle_ventas_venta ON detalle_ventas(venta_id);
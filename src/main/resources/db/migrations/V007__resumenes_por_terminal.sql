@@ -0,0 +1,79 @@
+-- =================================================================================
+-- V007: Resúmenes de ventas por terminal
+-- =================================================================================
+-- Con varias cajas cada base recibe también las ventas de las otras (ReplicadorCambios)
+-- y las suma a sus resúmenes. Para cerrar una caja contra su cajón hay que separar lo
+-- suyo: cada fila lleva la terminal que registró la venta, Terminal.origen(venta_id)
+-- (0 = base de una sola caja). El total del local es la suma de todas las terminales.
+--
+-- SQLite no cambia claves primarias: las tablas se recrean. Las filas existentes no
+-- dicen de qué caja vienen y pasan a la terminal 0; en una base con varias cajas, correr
+-- com.libreria.tools.ReconstruirResumenes para repartir los días anteriores.
+
+ALTER TABLE resumen_ventas_dia RENAME TO resumen_ventas_dia_v004;
+ALTER TABLE resumen_ventas_hora RENAME TO resumen_ventas_hora_v004;
+ALTER TABLE resumen_ventas_metodo_pago RENAME TO resumen_ventas_metodo_pago_v004;
+ALTER TABLE resumen_ventas_producto RENAME TO resumen_ventas_producto_v004;
+ALTER TABLE resumen_ventas_categoria RENAME TO resumen_ventas_categoria_v004;
+
+CREATE TABLE resumen_ventas_dia (
+    fecha TEXT NOT NULL,
+    terminal INTEGER NOT NULL DEFAULT 0,
+    ventas INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, terminal)
+);
+
+CREATE TABLE resumen_ventas_hora (
+    fecha TEXT NOT NULL,
+    terminal INTEGER NOT NULL DEFAULT 0,
+    hora INTEGER NOT NULL CHECK (hora BETWEEN 0 AND 23),
+    ventas INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, terminal, hora)
+);
+
+CREATE TABLE resumen_ventas_metodo_pago (
+    fecha TEXT NOT NULL,
+    terminal INTEGER NOT NULL DEFAULT 0,
+    metodo_pago TEXT NOT NULL,
+    ventas INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, terminal, metodo_pago)
+);
+
+CREATE TABLE resumen_ventas_producto (
+    fecha TEXT NOT NULL,
+    terminal INTEGER NOT NULL DEFAULT 0,
+    producto_id INTEGER NOT NULL,
+    unidades INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, terminal, producto_id)
+);
+
+-- categoria_id 0 = producto sin categoría
+CREATE TABLE resumen_ventas_categoria (
+    fecha TEXT NOT NULL,
+    terminal INTEGER NOT NULL DEFAULT 0,
+    categoria_id INTEGER NOT NULL,
+    unidades INTEGER NOT NULL DEFAULT 0,
+    total_centavos INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, terminal, categoria_id)
+);
+
+INSERT INTO resumen_ventas_dia (fecha, ventas, total_centavos)
+SELECT fecha, ventas, total_centavos FROM resumen_ventas_dia_v004;
+INSERT INTO resumen_ventas_hora (fecha, hora, ventas, total_centavos)
+SELECT fecha, hora, ventas, total_centavos FROM resumen_ventas_hora_v004;
+INSERT INTO resumen_ventas_metodo_pago (fecha, metodo_pago, ventas, total_centavos)
+SELECT fecha, metodo_pago, ventas, total_centavos FROM resumen_ventas_metodo_pago_v004;
+INSERT INTO resumen_ventas_producto (fecha, producto_id, unidades, total_centavos)
+SELECT fecha, producto_id, unidades, total_centavos FROM resumen_ventas_producto_v004;
+INSERT INTO resumen_ventas_categoria (fecha, categoria_id, unidades, total_centavos)
+SELECT fecha, categoria_id, unidades, total_centavos FROM resumen_ventas_categoria_v004;
+
+DROP TABLE resumen_ventas_dia_v004;
+DROP TABLE resumen_ventas_hora_v004;
+DROP TABLE resumen_ventas_metodo_pago_v004;
+DROP TABLE resumen_ventas_producto_v004;
+DROP TABLE resumen_ventas_categoria_v004;